@@ -1,12 +1,17 @@
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import io.github.coolcrabs.brachyura.compiler.java.JavaCompilation;
 import io.github.coolcrabs.brachyura.compiler.java.JavaCompilationResult;
@@ -26,6 +31,7 @@ import io.github.coolcrabs.brachyura.minecraft.VersionMeta;
 import io.github.coolcrabs.brachyura.processing.ProcessingEntry;
 import io.github.coolcrabs.brachyura.processing.ProcessingSink;
 import io.github.coolcrabs.brachyura.processing.ProcessorChain;
+import io.github.coolcrabs.brachyura.processing.sinks.DirectoryProcessingSink;
 import io.github.coolcrabs.brachyura.processing.sources.ProcessingSponge;
 import io.github.coolcrabs.brachyura.project.Task;
 import io.github.coolcrabs.brachyura.project.java.BuildModule;
@@ -58,6 +64,13 @@ public class Buildscript extends SimpleFabricProject {
 		"headers"
 	};
 
+	private static final MavenId[] BENCHMARK_DEPENDENCIES = new MavenId[] {
+		new MavenId("org.openjdk.jmh:jmh-core:1.35"),
+		new MavenId("org.openjdk.jmh:jmh-generator-annprocess:1.35"),
+		new MavenId("net.sf.jopt-simple:jopt-simple:5.0.4"),
+		new MavenId("org.apache.commons:commons-math3:3.2")
+	};
+
 	@Override
 	public VersionMeta createMcVersion() {
 		return Minecraft.getVersion(MC_VERSION);
@@ -103,6 +116,96 @@ public class Buildscript extends SimpleFabricProject {
 		}
 	}
 
+	@Override
+	public void getTasks(Consumer<Task> p) {
+		super.getTasks(p);
+		p.accept(Task.of("benchmark", this::benchmark));
+		p.accept(Task.of("profileShaderPack", this::profileShaderPack));
+	}
+
+	private List<Path> getHeadlessClasspath() {
+		List<Path> classpath = new ArrayList<>(context.get().getCompileDependencies());
+		classpath.add(module.get().compilationOutput.get());
+
+		return classpath;
+	}
+
+	private static void runJava(List<Path> classpath, List<String> jvmArgs, String mainClass, List<String> args) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(JvmUtil.CURRENT_JAVA_EXECUTABLE);
+		command.add("-cp");
+		command.add(classpath.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator)));
+		command.addAll(jvmArgs);
+		command.add(mainClass);
+		command.addAll(args);
+
+		int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+
+		if (exitCode != 0) {
+			throw new IllegalStateException(mainClass + " failed with exit code " + exitCode);
+		}
+	}
+
+	/**
+	 * Compiles the benchmark source set against the mod and runs it with JMH in a separate JVM. The results are written
+	 * to build/benchmarks as JSON, so that they can be compared between versions. A subset of the benchmarks can be
+	 * selected by passing a regular expression with -Diris.benchmarks=...
+	 */
+	private void benchmark() {
+		try {
+			List<Path> classpath = getHeadlessClasspath();
+
+			for (MavenId dependency : BENCHMARK_DEPENDENCIES) {
+				classpath.add(Maven.getMavenJarDep(Maven.MAVEN_CENTRAL, dependency).jar);
+			}
+
+			Path benchmarkDir = getBuildDir().resolve("benchmarks");
+			Path classesDir = benchmarkDir.resolve("classes");
+
+			// The JMH annotation processor is picked up from the classpath, and generates the actual benchmark classes.
+			JavaCompilationResult compilation = new JavaCompilation()
+				.addOption(JvmUtil.compileArgs(JvmUtil.CURRENT_JAVA_VERSION, 8))
+				.addClasspath(classpath)
+				.addSourceDir(getProjectDir().resolve("src").resolve("benchmark").resolve("java"))
+				.compile();
+			compilation.getInputs(new DirectoryProcessingSink(classesDir));
+
+			classpath.add(classesDir);
+
+			runJava(classpath,
+				Collections.singletonList("-Diris.benchmark.shaderpacks=" + getProjectDir().resolve("src").resolve("test").resolve("resources").resolve("shaderpacks")),
+				"org.openjdk.jmh.Main",
+				Arrays.asList("-rf", "json", "-rff", benchmarkDir.resolve("iris-" + getVersion() + ".json").toString(),
+					System.getProperty("iris.benchmarks", ".*")));
+		} catch (IOException | InterruptedException e) {
+			throw Util.sneak(e);
+		}
+	}
+
+	/**
+	 * Loads the shader pack given with -Diris.pack=... headlessly and writes a flame graph compatible profile of the
+	 * time spent in each phase of loading to build/pack-profiles.
+	 */
+	private void profileShaderPack() {
+		String pack = System.getProperty("iris.pack");
+
+		if (pack == null) {
+			throw new IllegalArgumentException("Specify the shader pack to profile with -Diris.pack=<pack directory or zip>");
+		}
+
+		try {
+			Path packPath = Paths.get(pack).toAbsolutePath();
+			Path reportDir = Files.createDirectories(getBuildDir().resolve("pack-profiles"));
+			Path report = reportDir.resolve(packPath.getFileName() + ".folded");
+
+			runJava(getHeadlessClasspath(), Collections.emptyList(),
+				"net.coderbot.iris.shaderpack.profiling.HeadlessShaderPackLoader",
+				Arrays.asList(packPath.toString(), report.toString()));
+		} catch (IOException | InterruptedException e) {
+			throw Util.sneak(e);
+		}
+	}
+
 	@Override
 	public String getMavenGroup() {
 		return "net.coderbot.iris_mc" + (MC_VERSION.replace('.', '_'));
@@ -0,0 +1,52 @@
+package net.coderbot.iris.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import net.coderbot.iris.shaderpack.StringPair;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Shared inputs for the benchmarks. The shader pack benchmarks use the same test shader packs as the unit tests, which
+ * the benchmark task points to with the {@code iris.benchmark.shaderpacks} system property.
+ */
+final class BenchmarkSupport {
+	/**
+	 * The same environment defines that the unit tests use, so that the results don't depend on the machine that the
+	 * benchmarks happen to run on.
+	 */
+	static final ImmutableList<StringPair> ENVIRONMENT_DEFINES = ImmutableList.of(
+		new StringPair("MC_OS_WINDOWS", ""),
+		new StringPair("MC_VERSION", "11605"),
+		new StringPair("MC_GL_VERSION", "460"),
+		new StringPair("MC_GLSL_VERSION", "460"),
+		new StringPair("MC_GL_RENDERER_GEFORCE", ""),
+		new StringPair("MC_GL_VENDOR_NVIDIA", ""),
+		new StringPair("MC_RENDER_QUALITY", "1.0"),
+		new StringPair("MC_SHADOW_QUALITY", "1.0"),
+		new StringPair("MC_NORMAL_MAP", ""),
+		new StringPair("MC_SPECULAR_MAP", ""),
+		new StringPair("MC_HAND_DEPTH", "0.125")
+	);
+
+	private BenchmarkSupport() {
+	}
+
+	static Path getTestShaderPackPath(String name) {
+		Path shaderPacks = Paths.get(System.getProperty("iris.benchmark.shaderpacks", "src/test/resources/shaderpacks"));
+
+		return shaderPacks.resolve(name).resolve("shaders");
+	}
+
+	static String readTestShader(String pack, String name) {
+		try {
+			return new String(Files.readAllBytes(getTestShaderPackPath(pack).resolve(name)), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Couldn't read " + name + " from the test shader pack " + pack, e);
+		}
+	}
+}
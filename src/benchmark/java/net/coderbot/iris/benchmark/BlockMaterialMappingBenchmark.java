@@ -0,0 +1,103 @@
+package net.coderbot.iris.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import net.coderbot.iris.block_rendering.BlockMaterialMapping;
+import net.coderbot.iris.shaderpack.materialmap.BlockEntry;
+import net.coderbot.iris.shaderpack.materialmap.NamespacedId;
+import net.minecraft.core.Registry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Property;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the block state ID map and looking up the ID of every block state, as happens when building chunk
+ * meshes. The test shader packs only map a handful of blocks, so this maps every registered block instead, with a
+ * property predicate for every block that has properties to cover that path as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockMaterialMappingBenchmark {
+	private static final int DISTINCT_IDS = 256;
+
+	private Int2ObjectMap<List<BlockEntry>> blockPropertiesMap;
+	private Object2IntMap<BlockState> blockStateIds;
+	private BlockState[] blockStates;
+
+	@Setup
+	public void setup() {
+		Bootstrap.bootStrap();
+
+		Int2ObjectMap<List<BlockEntry>> entriesById = new Int2ObjectOpenHashMap<>();
+		int index = 0;
+
+		for (Block block : Registry.BLOCK) {
+			ResourceLocation location = Registry.BLOCK.getKey(block);
+			NamespacedId id = new NamespacedId(location.getNamespace(), location.getPath());
+			Map<String, String> predicates = Collections.emptyMap();
+
+			if (!block.getStateDefinition().getProperties().isEmpty()) {
+				Property<?> property = block.getStateDefinition().getProperties().iterator().next();
+				predicates = ImmutableMap.of(property.getName(), getFirstValueName(property));
+			}
+
+			entriesById.computeIfAbsent(index++ % DISTINCT_IDS, intId -> new ArrayList<>())
+				.add(new BlockEntry(id, predicates));
+		}
+
+		blockPropertiesMap = entriesById;
+		blockStateIds = BlockMaterialMapping.createBlockStateIdMap(blockPropertiesMap);
+
+		List<BlockState> states = new ArrayList<>();
+
+		for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+			states.add(state);
+		}
+
+		blockStates = states.toArray(new BlockState[0]);
+	}
+
+	private static <T extends Comparable<T>> String getFirstValueName(Property<T> property) {
+		return property.getName(property.getPossibleValues().iterator().next());
+	}
+
+	@Benchmark
+	public Object2IntMap<BlockState> createBlockStateIdMap() {
+		return BlockMaterialMapping.createBlockStateIdMap(blockPropertiesMap);
+	}
+
+	@Benchmark
+	public int lookupAllBlockStates() {
+		int sum = 0;
+
+		for (BlockState state : blockStates) {
+			sum += blockStateIds.getOrDefault(state, -1);
+		}
+
+		return sum;
+	}
+}
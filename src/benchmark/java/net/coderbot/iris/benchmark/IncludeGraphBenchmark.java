@@ -0,0 +1,103 @@
+package net.coderbot.iris.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
+import net.coderbot.iris.shaderpack.include.IncludeGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures include graph construction. The test shader packs don't use any includes, so this generates a pack with a
+ * structure similar to that of larger real-world packs: many programs that all include the same set of library files,
+ * which in turn include shared settings and utility files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncludeGraphBenchmark {
+	private static final int LIBRARY_FILES = 24;
+	private static final int FILLER_LINES = 200;
+
+	@Param({"16", "64"})
+	public int programs;
+
+	private Path root;
+	private ImmutableList<AbsolutePackPath> startingPaths;
+
+	@Setup
+	public void setup() throws IOException {
+		root = Files.createTempDirectory("iris-include-benchmark");
+		Files.createDirectories(root.resolve("lib"));
+
+		write("lib/settings.glsl", "#define SHADOWS\n#define GODRAYS 32 // [16 32 64]\n");
+		write("lib/util.glsl", "#include \"/lib/settings.glsl\"\n" + filler("util"));
+
+		StringBuilder program = new StringBuilder("#version 120\n\n");
+
+		for (int i = 0; i < LIBRARY_FILES; i++) {
+			write("lib/feature" + i + ".glsl", "#include \"/lib/settings.glsl\"\n#include \"/lib/util.glsl\"\n"
+				+ filler("feature" + i));
+			program.append("#include \"/lib/feature").append(i).append(".glsl\"\n");
+		}
+
+		program.append("\nvoid main() {\n}\n");
+
+		ImmutableList.Builder<AbsolutePackPath> paths = ImmutableList.builder();
+
+		for (int i = 0; i < programs; i++) {
+			String name = "program" + i + (i % 2 == 0 ? ".vsh" : ".fsh");
+			write(name, program.toString());
+			paths.add(AbsolutePackPath.fromAbsolutePath("/" + name));
+		}
+
+		startingPaths = paths.build();
+	}
+
+	private void write(String path, String content) throws IOException {
+		Files.write(root.resolve(path), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String filler(String name) {
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < FILLER_LINES; i++) {
+			builder.append("float ").append(name).append("_").append(i).append("(float x) { return x * ").append(i)
+				.append(".0; }\n");
+		}
+
+		return builder.toString();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(root)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public IncludeGraph buildIncludeGraph() {
+		return new IncludeGraph(root, startingPaths);
+	}
+}
@@ -0,0 +1,88 @@
+package net.coderbot.iris.benchmark;
+
+import net.coderbot.iris.texture.format.LabPBRTextureFormat;
+import net.coderbot.iris.texture.mipmap.AbstractMipmapGenerator;
+import net.coderbot.iris.texture.pbr.loader.AtlasPBRLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generating a full mip chain with the custom PBR mipmap generators.
+ *
+ * <p>{@link AbstractMipmapGenerator#generateMipLevels} works on native images, which need the LWJGL natives and would
+ * mostly measure the native image accessors. This runs the same loop over plain arrays instead, so that it measures
+ * the blend functions themselves.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MipmapBenchmark {
+	@Param({"16", "256"})
+	public int size;
+
+	private int[] image;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(1234);
+
+		image = new int[size * size];
+
+		for (int i = 0; i < image.length; i++) {
+			image[i] = random.nextInt();
+		}
+	}
+
+	@Benchmark
+	public int[][] linearMipmaps() {
+		return generateMipLevels(AtlasPBRLoader.LINEAR_MIPMAP_GENERATOR);
+	}
+
+	@Benchmark
+	public int[][] specularMipmaps() {
+		return generateMipLevels(LabPBRTextureFormat.SPECULAR_MIPMAP_GENERATOR);
+	}
+
+	private int[][] generateMipLevels(AbstractMipmapGenerator generator) {
+		int levels = Integer.numberOfTrailingZeros(size);
+		int[][] images = new int[levels + 1][];
+		images[0] = image;
+
+		for (int level = 1; level <= levels; level++) {
+			int[] previous = images[level - 1];
+			int previousSize = size >> (level - 1);
+			int mipSize = size >> level;
+			int[] mipmap = new int[mipSize * mipSize];
+
+			for (int x = 0; x < mipSize; x++) {
+				for (int y = 0; y < mipSize; y++) {
+					mipmap[y * mipSize + x] = generator.blend(
+						previous[(y * 2) * previousSize + x * 2],
+						previous[(y * 2) * previousSize + x * 2 + 1],
+						previous[(y * 2 + 1) * previousSize + x * 2],
+						previous[(y * 2 + 1) * previousSize + x * 2 + 1]
+					);
+				}
+			}
+
+			images[level] = mipmap;
+		}
+
+		return images;
+	}
+}
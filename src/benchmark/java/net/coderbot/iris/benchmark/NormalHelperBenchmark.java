@@ -0,0 +1,145 @@
+package net.coderbot.iris.benchmark;
+
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vertices.NormalHelper;
+import net.coderbot.iris.vertices.QuadView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-quad work that the extended vertex format adds to chunk meshing: computing the face normal and the
+ * tangent, and packing both of them for the compact vertex format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalHelperBenchmark {
+	private static final int QUADS = 4096;
+
+	private final Vector3f normal = new Vector3f();
+
+	private ArrayQuadView[] quads;
+	private Vector3f[] normals;
+	private int[] tangents;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(1234);
+
+		quads = new ArrayQuadView[QUADS];
+		normals = new Vector3f[QUADS];
+		tangents = new int[QUADS];
+
+		for (int i = 0; i < QUADS; i++) {
+			quads[i] = ArrayQuadView.random(random);
+			normals[i] = new Vector3f();
+			NormalHelper.computeFaceNormal(normals[i], quads[i]);
+			tangents[i] = NormalHelper.computeTangent(normals[i].x, normals[i].y, normals[i].z, quads[i]);
+		}
+	}
+
+	@Benchmark
+	public void computeFaceNormal(Blackhole blackhole) {
+		for (ArrayQuadView quad : quads) {
+			NormalHelper.computeFaceNormal(normal, quad);
+			blackhole.consume(normal.x + normal.y + normal.z);
+		}
+	}
+
+	@Benchmark
+	public void computeTangent(Blackhole blackhole) {
+		for (int i = 0; i < QUADS; i++) {
+			Vector3f quadNormal = normals[i];
+			blackhole.consume(NormalHelper.computeTangent(quadNormal.x, quadNormal.y, quadNormal.z, quads[i]));
+		}
+	}
+
+	@Benchmark
+	public void packOctahedralNormalTangent(Blackhole blackhole) {
+		for (int i = 0; i < QUADS; i++) {
+			blackhole.consume(NormalHelper.packOctahedralNormalTangent(normals[i], tangents[i]));
+		}
+	}
+
+	/**
+	 * A quad backed by plain arrays, so that the benchmark doesn't also measure reading from a vertex buffer.
+	 */
+	private static final class ArrayQuadView implements QuadView {
+		private final float[] x = new float[4];
+		private final float[] y = new float[4];
+		private final float[] z = new float[4];
+		private final float[] u = new float[4];
+		private final float[] v = new float[4];
+
+		/**
+		 * Creates a planar quad with a random orientation and texture region, similar to the faces of rotated block
+		 * models.
+		 */
+		static ArrayQuadView random(Random random) {
+			ArrayQuadView quad = new ArrayQuadView();
+
+			Vector3f origin = new Vector3f(random.nextFloat() * 16, random.nextFloat() * 16, random.nextFloat() * 16);
+			Vector3f edgeA = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+			Vector3f edgeB = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+
+			float minU = random.nextFloat();
+			float minV = random.nextFloat();
+			float size = 1.0f / 64.0f;
+
+			float[][] corners = {{0, 0}, {0, 1}, {1, 1}, {1, 0}};
+
+			for (int i = 0; i < 4; i++) {
+				float a = corners[i][0];
+				float b = corners[i][1];
+
+				quad.x[i] = origin.x + edgeA.x * a + edgeB.x * b;
+				quad.y[i] = origin.y + edgeA.y * a + edgeB.y * b;
+				quad.z[i] = origin.z + edgeA.z * a + edgeB.z * b;
+				quad.u[i] = minU + size * a;
+				quad.v[i] = minV + size * b;
+			}
+
+			return quad;
+		}
+
+		@Override
+		public float x(int index) {
+			return x[index];
+		}
+
+		@Override
+		public float y(int index) {
+			return y[index];
+		}
+
+		@Override
+		public float z(int index) {
+			return z[index];
+		}
+
+		@Override
+		public float u(int index) {
+			return u[index];
+		}
+
+		@Override
+		public float v(int index) {
+			return v[index];
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package net.coderbot.iris.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
+import net.coderbot.iris.shaderpack.option.OptionAnnotatedSource;
+import net.coderbot.iris.shaderpack.option.OptionSet;
+import net.coderbot.iris.shaderpack.option.values.MutableOptionValues;
+import net.coderbot.iris.shaderpack.option.values.OptionValues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures option discovery and application on the programs of the "options" test shader pack, using the same option
+ * changes as {@code OptionApplyTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptionBenchmark {
+	private static final AbsolutePackPath VERTEX_PATH = AbsolutePackPath.fromAbsolutePath("/gbuffers_basic.vsh");
+	private static final AbsolutePackPath FRAGMENT_PATH = AbsolutePackPath.fromAbsolutePath("/gbuffers_basic.fsh");
+
+	private String vertex;
+	private String fragment;
+	private OptionAnnotatedSource vertexAnnotated;
+	private OptionAnnotatedSource fragmentAnnotated;
+	private OptionValues values;
+
+	@Setup
+	public void setup() {
+		vertex = BenchmarkSupport.readTestShader("options", "gbuffers_basic.vsh");
+		fragment = BenchmarkSupport.readTestShader("options", "gbuffers_basic.fsh");
+
+		vertexAnnotated = new OptionAnnotatedSource(vertex);
+		fragmentAnnotated = new OptionAnnotatedSource(fragment);
+
+		values = new MutableOptionValues(discover(vertexAnnotated, fragmentAnnotated), ImmutableMap.of(
+			"SHADOWS", "false",
+			"ANNOYING_STUFF", "true",
+			"GODRAYS", "16",
+			"shadowDistance", "64"
+		));
+	}
+
+	private static OptionSet discover(OptionAnnotatedSource vertexAnnotated, OptionAnnotatedSource fragmentAnnotated) {
+		OptionSet.Builder builder = OptionSet.builder();
+
+		builder.addAll(vertexAnnotated.getOptionSet(VERTEX_PATH, vertexAnnotated.getBooleanDefineReferences().keySet()));
+		builder.addAll(fragmentAnnotated.getOptionSet(FRAGMENT_PATH, fragmentAnnotated.getBooleanDefineReferences().keySet()));
+
+		return builder.build();
+	}
+
+	@Benchmark
+	public OptionSet discoverOptions() {
+		return discover(new OptionAnnotatedSource(vertex), new OptionAnnotatedSource(fragment));
+	}
+
+	@Benchmark
+	public String applyOptions() {
+		return vertexAnnotated.apply(values) + fragmentAnnotated.apply(values);
+	}
+}
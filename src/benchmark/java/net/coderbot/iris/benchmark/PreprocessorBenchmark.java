@@ -0,0 +1,46 @@
+package net.coderbot.iris.benchmark;
+
+import net.coderbot.iris.shaderpack.preprocessor.JcppProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreprocessorBenchmark {
+	@Param({"options", "directives", "ambient_occlusion_out_of_bounds"})
+	public String pack;
+
+	private String vertex;
+	private String fragment;
+
+	@Setup
+	public void setup() {
+		vertex = BenchmarkSupport.readTestShader(pack, "gbuffers_basic.vsh");
+		fragment = BenchmarkSupport.readTestShader(pack, "gbuffers_basic.fsh");
+	}
+
+	@Benchmark
+	public String preprocessVertex() {
+		return JcppProcessor.glslPreprocessSource(vertex, BenchmarkSupport.ENVIRONMENT_DEFINES);
+	}
+
+	@Benchmark
+	public String preprocessFragment() {
+		return JcppProcessor.glslPreprocessSource(fragment, BenchmarkSupport.ENVIRONMENT_DEFINES);
+	}
+}
@@ -0,0 +1,101 @@
+package net.coderbot.iris.benchmark;
+
+import net.coderbot.iris.shadows.frustum.BoxCuller;
+import net.coderbot.iris.shadows.frustum.advanced.AabbBatch;
+import net.coderbot.iris.shadows.frustum.advanced.AdvancedShadowCullingFrustum;
+import net.coderbot.iris.vendored.joml.Matrix4f;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares culling the chunk sections around the player against the advanced shadow frustum one box at a time with
+ * culling them all at once using {@link AdvancedShadowCullingFrustum#cullBatch(AabbBatch)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShadowFrustumBenchmark {
+	private static final int RADIUS_SECTIONS = 12;
+	private static final int HEIGHT_SECTIONS = 16;
+
+	private static final double CAMERA_X = 8.5;
+	private static final double CAMERA_Y = 72.0;
+	private static final double CAMERA_Z = 8.5;
+
+	private AdvancedShadowCullingFrustum frustum;
+	private AabbBatch batch;
+	private float[] boxes;
+
+	@Setup
+	public void setup() {
+		Matrix4f projection = new Matrix4f().perspective((float) Math.toRadians(70.0), 16.0f / 9.0f, 0.05f, 256.0f);
+		Matrix4f view = new Matrix4f().lookAt(0.0f, 0.0f, 0.0f, 0.6f, -0.2f, 0.8f, 0.0f, 1.0f, 0.0f);
+		Vector3f shadowLight = new Vector3f(0.3f, 0.9f, 0.2f).normalize();
+
+		frustum = new AdvancedShadowCullingFrustum(view, projection, shadowLight, new BoxCuller(160.0));
+		frustum.prepare(CAMERA_X, CAMERA_Y, CAMERA_Z);
+
+		int diameter = RADIUS_SECTIONS * 2 + 1;
+		boxes = new float[diameter * diameter * HEIGHT_SECTIONS * 6];
+		batch = new AabbBatch();
+
+		int index = 0;
+
+		for (int x = -RADIUS_SECTIONS; x <= RADIUS_SECTIONS; x++) {
+			for (int z = -RADIUS_SECTIONS; z <= RADIUS_SECTIONS; z++) {
+				for (int y = 0; y < HEIGHT_SECTIONS; y++) {
+					float minX = x * 16;
+					float minY = y * 16;
+					float minZ = z * 16;
+
+					boxes[index++] = minX;
+					boxes[index++] = minY;
+					boxes[index++] = minZ;
+					boxes[index++] = minX + 16;
+					boxes[index++] = minY + 16;
+					boxes[index++] = minZ + 16;
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public int cullIndividually() {
+		int visible = 0;
+
+		for (int i = 0; i < boxes.length; i += 6) {
+			if (frustum.fastAabbTest(boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3], boxes[i + 4], boxes[i + 5])) {
+				visible++;
+			}
+		}
+
+		return visible;
+	}
+
+	@Benchmark
+	public int cullBatch() {
+		batch.clear();
+
+		for (int i = 0; i < boxes.length; i += 6) {
+			batch.add(boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3], boxes[i + 4], boxes[i + 5]);
+		}
+
+		frustum.cullBatch(batch);
+
+		return batch.getVisible().cardinality();
+	}
+}
@@ -0,0 +1,79 @@
+package net.coderbot.iris.benchmark;
+
+import kroppeb.stareval.element.ExpressionElement;
+import kroppeb.stareval.exception.ParseException;
+import kroppeb.stareval.parser.BinaryOp;
+import kroppeb.stareval.parser.Parser;
+import kroppeb.stareval.parser.ParserOptions;
+import kroppeb.stareval.parser.UnaryOp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing expressions like the ones used by custom uniforms and variables in shaders.properties, with the same
+ * operators as the parser tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StarevalBenchmark {
+	private static final ParserOptions OPTIONS;
+
+	private static final String[] EXPRESSIONS = {
+		"clamp(rainStrength * 2.0 - 1.0, 0.0, 1.0)",
+		"if(worldTime < 12700 || worldTime > 23250, 1.0, 0.0)",
+		"smooth(1, if(isEyeInWater == 1, 1.0, 0.0), 2, 2)",
+		"(sunAngle < 0.5) * 2.0 - 1.0",
+		"max(eyeBrightnessSmooth / 240.0, 0.0) * (1.0 - rainStrength * 0.75)",
+		"frameTimeCounter * 0.5 + sin(frameTimeCounter / 16.0) * 0.25",
+		"!(heldItemId == 50 || heldItemId2 == 50) && -blindness < 0.5",
+		"pow(clamp(1.0 - abs(sunAngle - 0.25) * 4.0, 0.0, 1.0), 2.0) % 1.0"
+	};
+
+	static {
+		ParserOptions.Builder builder = new ParserOptions.Builder();
+
+		builder.addBinaryOp("*", new BinaryOp("multiply", 0));
+		builder.addBinaryOp("/", new BinaryOp("divide", 0));
+		builder.addBinaryOp("%", new BinaryOp("remainder", 0));
+
+		builder.addBinaryOp("+", new BinaryOp("add", 1));
+		builder.addBinaryOp("-", new BinaryOp("subtract", 1));
+
+		builder.addBinaryOp("==", new BinaryOp("equals", 2));
+		builder.addBinaryOp("!=", new BinaryOp("notEquals", 2));
+		builder.addBinaryOp("<", new BinaryOp("lessThan", 2));
+		builder.addBinaryOp(">", new BinaryOp("moreThan", 2));
+		builder.addBinaryOp("<=", new BinaryOp("lessThanOrEquals", 2));
+		builder.addBinaryOp(">=", new BinaryOp("moreThanOrEquals", 2));
+
+		builder.addBinaryOp("&&", new BinaryOp("and", 3));
+		builder.addBinaryOp("||", new BinaryOp("or", 3));
+
+		builder.addUnaryOp("!", new UnaryOp("not"));
+		builder.addUnaryOp("-", new UnaryOp("negate"));
+
+		OPTIONS = builder.build();
+	}
+
+	@Benchmark
+	public void parseExpressions(Blackhole blackhole) throws ParseException {
+		for (String expression : EXPRESSIONS) {
+			ExpressionElement parsed = Parser.parse(expression, OPTIONS);
+			blackhole.consume(parsed);
+		}
+	}
+}
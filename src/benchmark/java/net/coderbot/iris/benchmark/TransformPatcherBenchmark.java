@@ -0,0 +1,75 @@
+package net.coderbot.iris.benchmark;
+
+import net.coderbot.iris.gbuffer_overrides.matching.InputAvailability;
+import net.coderbot.iris.pipeline.transform.PatchShaderType;
+import net.coderbot.iris.pipeline.transform.TransformPatcher;
+import net.coderbot.iris.shaderpack.preprocessor.JcppProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures patching of the preprocessed programs of the test shader packs.
+ *
+ * <p>The patcher caches its results by source, so every invocation appends a unique comment to the vertex shader to
+ * make sure that the shaders are actually parsed and transformed each time.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformPatcherBenchmark {
+	private static final InputAvailability ALL_INPUTS = new InputAvailability(true, true, true);
+
+	@Param({"options", "directives", "ambient_occlusion_out_of_bounds"})
+	public String pack;
+
+	private String vertex;
+	private String fragment;
+	private long invocation;
+
+	@Setup
+	public void setup() {
+		vertex = JcppProcessor.glslPreprocessSource(BenchmarkSupport.readTestShader(pack, "gbuffers_basic.vsh"),
+			BenchmarkSupport.ENVIRONMENT_DEFINES);
+		fragment = JcppProcessor.glslPreprocessSource(BenchmarkSupport.readTestShader(pack, "gbuffers_basic.fsh"),
+			BenchmarkSupport.ENVIRONMENT_DEFINES);
+	}
+
+	private String uniqueVertex() {
+		return vertex + "\n// " + invocation++ + "\n";
+	}
+
+	@Benchmark
+	public Map<PatchShaderType, String> patchAttributes() {
+		return TransformPatcher.patchAttributes(uniqueVertex(), null, fragment, ALL_INPUTS);
+	}
+
+	@Benchmark
+	public Map<PatchShaderType, String> patchSodiumTerrain() {
+		return TransformPatcher.patchSodiumTerrain(uniqueVertex(), null, fragment, false);
+	}
+
+	@Benchmark
+	public Map<PatchShaderType, String> patchSodiumTerrainCompact() {
+		return TransformPatcher.patchSodiumTerrain(uniqueVertex(), null, fragment, true);
+	}
+
+	@Benchmark
+	public Map<PatchShaderType, String> patchComposite() {
+		return TransformPatcher.patchComposite(uniqueVertex(), null, fragment);
+	}
+}
@@ -1,7 +1,11 @@
 package net.coderbot.batchedentityrendering.impl;
 
+import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.BufferUploader;
+import com.mojang.blaze3d.vertex.VertexFormat;
+
+import java.util.List;
 
 public class BufferSegmentRenderer {
     private final BufferBuilder fakeBufferBuilder;
@@ -29,4 +33,39 @@ public class BufferSegmentRenderer {
         BufferUploader.end(fakeBufferBuilder);
         fakeBufferBuilderExt.teardownBufferSlice();
     }
+
+    /**
+     * Like drawInner(), but draws segments that were already copied one after another into the currently bound vertex
+     * buffer, starting at the given offset in bytes. The vertex format only needs to be set up once for all segments,
+     * since each segment is drawn by its first vertex relative to the start of the run.
+     */
+    public void drawInnerFromBuffer(List<BufferSegment> segments, long offset) {
+        VertexFormat format = null;
+        int firstVertex = 0;
+
+        for (BufferSegment segment : segments) {
+            BufferBuilder.DrawState drawState = segment.getDrawState();
+
+            if (drawState.vertexCount() > 0) {
+                if (drawState.format() != format) {
+                    if (format != null) {
+                        format.clearBufferState();
+                    }
+
+                    format = drawState.format();
+                    format.setupBufferState(offset);
+                    firstVertex = 0;
+                }
+
+                GlStateManager._drawArrays(drawState.mode(), firstVertex, drawState.vertexCount());
+                firstVertex += drawState.vertexCount();
+            }
+
+            offset += SegmentStreamingBuffer.getByteSize(segment);
+        }
+
+        if (format != null) {
+            format.clearBufferState();
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package net.coderbot.batchedentityrendering.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import net.minecraft.core.Registry;
+import net.minecraft.world.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Groups the entities that are about to be rendered by type, so that entities of the same type are rendered together
+ * and entity batching works well.
+ *
+ * <p>When front-to-back sorting is enabled, groups are also ordered by the distance of their closest entity to the
+ * camera, and the entities within a group by their own distance. Opaque geometry closer to the camera is then drawn
+ * first, so that the depth test can reject the fragments of entities hidden behind it before the fragment shader runs.
+ * This matters with shader packs, whose gbuffer fragment shaders can be expensive.</p>
+ *
+ * <p>All of the sorting state is kept in arrays that are reused across frames, and the sorted entities are returned
+ * through a reused iterator, so that sorting doesn't allocate anything once the arrays are large enough.</p>
+ */
+public class EntityListSorter {
+	private final List<Entity> entities = new ArrayList<>();
+	private int[] order = new int[0];
+	private int[] typeIds = new int[0];
+	private float[] distances = new float[0];
+	private float[] groupDistances = new float[0];
+
+	private boolean frontToBack;
+	private final IntComparator comparator = this::compare;
+	private final SortedIterator sortedIterator = new SortedIterator();
+
+	/**
+	 * Sorts the given entities. The returned iterator is only valid until the next call to this method.
+	 */
+	public Iterator<Entity> sort(Iterator<Entity> iterator, double cameraX, double cameraY, double cameraZ, boolean frontToBack) {
+		iterator.forEachRemaining(entities::add);
+
+		int count = entities.size();
+
+		if (order.length < count) {
+			int capacity = Math.max(count, order.length * 2);
+
+			order = new int[capacity];
+			typeIds = new int[capacity];
+			distances = new float[capacity];
+		}
+
+		for (int i = 0; i < count; i++) {
+			Entity entity = entities.get(i);
+			int typeId = Registry.ENTITY_TYPE.getId(entity.getType());
+
+			if (typeId >= groupDistances.length) {
+				groupDistances = Arrays.copyOf(groupDistances, Math.max(typeId + 1, groupDistances.length * 2));
+			}
+
+			order[i] = i;
+			typeIds[i] = typeId;
+			distances[i] = (float) entity.distanceToSqr(cameraX, cameraY, cameraZ);
+			groupDistances[typeId] = Float.POSITIVE_INFINITY;
+		}
+
+		if (frontToBack) {
+			for (int i = 0; i < count; i++) {
+				groupDistances[typeIds[i]] = Math.min(groupDistances[typeIds[i]], distances[i]);
+			}
+		}
+
+		this.frontToBack = frontToBack;
+		IntArrays.quickSort(order, 0, count, comparator);
+
+		sortedIterator.reset(count);
+
+		return sortedIterator;
+	}
+
+	private int compare(int a, int b) {
+		if (frontToBack) {
+			int byGroupDistance = Float.compare(groupDistances[typeIds[a]], groupDistances[typeIds[b]]);
+
+			if (byGroupDistance != 0) {
+				return byGroupDistance;
+			}
+		}
+
+		int byType = Integer.compare(typeIds[a], typeIds[b]);
+
+		if (byType != 0) {
+			return byType;
+		}
+
+		if (frontToBack) {
+			return Float.compare(distances[a], distances[b]);
+		} else {
+			// Keep the original order within a group
+			return Integer.compare(a, b);
+		}
+	}
+
+	private class SortedIterator implements Iterator<Entity> {
+		private int index;
+		private int count;
+
+		private void reset(int count) {
+			this.index = 0;
+			this.count = count;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (index < count) {
+				return true;
+			}
+
+			// Don't keep entities alive until the next frame
+			entities.clear();
+
+			return false;
+		}
+
+		@Override
+		public Entity next() {
+			if (index >= count) {
+				throw new NoSuchElementException();
+			}
+
+			return entities.get(order[index++]);
+		}
+	}
+}
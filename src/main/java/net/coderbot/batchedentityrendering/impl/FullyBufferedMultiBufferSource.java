@@ -4,6 +4,7 @@ import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import net.coderbot.batchedentityrendering.impl.ordering.GraphTranslucencyRenderOrderManager;
 import net.coderbot.batchedentityrendering.impl.ordering.RenderOrderManager;
+import net.coderbot.iris.Iris;
 import net.coderbot.iris.fantastic.WrappingMultiBufferSource;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.MultiBufferSource;
@@ -17,6 +18,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
 public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSource implements MemoryTrackingBuffer, Groupable, WrappingMultiBufferSource {
@@ -32,14 +34,23 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 	private int renderTypes;
 
 	private final BufferSegmentRenderer segmentRenderer;
+	private SegmentStreamingBuffer streamingBuffer;
 	private final UnflushableWrapper unflushableWrapper;
 	private final List<Function<RenderType, RenderType>> wrappingFunctionStack;
 	private Function<RenderType, RenderType> wrappingFunction = null;
 
 	public FullyBufferedMultiBufferSource() {
+		this(() -> false);
+	}
+
+	/**
+	 * @param opaqueFrontToBack whether opaque render types are drawn in the order that they were first used, see
+	 *                          {@link GraphTranslucencyRenderOrderManager}
+	 */
+	public FullyBufferedMultiBufferSource(BooleanSupplier opaqueFrontToBack) {
 		super(new BufferBuilder(0), Collections.emptyMap());
 
-		this.renderOrderManager = new GraphTranslucencyRenderOrderManager();
+		this.renderOrderManager = new GraphTranslucencyRenderOrderManager(opaqueFrontToBack);
 		this.builders = new SegmentedBufferBuilder[NUM_BUFFERS];
 
 		for (int i = 0; i < this.builders.length; i++) {
@@ -107,19 +118,23 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 
 		Iterable<RenderType> renderOrder = renderOrderManager.getRenderOrder();
 
-		profiler.popPush("draw buffers");
+		if (Iris.getIrisConfig().shouldStreamEntityVertices()) {
+			drawStreamed(renderOrder, typeToSegment, profiler);
+		} else {
+			profiler.popPush("draw buffers");
 
-		for (RenderType type : renderOrder) {
-			type.setupRenderState();
+			for (RenderType type : renderOrder) {
+				type.setupRenderState();
 
-			renderTypes += 1;
+				renderTypes += 1;
 
-			for (BufferSegment segment : typeToSegment.getOrDefault(type, Collections.emptyList())) {
-				segmentRenderer.drawInner(segment);
-				drawCalls += 1;
-			}
+				for (BufferSegment segment : typeToSegment.getOrDefault(type, Collections.emptyList())) {
+					segmentRenderer.drawInner(segment);
+					drawCalls += 1;
+				}
 
-			type.clearRenderState();
+				type.clearRenderState();
+			}
 		}
 
 		profiler.popPush("reset");
@@ -130,6 +145,58 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 		profiler.pop();
 	}
 
+	/**
+	 * Copies the segments of every render type into a single streaming buffer in the order that they will be drawn,
+	 * and then draws each render type from its part of the buffer.
+	 */
+	private void drawStreamed(Iterable<RenderType> renderOrder, Map<RenderType, List<BufferSegment>> typeToSegment,
+							  ProfilerFiller profiler) {
+		profiler.popPush("upload buffers");
+
+		long bytes = 0;
+
+		for (List<BufferSegment> segments : typeToSegment.values()) {
+			for (BufferSegment segment : segments) {
+				bytes += SegmentStreamingBuffer.getByteSize(segment);
+			}
+		}
+
+		if (streamingBuffer == null) {
+			streamingBuffer = new SegmentStreamingBuffer();
+		}
+
+		streamingBuffer.begin(bytes);
+
+		for (RenderType type : renderOrder) {
+			for (BufferSegment segment : typeToSegment.getOrDefault(type, Collections.emptyList())) {
+				streamingBuffer.write(segment);
+			}
+		}
+
+		long offset = streamingBuffer.bind();
+
+		profiler.popPush("draw buffers");
+
+		for (RenderType type : renderOrder) {
+			List<BufferSegment> segments = typeToSegment.getOrDefault(type, Collections.emptyList());
+
+			type.setupRenderState();
+
+			renderTypes += 1;
+
+			segmentRenderer.drawInnerFromBuffer(segments, offset);
+			drawCalls += segments.size();
+
+			for (BufferSegment segment : segments) {
+				offset += SegmentStreamingBuffer.getByteSize(segment);
+			}
+
+			type.clearRenderState();
+		}
+
+		streamingBuffer.unbind();
+	}
+
 	public int getDrawCalls() {
 		return drawCalls;
 	}
@@ -148,6 +215,17 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 		// Disable explicit flushing
 	}
 
+	/**
+	 * Frees the streaming buffer, which holds GPU and native memory that isn't freed by the garbage collector. This
+	 * buffer source can still be used afterwards, the streaming buffer is created again once it's needed.
+	 */
+	public void destroy() {
+		if (streamingBuffer != null) {
+			streamingBuffer.destroy();
+			streamingBuffer = null;
+		}
+	}
+
 	public MultiBufferSource.BufferSource getUnflushableWrapper() {
 		return unflushableWrapper;
 	}
@@ -160,6 +238,10 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 			size += builder.getAllocatedSize();
 		}
 
+		if (streamingBuffer != null) {
+			size += (int) streamingBuffer.getAllocatedSize();
+		}
+
 		return size;
 	}
 
@@ -3,4 +3,9 @@ package net.coderbot.batchedentityrendering.impl;
 public interface RenderBuffersExt {
 	void beginLevelRendering();
 	void endLevelRendering();
+
+	/**
+	 * Frees the native and GPU memory of the batched buffers. They can still be used afterwards.
+	 */
+	void destroyBatchedBuffers();
 }
@@ -0,0 +1,215 @@
+package net.coderbot.batchedentityrendering.impl;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import org.lwjgl.opengl.ARBBufferStorage;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.opengl.GL30C;
+import org.lwjgl.opengl.GL32C;
+import org.lwjgl.opengl.GL44C;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * A streaming vertex buffer that all buffer segments of a batch are copied into, so that they can be drawn as offsets
+ * into a single buffer instead of each being uploaded separately through the immediate mode path.
+ *
+ * <p>If buffer storage is supported, the buffer is persistently mapped and split into sections that are used in turn
+ * as a ring, with a fence guarding each section so that a section is never overwritten while the GPU might still be
+ * reading from it. Otherwise, the segments are gathered in memory and uploaded with a single glBufferData call per
+ * batch, which orphans the previous contents of the buffer.</p>
+ */
+public class SegmentStreamingBuffer {
+	private static final int SECTIONS = 4;
+	private static final long MIN_SECTION_SIZE = 1024 * 1024;
+	private static final long FENCE_WAIT_TIMEOUT_NANOS = 1_000_000L;
+
+	private final boolean persistent;
+
+	private int buffer;
+	private long sectionSize;
+	private long mappedAddress;
+	private final long[] fences = new long[SECTIONS];
+	private int section;
+
+	private long stagingAddress;
+	private long stagingCapacity;
+
+	private long writeAddress;
+	private long writeOffset;
+	private long sectionStart;
+
+	public SegmentStreamingBuffer() {
+		GLCapabilities capabilities = GL.getCapabilities();
+		this.persistent = capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage;
+	}
+
+	/**
+	 * Starts a new batch, making sure that there's room for the given amount of bytes to be written.
+	 */
+	public void begin(long bytes) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThread);
+
+		if (persistent) {
+			if (buffer == 0 || bytes > sectionSize) {
+				allocatePersistent(Math.max(sectionSize * 2, roundUpSectionSize(bytes)));
+			}
+
+			section = (section + 1) % SECTIONS;
+			waitForFence(section);
+
+			sectionStart = section * sectionSize;
+			writeAddress = mappedAddress + sectionStart;
+		} else {
+			if (buffer == 0) {
+				buffer = GlStateManager._glGenBuffers();
+			}
+
+			if (bytes > stagingCapacity) {
+				stagingCapacity = roundUpSectionSize(bytes);
+				stagingAddress = MemoryUtil.nmemRealloc(stagingAddress, stagingCapacity);
+
+				if (stagingAddress == MemoryUtil.NULL) {
+					throw new OutOfMemoryError("Failed to allocate " + stagingCapacity + " bytes for batched entity vertices");
+				}
+			}
+
+			sectionStart = 0;
+			writeAddress = stagingAddress;
+		}
+
+		writeOffset = 0;
+	}
+
+	/**
+	 * Copies the vertices of a segment into the buffer, directly after the previously written segment.
+	 */
+	public void write(BufferSegment segment) {
+		int length = getByteSize(segment);
+
+		MemoryUtil.memCopy(MemoryUtil.memAddress0(segment.getSlice()), writeAddress + writeOffset, length);
+		writeOffset += length;
+	}
+
+	/**
+	 * Makes the written vertices available to the GPU and binds the buffer to GL_ARRAY_BUFFER.
+	 *
+	 * @return the offset of the first written segment within the buffer, in bytes
+	 */
+	public long bind() {
+		GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, buffer);
+
+		if (!persistent) {
+			GL15C.nglBufferData(GL15C.GL_ARRAY_BUFFER, writeOffset, stagingAddress, GL15C.GL_STREAM_DRAW);
+		}
+
+		return sectionStart;
+	}
+
+	/**
+	 * Unbinds the buffer once everything has been drawn from it, restoring the client-side vertex arrays that the
+	 * immediate mode path expects.
+	 */
+	public void unbind() {
+		if (persistent) {
+			fences[section] = GL32C.glFenceSync(GL32C.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+		}
+
+		GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * @return the amount of memory held by this buffer, either the mapped buffer or the staging memory, in bytes
+	 */
+	public long getAllocatedSize() {
+		return persistent ? (buffer == 0 ? 0 : sectionSize * SECTIONS) : stagingCapacity;
+	}
+
+	/**
+	 * Frees the buffer, its fences, and the staging memory. The buffer must not be used afterwards.
+	 */
+	public void destroy() {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThread);
+
+		destroyBuffer();
+
+		MemoryUtil.nmemFree(stagingAddress);
+		stagingAddress = MemoryUtil.NULL;
+		stagingCapacity = 0;
+		sectionSize = 0;
+	}
+
+	public static int getByteSize(BufferSegment segment) {
+		return segment.getDrawState().vertexCount() * segment.getDrawState().format().getVertexSize();
+	}
+
+	private void allocatePersistent(long newSectionSize) {
+		destroyBuffer();
+
+		long size = newSectionSize * SECTIONS;
+		int flags = GL30C.GL_MAP_WRITE_BIT | GL44C.GL_MAP_PERSISTENT_BIT | GL44C.GL_MAP_COHERENT_BIT;
+
+		buffer = GlStateManager._glGenBuffers();
+		GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, buffer);
+
+		if (GL.getCapabilities().OpenGL44) {
+			GL44C.glBufferStorage(GL15C.GL_ARRAY_BUFFER, size, flags);
+		} else {
+			ARBBufferStorage.glBufferStorage(GL15C.GL_ARRAY_BUFFER, size, flags);
+		}
+
+		mappedAddress = GL30C.nglMapBufferRange(GL15C.GL_ARRAY_BUFFER, 0, size, flags);
+		GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, 0);
+
+		if (mappedAddress == MemoryUtil.NULL) {
+			throw new IllegalStateException("Failed to map the batched entity vertex buffer");
+		}
+
+		sectionSize = newSectionSize;
+		section = 0;
+	}
+
+	private void waitForFence(int section) {
+		long fence = fences[section];
+
+		if (fence == 0) {
+			return;
+		}
+
+		int result;
+
+		do {
+			result = GL32C.glClientWaitSync(fence, GL32C.GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_WAIT_TIMEOUT_NANOS);
+		} while (result == GL32C.GL_TIMEOUT_EXPIRED);
+
+		GL32C.glDeleteSync(fence);
+		fences[section] = 0;
+	}
+
+	private void destroyBuffer() {
+		for (int i = 0; i < SECTIONS; i++) {
+			if (fences[i] != 0) {
+				GL32C.glDeleteSync(fences[i]);
+				fences[i] = 0;
+			}
+		}
+
+		if (buffer != 0) {
+			// Deleting the buffer also unmaps it. The driver keeps the storage alive until pending draws are done.
+			GlStateManager._glDeleteBuffers(buffer);
+			buffer = 0;
+			mappedAddress = MemoryUtil.NULL;
+		}
+	}
+
+	private static long roundUpSectionSize(long bytes) {
+		long size = MIN_SECTION_SIZE;
+
+		while (size < bytes) {
+			size *= 2;
+		}
+
+		return size;
+	}
+}
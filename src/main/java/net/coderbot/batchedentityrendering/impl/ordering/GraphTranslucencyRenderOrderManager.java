@@ -15,6 +15,8 @@ import net.minecraft.client.renderer.RenderType;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
 
 public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
     private final FeedbackArcSetProvider feedbackArcSetProvider;
@@ -22,11 +24,21 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
 
     private boolean inGroup = false;
     private final EnumMap<TransparencyType, RenderType> currentTypes;
-
-    public GraphTranslucencyRenderOrderManager() {
+    // Opaque render types in the order that they were first used
+    private final List<RenderType> opaqueTypes;
+    private final BooleanSupplier opaqueFrontToBack;
+
+    /**
+     * @param opaqueFrontToBack whether opaque render types should be drawn in the order that they were first used,
+     *                          instead of being sorted by their dependencies. Only useful if entities are submitted
+     *                          front-to-back.
+     */
+    public GraphTranslucencyRenderOrderManager(BooleanSupplier opaqueFrontToBack) {
+        this.opaqueFrontToBack = opaqueFrontToBack;
         feedbackArcSetProvider = new SimpleFeedbackArcSetProvider();
         types = new EnumMap<>(TransparencyType.class);
         currentTypes = new EnumMap<>(TransparencyType.class);
+        opaqueTypes = new ArrayList<>();
 
         for (TransparencyType type : TransparencyType.values()) {
             types.put(type, new MapDigraph<>());
@@ -49,7 +61,10 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
     public void begin(RenderType renderType) {
         TransparencyType transparencyType = getTransparencyType(renderType);
         Digraph<RenderType> graph = types.get(transparencyType);
-        graph.add(renderType);
+
+        if (graph.add(renderType) && transparencyType == TransparencyType.OPAQUE) {
+            opaqueTypes.add(renderType);
+        }
 
         if (inGroup) {
 			RenderType previous = currentTypes.put(transparencyType, renderType);
@@ -100,6 +115,8 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
         for (TransparencyType type : TransparencyType.values()) {
             types.put(type, new MapDigraph<>());
         }
+
+        opaqueTypes.clear();
     }
 
     public Iterable<RenderType> getRenderOrder() {
@@ -110,8 +127,19 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
         }
 
         List<RenderType> allLayers = new ArrayList<>(layerCount);
+        boolean opaqueFrontToBack = this.opaqueFrontToBack.getAsBoolean();
+
+        for (Map.Entry<TransparencyType, Digraph<RenderType>> entry : types.entrySet()) {
+            if (opaqueFrontToBack && entry.getKey() == TransparencyType.OPAQUE) {
+                // Opaque render types don't depend on each other, since the depth test takes care of that. Entities
+                // are submitted front-to-back, so drawing each type in the order that it was first used means that
+                // geometry closer to the camera tends to be drawn first, which lets early-Z reject hidden fragments.
+                allLayers.addAll(opaqueTypes);
+                continue;
+            }
+
+            Digraph<RenderType> graph = entry.getValue();
 
-        for (Digraph<RenderType> graph : types.values()) {
             // TODO: Make sure that FAS can't become a bottleneck!
             // Running NP-hard algorithms in a real time rendering loop might not be an amazing idea.
             // This shouldn't be necessary in sane scenes, though, and if there aren't cycles,
@@ -1,20 +1,20 @@
 package net.coderbot.batchedentityrendering.mixin;
 
+import net.coderbot.batchedentityrendering.impl.EntityListSorter;
+import net.coderbot.iris.Iris;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.client.renderer.LevelRenderer;
 import net.minecraft.world.entity.Entity;
-import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.phys.Vec3;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.ModifyVariable;
 import org.spongepowered.asm.mixin.injection.Slice;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Sorts the entity list to allow entities of the same type to be properly batched. Without sorting, entities are
@@ -28,6 +28,8 @@ import java.util.Map;
  * This is even more effective with vanilla's entity rendering, since it only has a single buffer for most purposes,
  * except for a configured set of batched render types.
  *
+ * If enabled, the groups of entities are also sorted front-to-back, see {@link EntityListSorter}.
+ *
  * This injection point has been carefully chosen to avoid conflicts with other mixins such as one from Carpet:
  * https://github.com/gnembon/fabric-carpet/blob/776f798aecb792a5881ccae8784888156207a047/src/main/java/carpet/mixins/WorldRenderer_pausedShakeMixin.java#L23
  *
@@ -40,6 +42,9 @@ public class MixinLevelRenderer_EntityListSorting {
 	@Shadow
 	private ClientLevel level;
 
+	@Unique
+	private final EntityListSorter entityListSorter = new EntityListSorter();
+
 	@ModifyVariable(method = "renderLevel", at = @At(value = "INVOKE_ASSIGN", target = "Ljava/lang/Iterable;iterator()Ljava/util/Iterator;"),
 			slice = @Slice(from = @At(value = "INVOKE", target = "Lnet/minecraft/client/renderer/RenderBuffers;bufferSource()Lnet/minecraft/client/renderer/MultiBufferSource$BufferSource;"),
 					to = @At(value = "INVOKE", target = "Lnet/minecraft/client/renderer/entity/EntityRenderDispatcher;shouldRender(Lnet/minecraft/world/entity/Entity;Lnet/minecraft/client/renderer/culling/Frustum;DDD)Z")), allow = 1)
@@ -47,17 +52,12 @@ public class MixinLevelRenderer_EntityListSorting {
         // Sort the entity list first in order to allow vanilla's entity batching code to work better.
         this.level.getProfiler().push("sortEntityList");
 
-        Map<EntityType<?>, List<Entity>> sortedEntities = new HashMap<>();
-
-        List<Entity> entities = new ArrayList<>();
-        iterator.forEachRemaining(entity -> {
-            sortedEntities.computeIfAbsent(entity.getType(), entityType -> new ArrayList<>(32)).add(entity);
-        });
-
-        sortedEntities.values().forEach(entities::addAll);
+        Vec3 cameraPosition = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+        Iterator<Entity> sortedEntities = entityListSorter.sort(iterator, cameraPosition.x, cameraPosition.y,
+                cameraPosition.z, Iris.getIrisConfig().shouldSortEntitiesFrontToBack());
 
         this.level.getProfiler().pop();
 
-        return entities.iterator();
+        return sortedEntities;
     }
 }
@@ -5,6 +5,8 @@ import net.coderbot.batchedentityrendering.impl.FullyBufferedMultiBufferSource;
 import net.coderbot.batchedentityrendering.impl.MemoryTrackingBuffer;
 import net.coderbot.batchedentityrendering.impl.MemoryTrackingRenderBuffers;
 import net.coderbot.batchedentityrendering.impl.RenderBuffersExt;
+import net.coderbot.iris.Iris;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.OutlineBufferSource;
 import net.minecraft.client.renderer.RenderBuffers;
@@ -19,7 +21,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 @Mixin(RenderBuffers.class)
 public class MixinRenderBuffers implements RenderBuffersExt, MemoryTrackingRenderBuffers, DrawCallTrackingRenderBuffers {
 	@Unique
-	private final FullyBufferedMultiBufferSource buffered = new FullyBufferedMultiBufferSource();
+	private final FullyBufferedMultiBufferSource buffered =
+		new FullyBufferedMultiBufferSource(this::batchedentityrendering$shouldDrawOpaqueFrontToBack);
 
 	@Unique
 	private int begins = 0;
@@ -34,6 +37,14 @@ public class MixinRenderBuffers implements RenderBuffersExt, MemoryTrackingRende
 	@Final
 	private MultiBufferSource.BufferSource bufferSource;
 
+	@Unique
+	private boolean batchedentityrendering$shouldDrawOpaqueFrontToBack() {
+		// Only the entities of the main level pass are submitted front-to-back, other render buffers such as those of
+		// the shadow pass must keep sorting their opaque render types.
+		return (Object) this == Minecraft.getInstance().renderBuffers()
+			&& Iris.getIrisConfig().shouldSortEntitiesFrontToBack();
+	}
+
 	@Inject(method = "bufferSource", at = @At("HEAD"), cancellable = true)
 	private void batchedentityrendering$replaceBufferSource(CallbackInfoReturnable<MultiBufferSource.BufferSource> cir) {
 		if (begins == 0) {
@@ -90,6 +101,11 @@ public class MixinRenderBuffers implements RenderBuffersExt, MemoryTrackingRende
 		}
 	}
 
+	@Override
+	public void destroyBatchedBuffers() {
+		buffered.destroy();
+	}
+
 	@Override
 	public int getEntityBufferAllocatedSize() {
 		return ((MemoryTrackingBuffer) buffered).getAllocatedSize();
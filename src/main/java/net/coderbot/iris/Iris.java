@@ -3,20 +3,27 @@ package net.coderbot.iris;
 import com.google.common.base.Throwables;
 import com.mojang.blaze3d.platform.GlDebug;
 import com.mojang.blaze3d.platform.InputConstants;
+import net.coderbot.iris.block_rendering.ChunkMeshStatistics;
 import net.coderbot.iris.compat.sodium.SodiumVersionCheck;
 import net.coderbot.iris.config.IrisConfig;
+import net.coderbot.iris.features.FeatureFlags;
 import net.coderbot.iris.gl.GLDebug;
 import net.coderbot.iris.gl.shader.StandardMacros;
+import net.coderbot.iris.gui.FeatureMissingErrorScreen;
 import net.coderbot.iris.gui.screen.ShaderPackScreen;
 import net.coderbot.iris.pipeline.DeferredWorldRenderingPipeline;
 import net.coderbot.iris.pipeline.FixedFunctionWorldRenderingPipeline;
+import net.coderbot.iris.pipeline.PassProfiler;
 import net.coderbot.iris.pipeline.PipelineManager;
 import net.coderbot.iris.pipeline.WorldRenderingPipeline;
 import net.coderbot.iris.shaderpack.DimensionId;
 import net.coderbot.iris.shaderpack.OptionalBoolean;
 import net.coderbot.iris.shaderpack.ProgramSet;
 import net.coderbot.iris.shaderpack.ShaderPack;
+import net.coderbot.iris.shaderpack.ShaderPackWatcher;
+import net.coderbot.iris.shaderpack.ZipShaderPackCache;
 import net.coderbot.iris.shaderpack.discovery.ShaderpackDirectoryManager;
+import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
 import net.coderbot.iris.shaderpack.option.OptionSet;
 import net.coderbot.iris.shaderpack.option.Profile;
 import net.coderbot.iris.shaderpack.option.values.MutableOptionValues;
@@ -26,6 +33,7 @@ import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.loader.api.FabricLoader;
 import net.fabricmc.loader.api.ModContainer;
 import net.fabricmc.loader.api.Version;
+import net.irisshaders.iris.api.v0.IrisApi;
 import net.minecraft.ChatFormatting;
 import net.minecraft.client.KeyMapping;
 import net.minecraft.client.Minecraft;
@@ -45,9 +53,13 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.zip.ZipError;
 import java.util.zip.ZipException;
 
@@ -67,6 +79,7 @@ public class Iris {
 	private static ShaderpackDirectoryManager shaderpacksDirectoryManager;
 
 	private static ShaderPack currentPack;
+	private static ShaderPackWatcher shaderPackWatcher;
 	private static String currentPackName;
 	private static boolean sodiumInvalid;
 	private static boolean sodiumInstalled;
@@ -74,10 +87,11 @@ public class Iris {
 
 	private static PipelineManager pipelineManager;
 	private static IrisConfig irisConfig;
-	private static FileSystem zipFileSystem;
 	private static KeyMapping reloadKeybind;
 	private static KeyMapping toggleShadersKeybind;
 	private static KeyMapping shaderpackScreenKeybind;
+	private static KeyMapping dumpPassTimingsKeybind;
+	private static KeyMapping dumpChunkMeshStatisticsKeybind;
 
 	private static final Map<String, String> shaderPackOptionQueue = new HashMap<>();
 	// Flag variable used when reloading
@@ -142,6 +156,8 @@ public class Iris {
 		reloadKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.reload", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_R, "iris.keybinds"));
 		toggleShadersKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.toggleShaders", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_K, "iris.keybinds"));
 		shaderpackScreenKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.shaderPackSelection", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_O, "iris.keybinds"));
+		dumpPassTimingsKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.dumpPassTimings", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_UNKNOWN, "iris.keybinds"));
+		dumpChunkMeshStatisticsKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.dumpChunkMeshStatistics", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_UNKNOWN, "iris.keybinds"));
 
 		setupCommands(Minecraft.getInstance());
 
@@ -247,6 +263,171 @@ public class Iris {
 			}
 		} else if (shaderpackScreenKeybind.consumeClick()) {
 			minecraft.setScreen(new ShaderPackScreen(null));
+		} else if (dumpPassTimingsKeybind.consumeClick()) {
+			dumpPassTimings(minecraft);
+		} else if (dumpChunkMeshStatisticsKeybind.consumeClick()) {
+			dumpChunkMeshStatistics(minecraft);
+		}
+
+		checkShaderPackChanges(minecraft);
+	}
+
+	private static void checkShaderPackChanges(Minecraft minecraft) {
+		if (shaderPackWatcher == null || currentPack == null) {
+			return;
+		}
+
+		Set<AbsolutePackPath> changed = shaderPackWatcher.pollChanges();
+
+		if (changed.isEmpty()) {
+			return;
+		}
+
+		Set<AbsolutePackPath> sources = new HashSet<>();
+		boolean fullReload = false;
+
+		for (AbsolutePackPath path : changed) {
+			if (currentPack.getIncludeGraph().getNodes().containsKey(path)) {
+				sources.add(path);
+			} else if (path.equals(ShaderPackWatcher.ALL_FILES) || isPackFile(path)) {
+				fullReload = true;
+			}
+		}
+
+		if (sources.isEmpty() && !fullReload) {
+			// Only unrelated files changed, such as temporary files created by editors
+			return;
+		}
+
+		try {
+			if (fullReload || !reloadChangedPrograms(sources)) {
+				logger.info("Shader pack files changed, reloading the shader pack");
+				reload();
+			}
+
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.shaders.reloaded"), false);
+			}
+		} catch (Exception e) {
+			logger.error("Error while reloading Shaders for Iris!", e);
+
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.shaders.reloaded.failure", Throwables.getRootCause(e).getMessage()).withStyle(ChatFormatting.RED), false);
+			}
+		}
+	}
+
+	/**
+	 * Whether a file that isn't a source file of the current pack can still affect the pack, like property files,
+	 * textures, or a program that didn't exist before.
+	 */
+	private static boolean isPackFile(AbsolutePackPath path) {
+		String name = path.getPathString();
+
+		return name.endsWith(".properties") || name.endsWith(".png") || name.endsWith(".lang")
+			|| name.endsWith(".vsh") || name.endsWith(".gsh") || name.endsWith(".fsh") || name.endsWith(".csh");
+	}
+
+	/**
+	 * Applies changes to source files of the current pack by only rebuilding the affected programs of the current
+	 * pipeline, keeping everything else (render targets, custom textures, and unchanged programs) as it is.
+	 *
+	 * @return false if the changes can't be applied in place, and the pack needs to be fully reloaded instead
+	 */
+	private static boolean reloadChangedPrograms(Set<AbsolutePackPath> changed) throws IOException {
+		WorldRenderingPipeline pipeline = getPipelineManager().getPipelineNullable();
+		DimensionId dimension = getCurrentDimension();
+
+		if (!(pipeline instanceof DeferredWorldRenderingPipeline) || dimension == null) {
+			return false;
+		}
+
+		logger.info("Shader pack source files changed, reloading the affected programs: " + changed);
+
+		ShaderPack pack = new ShaderPack(shaderPackWatcher.getRoot(), getOptionValuesToSave(currentPack),
+			StandardMacros.createStandardEnvironmentDefines(), currentPack, changed);
+
+		if (!((DeferredWorldRenderingPipeline) pipeline).reloadPrograms(pack.getProgramSet(dimension))) {
+			return false;
+		}
+
+		currentPack = pack;
+
+		getPipelineManager().onPipelineReloadedInPlace();
+
+		return true;
+	}
+
+	private static void watchShaderPack(Path shadersDirectory) {
+		stopWatchingShaderPack();
+
+		try {
+			shaderPackWatcher = new ShaderPackWatcher(shadersDirectory);
+			logger.info("Watching the shader pack for changes to hot reload it");
+		} catch (IOException e) {
+			logger.error("Failed to watch the shader pack for changes, hot reloading won't work", e);
+		}
+	}
+
+	private static void stopWatchingShaderPack() {
+		if (shaderPackWatcher == null) {
+			return;
+		}
+
+		try {
+			shaderPackWatcher.close();
+		} catch (IOException e) {
+			logger.error("Failed to stop watching the shader pack?", e);
+		}
+
+		shaderPackWatcher = null;
+	}
+
+	private static void dumpPassTimings(Minecraft minecraft) {
+		if (!PassProfiler.INSTANCE.isEnabled()) {
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.passTimings.disabled").withStyle(ChatFormatting.RED), false);
+			}
+
+			return;
+		}
+
+		try {
+			Path dumped = PassProfiler.INSTANCE.dump(FabricLoader.getInstance().getGameDir().resolve("iris-pass-timings"));
+
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.passTimings.dumped", dumped.getFileName().toString()), false);
+			}
+		} catch (IOException e) {
+			logger.error("Failed to dump pass timings", e);
+
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.passTimings.failure", e.getMessage()).withStyle(ChatFormatting.RED), false);
+			}
+		}
+	}
+
+	private static void dumpChunkMeshStatistics(Minecraft minecraft) {
+		if (!ChunkMeshStatistics.INSTANCE.isEnabled()) {
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.chunkMeshStatistics.disabled").withStyle(ChatFormatting.RED), false);
+			}
+
+			return;
+		}
+
+		try {
+			Path dumped = ChunkMeshStatistics.INSTANCE.dump(FabricLoader.getInstance().getGameDir().resolve("iris-chunk-mesh-stats"));
+
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.chunkMeshStatistics.dumped", dumped.getFileName().toString()), false);
+			}
+		} catch (IOException e) {
+			logger.error("Failed to dump chunk mesh statistics", e);
+
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.chunkMeshStatistics.failure", e.getMessage()).withStyle(ChatFormatting.RED), false);
+			}
 		}
 	}
 
@@ -338,6 +519,8 @@ public class Iris {
 				return false;
 			}
 		} else {
+			ZipShaderPackCache.INSTANCE.close();
+
 			if (!Files.exists(shaderPackRoot)) {
 				logger.error("Failed to load the shaderpack \"{}\" because it does not exist!", name);
 				return false;
@@ -365,14 +548,17 @@ public class Iris {
 		resetShaderPackOptions = false;
 
 		try {
-			currentPack = new ShaderPack(shaderPackPath, changedConfigs, StandardMacros.createStandardEnvironmentDefines());
+			ShaderPack pack = new ShaderPack(shaderPackPath, changedConfigs, StandardMacros.createStandardEnvironmentDefines());
+
+			if (!pack.getInvalidFeatureFlags().isEmpty()) {
+				handleInvalidFeatureFlags(pack.getInvalidFeatureFlags());
+			}
 
-			MutableOptionValues changedConfigsValues = currentPack.getShaderPackOptions().getOptionValues().mutableCopy();
+			currentPack = pack;
 
 			// Store changed values from those currently in use by the shader pack
 			Properties configsToSave = new Properties();
-			changedConfigsValues.getBooleanValues().forEach((k, v) -> configsToSave.setProperty(k, Boolean.toString(v)));
-			changedConfigsValues.getStringValues().forEach(configsToSave::setProperty);
+			configsToSave.putAll(getOptionValuesToSave(currentPack));
 
 			tryUpdateConfigPropertiesFile(shaderPackConfigTxt, configsToSave);
 		} catch (Exception e) {
@@ -387,36 +573,43 @@ public class Iris {
 
 		logger.info("Using shaderpack: " + name);
 
+		if (irisConfig.isShaderPackHotReloadEnabled() && !shaderPackRoot.toString().endsWith(".zip")) {
+			watchShaderPack(shaderPackPath);
+		}
+
 		return true;
 	}
 
-	private static Optional<Path> loadExternalZipShaderpack(Path shaderpackPath) throws IOException {
-		FileSystem zipSystem = FileSystems.newFileSystem(shaderpackPath, Iris.class.getClassLoader());
-		zipFileSystem = zipSystem;
+	private static Map<String, String> getOptionValuesToSave(ShaderPack pack) {
+		MutableOptionValues changedConfigsValues = pack.getShaderPackOptions().getOptionValues().mutableCopy();
 
-		// Should only be one root directory for a zip shaderpack
-		Path root = zipSystem.getRootDirectories().iterator().next();
+		Map<String, String> values = new HashMap<>();
+		changedConfigsValues.getBooleanValues().forEach((k, v) -> values.put(k, Boolean.toString(v)));
+		values.putAll(changedConfigsValues.getStringValues());
 
-		Path potentialShaderDir = zipSystem.getPath("shaders");
+		return values;
+	}
 
-		// If the shaders dir was immediately found return it
-		// Otherwise, manually search through each directory path until it ends with "shaders"
-		if (Files.exists(potentialShaderDir)) {
-			return Optional.of(potentialShaderDir);
+	private static void handleInvalidFeatureFlags(List<FeatureFlags> invalidFlagList) {
+		List<String> invalidFeatureFlags = invalidFlagList.stream().map(FeatureFlags::getHumanReadableName).collect(Collectors.toList());
+
+		if (Minecraft.getInstance().screen instanceof ShaderPackScreen) {
+			Minecraft.getInstance().setScreen(new FeatureMissingErrorScreen(Minecraft.getInstance().screen, new TranslatableComponent("iris.unsupported.pack"), new TranslatableComponent("iris.unsupported.pack.description", FeatureFlags.getInvalidStatus(invalidFlagList), invalidFeatureFlags.stream()
+				.collect(Collectors.joining(", ", ": ", ".")))));
 		}
 
-		// Sometimes shaderpacks have their shaders directory within another folder in the shaderpack
-		// For example Sildurs-Vibrant-Shaders.zip/shaders
-		// While other packs have Trippy-Shaderpack-master.zip/Trippy-Shaderpack-master/shaders
-		// This makes it hard to determine what is the actual shaders dir
-		return Files.walk(root)
-				.filter(Files::isDirectory)
-				.filter(path -> path.endsWith("shaders"))
-				.findFirst();
+		IrisApi.getInstance().getConfig().setShadersEnabledAndApply(false);
+	}
+
+	private static Optional<Path> loadExternalZipShaderpack(Path shaderpackPath) throws IOException {
+		// Reuses the already open zip if the same pack is being reloaded and hasn't changed
+		return ZipShaderPackCache.INSTANCE.open(shaderpackPath);
 	}
 
 	private static void setShadersDisabled() {
 		currentPack = null;
+		stopWatchingShaderPack();
+		ZipShaderPackCache.INSTANCE.close();
 		fallback = false;
 		currentPackName = "(off)";
 
@@ -593,21 +786,9 @@ public class Iris {
 	 */
 	private static void destroyEverything() {
 		currentPack = null;
+		stopWatchingShaderPack();
 
 		getPipelineManager().destroyPipeline();
-
-		// Close the zip filesystem that the shaderpack was loaded from
-		//
-		// This prevents a FileSystemAlreadyExistsException when reloading shaderpacks.
-		if (zipFileSystem != null) {
-			try {
-				zipFileSystem.close();
-			} catch (NoSuchFileException e) {
-				logger.warn("Failed to close the shaderpack zip when reloading because it was deleted, proceeding anyways.");
-			} catch (IOException e) {
-				logger.error("Failed to close zip file system?", e);
-			}
-		}
 	}
 
 	public static DimensionId lastDimension = null;
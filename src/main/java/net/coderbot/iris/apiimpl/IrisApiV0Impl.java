@@ -5,9 +5,11 @@ import net.coderbot.iris.gui.screen.ShaderPackScreen;
 import net.coderbot.iris.pipeline.FixedFunctionWorldRenderingPipeline;
 import net.coderbot.iris.pipeline.WorldRenderingPipeline;
 import net.coderbot.iris.shadows.ShadowRenderingState;
+import net.coderbot.iris.vertices.IrisQuadVertexSinkImpl;
 import net.coderbot.iris.vertices.IrisTextVertexSinkImpl;
 import net.irisshaders.iris.api.v0.IrisApi;
 import net.irisshaders.iris.api.v0.IrisApiConfig;
+import net.irisshaders.iris.api.v0.IrisQuadVertexSink;
 import net.irisshaders.iris.api.v0.IrisTextVertexSink;
 import net.minecraft.client.gui.screens.Screen;
 
@@ -20,7 +22,7 @@ public class IrisApiV0Impl implements IrisApi {
 
 	@Override
 	public int getMinorApiRevision() {
-		return 1;
+		return 2;
 	}
 
 	@Override
@@ -58,4 +60,9 @@ public class IrisApiV0Impl implements IrisApi {
 	public IrisTextVertexSink createTextVertexSink(int maxQuadCount, IntFunction<ByteBuffer> bufferProvider) {
 		return new IrisTextVertexSinkImpl(maxQuadCount, bufferProvider);
 	}
+
+	@Override
+	public IrisQuadVertexSink createQuadVertexSink(int maxQuadCount, IntFunction<ByteBuffer> bufferProvider) {
+		return new IrisQuadVertexSinkImpl(maxQuadCount, bufferProvider);
+	}
 }
@@ -0,0 +1,203 @@
+package net.coderbot.iris.block_rendering;
+
+import com.google.common.collect.ImmutableSet;
+import com.mojang.blaze3d.vertex.PoseStack;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.coderbot.iris.fantastic.WrappingMultiBufferSource;
+import net.minecraft.Util;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
+import net.minecraft.client.renderer.blockentity.ChestRenderer;
+import net.minecraft.client.renderer.blockentity.LecternRenderer;
+import net.minecraft.client.renderer.blockentity.ShulkerBoxRenderer;
+import net.minecraft.client.renderer.blockentity.SignRenderer;
+import net.minecraft.network.chat.FormattedText;
+import net.minecraft.network.chat.Style;
+import net.minecraft.util.Unit;
+import net.minecraft.world.level.block.ChestBlock;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.LidBlockEntity;
+import net.minecraft.world.level.block.entity.ShulkerBoxBlockEntity;
+import net.minecraft.world.level.block.entity.SignBlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.ChestType;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Caches the geometry of block entities that look the same frame after frame, such as signs and closed chests, so that
+ * they don't have to be built again for both the shadow pass and the main pass every frame.
+ *
+ * <p>The geometry is recorded relative to the block entity, and replayed into the buffer source with the pose of the
+ * current pass. A recording is thrown away whenever anything that the renderer uses changes: the block state, the
+ * light value, the data of the block entity (such as the text of a sign), or the animation progress of lids.
+ * Recordings are additionally refreshed every few seconds as a safety net, and all of them are dropped when the level
+ * changes.</p>
+ *
+ * <p>Only the vanilla renderers known to produce the same geometry given the same inputs are cached. Renderers that
+ * depend on anything else aren't: double chests and beds combine the light of both halves, player heads change their
+ * render type once the skin has been downloaded, and obfuscated text on signs is randomized every time it's rendered.
+ * Caching is only used when rendering into the batched buffer
+ * sources of a shader pack, since those are the only ones that are drawn more than once per frame.</p>
+ */
+public class BlockEntityGeometryCache {
+	public static final BlockEntityGeometryCache INSTANCE = new BlockEntityGeometryCache();
+
+	private static final long MAX_AGE_MS = 2000;
+	private static final long EVICT_AFTER_MS = 5000;
+	private static final long SWEEP_INTERVAL_MS = 1000;
+	private static final int SIGN_LINES = 4;
+
+	private static final Set<Class<?>> CACHEABLE_RENDERERS = ImmutableSet.of(
+		SignRenderer.class,
+		ChestRenderer.class,
+		ShulkerBoxRenderer.class,
+		LecternRenderer.class
+	);
+
+	private final Reference2ObjectOpenHashMap<BlockEntity, Entry> entries = new Reference2ObjectOpenHashMap<>();
+	private final GeometryRecorder recorder = new GeometryRecorder();
+	private long lastSweep;
+	private int hits;
+	private int misses;
+	private int lastHits;
+	private int lastMisses;
+
+	public void render(BlockEntityRenderer<BlockEntity> renderer, BlockEntity blockEntity, float tickDelta,
+					   PoseStack poseStack, MultiBufferSource bufferSource, int light, int overlay) {
+		if (!(bufferSource instanceof WrappingMultiBufferSource) || !isCacheable(renderer, blockEntity)) {
+			renderer.render(blockEntity, tickDelta, poseStack, bufferSource, light, overlay);
+			return;
+		}
+
+		long now = Util.getMillis();
+
+		if (now - lastSweep > SWEEP_INTERVAL_MS) {
+			sweep(now);
+		}
+
+		float animation = getAnimationProgress(blockEntity, tickDelta);
+		Entry entry = entries.get(blockEntity);
+
+		if (entry == null || !entry.matches(blockEntity, light, overlay, animation) || now - entry.recordedAt > MAX_AGE_MS) {
+			recorder.begin();
+			renderer.render(blockEntity, tickDelta, new PoseStack(), recorder, light, overlay);
+
+			entry = new Entry(blockEntity, light, overlay, animation, recorder.end(), now);
+			entries.put(blockEntity, entry);
+			misses++;
+		} else {
+			hits++;
+		}
+
+		entry.lastUsed = now;
+		entry.geometry.replay(poseStack.last(), bufferSource);
+	}
+
+	private static boolean isCacheable(BlockEntityRenderer<BlockEntity> renderer, BlockEntity blockEntity) {
+		if (!CACHEABLE_RENDERERS.contains(renderer.getClass())) {
+			return false;
+		}
+
+		if (blockEntity instanceof SignBlockEntity && hasObfuscatedText((SignBlockEntity) blockEntity)) {
+			return false;
+		}
+
+		BlockState state = blockEntity.getBlockState();
+
+		// The two halves of a double chest are lit by the brighter of the two blocks
+		return !state.hasProperty(ChestBlock.TYPE) || state.getValue(ChestBlock.TYPE) == ChestType.SINGLE;
+	}
+
+	private static boolean hasObfuscatedText(SignBlockEntity sign) {
+		for (int line = 0; line < SIGN_LINES; line++) {
+			// Visiting applies the style of the parent components, so that inherited obfuscation is found as well
+			Optional<Unit> obfuscated = sign.getMessage(line).visit((style, text) ->
+				style.isObfuscated() ? FormattedText.STOP_ITERATION : Optional.empty(), Style.EMPTY);
+
+			if (obfuscated.isPresent()) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Drops every recording, so that no block entity of a previous level is kept alive.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	private static float getAnimationProgress(BlockEntity blockEntity, float tickDelta) {
+		if (blockEntity instanceof LidBlockEntity) {
+			return ((LidBlockEntity) blockEntity).getOpenNess(tickDelta);
+		} else if (blockEntity instanceof ShulkerBoxBlockEntity) {
+			return ((ShulkerBoxBlockEntity) blockEntity).getProgress(tickDelta);
+		}
+
+		return 0.0F;
+	}
+
+	private void sweep(long now) {
+		lastSweep = now;
+		lastHits = hits;
+		lastMisses = misses;
+		hits = 0;
+		misses = 0;
+
+		Iterator<Reference2ObjectMap.Entry<BlockEntity, Entry>> iterator = entries.reference2ObjectEntrySet().fastIterator();
+
+		while (iterator.hasNext()) {
+			Reference2ObjectMap.Entry<BlockEntity, Entry> mapEntry = iterator.next();
+
+			if (mapEntry.getKey().isRemoved() || now - mapEntry.getValue().lastUsed > EVICT_AFTER_MS) {
+				iterator.remove();
+			}
+		}
+	}
+
+	public String getDebugString() {
+		int cachedVertices = 0;
+
+		for (Entry entry : entries.values()) {
+			cachedVertices += entry.geometry.getVertexCount();
+		}
+
+		return entries.size() + " block entities, " + cachedVertices + " vertices, " + lastHits + " hits / "
+			+ lastMisses + " misses per second";
+	}
+
+	private static final class Entry {
+		private final BlockState blockState;
+		private final int dataVersion;
+		private final int light;
+		private final int overlay;
+		private final float animation;
+		private final RecordedGeometry geometry;
+		private final long recordedAt;
+		private long lastUsed;
+
+		private Entry(BlockEntity blockEntity, int light, int overlay, float animation, RecordedGeometry geometry, long recordedAt) {
+			this.blockState = blockEntity.getBlockState();
+			this.dataVersion = ((VersionedBlockEntity) blockEntity).iris$getDataVersion();
+			this.light = light;
+			this.overlay = overlay;
+			this.animation = animation;
+			this.geometry = geometry;
+			this.recordedAt = recordedAt;
+		}
+
+		private boolean matches(BlockEntity blockEntity, int light, int overlay, float animation) {
+			return blockState == blockEntity.getBlockState()
+				&& dataVersion == ((VersionedBlockEntity) blockEntity).iris$getDataVersion()
+				&& this.light == light
+				&& this.overlay == overlay
+				&& Float.compare(this.animation, animation) == 0;
+		}
+	}
+}
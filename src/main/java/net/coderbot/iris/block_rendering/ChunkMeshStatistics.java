@@ -0,0 +1,238 @@
+package net.coderbot.iris.block_rendering;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import net.minecraft.Util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Measures what the Iris additions to chunk meshing cost: the time spent in Iris hooks while building chunk sections,
+ * the number of vertices written in the extended vertex format, the number of quads whose normals and tangents were
+ * computed, and the number of block ID lookups.
+ *
+ * <p>Chunk sections are built on many threads at once, so every thread gets its own set of counters that only it
+ * writes to. The counters of all threads are merged whenever they're read. Reads can therefore lag slightly behind,
+ * but recording never needs to synchronize. Hooks wrap the measured work in {@link #start()} and one of the record
+ * methods. When the statistics are disabled, both are no-ops, so the hot paths don't even call
+ * {@link System#nanoTime()}.</p>
+ */
+public class ChunkMeshStatistics {
+	public static final ChunkMeshStatistics INSTANCE = new ChunkMeshStatistics();
+
+	private static final long WINDOW_MS = 1000;
+
+	// Returned by start() when disabled, so that enabling the statistics mid-measurement doesn't record garbage.
+	private static final long NOT_MEASURED = Long.MIN_VALUE;
+
+	private final List<Counters> threadCounters = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<Counters> localCounters = ThreadLocal.withInitial(this::createCounters);
+
+	// Counters of threads that have exited, such as the chunk builder threads from before a reload.
+	private final Counters retired = new Counters(null);
+
+	private volatile boolean enabled;
+
+	private Counters lastTotals = new Counters(null);
+	private Counters lastWindow = new Counters(null);
+	private long lastWindowStart;
+
+	private ChunkMeshStatistics() {
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Starts timing an Iris hook. The result must be passed to one of the record methods once the hook is done.
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : NOT_MEASURED;
+	}
+
+	/**
+	 * Records a quad of 4 vertices written in the extended vertex format, along with the time since {@code start}.
+	 */
+	public void recordQuad(long start) {
+		recordQuad(start, 4);
+	}
+
+	/**
+	 * Records a primitive with the given number of vertices written in the extended vertex format, along with the
+	 * time since {@code start}.
+	 */
+	public void recordQuad(long start, int vertices) {
+		if (start == NOT_MEASURED) {
+			return;
+		}
+
+		Counters counters = get();
+		counters.vertices += vertices;
+		counters.quads++;
+		counters.hookNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * Records a block ID lookup, along with the time since {@code start}.
+	 */
+	public void recordIdLookup(long start) {
+		if (start == NOT_MEASURED) {
+			return;
+		}
+
+		Counters counters = get();
+		counters.idLookups++;
+		counters.hookNanos += System.nanoTime() - start;
+	}
+
+	public void recordSection() {
+		if (enabled) {
+			get().sections++;
+		}
+	}
+
+	/**
+	 * Returns the counters of the calling thread. These must only be modified by the calling thread.
+	 */
+	public Counters get() {
+		return localCounters.get();
+	}
+
+	private Counters createCounters() {
+		Counters counters = new Counters(Thread.currentThread());
+		threadCounters.add(counters);
+
+		return counters;
+	}
+
+	/**
+	 * Merges the counters of all threads into a new set of counters.
+	 */
+	public synchronized Counters snapshot() {
+		Counters total = new Counters(null);
+
+		for (Counters counters : threadCounters) {
+			if (counters.owner != null && !counters.owner.isAlive()) {
+				// The owner can't write to these anymore, so fold them into the retired counters once.
+				retired.add(counters);
+				threadCounters.remove(counters);
+			} else {
+				total.add(counters);
+			}
+		}
+
+		total.add(retired);
+
+		return total;
+	}
+
+	public synchronized String getDebugString() {
+		long now = Util.getMillis();
+
+		if (now - lastWindowStart > WINDOW_MS) {
+			Counters totals = snapshot();
+
+			// The debug screen might not have been open for a while, so scale the window down to one second.
+			lastWindow = totals.subtract(lastTotals).scale(WINDOW_MS / (double) (now - lastWindowStart));
+			lastTotals = totals;
+			lastWindowStart = now;
+		}
+
+		Counters window = lastWindow;
+		long perSectionMicros = window.sections == 0 ? 0 : window.hookNanos / window.sections / 1000;
+
+		return window.sections + " sections, " + perSectionMicros + " µs Iris time per section, "
+			+ window.vertices + " vertices, " + window.quads + " quads, " + window.idLookups + " ID lookups per second";
+	}
+
+	/**
+	 * Writes the totals since the game was started to a JSON file.
+	 *
+	 * @return the path of the written file
+	 */
+	public Path dump(Path directory) throws IOException {
+		Files.createDirectories(directory);
+
+		Counters totals = snapshot();
+		Path json = directory.resolve("chunk-mesh-stats-" + System.currentTimeMillis() + ".json");
+
+		JsonObject root = new JsonObject();
+		root.addProperty("sections", totals.sections);
+		root.addProperty("irisHookNanos", totals.hookNanos);
+		root.addProperty("irisHookNanosPerSection", totals.sections == 0 ? 0 : totals.hookNanos / totals.sections);
+		root.addProperty("vertices", totals.vertices);
+		root.addProperty("quads", totals.quads);
+		root.addProperty("idLookups", totals.idLookups);
+		root.addProperty("threads", threadCounters.size());
+
+		try (Writer writer = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+			new GsonBuilder().setPrettyPrinting().create().toJson(root, writer);
+		}
+
+		return json;
+	}
+
+	/**
+	 * Counters of a single thread. These are plain fields since only the owning thread writes to them, so readers on
+	 * other threads may see slightly outdated values.
+	 */
+	public static final class Counters {
+		private final Thread owner;
+
+		/** Number of chunk sections that were built */
+		public long sections;
+		/** Time spent in Iris hooks while building chunk sections */
+		public long hookNanos;
+		/** Number of vertices written with the extended vertex format */
+		public long vertices;
+		/** Number of quads and triangles whose normals and tangents were computed */
+		public long quads;
+		/** Number of block ID lookups */
+		public long idLookups;
+
+		private Counters(Thread owner) {
+			this.owner = owner;
+		}
+
+		private void add(Counters other) {
+			sections += other.sections;
+			hookNanos += other.hookNanos;
+			vertices += other.vertices;
+			quads += other.quads;
+			idLookups += other.idLookups;
+		}
+
+		private Counters subtract(Counters other) {
+			Counters difference = new Counters(null);
+			difference.sections = sections - other.sections;
+			difference.hookNanos = hookNanos - other.hookNanos;
+			difference.vertices = vertices - other.vertices;
+			difference.quads = quads - other.quads;
+			difference.idLookups = idLookups - other.idLookups;
+
+			return difference;
+		}
+
+		private Counters scale(double factor) {
+			Counters scaled = new Counters(null);
+			scaled.sections = Math.round(sections * factor);
+			scaled.hookNanos = Math.round(hookNanos * factor);
+			scaled.vertices = Math.round(vertices * factor);
+			scaled.quads = Math.round(quads * factor);
+			scaled.idLookups = Math.round(idLookups * factor);
+
+			return scaled;
+		}
+	}
+}
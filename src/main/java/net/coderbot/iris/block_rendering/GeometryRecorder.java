@@ -0,0 +1,127 @@
+package net.coderbot.iris.block_rendering;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.coderbot.batchedentityrendering.impl.RenderTypeUtil;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+import org.lwjgl.opengl.GL11;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A buffer source that records everything written to it, so that it can be replayed later with
+ * {@link RecordedGeometry#replay}.
+ */
+public class GeometryRecorder implements MultiBufferSource, VertexConsumer {
+	private final List<RecordedGeometry.Segment> segments = new ArrayList<>();
+	private final int[] vertex = new int[RecordedGeometry.STRIDE];
+
+	private RenderType currentType;
+	private int[] data = new int[RecordedGeometry.STRIDE * 256];
+	private int vertexCount;
+
+	public void begin() {
+		segments.clear();
+		currentType = null;
+		vertexCount = 0;
+		Arrays.fill(vertex, 0);
+	}
+
+	public RecordedGeometry end() {
+		flushSegment();
+
+		RecordedGeometry geometry = new RecordedGeometry(new ArrayList<>(segments));
+		segments.clear();
+
+		return geometry;
+	}
+
+	@Override
+	public VertexConsumer getBuffer(RenderType renderType) {
+		// Quads can be merged, but strips need to stay separate so that the buffer source splits them again on replay.
+		if (renderType != currentType || renderType.mode() != GL11.GL_QUADS || RenderTypeUtil.isTriangleStripDrawMode(renderType)) {
+			flushSegment();
+			currentType = renderType;
+		}
+
+		return this;
+	}
+
+	private void flushSegment() {
+		if (currentType != null && vertexCount > 0) {
+			segments.add(new RecordedGeometry.Segment(currentType,
+				Arrays.copyOf(data, vertexCount * RecordedGeometry.STRIDE), vertexCount));
+		}
+
+		vertexCount = 0;
+	}
+
+	@Override
+	public VertexConsumer vertex(double x, double y, double z) {
+		vertex[RecordedGeometry.POSITION_X] = Float.floatToRawIntBits((float) x);
+		vertex[RecordedGeometry.POSITION_Y] = Float.floatToRawIntBits((float) y);
+		vertex[RecordedGeometry.POSITION_Z] = Float.floatToRawIntBits((float) z);
+
+		return this;
+	}
+
+	@Override
+	public VertexConsumer color(int r, int g, int b, int a) {
+		vertex[RecordedGeometry.COLOR] = (r & 0xFF) | (g & 0xFF) << 8 | (b & 0xFF) << 16 | (a & 0xFF) << 24;
+
+		return this;
+	}
+
+	@Override
+	public VertexConsumer uv(float u, float v) {
+		vertex[RecordedGeometry.U] = Float.floatToRawIntBits(u);
+		vertex[RecordedGeometry.V] = Float.floatToRawIntBits(v);
+
+		return this;
+	}
+
+	@Override
+	public VertexConsumer overlayCoords(int u, int v) {
+		vertex[RecordedGeometry.OVERLAY] = (u & 0xFFFF) | (v & 0xFFFF) << 16;
+
+		return this;
+	}
+
+	@Override
+	public VertexConsumer uv2(int u, int v) {
+		vertex[RecordedGeometry.LIGHT] = (u & 0xFFFF) | (v & 0xFFFF) << 16;
+
+		return this;
+	}
+
+	@Override
+	public VertexConsumer normal(float x, float y, float z) {
+		vertex[RecordedGeometry.NORMAL_X] = Float.floatToRawIntBits(x);
+		vertex[RecordedGeometry.NORMAL_Y] = Float.floatToRawIntBits(y);
+		vertex[RecordedGeometry.NORMAL_Z] = Float.floatToRawIntBits(z);
+
+		return this;
+	}
+
+	@Override
+	public void endVertex() {
+		if (currentType == null) {
+			throw new IllegalStateException("Tried to record a vertex without getting a buffer first");
+		}
+
+		int offset = vertexCount * RecordedGeometry.STRIDE;
+
+		if (offset + RecordedGeometry.STRIDE > data.length) {
+			data = Arrays.copyOf(data, data.length * 2);
+		}
+
+		System.arraycopy(vertex, 0, data, offset, RecordedGeometry.STRIDE);
+		vertexCount++;
+
+		// Renderers only write the elements that are part of the vertex format, so don't let the others leak into
+		// the next vertex.
+		Arrays.fill(vertex, 0);
+	}
+}
@@ -0,0 +1,95 @@
+package net.coderbot.iris.block_rendering;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import com.mojang.math.Vector3f;
+import com.mojang.math.Vector4f;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.RenderType;
+
+import java.util.List;
+
+/**
+ * Vertices recorded by a {@link GeometryRecorder}, relative to the pose that they were recorded with. They can be
+ * replayed into any buffer source with a different pose, which is much cheaper than building them again.
+ */
+public class RecordedGeometry {
+	static final int POSITION_X = 0;
+	static final int POSITION_Y = 1;
+	static final int POSITION_Z = 2;
+	static final int COLOR = 3;
+	static final int U = 4;
+	static final int V = 5;
+	static final int OVERLAY = 6;
+	static final int LIGHT = 7;
+	static final int NORMAL_X = 8;
+	static final int NORMAL_Y = 9;
+	static final int NORMAL_Z = 10;
+	static final int STRIDE = 11;
+
+	// Only ever used on the render thread
+	private static final Vector4f position = new Vector4f();
+	private static final Vector3f normal = new Vector3f();
+
+	private final List<Segment> segments;
+	private final int vertexCount;
+
+	RecordedGeometry(List<Segment> segments) {
+		this.segments = segments;
+
+		int vertexCount = 0;
+
+		for (Segment segment : segments) {
+			vertexCount += segment.vertexCount;
+		}
+
+		this.vertexCount = vertexCount;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Transforms the recorded vertices by the given pose, and writes them to the given buffer source.
+	 */
+	public void replay(PoseStack.Pose pose, MultiBufferSource bufferSource) {
+		for (Segment segment : segments) {
+			VertexConsumer consumer = bufferSource.getBuffer(segment.renderType);
+			int[] data = segment.data;
+
+			for (int base = 0; base < segment.vertexCount * STRIDE; base += STRIDE) {
+				position.set(Float.intBitsToFloat(data[base + POSITION_X]), Float.intBitsToFloat(data[base + POSITION_Y]),
+					Float.intBitsToFloat(data[base + POSITION_Z]), 1.0F);
+				position.transform(pose.pose());
+
+				normal.set(Float.intBitsToFloat(data[base + NORMAL_X]), Float.intBitsToFloat(data[base + NORMAL_Y]),
+					Float.intBitsToFloat(data[base + NORMAL_Z]));
+				normal.transform(pose.normal());
+
+				int color = data[base + COLOR];
+
+				// Elements that aren't part of the vertex format of the render type are skipped by the consumer.
+				consumer.vertex(position.x(), position.y(), position.z())
+					.color(color & 0xFF, (color >>> 8) & 0xFF, (color >>> 16) & 0xFF, color >>> 24)
+					.uv(Float.intBitsToFloat(data[base + U]), Float.intBitsToFloat(data[base + V]))
+					.overlayCoords(data[base + OVERLAY])
+					.uv2(data[base + LIGHT])
+					.normal(normal.x(), normal.y(), normal.z());
+				consumer.endVertex();
+			}
+		}
+	}
+
+	static class Segment {
+		private final RenderType renderType;
+		private final int[] data;
+		private final int vertexCount;
+
+		Segment(RenderType renderType, int[] data, int vertexCount) {
+			this.renderType = renderType;
+			this.data = data;
+			this.vertexCount = vertexCount;
+		}
+	}
+}
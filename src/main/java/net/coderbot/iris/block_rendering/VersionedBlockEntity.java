@@ -0,0 +1,13 @@
+package net.coderbot.iris.block_rendering;
+
+/**
+ * Implemented by block entities, to allow detecting when the data that they're rendered from has changed.
+ */
+public interface VersionedBlockEntity {
+	/**
+	 * @return a counter that changes every time that the data of this block entity changes on the client
+	 */
+	int iris$getDataVersion();
+
+	void iris$markDataChanged();
+}
@@ -36,6 +36,84 @@ public class IrisConfig {
 	 */
 	private boolean disableUpdateMessage;
 
+	/**
+	 * If color buffers that are never live at the same time during a frame should share their textures.
+	 */
+	private boolean enableRenderTargetAliasing;
+
+	/**
+	 * If color buffers that are always fully overwritten before being read should skip being cleared every frame.
+	 */
+	private boolean enableClearElision;
+
+	/**
+	 * If the internal render scale of the gbuffer and composite passes should be adjusted to hold a frame rate target.
+	 */
+	private boolean enableDynamicResolution;
+
+	/**
+	 * The lowest render scale that dynamic resolution is allowed to use, between 0.25 and 1.0.
+	 */
+	private float dynamicResolutionMinScale;
+
+	/**
+	 * The frame rate that dynamic resolution tries to hold.
+	 */
+	private int dynamicResolutionTargetFramerate;
+
+	/**
+	 * If the CPU and GPU time of every shader pack pass should be measured and shown on the debug screen.
+	 */
+	private boolean enablePassProfiling;
+
+	/**
+	 * The maximum number of frames that a rendered shadow map may be reused for, as long as the sun and the camera
+	 * haven't moved too much. A value of 1 renders the shadow map every frame.
+	 */
+	private int maxShadowUpdateInterval;
+
+	/**
+	 * If the geometry of particles should be built on multiple threads when there are many of them on screen.
+	 */
+	private boolean enableParallelParticles;
+
+	/**
+	 * If the geometry of static block entities such as signs and chests should be reused across passes and frames.
+	 */
+	private boolean enableBlockEntityGeometryCache;
+
+	/**
+	 * If chunk geometry should use a smaller vertex format that packs the extended vertex attributes more tightly.
+	 */
+	private boolean enableCompactTerrainVertexFormat;
+
+	/**
+	 * If the cost of the Iris additions to chunk meshing should be measured and shown on the debug screen.
+	 */
+	private boolean enableChunkMeshStatistics;
+
+	/**
+	 * If batched entity geometry should be uploaded into a single streaming vertex buffer per batch instead of being
+	 * uploaded separately for every draw.
+	 */
+	private boolean enableEntityVertexStreaming;
+
+	/**
+	 * If entities should be rendered roughly front-to-back, so that the depth test can skip hidden fragments.
+	 */
+	private boolean enableFrontToBackEntitySorting;
+
+	/**
+	 * If the mip chains of composite buffers should be built with a compute shader instead of glGenerateMipmap.
+	 */
+	private boolean enableComputeMipmaps;
+
+	/**
+	 * If directory shader packs should be watched for changes, rebuilding only the changed programs when a source file
+	 * changes, and reloading the whole pack when anything else changes. Meant for shader pack development.
+	 */
+	private boolean enableShaderPackHotReload;
+
 	private final Path propertiesPath;
 
 	public IrisConfig(Path propertiesPath) {
@@ -43,6 +121,21 @@ public class IrisConfig {
 		enableShaders = true;
 		enableDebugOptions = false;
 		disableUpdateMessage = false;
+		enableRenderTargetAliasing = false;
+		enableClearElision = false;
+		enableDynamicResolution = false;
+		dynamicResolutionMinScale = 0.5f;
+		dynamicResolutionTargetFramerate = 60;
+		enablePassProfiling = false;
+		maxShadowUpdateInterval = 1;
+		enableParallelParticles = false;
+		enableBlockEntityGeometryCache = false;
+		enableCompactTerrainVertexFormat = false;
+		enableChunkMeshStatistics = false;
+		enableEntityVertexStreaming = false;
+		enableFrontToBackEntitySorting = false;
+		enableComputeMipmaps = false;
+		enableShaderPackHotReload = false;
 		this.propertiesPath = propertiesPath;
 	}
 
@@ -104,6 +197,66 @@ public class IrisConfig {
 		return disableUpdateMessage;
 	}
 
+	public boolean shouldAliasRenderTargets() {
+		return enableRenderTargetAliasing;
+	}
+
+	public boolean shouldElideClears() {
+		return enableClearElision;
+	}
+
+	public boolean isDynamicResolutionEnabled() {
+		return enableDynamicResolution;
+	}
+
+	public float getDynamicResolutionMinScale() {
+		return dynamicResolutionMinScale;
+	}
+
+	public int getDynamicResolutionTargetFramerate() {
+		return dynamicResolutionTargetFramerate;
+	}
+
+	public boolean isPassProfilingEnabled() {
+		return enablePassProfiling;
+	}
+
+	public int getMaxShadowUpdateInterval() {
+		return maxShadowUpdateInterval;
+	}
+
+	public boolean shouldBuildParticlesInParallel() {
+		return enableParallelParticles;
+	}
+
+	public boolean shouldCacheBlockEntityGeometry() {
+		return enableBlockEntityGeometryCache;
+	}
+
+	public boolean shouldUseCompactTerrainVertexFormat() {
+		return enableCompactTerrainVertexFormat;
+	}
+
+	public boolean areChunkMeshStatisticsEnabled() {
+		return enableChunkMeshStatistics;
+	}
+
+	public boolean shouldStreamEntityVertices() {
+		return enableEntityVertexStreaming;
+	}
+
+	public boolean shouldSortEntitiesFrontToBack() {
+		return enableFrontToBackEntitySorting;
+	}
+
+	public boolean shouldUseComputeMipmaps() {
+		return enableComputeMipmaps;
+	}
+
+	public boolean isShaderPackHotReloadEnabled() {
+		return enableShaderPackHotReload;
+	}
+
 	public void setDebugEnabled(boolean enabled) {
 		enableDebugOptions = enabled;
 	}
@@ -133,6 +286,34 @@ public class IrisConfig {
 		enableShaders = !"false".equals(properties.getProperty("enableShaders"));
 		enableDebugOptions = "true".equals(properties.getProperty("enableDebugOptions"));
 		disableUpdateMessage = "true".equals(properties.getProperty("disableUpdateMessage"));
+		enableRenderTargetAliasing = "true".equals(properties.getProperty("enableRenderTargetAliasing"));
+		enableClearElision = "true".equals(properties.getProperty("enableClearElision"));
+		enableDynamicResolution = "true".equals(properties.getProperty("enableDynamicResolution"));
+		enablePassProfiling = "true".equals(properties.getProperty("enablePassProfiling"));
+		enableParallelParticles = "true".equals(properties.getProperty("enableParallelParticles"));
+		enableBlockEntityGeometryCache = "true".equals(properties.getProperty("enableBlockEntityGeometryCache"));
+		enableCompactTerrainVertexFormat = "true".equals(properties.getProperty("enableCompactTerrainVertexFormat"));
+		enableChunkMeshStatistics = "true".equals(properties.getProperty("enableChunkMeshStatistics"));
+		enableEntityVertexStreaming = "true".equals(properties.getProperty("enableEntityVertexStreaming"));
+		enableFrontToBackEntitySorting = "true".equals(properties.getProperty("enableFrontToBackEntitySorting"));
+		enableComputeMipmaps = "true".equals(properties.getProperty("enableComputeMipmaps"));
+		enableShaderPackHotReload = "true".equals(properties.getProperty("enableShaderPackHotReload"));
+		try {
+			dynamicResolutionMinScale = Math.max(0.25f, Math.min(1.0f, Float.parseFloat(properties.getProperty("dynamicResolutionMinScale", "0.5"))));
+			dynamicResolutionTargetFramerate = Math.max(1, Integer.parseInt(properties.getProperty("dynamicResolutionTargetFramerate", "60")));
+		} catch (NumberFormatException e) {
+			Iris.logger.error("Dynamic resolution settings reset; values are invalid.");
+			dynamicResolutionMinScale = 0.5f;
+			dynamicResolutionTargetFramerate = 60;
+			save();
+		}
+		try {
+			maxShadowUpdateInterval = Math.max(1, Math.min(8, Integer.parseInt(properties.getProperty("maxShadowUpdateInterval", "1"))));
+		} catch (NumberFormatException e) {
+			Iris.logger.error("Shadow update interval setting reset; value is invalid.");
+			maxShadowUpdateInterval = 1;
+			save();
+		}
 		try {
 			IrisVideoSettings.shadowDistance = Integer.parseInt(properties.getProperty("maxShadowRenderDistance", "32"));
 		} catch (NumberFormatException e) {
@@ -159,6 +340,21 @@ public class IrisConfig {
 		properties.setProperty("enableShaders", enableShaders ? "true" : "false");
 		properties.setProperty("enableDebugOptions", enableDebugOptions ? "true" : "false");
 		properties.setProperty("disableUpdateMessage", disableUpdateMessage ? "true" : "false");
+		properties.setProperty("enableRenderTargetAliasing", enableRenderTargetAliasing ? "true" : "false");
+		properties.setProperty("enableClearElision", enableClearElision ? "true" : "false");
+		properties.setProperty("enableDynamicResolution", enableDynamicResolution ? "true" : "false");
+		properties.setProperty("dynamicResolutionMinScale", String.valueOf(dynamicResolutionMinScale));
+		properties.setProperty("dynamicResolutionTargetFramerate", String.valueOf(dynamicResolutionTargetFramerate));
+		properties.setProperty("enablePassProfiling", enablePassProfiling ? "true" : "false");
+		properties.setProperty("maxShadowUpdateInterval", String.valueOf(maxShadowUpdateInterval));
+		properties.setProperty("enableParallelParticles", enableParallelParticles ? "true" : "false");
+		properties.setProperty("enableBlockEntityGeometryCache", enableBlockEntityGeometryCache ? "true" : "false");
+		properties.setProperty("enableCompactTerrainVertexFormat", enableCompactTerrainVertexFormat ? "true" : "false");
+		properties.setProperty("enableChunkMeshStatistics", enableChunkMeshStatistics ? "true" : "false");
+		properties.setProperty("enableEntityVertexStreaming", enableEntityVertexStreaming ? "true" : "false");
+		properties.setProperty("enableFrontToBackEntitySorting", enableFrontToBackEntitySorting ? "true" : "false");
+		properties.setProperty("enableComputeMipmaps", enableComputeMipmaps ? "true" : "false");
+		properties.setProperty("enableShaderPackHotReload", enableShaderPackHotReload ? "true" : "false");
 		properties.setProperty("maxShadowRenderDistance", String.valueOf(IrisVideoSettings.shadowDistance));
 		// NB: This uses ISO-8859-1 with unicode escapes as the encoding
 		properties.store(Files.newOutputStream(propertiesPath), COMMENT);
@@ -0,0 +1,183 @@
+package net.coderbot.iris.fantastic;
+
+import com.google.common.collect.ImmutableSet;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.BufferUploader;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import it.unimi.dsi.fastutil.objects.Reference2BooleanOpenHashMap;
+import net.minecraft.CrashReport;
+import net.minecraft.CrashReportCategory;
+import net.minecraft.ReportedException;
+import net.minecraft.client.Camera;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.client.particle.ParticleRenderType;
+import net.minecraft.client.particle.SingleQuadParticle;
+import org.lwjgl.opengl.GL11C;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the geometry of the particles in a single particle render type on multiple threads.
+ *
+ * <p>The particles are split into fixed-size batches, and each batch is written into its own {@link BufferBuilder}
+ * from the common fork-join pool. The batches are then uploaded and drawn on the render thread in order, using the
+ * render state that the render type has already set up. Particles that can't safely be built off-thread are handed back
+ * to the caller so that they can be rendered into the regular tesselator as usual, after the batches.</p>
+ *
+ * <p>Building particles off-thread is safe because the render thread is blocked until all batches are done, so the
+ * world that particles read their light values from can't change in the meantime. Only vanilla quad particles are built
+ * in parallel, since modded particles might keep state in their render method that isn't safe to touch from multiple
+ * threads.</p>
+ */
+public class ParallelParticleBuilder {
+	// Below this, the cost of waking up the worker threads outweighs the gains.
+	private static final int PARALLEL_THRESHOLD = 2048;
+	private static final int BATCH_SIZE = 1024;
+
+	// Every particle is a quad of 4 vertices.
+	private static final int INITIAL_BUFFER_SIZE = BATCH_SIZE * 4 * DefaultVertexFormat.PARTICLE.getVertexSize();
+
+	// Render types that draw quads of DefaultVertexFormat.PARTICLE vertices, and therefore can be drawn from our own
+	// buffers without calling their end method.
+	private static final Set<ParticleRenderType> QUAD_RENDER_TYPES = ImmutableSet.of(
+		ParticleRenderType.TERRAIN_SHEET,
+		ParticleRenderType.PARTICLE_SHEET_OPAQUE,
+		ParticleRenderType.PARTICLE_SHEET_TRANSLUCENT,
+		ParticleRenderType.PARTICLE_SHEET_LIT,
+		IrisParticleRenderTypes.OPAQUE_TERRAIN
+	);
+
+	private final List<BufferBuilder> buffers = new ArrayList<>();
+	private final List<Particle> parallel = new ArrayList<>();
+	private final List<Particle> serial = new ArrayList<>();
+	private final Reference2BooleanOpenHashMap<Class<?>> parallelSafeClasses = new Reference2BooleanOpenHashMap<>();
+
+	private volatile Throwable failure;
+	private volatile Particle failedParticle;
+
+	/**
+	 * Builds and draws the particles that can be built in parallel. Must be called after the render type of the
+	 * particles has been set up with {@link ParticleRenderType#begin}.
+	 *
+	 * @return the particles that still need to be rendered on the render thread
+	 */
+	public Iterator<Particle> build(Iterable<Particle> particles, Camera camera, float tickDelta) {
+		Iterator<Particle> iterator = particles.iterator();
+
+		if (!iterator.hasNext()) {
+			return iterator;
+		}
+
+		// All particles in a queue share the same render type.
+		ParticleRenderType renderType = iterator.next().getRenderType();
+
+		if (!QUAD_RENDER_TYPES.contains(renderType)) {
+			return particles.iterator();
+		}
+
+		for (Particle particle : particles) {
+			if (isParallelSafe(particle)) {
+				parallel.add(particle);
+			} else {
+				serial.add(particle);
+			}
+		}
+
+		if (parallel.size() < PARALLEL_THRESHOLD) {
+			parallel.clear();
+			serial.clear();
+
+			return particles.iterator();
+		}
+
+		int batches = (parallel.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+
+		while (buffers.size() < batches) {
+			buffers.add(new BufferBuilder(INITIAL_BUFFER_SIZE));
+		}
+
+		for (int i = 0; i < batches; i++) {
+			buffers.get(i).begin(GL11C.GL_QUADS, DefaultVertexFormat.PARTICLE);
+		}
+
+		IntStream.range(0, batches).parallel().forEach(batch -> {
+			BufferBuilder buffer = buffers.get(batch);
+			int end = Math.min(parallel.size(), (batch + 1) * BATCH_SIZE);
+
+			for (int i = batch * BATCH_SIZE; i < end && failure == null; i++) {
+				Particle particle = parallel.get(i);
+
+				try {
+					particle.render(buffer, camera, tickDelta);
+				} catch (Throwable t) {
+					synchronized (this) {
+						if (failure == null) {
+							failedParticle = particle;
+							failure = t;
+						}
+					}
+				}
+			}
+		});
+
+		if (failure != null) {
+			throw createCrash(renderType, batches);
+		}
+
+		for (int i = 0; i < batches; i++) {
+			BufferBuilder buffer = buffers.get(i);
+
+			buffer.end();
+			BufferUploader.end(buffer);
+		}
+
+		List<Particle> remaining = new ArrayList<>(serial);
+
+		// Don't keep particles alive until the next frame
+		parallel.clear();
+		serial.clear();
+
+		return remaining.iterator();
+	}
+
+	private boolean isParallelSafe(Particle particle) {
+		Class<?> particleClass = particle.getClass();
+
+		if (!parallelSafeClasses.containsKey(particleClass)) {
+			parallelSafeClasses.put(particleClass, particle instanceof SingleQuadParticle
+				&& particleClass.getName().startsWith("net.minecraft."));
+		}
+
+		return parallelSafeClasses.getBoolean(particleClass);
+	}
+
+	private ReportedException createCrash(ParticleRenderType renderType, int batches) {
+		Throwable cause = failure;
+		Particle particle = failedParticle;
+
+		failure = null;
+		failedParticle = null;
+
+		for (int i = 0; i < batches; i++) {
+			BufferBuilder buffer = buffers.get(i);
+
+			buffer.end();
+			buffer.discard();
+		}
+
+		parallel.clear();
+		serial.clear();
+
+		// Matches the crash report created by vanilla when a particle fails to render.
+		CrashReport crashReport = CrashReport.forThrowable(cause, "Rendering Particle");
+		CrashReportCategory category = crashReport.addCategory("Particle being rendered");
+		category.setDetail("Particle", particle::toString);
+		category.setDetail("Particle Type", renderType::toString);
+
+		return new ReportedException(crashReport);
+	}
+}
@@ -17,6 +17,8 @@ public enum FeatureFlags {
 	ENTITY_TRANSLUCENT(() -> true, () -> true),
 	UNKNOWN(() -> false, () -> false);
 
+	private static boolean assumeHardwareSupport;
+
 	private final BooleanSupplier irisRequirement;
 	private final BooleanSupplier hardwareRequirement;
 
@@ -30,7 +32,7 @@ public enum FeatureFlags {
 		FeatureFlags[] flags = invalidFeatureFlags.toArray(new FeatureFlags[0]);
 		for (FeatureFlags flag : flags) {
 			unsupportedIris |= !flag.irisRequirement.getAsBoolean();
-			unsupportedHardware |= !flag.hardwareRequirement.getAsBoolean();
+			unsupportedHardware |= !flag.isSupportedByHardware();
 		}
 
 		if (unsupportedIris) {
@@ -51,7 +53,19 @@ public enum FeatureFlags {
 	}
 
 	public boolean isUsable() {
-		return irisRequirement.getAsBoolean() && hardwareRequirement.getAsBoolean();
+		return irisRequirement.getAsBoolean() && isSupportedByHardware();
+	}
+
+	private boolean isSupportedByHardware() {
+		return assumeHardwareSupport || hardwareRequirement.getAsBoolean();
+	}
+
+	/**
+	 * Treats the hardware requirements of all features as met. Checking them needs an OpenGL context, which isn't
+	 * available when loading shader packs headlessly.
+	 */
+	public static void setAssumeHardwareSupport(boolean assumeHardwareSupport) {
+		FeatureFlags.assumeHardwareSupport = assumeHardwareSupport;
 	}
 
 	public static boolean isInvalid(String name) {
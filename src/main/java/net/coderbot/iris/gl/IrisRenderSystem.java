@@ -6,13 +6,17 @@ import net.coderbot.iris.vendored.joml.Vector3i;
 import net.coderbot.iris.Iris;
 import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.ARBDirectStateAccess;
+import org.lwjgl.opengl.ARBInvalidateSubdata;
 import org.lwjgl.opengl.EXTShaderImageLoadStore;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15C;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30C;
+import org.lwjgl.opengl.GL33C;
 import org.lwjgl.opengl.GL40C;
 import org.lwjgl.opengl.GL42C;
+import org.lwjgl.opengl.GL43C;
 import org.lwjgl.opengl.GL45C;
 import org.lwjgl.system.MemoryUtil;
 
@@ -264,6 +268,59 @@ public class IrisRenderSystem {
 		GL40C.glBlendFuncSeparatei(buffer, srcRGB, dstRGB, srcAlpha, dstAlpha);
   }
   
+	public static boolean supportsTimerQueries() {
+		return GL.getCapabilities().OpenGL33 || GL.getCapabilities().GL_ARB_timer_query;
+	}
+
+	public static int genQuery() {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		return GL15C.glGenQueries();
+	}
+
+	public static void deleteQuery(int query) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		GL15C.glDeleteQueries(query);
+	}
+
+	public static void queryCounter(int query) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		GL33C.glQueryCounter(query, GL33C.GL_TIMESTAMP);
+	}
+
+	public static void beginQuery(int target, int query) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		GL15C.glBeginQuery(target, query);
+	}
+
+	public static void endQuery(int target) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		GL15C.glEndQuery(target);
+	}
+
+	public static boolean isQueryResultAvailable(int query) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		return GL15C.glGetQueryObjecti(query, GL15C.GL_QUERY_RESULT_AVAILABLE) != GL11.GL_FALSE;
+	}
+
+	public static long getQueryResult(int query) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		return GL33C.glGetQueryObjecti64(query, GL15C.GL_QUERY_RESULT);
+	}
+
+	public static boolean supportsInvalidateFramebuffer() {
+		return GL.getCapabilities().OpenGL43 || GL.getCapabilities().GL_ARB_invalidate_subdata;
+	}
+
+	public static void invalidateFramebuffer(int target, int[] attachments) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+
+		if (GL.getCapabilities().OpenGL43) {
+			GL43C.glInvalidateFramebuffer(target, attachments);
+		} else {
+			ARBInvalidateSubdata.glInvalidateFramebuffer(target, attachments);
+		}
+	}
+
 	public static void bindTextureToUnit(int unit, int texture) {
 		dsaState.bindTextureToUnit(unit, texture);
 	}
@@ -14,6 +14,7 @@ import net.coderbot.iris.shaderpack.PackRenderTargetDirectives;
 import org.lwjgl.opengl.GL20C;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.function.IntSupplier;
@@ -21,20 +22,48 @@ import java.util.function.IntSupplier;
 public class ProgramSamplers {
 	private static ProgramSamplers active;
 	private final ImmutableList<SamplerBinding> samplerBindings;
-	private final ImmutableList<ValueUpdateNotifier> notifiersToReset;
+	// Sampler bindings with a notifier, indexed by the index of that notifier
+	private final SamplerBinding[][] dependents;
 	private List<GlUniform1iCall> initializer;
 
-	private ProgramSamplers(ImmutableList<SamplerBinding> samplerBindings, ImmutableList<ValueUpdateNotifier> notifiersToReset, List<GlUniform1iCall> initializer) {
+	private ProgramSamplers(ImmutableList<SamplerBinding> samplerBindings, List<GlUniform1iCall> initializer) {
 		this.samplerBindings = samplerBindings;
-		this.notifiersToReset = notifiersToReset;
+		this.dependents = groupByNotifier(samplerBindings);
 		this.initializer = initializer;
 	}
 
-	public void update() {
-		if (active != null) {
-			active.removeListeners();
+	private static SamplerBinding[][] groupByNotifier(ImmutableList<SamplerBinding> samplerBindings) {
+		int length = 0;
+
+		for (SamplerBinding binding : samplerBindings) {
+			if (binding.getNotifier() != null) {
+				length = Math.max(length, binding.getNotifier().getIndex() + 1);
+			}
+		}
+
+		SamplerBinding[][] dependents = new SamplerBinding[length][];
+
+		for (SamplerBinding binding : samplerBindings) {
+			if (binding.getNotifier() == null) {
+				continue;
+			}
+
+			int index = binding.getNotifier().getIndex();
+			SamplerBinding[] existing = dependents[index];
+
+			if (existing == null) {
+				dependents[index] = new SamplerBinding[] { binding };
+			} else {
+				SamplerBinding[] grown = Arrays.copyOf(existing, existing.length + 1);
+				grown[existing.length] = binding;
+				dependents[index] = grown;
+			}
 		}
 
+		return dependents;
+	}
+
+	public void update() {
 		active = this;
 
 		if (initializer != null) {
@@ -56,18 +85,30 @@ public class ProgramSamplers {
 		RenderSystem.activeTexture(GL20C.GL_TEXTURE0 + activeTexture);
 	}
 
-	public void removeListeners() {
-		active = null;
+	/**
+	 * Rebinds the samplers of the active program that depend on the given notifier.
+	 *
+	 * <p>Unlike uniforms, samplers are always rebound when their program is activated, since texture bindings are
+	 * shared between all programs.</p>
+	 */
+	public static void onValueChanged(ValueUpdateNotifier notifier) {
+		if (active == null) {
+			return;
+		}
 
-		for (ValueUpdateNotifier notifier : notifiersToReset) {
-			notifier.setListener(null);
+		int index = notifier.getIndex();
+
+		if (index >= active.dependents.length || active.dependents[index] == null) {
+			return;
+		}
+
+		for (SamplerBinding binding : active.dependents[index]) {
+			binding.update();
 		}
 	}
 
 	public static void clearActiveSamplers() {
-		if (active != null) {
-			active.removeListeners();
-		}
+		active = null;
 	}
 
 	public static Builder builder(int program, Set<Integer> reservedTextureUnits) {
@@ -86,7 +127,6 @@ public class ProgramSamplers {
 		private final int program;
 		private final ImmutableSet<Integer> reservedTextureUnits;
 		private final ImmutableList.Builder<SamplerBinding> samplers;
-		private final ImmutableList.Builder<ValueUpdateNotifier> notifiersToReset;
 		private final List<GlUniform1iCall> calls;
 		private int remainingUnits;
 		private int nextUnit;
@@ -95,7 +135,6 @@ public class ProgramSamplers {
 			this.program = program;
 			this.reservedTextureUnits = ImmutableSet.copyOf(reservedTextureUnits);
 			this.samplers = ImmutableList.builder();
-			this.notifiersToReset = ImmutableList.builder();
 			this.calls = new ArrayList<>();
 
 			int maxTextureUnits = SamplerLimits.get().getMaxTextureUnits();
@@ -170,7 +209,6 @@ public class ProgramSamplers {
 		 */
 		@Override
 		public boolean addDynamicSampler(IntSupplier sampler, ValueUpdateNotifier notifier, String... names) {
-			notifiersToReset.add(notifier);
 			return addDynamicSampler(sampler, false, notifier, names);
 		}
 
@@ -216,7 +254,7 @@ public class ProgramSamplers {
 		}
 
 		public ProgramSamplers build() {
-			return new ProgramSamplers(samplers.build(), notifiersToReset.build(), calls);
+			return new ProgramSamplers(samplers.build(), calls);
 		}
 	}
 
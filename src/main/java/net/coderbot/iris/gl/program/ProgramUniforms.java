@@ -18,9 +18,8 @@ import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30C;
 
 import java.nio.IntBuffer;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalInt;
@@ -30,19 +29,45 @@ public class ProgramUniforms {
 	private final ImmutableList<Uniform> perTick;
 	private final ImmutableList<Uniform> perFrame;
 	private final ImmutableList<Uniform> dynamic;
-	private final ImmutableList<ValueUpdateNotifier> notifiersToReset;
+	// Dynamic uniforms, indexed by the index of the notifier that they depend on
+	private final Uniform[][] dependents;
 
 	private ImmutableList<Uniform> once;
 	long lastTick = -1;
 	int lastFrame = -1;
 
 	public ProgramUniforms(ImmutableList<Uniform> once, ImmutableList<Uniform> perTick, ImmutableList<Uniform> perFrame,
-						   ImmutableList<Uniform> dynamic, ImmutableList<ValueUpdateNotifier> notifiersToReset) {
+						   ImmutableList<Uniform> dynamic) {
 		this.once = once;
 		this.perTick = perTick;
 		this.perFrame = perFrame;
 		this.dynamic = dynamic;
-		this.notifiersToReset = notifiersToReset;
+		this.dependents = groupByNotifier(dynamic);
+	}
+
+	private static Uniform[][] groupByNotifier(ImmutableList<Uniform> dynamic) {
+		int length = 0;
+
+		for (Uniform uniform : dynamic) {
+			length = Math.max(length, uniform.getNotifier().getIndex() + 1);
+		}
+
+		Uniform[][] dependents = new Uniform[length][];
+
+		for (Uniform uniform : dynamic) {
+			int index = uniform.getNotifier().getIndex();
+			Uniform[] existing = dependents[index];
+
+			if (existing == null) {
+				dependents[index] = new Uniform[] { uniform };
+			} else {
+				Uniform[] grown = Arrays.copyOf(existing, existing.length + 1);
+				grown[existing.length] = uniform;
+				dependents[index] = grown;
+			}
+		}
+
+		return dependents;
 	}
 
 	private void updateStage(ImmutableList<Uniform> uniforms) {
@@ -56,13 +81,11 @@ public class ProgramUniforms {
 	}
 
 	public void update() {
-		if (active != null) {
-			active.removeListeners();
-		}
-
 		active = this;
 
-		updateStage(dynamic);
+		for (Uniform uniform : dynamic) {
+			uniform.updateIfChanged();
+		}
 
 		if (once != null) {
 			updateStage(once);
@@ -92,18 +115,27 @@ public class ProgramUniforms {
 		}
 	}
 
-	public void removeListeners() {
-		active = null;
+	/**
+	 * Updates the uniforms of the active program that depend on the given notifier.
+	 */
+	public static void onValueChanged(ValueUpdateNotifier notifier) {
+		if (active == null) {
+			return;
+		}
+
+		int index = notifier.getIndex();
 
-		for (ValueUpdateNotifier notifier : notifiersToReset) {
-			notifier.setListener(null);
+		if (index >= active.dependents.length || active.dependents[index] == null) {
+			return;
+		}
+
+		for (Uniform uniform : active.dependents[index]) {
+			uniform.onValueChanged();
 		}
 	}
 
 	public static void clearActiveUniforms() {
-		if (active != null) {
-			active.removeListeners();
-		}
+		active = null;
 	}
 
 	public static Builder builder(String name, int program) {
@@ -121,7 +153,6 @@ public class ProgramUniforms {
 		private final Map<String, Uniform> dynamic;
 		private final Map<String, UniformType> uniformNames;
 		private final Map<String, UniformType> externalUniformNames;
-		private final List<ValueUpdateNotifier> notifiersToReset;
 
 		protected Builder(String name, int program) {
 			this.name = name;
@@ -134,7 +165,6 @@ public class ProgramUniforms {
 			dynamic = new HashMap<>();
 			uniformNames = new HashMap<>();
 			externalUniformNames = new HashMap<>();
-			notifiersToReset = new ArrayList<>();
 		}
 
 		@Override
@@ -259,7 +289,7 @@ public class ProgramUniforms {
 			}
 
 			return new ProgramUniforms(ImmutableList.copyOf(once.values()), ImmutableList.copyOf(perTick.values()), ImmutableList.copyOf(perFrame.values()),
-					ImmutableList.copyOf(dynamic.values()), ImmutableList.copyOf(notifiersToReset));
+					ImmutableList.copyOf(dynamic.values()));
 		}
 
 		@Override
@@ -268,7 +298,6 @@ public class ProgramUniforms {
 			Objects.requireNonNull(notifier);
 
 			dynamic.put(locations.get(uniform.getLocation()), uniform);
-			notifiersToReset.add(notifier);
 
 			return this;
 		}
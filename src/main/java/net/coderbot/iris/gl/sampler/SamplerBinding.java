@@ -20,14 +20,10 @@ public class SamplerBinding {
 	}
 
 	public void update() {
-		updateSampler();
-
-		if (notifier != null) {
-			notifier.setListener(this::updateSampler);
-		}
+		IrisRenderSystem.bindTextureToUnit(textureUnit, texture.getAsInt());
 	}
 
-	private void updateSampler() {
-		IrisRenderSystem.bindTextureToUnit(textureUnit, texture.getAsInt());
+	public ValueUpdateNotifier getNotifier() {
+		return notifier;
 	}
 }
@@ -10,11 +10,13 @@ import net.coderbot.iris.texture.format.TextureFormat;
 import net.coderbot.iris.texture.format.TextureFormatLoader;
 import net.minecraft.SharedConstants;
 import net.minecraft.Util;
+import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20C;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -37,16 +39,32 @@ public class StandardMacros {
 	}
 
 	public static Iterable<StringPair> createStandardEnvironmentDefines() {
+		return createEnvironmentDefines(getGlVersion(GL20C.GL_VERSION), getGlVersion(GL20C.GL_SHADING_LANGUAGE_VERSION),
+			getVendor(), getRenderer(), getGlExtensions(), TextureFormatLoader.getFormat());
+	}
+
+	/**
+	 * Creates environment defines without querying OpenGL, for loading shader packs without an OpenGL context. These
+	 * describe an OpenGL 4.6 driver of an unknown vendor without any extensions, and no resource pack texture format.
+	 */
+	public static Iterable<StringPair> createHeadlessEnvironmentDefines() {
+		return createEnvironmentDefines("460", "460", "MC_GL_VENDOR_OTHER", "MC_GL_RENDERER_OTHER",
+			Collections.emptySet(), null);
+	}
+
+	private static Iterable<StringPair> createEnvironmentDefines(String glVersion, String glslVersion, String vendor,
+																 String renderer, Set<String> glExtensions,
+																 @Nullable TextureFormat textureFormat) {
 		ArrayList<StringPair> standardDefines = new ArrayList<>();
 
 		define(standardDefines, "MC_VERSION", getMcVersion());
-		define(standardDefines, "MC_GL_VERSION", getGlVersion(GL20C.GL_VERSION));
-		define(standardDefines, "MC_GLSL_VERSION", getGlVersion(GL20C.GL_SHADING_LANGUAGE_VERSION));
+		define(standardDefines, "MC_GL_VERSION", glVersion);
+		define(standardDefines, "MC_GLSL_VERSION", glslVersion);
 		define(standardDefines, getOsString());
-		define(standardDefines, getVendor());
-		define(standardDefines, getRenderer());
+		define(standardDefines, vendor);
+		define(standardDefines, renderer);
 
-		for (String glExtension : getGlExtensions()) {
+		for (String glExtension : glExtensions) {
 			define(standardDefines, glExtension);
 		}
 
@@ -56,7 +74,6 @@ public class StandardMacros {
 		define(standardDefines, "MC_SHADOW_QUALITY", "1.0");
 		define(standardDefines, "MC_HAND_DEPTH", Float.toString(HandRenderer.DEPTH));
 
-		TextureFormat textureFormat = TextureFormatLoader.getFormat();
 		if (textureFormat != null) {
 			for (String define : textureFormat.getDefines()) {
 				define(standardDefines, define);
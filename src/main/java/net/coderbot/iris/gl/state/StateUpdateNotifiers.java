@@ -1,18 +1,20 @@
 package net.coderbot.iris.gl.state;
 
 /**
- * Holds some standard update notifiers for various elements of GL state. Currently, this class has a few listeners for
- * fog-related values.
+ * Holds some standard update notifiers for various elements of GL state and rendering state.
+ *
+ * <p>Enabling or disabling fog fires the fog mode notifier, since that's the only fog uniform that depends on it.</p>
  */
 public class StateUpdateNotifiers {
-	public static ValueUpdateNotifier fogToggleNotifier;
-	public static ValueUpdateNotifier fogModeNotifier;
-	public static ValueUpdateNotifier fogStartNotifier;
-	public static ValueUpdateNotifier fogEndNotifier;
-	public static ValueUpdateNotifier fogDensityNotifier;
-	public static ValueUpdateNotifier blendFuncNotifier;
-	public static ValueUpdateNotifier bindTextureNotifier;
-	public static ValueUpdateNotifier normalTextureChangeNotifier;
-	public static ValueUpdateNotifier specularTextureChangeNotifier;
-	public static ValueUpdateNotifier phaseChangeNotifier;
+	public static final ValueUpdateNotifier fogModeNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier fogStartNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier fogEndNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier fogDensityNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier blendFuncNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier bindTextureNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier normalTextureChangeNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier specularTextureChangeNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier phaseChangeNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier entityIdNotifier = new ValueUpdateNotifier();
+	public static final ValueUpdateNotifier blockEntityIdNotifier = new ValueUpdateNotifier();
 }
@@ -1,12 +1,47 @@
 package net.coderbot.iris.gl.state;
 
+import net.coderbot.iris.gl.program.ProgramSamplers;
+import net.coderbot.iris.gl.program.ProgramUniforms;
+
 /**
- * A
+ * Signals changes to a value that dynamic uniforms and samplers depend on, such as a piece of GL state.
+ *
+ * <p>Each notifier has a version that is incremented whenever the value changes. Programs look up which of their
+ * uniforms and samplers depend on each notifier when they are built, so when a notifier fires only the dependents
+ * within the active program are updated, and activating a program doesn't need to register (or allocate) anything.
+ * Dynamic uniforms also remember the version that they last observed, so that they are only refreshed on activation
+ * if the value might have changed since.</p>
+ *
+ * <p>Notifiers must only be used from the render thread.</p>
  */
-public interface ValueUpdateNotifier {
+public final class ValueUpdateNotifier {
+	private static int count;
+
+	private final int index;
+	private int version;
+
+	public ValueUpdateNotifier() {
+		this.index = count++;
+	}
+
 	/**
-	 * Sets up a listener with this notifier. Whenever the underlying value of
-	 * @param listener
+	 * Called whenever the underlying value changes.
 	 */
-	void setListener(Runnable listener);
+	public void onValueChanged() {
+		version += 1;
+
+		ProgramUniforms.onValueChanged(this);
+		ProgramSamplers.onValueChanged(this);
+	}
+
+	/**
+	 * A small index unique to this notifier, so that programs can look up their dependents in an array.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	public int getVersion() {
+		return version;
+	}
 }
@@ -20,14 +20,6 @@ public class FloatUniform extends Uniform {
 
 	@Override
 	public void update() {
-		updateValue();
-
-		if (notifier != null) {
-			notifier.setListener(this::updateValue);
-		}
-	}
-
-	private void updateValue() {
 		float newValue = value.getAsFloat();
 
 		if (cachedValue != newValue) {
@@ -22,14 +22,6 @@ public class IntUniform extends Uniform {
 
 	@Override
 	public void update() {
-		updateValue();
-
-		if (notifier != null) {
-			notifier.setListener(this::updateValue);
-		}
-	}
-
-	private void updateValue() {
 		int newValue = value.getAsInt();
 
 		if (cachedValue != newValue) {
@@ -5,6 +5,8 @@ import net.coderbot.iris.gl.state.ValueUpdateNotifier;
 public abstract class Uniform {
 	protected final int location;
 	protected final ValueUpdateNotifier notifier;
+	// The notifier version that the current value was read at
+	private int observedVersion = -1;
 
 	Uniform(int location) {
 		this(location, null);
@@ -17,6 +19,27 @@ public abstract class Uniform {
 
 	public abstract void update();
 
+	/**
+	 * Updates a dynamic uniform when its program is activated, unless its notifier hasn't fired since the uniform was
+	 * last updated.
+	 */
+	public final void updateIfChanged() {
+		int version = notifier.getVersion();
+
+		if (version != observedVersion) {
+			observedVersion = version;
+			update();
+		}
+	}
+
+	/**
+	 * Updates a dynamic uniform after its notifier fired while its program was active.
+	 */
+	public final void onValueChanged() {
+		observedVersion = notifier.getVersion();
+		update();
+	}
+
 	public final int getLocation() {
 		return location;
 	}
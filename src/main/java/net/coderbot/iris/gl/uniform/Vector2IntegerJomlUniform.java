@@ -23,14 +23,6 @@ public class Vector2IntegerJomlUniform extends Uniform {
 
 	@Override
 	public void update() {
-		updateValue();
-
-		if (notifier != null) {
-			notifier.setListener(this::updateValue);
-		}
-	}
-
-	private void updateValue() {
 		Vector2i newValue = value.get();
 
 		if (cachedValue == null || !newValue.equals(cachedValue)) {
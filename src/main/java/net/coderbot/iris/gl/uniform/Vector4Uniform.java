@@ -23,14 +23,6 @@ public class Vector4Uniform extends Uniform {
 
 	@Override
 	public void update() {
-		updateValue();
-
-		if (notifier != null) {
-			notifier.setListener(this::updateValue);
-		}
-	}
-
-	private void updateValue() {
 		Vector4f newValue = value.get();
 
 		if (!newValue.equals(cachedValue)) {
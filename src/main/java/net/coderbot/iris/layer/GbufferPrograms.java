@@ -10,7 +10,6 @@ public class GbufferPrograms {
 	private static boolean entities;
 	private static boolean blockEntities;
 	private static boolean outline;
-	private static Runnable phaseChangeListener;
 
 	private static void checkReentrancy() {
 		if (entities || blockEntities || outline) {
@@ -91,9 +90,7 @@ public class GbufferPrograms {
 	}
 
 	public static void runPhaseChangeNotifier() {
-		if (phaseChangeListener != null) {
-			phaseChangeListener.run();
-		}
+		StateUpdateNotifiers.phaseChangeNotifier.onValueChanged();
 	}
 
 	public static void setupSpecialRenderCondition(SpecialCondition override) {
@@ -103,12 +100,4 @@ public class GbufferPrograms {
 	public static void teardownSpecialRenderCondition(SpecialCondition override) {
 		Iris.getPipelineManager().getPipeline().ifPresent(p -> p.setSpecialCondition(null));
 	}
-
-	static {
-		StateUpdateNotifiers.phaseChangeNotifier = listener -> phaseChangeListener = listener;
-	}
-
-	public static void init() {
-		// Empty initializer to run static
-	}
 }
@@ -1,6 +1,7 @@
 package net.coderbot.iris.mixin;
 
 import net.coderbot.iris.Iris;
+import net.coderbot.iris.block_rendering.BlockEntityGeometryCache;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.client.Minecraft;
@@ -48,6 +49,9 @@ public class MixinMinecraft_PipelineManagement {
 	 */
 	@Inject(method = "updateLevelInEngines", at = @At("HEAD"))
 	private void iris$resetPipeline(@Nullable ClientLevel level, CallbackInfo ci) {
+		// Cached block entity geometry would otherwise keep the block entities of the previous level alive.
+		BlockEntityGeometryCache.INSTANCE.clear();
+
 		if (Iris.getCurrentDimension() != Iris.lastDimension) {
 			Iris.logger.info("Reloading pipeline on dimension change: " + Iris.lastDimension + " => " + Iris.getCurrentDimension());
 			// Destroy pipelines when changing dimensions.
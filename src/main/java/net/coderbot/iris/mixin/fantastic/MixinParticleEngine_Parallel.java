@@ -0,0 +1,52 @@
+package net.coderbot.iris.mixin.fantastic;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.fantastic.ParallelParticleBuilder;
+import net.minecraft.client.Camera;
+import net.minecraft.client.particle.Particle;
+import net.minecraft.client.particle.ParticleEngine;
+import net.minecraft.client.renderer.LightTexture;
+import net.minecraft.client.renderer.MultiBufferSource;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.Iterator;
+
+/**
+ * Builds the geometry of particles on multiple threads when there are a lot of them.
+ *
+ * This hooks the loop over the particles of each render type instead of the lookup of the particle queue, since Sodium
+ * already redirects that lookup to cull particles. The particles that get here have already been culled.
+ */
+@Mixin(ParticleEngine.class)
+public class MixinParticleEngine_Parallel {
+	@Unique
+	private final ParallelParticleBuilder parallelBuilder = new ParallelParticleBuilder();
+
+	@Unique
+	private Camera renderingCamera;
+
+	@Unique
+	private float renderingTickDelta;
+
+	@Inject(method = "render", at = @At("HEAD"))
+	private void iris$captureRenderState(PoseStack poseStack, MultiBufferSource.BufferSource bufferSource,
+										 LightTexture lightTexture, Camera camera, float tickDelta, CallbackInfo ci) {
+		this.renderingCamera = camera;
+		this.renderingTickDelta = tickDelta;
+	}
+
+	@Redirect(method = "render", at = @At(value = "INVOKE", target = "Ljava/lang/Iterable;iterator()Ljava/util/Iterator;"))
+	private Iterator<Particle> iris$buildParticlesInParallel(Iterable<Particle> particles) {
+		if (!Iris.getIrisConfig().shouldBuildParticlesInParallel()) {
+			return particles.iterator();
+		}
+
+		return parallelBuilder.build(particles, renderingCamera, renderingTickDelta);
+	}
+}
@@ -0,0 +1,40 @@
+package net.coderbot.iris.mixin.geometry_cache;
+
+import net.coderbot.iris.block_rendering.VersionedBlockEntity;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Counts the changes to the data of a block entity, which on the client are received from the server and loaded here.
+ */
+@Mixin(BlockEntity.class)
+public class MixinBlockEntity implements VersionedBlockEntity {
+	@Unique
+	private int dataVersion;
+
+	@Inject(method = "load", at = @At("RETURN"))
+	private void iris$onLoad(BlockState state, CompoundTag tag, CallbackInfo ci) {
+		iris$markDataChanged();
+	}
+
+	@Inject(method = "setChanged()V", at = @At("RETURN"))
+	private void iris$onChanged(CallbackInfo ci) {
+		iris$markDataChanged();
+	}
+
+	@Override
+	public int iris$getDataVersion() {
+		return dataVersion;
+	}
+
+	@Override
+	public void iris$markDataChanged() {
+		dataVersion++;
+	}
+}
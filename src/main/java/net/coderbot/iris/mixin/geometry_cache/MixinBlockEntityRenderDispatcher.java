@@ -0,0 +1,33 @@
+package net.coderbot.iris.mixin.geometry_cache;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.block_rendering.BlockEntityGeometryCache;
+import net.minecraft.client.renderer.MultiBufferSource;
+import net.minecraft.client.renderer.blockentity.BlockEntityRenderDispatcher;
+import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+/**
+ * Routes block entity rendering in the world through the geometry cache. This is done in setupAndRender so that it
+ * doesn't affect block entities rendered as items.
+ */
+@Mixin(BlockEntityRenderDispatcher.class)
+public class MixinBlockEntityRenderDispatcher {
+	private static final String RENDER =
+		"Lnet/minecraft/client/renderer/blockentity/BlockEntityRenderer;render(Lnet/minecraft/world/level/block/entity/BlockEntity;FLcom/mojang/blaze3d/vertex/PoseStack;Lnet/minecraft/client/renderer/MultiBufferSource;II)V";
+
+	@Redirect(method = "setupAndRender", at = @At(value = "INVOKE", target = RENDER))
+	private static void iris$renderCached(BlockEntityRenderer<BlockEntity> renderer, BlockEntity blockEntity,
+										  float tickDelta, PoseStack poseStack, MultiBufferSource bufferSource,
+										  int light, int overlay) {
+		if (Iris.getIrisConfig().shouldCacheBlockEntityGeometry()) {
+			BlockEntityGeometryCache.INSTANCE.render(renderer, blockEntity, tickDelta, poseStack, bufferSource, light, overlay);
+		} else {
+			renderer.render(blockEntity, tickDelta, poseStack, bufferSource, light, overlay);
+		}
+	}
+}
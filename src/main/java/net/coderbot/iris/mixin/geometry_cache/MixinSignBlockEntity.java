@@ -0,0 +1,20 @@
+package net.coderbot.iris.mixin.geometry_cache;
+
+import net.coderbot.iris.block_rendering.VersionedBlockEntity;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.level.block.entity.SignBlockEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * The sign editing screen changes the text of the sign directly as the player types.
+ */
+@Mixin(SignBlockEntity.class)
+public class MixinSignBlockEntity {
+	@Inject(method = "setMessage", at = @At("RETURN"))
+	private void iris$onSetMessage(int line, Component message, CallbackInfo ci) {
+		((VersionedBlockEntity) this).iris$markDataChanged();
+	}
+}
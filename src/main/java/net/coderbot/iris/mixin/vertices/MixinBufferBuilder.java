@@ -6,6 +6,7 @@ import com.mojang.blaze3d.vertex.DefaultVertexFormat;
 import com.mojang.blaze3d.vertex.VertexFormat;
 import com.mojang.blaze3d.vertex.VertexFormatElement;
 import net.coderbot.iris.block_rendering.BlockRenderingSettings;
+import net.coderbot.iris.block_rendering.ChunkMeshStatistics;
 import net.coderbot.iris.vendored.joml.Vector3f;
 import net.coderbot.iris.vertices.BlockSensitiveBufferBuilder;
 import net.coderbot.iris.vertices.BufferBuilderPolygonView;
@@ -178,7 +179,14 @@ public abstract class MixinBufferBuilder implements BufferVertexConsumer, BlockS
 		vertexCount++;
 
 		if (mode == GL11.GL_QUADS && vertexCount == 4 || mode == GL11.GL_TRIANGLES && vertexCount == 3) {
-			fillExtendedData(vertexCount);
+			if (iris$isTerrain) {
+				int vertexAmount = vertexCount;
+				long start = ChunkMeshStatistics.INSTANCE.start();
+				fillExtendedData(vertexAmount);
+				ChunkMeshStatistics.INSTANCE.recordQuad(start, vertexAmount);
+			} else {
+				fillExtendedData(vertexCount);
+			}
 		}
 	}
 
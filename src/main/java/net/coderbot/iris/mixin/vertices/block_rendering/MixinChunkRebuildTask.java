@@ -4,6 +4,7 @@ import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.PoseStack;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import net.coderbot.iris.block_rendering.BlockRenderingSettings;
+import net.coderbot.iris.block_rendering.ChunkMeshStatistics;
 import net.coderbot.iris.vertices.BlockSensitiveBufferBuilder;
 import net.coderbot.iris.vertices.ExtendedDataHelper;
 import net.minecraft.client.renderer.ChunkBufferBuilderPack;
@@ -55,7 +56,16 @@ public class MixinChunkRebuildTask {
 			return -1;
 		}
 
-		return (short) blockStateIds.getOrDefault(state, -1);
+		long start = ChunkMeshStatistics.INSTANCE.start();
+		short id = (short) blockStateIds.getOrDefault(state, -1);
+		ChunkMeshStatistics.INSTANCE.recordIdLookup(start);
+
+		return id;
+	}
+
+	@Inject(method = RENDER, at = @At("HEAD"))
+	private void iris$countSection(float cameraX, float cameraY, float cameraZ, ChunkRenderDispatcher.CompiledChunk data, ChunkBufferBuilderPack buffers, CallbackInfoReturnable<Set<BlockEntity>> cir) {
+		ChunkMeshStatistics.INSTANCE.recordSection();
 	}
 
 	@Inject(method = RENDER, at = @At(value = "INVOKE", target = "Lnet/minecraft/client/renderer/block/BlockRenderDispatcher;renderLiquid(Lnet/minecraft/core/BlockPos;Lnet/minecraft/world/level/BlockAndTintGetter;Lcom/mojang/blaze3d/vertex/VertexConsumer;Lnet/minecraft/world/level/material/FluidState;)Z"), locals = LocalCapture.CAPTURE_FAILHARD)
@@ -4,7 +4,9 @@ import com.google.common.collect.ImmutableList;
 import com.mojang.blaze3d.platform.GlStateManager;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import net.coderbot.iris.gl.IrisRenderSystem;
 import net.coderbot.iris.rendertarget.RenderTarget;
+import net.coderbot.iris.rendertarget.RenderTargetClearPlan;
 import net.coderbot.iris.rendertarget.RenderTargets;
 import net.coderbot.iris.shaderpack.PackRenderTargetDirectives;
 import net.coderbot.iris.shaderpack.PackShadowDirectives;
@@ -20,7 +22,8 @@ import java.util.Map;
 
 public class ClearPassCreator {
 	public static ImmutableList<ClearPass> createClearPasses(RenderTargets renderTargets, boolean fullClear,
-															 PackRenderTargetDirectives renderTargetDirectives) {
+															 PackRenderTargetDirectives renderTargetDirectives,
+															 RenderTargetClearPlan clearPlan) {
 		final int maxDrawBuffers = GlStateManager._getInteger(GL21C.GL_MAX_DRAW_BUFFERS);
 
 		// Sort buffers by their clear color so we can group up glClear calls.
@@ -30,6 +33,12 @@ public class ClearPassCreator {
 			// unboxed
 			final int buffer = bufferI;
 
+			if (renderTargets.isAliased(buffer)) {
+				// Aliased buffers are always fully overwritten before they are read, and clearing them would clobber
+				// the content of the buffer they share their textures with.
+				return;
+			}
+
 			if (fullClear || settings.shouldClear()) {
 				Vector4f defaultClearColor;
 
@@ -54,25 +63,27 @@ public class ClearPassCreator {
 
 		clearByColor.forEach((passSize, vector4fIntListMap) -> {
 			vector4fIntListMap.forEach((clearInfo, buffers) -> {
-				int startIndex = 0;
+				for (boolean alt : new boolean[] {true, false}) {
+					IntList sideBuffers = new IntArrayList();
+
+					for (int i = 0; i < buffers.size(); i++) {
+						int buffer = buffers.getInt(i);
+
+						// A full clear also initializes buffers whose content persists between frames, so it always
+						// clears everything.
+						if (fullClear || clearPlan.needsClear(buffer, alt)) {
+							sideBuffers.add(buffer);
+						}
+					}
 
-				while (startIndex < buffers.size()) {
 					// clear up to the maximum number of draw buffers per each clear pass.
 					// This allows us to handle having more than 8 buffers with the same clear color on systems with
 					// a max draw buffers of 8 (ie, most systems).
-					int[] clearBuffers = new int[Math.min(buffers.size() - startIndex, maxDrawBuffers)];
-
-					for (int i = 0; i < clearBuffers.length; i++) {
-						clearBuffers[i] = buffers.getInt(startIndex);
-						startIndex++;
+					for (int[] clearBuffers : split(sideBuffers, maxDrawBuffers)) {
+						// No need to clear the depth buffer, since we're using Minecraft's depth buffer.
+						clearPasses.add(new ClearPass(clearInfo.getColor(), clearInfo::getWidth, clearInfo::getHeight,
+							renderTargets.createClearFramebuffer(alt, clearBuffers), GL21C.GL_COLOR_BUFFER_BIT));
 					}
-
-					// No need to clear the depth buffer, since we're using Minecraft's depth buffer.
-					clearPasses.add(new ClearPass(clearInfo.getColor(), clearInfo::getWidth, clearInfo::getHeight,
-						renderTargets.createClearFramebuffer(true, clearBuffers), GL21C.GL_COLOR_BUFFER_BIT));
-
-					clearPasses.add(new ClearPass(clearInfo.getColor(), clearInfo::getWidth, clearInfo::getHeight,
-						renderTargets.createClearFramebuffer(false, clearBuffers), GL21C.GL_COLOR_BUFFER_BIT));
 				}
 			});
 		});
@@ -80,6 +91,81 @@ public class ClearPassCreator {
 		return ImmutableList.copyOf(clearPasses);
 	}
 
+	/**
+	 * Creates passes that invalidate the content of the color buffer textures that don't need to be cleared according
+	 * to the clear plan, which allows the driver to skip preserving their content from the previous frame. Returns no
+	 * passes if framebuffer invalidation isn't supported.
+	 */
+	public static ImmutableList<InvalidatePass> createInvalidatePasses(RenderTargets renderTargets,
+																	   PackRenderTargetDirectives renderTargetDirectives,
+																	   RenderTargetClearPlan clearPlan) {
+		if (!IrisRenderSystem.supportsInvalidateFramebuffer()) {
+			return ImmutableList.of();
+		}
+
+		final int maxDrawBuffers = GlStateManager._getInteger(GL21C.GL_MAX_DRAW_BUFFERS);
+
+		// Group buffers by their size and by which of their textures is invalidated.
+		Map<Vector2i, IntList> invalidateMain = new HashMap<>();
+		Map<Vector2i, IntList> invalidateAlt = new HashMap<>();
+
+		renderTargetDirectives.getRenderTargetSettings().forEach((bufferI, settings) -> {
+			// unboxed
+			final int buffer = bufferI;
+
+			if (renderTargets.isAliased(buffer) || !settings.shouldClear()) {
+				return;
+			}
+
+			RenderTarget target = renderTargets.get(buffer);
+			Vector2i size = new Vector2i(target.getWidth(), target.getHeight());
+
+			if (!clearPlan.needsClear(buffer, false)) {
+				invalidateMain.computeIfAbsent(size, s -> new IntArrayList()).add(buffer);
+			}
+
+			if (!clearPlan.needsClear(buffer, true)) {
+				invalidateAlt.computeIfAbsent(size, s -> new IntArrayList()).add(buffer);
+			}
+		});
+
+		List<InvalidatePass> invalidatePasses = new ArrayList<>();
+
+		invalidateMain.values().forEach(buffers -> {
+			for (int[] invalidateBuffers : split(buffers, maxDrawBuffers)) {
+				invalidatePasses.add(new InvalidatePass(renderTargets.createClearFramebuffer(false, invalidateBuffers),
+					invalidateBuffers.length));
+			}
+		});
+
+		invalidateAlt.values().forEach(buffers -> {
+			for (int[] invalidateBuffers : split(buffers, maxDrawBuffers)) {
+				invalidatePasses.add(new InvalidatePass(renderTargets.createClearFramebuffer(true, invalidateBuffers),
+					invalidateBuffers.length));
+			}
+		});
+
+		return ImmutableList.copyOf(invalidatePasses);
+	}
+
+	private static List<int[]> split(IntList buffers, int maxDrawBuffers) {
+		List<int[]> groups = new ArrayList<>();
+		int startIndex = 0;
+
+		while (startIndex < buffers.size()) {
+			int[] group = new int[Math.min(buffers.size() - startIndex, maxDrawBuffers)];
+
+			for (int i = 0; i < group.length; i++) {
+				group[i] = buffers.getInt(startIndex);
+				startIndex++;
+			}
+
+			groups.add(group);
+		}
+
+		return groups;
+	}
+
 	public static ImmutableList<ClearPass> createShadowClearPasses(ShadowRenderTargets renderTargets, boolean fullClear,
 																   PackShadowDirectives renderTargetDirectives) {
 		final int maxDrawBuffers = GlStateManager._getInteger(GL21C.GL_MAX_DRAW_BUFFERS);
@@ -1,9 +1,10 @@
 package net.coderbot.iris.pipeline;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.coderbot.iris.Iris;
 import net.coderbot.iris.mixin.LightTextureAccessor;
 import net.coderbot.iris.rendertarget.NativeImageBackedCustomTexture;
@@ -11,8 +12,6 @@ import net.coderbot.iris.rendertarget.NativeImageBackedNoiseTexture;
 import net.coderbot.iris.shaderpack.PackDirectives;
 import net.coderbot.iris.shaderpack.texture.CustomTextureData;
 import net.coderbot.iris.shaderpack.texture.TextureStage;
-import net.coderbot.iris.texture.format.TextureFormat;
-import net.coderbot.iris.texture.format.TextureFormatLoader;
 import net.coderbot.iris.texture.pbr.PBRTextureHolder;
 import net.coderbot.iris.texture.pbr.PBRTextureManager;
 import net.coderbot.iris.texture.pbr.PBRType;
@@ -42,6 +41,8 @@ public class CustomTextureManager {
 	 */
 	private final List<AbstractTexture> ownedTextures = new ArrayList<>();
 
+	private final Reference2ObjectMap<CustomTextureData, IntSupplier> createdTextures = new Reference2ObjectOpenHashMap<>();
+
 	public CustomTextureManager(PackDirectives packDirectives,
 								EnumMap<TextureStage, Object2ObjectMap<String, CustomTextureData>> customTextureDataMap,
 								Optional<CustomTextureData> customNoiseTextureData) {
@@ -50,7 +51,7 @@ public class CustomTextureManager {
 
 			customTextureStageDataMap.forEach((samplerName, textureData) -> {
 				try {
-					customTextureIds.put(samplerName, createCustomTexture(textureData));
+					customTextureIds.put(samplerName, getOrCreateCustomTexture(textureData));
 				} catch (IOException | ResourceLocationException e) {
 					Iris.logger.error("Unable to parse the image data for the custom texture on stage "
 							+ textureStage + ", sampler " + samplerName, e);
@@ -62,7 +63,7 @@ public class CustomTextureManager {
 
 		noise = customNoiseTextureData.flatMap(textureData -> {
 			try {
-				return Optional.of(createCustomTexture(textureData));
+				return Optional.of(getOrCreateCustomTexture(textureData));
 			} catch (IOException | ResourceLocationException e) {
 				Iris.logger.error("Unable to parse the image data for the custom noise texture", e);
 
@@ -78,6 +79,20 @@ public class CustomTextureManager {
 		});
 	}
 
+	private IntSupplier getOrCreateCustomTexture(CustomTextureData textureData) throws IOException, ResourceLocationException {
+		// The shader pack hands out the same texture data for every sampler that uses the same file.
+		IntSupplier existing = createdTextures.get(textureData);
+
+		if (existing != null) {
+			return existing;
+		}
+
+		IntSupplier created = createCustomTexture(textureData);
+		createdTextures.put(textureData, created);
+
+		return created;
+	}
+
 	private IntSupplier createCustomTexture(CustomTextureData textureData) throws IOException, ResourceLocationException {
 		if (textureData instanceof CustomTextureData.PngData) {
 			AbstractTexture texture = new NativeImageBackedCustomTexture((CustomTextureData.PngData) textureData);
@@ -142,14 +157,6 @@ public class CustomTextureManager {
 							throw new Error("Unknown PBRType '" + pbrType + "'");
 						}
 
-						TextureFormat textureFormat = TextureFormatLoader.getFormat();
-						if (textureFormat != null) {
-							int previousBinding = GlStateManager.getActiveTextureName();
-							GlStateManager._bindTexture(pbrTexture.getId());
-							textureFormat.setupTextureParameters(pbrType, pbrTexture);
-							GlStateManager._bindTexture(previousBinding);
-						}
-
 						return pbrTexture.getId();
 					}
 
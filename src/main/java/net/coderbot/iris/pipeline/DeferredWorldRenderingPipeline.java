@@ -7,9 +7,13 @@ import com.mojang.blaze3d.pipeline.RenderTarget;
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.datafixers.util.Pair;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import net.coderbot.iris.Iris;
+import net.coderbot.iris.block_rendering.BlockEntityGeometryCache;
 import net.coderbot.iris.block_rendering.BlockMaterialMapping;
 import net.coderbot.iris.block_rendering.BlockRenderingSettings;
+import net.coderbot.iris.block_rendering.ChunkMeshStatistics;
 import net.coderbot.iris.gbuffer_overrides.matching.InputAvailability;
 import net.coderbot.iris.gbuffer_overrides.matching.ProgramTable;
 import net.coderbot.iris.gbuffer_overrides.matching.RenderCondition;
@@ -34,8 +38,11 @@ import net.coderbot.iris.postprocess.BufferFlipper;
 import net.coderbot.iris.postprocess.CenterDepthSampler;
 import net.coderbot.iris.postprocess.CompositeRenderer;
 import net.coderbot.iris.postprocess.FinalPassRenderer;
+import net.coderbot.iris.postprocess.MipChainManager;
 import net.coderbot.iris.rendertarget.Blaze3dRenderTargetExt;
 import net.coderbot.iris.rendertarget.NativeImageBackedSingleColorTexture;
+import net.coderbot.iris.rendertarget.RenderTargetAliasing;
+import net.coderbot.iris.rendertarget.RenderTargetClearPlan;
 import net.coderbot.iris.rendertarget.RenderTargets;
 import net.coderbot.iris.samplers.IrisImages;
 import net.coderbot.iris.samplers.IrisSamplers;
@@ -51,17 +58,17 @@ import net.coderbot.iris.shaderpack.ProgramSource;
 import net.coderbot.iris.shaderpack.loading.ProgramId;
 import net.coderbot.iris.shaderpack.texture.TextureStage;
 import net.coderbot.iris.shadows.ShadowRenderTargets;
+import net.coderbot.iris.shadows.ShadowUpdateScheduler;
 import net.coderbot.iris.texture.TextureInfoCache;
-import net.coderbot.iris.texture.format.TextureFormat;
-import net.coderbot.iris.texture.format.TextureFormatLoader;
-import net.coderbot.iris.texture.pbr.PBRTextureHolder;
+import net.coderbot.iris.texture.pbr.PBRBindingCache;
 import net.coderbot.iris.texture.pbr.PBRTextureManager;
-import net.coderbot.iris.texture.pbr.PBRType;
+import net.coderbot.iris.uniforms.CameraUniforms;
 import net.coderbot.iris.uniforms.CapturedRenderingState;
 import net.coderbot.iris.uniforms.CommonUniforms;
 import net.coderbot.iris.uniforms.FrameUpdateNotifier;
 import net.coderbot.iris.vendored.joml.Vector3d;
 import net.coderbot.iris.vendored.joml.Vector4f;
+import net.coderbot.iris.vertices.ExtendedDataHelper;
 import net.minecraft.client.Camera;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.DimensionSpecialEffects;
@@ -94,12 +101,16 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 	private ShadowRenderTargets shadowRenderTargets;
 	@Nullable
 	private ComputeProgram[] shadowComputes;
+	private final ComputeSource[] shadowComputeSources;
 	private final Supplier<ShadowRenderTargets> shadowTargetsSupplier;
 
 	private final ProgramTable<Pass> table;
+	private final Map<Pair<ProgramId, InputAvailability>, Pass> cachedPasses = new HashMap<>();
 
 	private ImmutableList<ClearPass> clearPassesFull;
 	private ImmutableList<ClearPass> clearPasses;
+	private ImmutableList<InvalidatePass> invalidatePasses;
+	private final RenderTargetClearPlan clearPlan;
 	private ImmutableList<ClearPass> shadowClearPasses;
 	private ImmutableList<ClearPass> shadowClearPassesFull;
 
@@ -107,6 +118,9 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 	@Nullable
 	private final ShadowRenderer shadowRenderer;
+	@Nullable
+	private final ShadowUpdateScheduler shadowUpdateScheduler;
+	private boolean shouldRenderShadowsThisFrame = true;
 
 	private final int shadowMapResolution;
 	private final CompositeRenderer deferredRenderer;
@@ -116,12 +130,16 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 	private final AbstractTexture whitePixel;
 	private final FrameUpdateNotifier updateNotifier;
 	private final CenterDepthSampler centerDepthSampler;
+	private final MipChainManager mipChainManager;
 
 	private final ImmutableSet<Integer> flippedBeforeShadow;
 	private final ImmutableSet<Integer> flippedAfterPrepare;
 	private final ImmutableSet<Integer> flippedAfterTranslucent;
 
-	private final SodiumTerrainPipeline sodiumTerrainPipeline;
+	private SodiumTerrainPipeline sodiumTerrainPipeline;
+
+	@Nullable
+	private final DynamicResolutionController dynamicResolution;
 
 	private final HorizonRenderer horizonRenderer = new HorizonRenderer();
 
@@ -148,8 +166,7 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 	private SpecialCondition special = null;
 
 	private boolean shouldBindPBR;
-	private int currentNormalTexture;
-	private int currentSpecularTexture;
+	private final PBRBindingCache pbrBindingCache = new PBRBindingCache();
 	private PackDirectives packDirectives;
 
 	public DeferredWorldRenderingPipeline(ProgramSet programs) {
@@ -169,15 +186,43 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 		this.packDirectives = programs.getPackDirectives();
 
+		if (Iris.getIrisConfig().isDynamicResolutionEnabled()) {
+			this.dynamicResolution = new DynamicResolutionController(Iris.getIrisConfig().getDynamicResolutionMinScale(),
+				Iris.getIrisConfig().getDynamicResolutionTargetFramerate());
+		} else {
+			this.dynamicResolution = null;
+		}
+
+		PassProfiler.INSTANCE.setEnabled(Iris.getIrisConfig().isPassProfilingEnabled());
+		ChunkMeshStatistics.INSTANCE.setEnabled(Iris.getIrisConfig().areChunkMeshStatisticsEnabled());
+
 		RenderTarget mainTarget = Minecraft.getInstance().getMainRenderTarget();
 
 		int depthTextureId = mainTarget.getDepthTextureId();
 		int internalFormat = TextureInfoCache.INSTANCE.getInfo(depthTextureId).getInternalFormat();
 		DepthBufferFormat depthBufferFormat = DepthBufferFormat.fromGlEnumOrDefault(internalFormat);
 
+		RenderTargetAliasing aliasing;
+
+		// Aliasing relies on passes overwriting whole buffers, which scaled passes don't do.
+		if (Iris.getIrisConfig().shouldAliasRenderTargets() && dynamicResolution == null) {
+			aliasing = RenderTargetAliasing.analyze(programs, mainTarget.width, mainTarget.height);
+		} else {
+			aliasing = RenderTargetAliasing.none(programs.getPackDirectives().getRenderTargetDirectives().getRenderTargetSettings().size());
+		}
+
 		this.renderTargets = new RenderTargets(mainTarget.width, mainTarget.height, depthTextureId,
 			((Blaze3dRenderTargetExt) mainTarget).iris$getDepthBufferVersion(),
-			depthBufferFormat, programs.getPackDirectives().getRenderTargetDirectives().getRenderTargetSettings(), programs.getPackDirectives());
+			depthBufferFormat, programs.getPackDirectives().getRenderTargetDirectives().getRenderTargetSettings(), programs.getPackDirectives(),
+			aliasing);
+
+		if (Iris.getIrisConfig().shouldElideClears() && dynamicResolution == null) {
+			this.clearPlan = RenderTargetClearPlan.analyze(programs);
+		} else {
+			// With dynamic resolution, the composite passes only write to part of each buffer, so no pass can be
+			// assumed to fully overwrite a buffer.
+			this.clearPlan = RenderTargetClearPlan.clearAll(programs.getPackDirectives().getRenderTargetDirectives().getRenderTargetSettings().size());
+		}
 
 		this.sunPathRotation = programs.getPackDirectives().getSunPathRotation();
 
@@ -204,6 +249,8 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		BlockRenderingSettings.INSTANCE.setDisableDirectionalShading(shouldDisableDirectionalShading());
 		BlockRenderingSettings.INSTANCE.setUseSeparateAo(programs.getPackDirectives().shouldUseSeparateAo());
 		BlockRenderingSettings.INSTANCE.setUseExtendedVertexFormat(true);
+		BlockRenderingSettings.INSTANCE.setUseCompactVertexFormat(Iris.getIrisConfig().shouldUseCompactTerrainVertexFormat()
+			&& canUseCompactVertexFormat(programs.getPack().getIdMap().getBlockProperties().keySet()));
 
 		// Don't clobber anything in texture unit 0. It probably won't cause issues, but we're just being cautious here.
 		GlStateManager._activeTexture(GL20C.GL_TEXTURE2);
@@ -232,26 +279,28 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 		PatchedShaderPrinter.resetPrintState();
 
+		this.mipChainManager = new MipChainManager();
+
 		this.prepareRenderer = new CompositeRenderer(programs.getPackDirectives(), programs.getPrepare(), programs.getPrepareCompute(), renderTargets,
-				customTextureManager.getNoiseTexture(), updateNotifier, centerDepthSampler, flipper, shadowTargetsSupplier,
+				customTextureManager.getNoiseTexture(), updateNotifier, centerDepthSampler, mipChainManager, flipper, shadowTargetsSupplier,
 				customTextureManager.getCustomTextureIdMap(TextureStage.PREPARE),
 				programs.getPackDirectives().getExplicitFlips("prepare_pre"));
 
 		flippedAfterPrepare = flipper.snapshot();
 
 		this.deferredRenderer = new CompositeRenderer(programs.getPackDirectives(), programs.getDeferred(), programs.getDeferredCompute(), renderTargets,
-				customTextureManager.getNoiseTexture(), updateNotifier, centerDepthSampler, flipper, shadowTargetsSupplier,
+				customTextureManager.getNoiseTexture(), updateNotifier, centerDepthSampler, mipChainManager, flipper, shadowTargetsSupplier,
 				customTextureManager.getCustomTextureIdMap(TextureStage.DEFERRED),
 				programs.getPackDirectives().getExplicitFlips("deferred_pre"));
 
 		flippedAfterTranslucent = flipper.snapshot();
 
 		this.compositeRenderer = new CompositeRenderer(programs.getPackDirectives(), programs.getComposite(), programs.getCompositeCompute(), renderTargets,
-				customTextureManager.getNoiseTexture(), updateNotifier, centerDepthSampler, flipper, shadowTargetsSupplier,
+				customTextureManager.getNoiseTexture(), updateNotifier, centerDepthSampler, mipChainManager, flipper, shadowTargetsSupplier,
 				customTextureManager.getCustomTextureIdMap(TextureStage.COMPOSITE_AND_FINAL),
 				programs.getPackDirectives().getExplicitFlips("composite_pre"));
 		this.finalPassRenderer = new FinalPassRenderer(programs, renderTargets, customTextureManager.getNoiseTexture(), updateNotifier, flipper.snapshot(),
-				centerDepthSampler, shadowTargetsSupplier,
+				centerDepthSampler, mipChainManager, shadowTargetsSupplier,
 				customTextureManager.getCustomTextureIdMap(TextureStage.COMPOSITE_AND_FINAL),
 				this.compositeRenderer.getFlippedAtLeastOnceFinal());
 
@@ -283,8 +332,7 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 		ProgramFallbackResolver resolver = new ProgramFallbackResolver(programs);
 
-		Map<Pair<ProgramId, InputAvailability>, Pass> cachedPasses = new HashMap<>();
-
+		this.shadowComputeSources = programs.getShadowCompute();
 		this.shadowComputes = createShadowComputes(programs.getShadowCompute(), programs);
 
 		if (shadowRenderTargets != null) {
@@ -293,10 +341,20 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 			this.shadowRenderer = new ShadowRenderer(programs.getShadow().orElse(null),
 				programs.getPackDirectives(), shadowRenderTargets);
+
+			int maxShadowUpdateInterval = Iris.getIrisConfig().getMaxShadowUpdateInterval();
+
+			if (maxShadowUpdateInterval > 1) {
+				this.shadowUpdateScheduler = new ShadowUpdateScheduler(maxShadowUpdateInterval, shadowRenderer.getHalfPlaneLength(),
+					shadowRenderer.usesAdvancedCulling());
+			} else {
+				this.shadowUpdateScheduler = null;
+			}
 		} else {
 			this.shadowClearPasses = ImmutableList.of();
 			this.shadowClearPassesFull = ImmutableList.of();
 			this.shadowRenderer = null;
+			this.shadowUpdateScheduler = null;
 		}
 
 		this.table = new ProgramTable<>((condition, availability) -> {
@@ -327,13 +385,13 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 						// still need the custom framebuffer, viewport, and blend mode behavior
 						GlFramebuffer shadowFb =
 							shadowRenderTargets.createShadowFramebuffer(shadowRenderTargets.snapshot(), new int[] {0});
-						return new Pass(null, shadowFb, shadowFb, null,
+						return new Pass(p.getFirst().getSourceName(), null, null, shadowFb, shadowFb, null,
 							BlendModeOverride.OFF, Collections.emptyList(), true);
 					}
 				}
 
 				if (source == null) {
-					return createDefaultPass();
+					return createDefaultPass(p.getFirst().getSourceName());
 				}
 
 				try {
@@ -351,12 +409,16 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		}
 
 		this.clearPassesFull = ClearPassCreator.createClearPasses(renderTargets, true,
-				programs.getPackDirectives().getRenderTargetDirectives());
+				programs.getPackDirectives().getRenderTargetDirectives(), clearPlan);
 		this.clearPasses = ClearPassCreator.createClearPasses(renderTargets, false,
-				programs.getPackDirectives().getRenderTargetDirectives());
+				programs.getPackDirectives().getRenderTargetDirectives(), clearPlan);
+		this.invalidatePasses = ClearPassCreator.createInvalidatePasses(renderTargets,
+				programs.getPackDirectives().getRenderTargetDirectives(), clearPlan);
 
-		// SodiumTerrainPipeline setup follows.
+		this.sodiumTerrainPipeline = createSodiumTerrainPipeline(programs);
+	}
 
+	private SodiumTerrainPipeline createSodiumTerrainPipeline(ProgramSet programs) {
 		Supplier<ImmutableSet<Integer>> flipped =
 			() -> isBeforeTranslucent ? flippedAfterPrepare : flippedAfterTranslucent;
 
@@ -417,11 +479,93 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 			return builder.build();
 		};
 
-		this.sodiumTerrainPipeline = new SodiumTerrainPipeline(this, programs, createTerrainSamplers,
+		return new SodiumTerrainPipeline(this, programs, createTerrainSamplers,
 			shadowRenderer == null ? null : createShadowTerrainSamplers, createTerrainImages,
 			shadowRenderer == null ? null : createShadowTerrainImages);
 	}
 
+	/**
+	 * Replaces the programs whose code differs in the given program set, keeping the render targets, shadow targets,
+	 * custom textures, and all other programs as they are. This allows a shader pack to be hot reloaded while it's being
+	 * worked on, without waiting for everything to be recreated.
+	 *
+	 * <p>If a program fails to compile, the error is logged and the previous version of that program is kept.</p>
+	 *
+	 * @return false without changing anything if the new programs can't be swapped in place, because a directive, a
+	 *         compute program, or the set of programs changed. The pipeline needs to be recreated in that case.
+	 */
+	public boolean reloadPrograms(ProgramSet programs) {
+		ProgramFallbackResolver resolver = new ProgramFallbackResolver(programs);
+
+		if (!canReloadPasses(resolver)
+			|| !ComputeSource.haveSameSources(shadowComputeSources, programs.getShadowCompute())
+			|| !prepareRenderer.canReloadPrograms(programs.getPrepare(), programs.getPrepareCompute())
+			|| !deferredRenderer.canReloadPrograms(programs.getDeferred(), programs.getDeferredCompute())
+			|| !compositeRenderer.canReloadPrograms(programs.getComposite(), programs.getCompositeCompute())
+			|| !finalPassRenderer.canReloadPrograms(programs)) {
+			return false;
+		}
+
+		// The current program might be destroyed, make sure that the next pass binds its program again
+		beginPass(null);
+
+		int reloaded = reloadPasses(resolver);
+
+		reloaded += prepareRenderer.reloadPrograms(programs.getPrepare());
+		reloaded += deferredRenderer.reloadPrograms(programs.getDeferred());
+		reloaded += compositeRenderer.reloadPrograms(programs.getComposite());
+		reloaded += finalPassRenderer.reloadPrograms(programs);
+
+		this.sodiumTerrainPipeline = createSodiumTerrainPipeline(programs);
+
+		Iris.logger.info("Hot reloaded " + reloaded + " changed program(s)");
+
+		return true;
+	}
+
+	private boolean canReloadPasses(ProgramFallbackResolver resolver) {
+		for (Map.Entry<Pair<ProgramId, InputAvailability>, Pass> entry : cachedPasses.entrySet()) {
+			ProgramSource previous = entry.getValue().source;
+			ProgramSource source = resolver.resolveNullable(entry.getKey().getFirst());
+
+			if (previous == null || source == null) {
+				if (previous != source) {
+					return false;
+				}
+			} else if (!previous.hasSameDirectives(source)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private int reloadPasses(ProgramFallbackResolver resolver) {
+		int reloaded = 0;
+
+		for (Map.Entry<Pair<ProgramId, InputAvailability>, Pass> entry : cachedPasses.entrySet()) {
+			Pass pass = entry.getValue();
+			ProgramSource source = resolver.resolveNullable(entry.getKey().getFirst());
+
+			if (pass.program == null || source == null || pass.source.hasSameSource(source)) {
+				continue;
+			}
+
+			try {
+				Program program = createProgram(source, entry.getKey().getSecond(), pass.shadowViewport);
+
+				pass.program.destroy();
+				pass.program = program;
+				pass.source = source;
+				reloaded += 1;
+			} catch (RuntimeException e) {
+				Iris.logger.error("Failed to reload " + source.getName() + ", keeping the previous version", e);
+			}
+		}
+
+		return reloaded;
+	}
+
 	private void checkWorld() {
 		// If we're not in a world, then obviously we cannot possibly be rendering a world.
 		if (Minecraft.getInstance().level == null) {
@@ -572,13 +716,15 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		current = pass;
 
 		if (pass != null) {
+			PassProfiler.INSTANCE.begin(pass.name);
 			pass.use();
 		} else {
+			PassProfiler.INSTANCE.end();
 			Program.unbind();
 		}
 	}
 
-	private Pass createDefaultPass() {
+	private Pass createDefaultPass(String name) {
 		GlFramebuffer framebufferBeforeTranslucents;
 		GlFramebuffer framebufferAfterTranslucents;
 
@@ -587,11 +733,45 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		framebufferAfterTranslucents =
 			renderTargets.createGbufferFramebuffer(flippedAfterTranslucent, new int[] {0});
 
-		return new Pass(null, framebufferBeforeTranslucents, framebufferAfterTranslucents, null,
+		return new Pass(name, null, null, framebufferBeforeTranslucents, framebufferAfterTranslucents, null,
 			null, Collections.emptyList(), false);
 	}
 
 	private Pass createPass(ProgramSource source, InputAvailability availability, boolean shadow) {
+		Program program = createProgram(source, availability, shadow);
+		ProgramDirectives programDirectives = source.getDirectives();
+
+		GlFramebuffer framebufferBeforeTranslucents;
+		GlFramebuffer framebufferAfterTranslucents;
+
+		if (shadow) {
+			// Always add both draw buffers on the shadow pass.
+			framebufferBeforeTranslucents =
+				Objects.requireNonNull(shadowRenderTargets).createShadowFramebuffer(shadowRenderTargets.snapshot(), new int[] { 0, 1 });
+			framebufferAfterTranslucents = framebufferBeforeTranslucents;
+		} else {
+			framebufferBeforeTranslucents =
+				renderTargets.createGbufferFramebuffer(flippedAfterPrepare, programDirectives.getDrawBuffers());
+			framebufferAfterTranslucents =
+				renderTargets.createGbufferFramebuffer(flippedAfterTranslucent, programDirectives.getDrawBuffers());
+		}
+
+		AlphaTestOverride alphaTestOverride = programDirectives.getAlphaTestOverride().orElse(null);
+
+		List<BufferBlendOverride> bufferOverrides = new ArrayList<>();
+
+		programDirectives.getBufferBlendOverrides().forEach(information -> {
+			int index = Ints.indexOf(programDirectives.getDrawBuffers(), information.getIndex());
+			if (index > -1) {
+				bufferOverrides.add(new BufferBlendOverride(index, information.getBlendMode()));
+			}
+		});
+
+		return new Pass(source.getName(), source, program, framebufferBeforeTranslucents, framebufferAfterTranslucents, alphaTestOverride,
+				programDirectives.getBlendModeOverride(), bufferOverrides, shadow);
+	}
+
+	private Program createProgram(ProgramSource source, InputAvailability availability, boolean shadow) {
 		// TODO: Properly handle empty shaders?
 		Map<PatchShaderType, String> transformed = TransformPatcher.patchAttributes(
 			source.getVertexSource().orElseThrow(NullPointerException::new),
@@ -607,11 +787,11 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		ProgramBuilder builder = ProgramBuilder.begin(source.getName(), vertex, geometry, fragment,
 			IrisSamplers.WORLD_RESERVED_TEXTURE_UNITS);
 
-		return createPassInner(builder, source.getParent().getPack().getIdMap(), source.getDirectives(), source.getParent().getPackDirectives(), availability, shadow);
+		return createProgramInner(builder, source.getParent().getPack().getIdMap(), source.getParent().getPackDirectives(), availability, shadow);
 	}
 
-	private Pass createPassInner(ProgramBuilder builder, IdMap map, ProgramDirectives programDirectives,
-								 PackDirectives packDirectives, InputAvailability availability, boolean shadow) {
+	private Program createProgramInner(ProgramBuilder builder, IdMap map, PackDirectives packDirectives,
+									   InputAvailability availability, boolean shadow) {
 
 		CommonUniforms.addCommonUniforms(builder, map, packDirectives, updateNotifier);
 
@@ -655,39 +835,12 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 			}
 		}
 
-		GlFramebuffer framebufferBeforeTranslucents;
-		GlFramebuffer framebufferAfterTranslucents;
-
-		if (shadow) {
-			// Always add both draw buffers on the shadow pass.
-			framebufferBeforeTranslucents =
-				Objects.requireNonNull(shadowRenderTargets).createShadowFramebuffer(shadowRenderTargets.snapshot(), new int[] { 0, 1 });
-			framebufferAfterTranslucents = framebufferBeforeTranslucents;
-		} else {
-			framebufferBeforeTranslucents =
-				renderTargets.createGbufferFramebuffer(flippedAfterPrepare, programDirectives.getDrawBuffers());
-			framebufferAfterTranslucents =
-				renderTargets.createGbufferFramebuffer(flippedAfterTranslucent, programDirectives.getDrawBuffers());
-		}
-
 		builder.bindAttributeLocation(11, "mc_Entity");
 		builder.bindAttributeLocation(12, "mc_midTexCoord");
 		builder.bindAttributeLocation(13, "at_tangent");
 		builder.bindAttributeLocation(14, "at_midBlock");
 
-		AlphaTestOverride alphaTestOverride = programDirectives.getAlphaTestOverride().orElse(null);
-
-		List<BufferBlendOverride> bufferOverrides = new ArrayList<>();
-
-		programDirectives.getBufferBlendOverrides().forEach(information -> {
-			int index = Ints.indexOf(programDirectives.getDrawBuffers(), information.getIndex());
-			if (index > -1) {
-				bufferOverrides.add(new BufferBlendOverride(index, information.getBlendMode()));
-			}
-		});
-
-		return new Pass(builder.build(), framebufferBeforeTranslucents, framebufferAfterTranslucents, alphaTestOverride,
-				programDirectives.getBlendModeOverride(), bufferOverrides, shadow);
+		return builder.build();
 	}
 
 	private boolean isPostChain;
@@ -722,8 +875,11 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 	}
 
 	private final class Pass {
+		private final String name;
+		@Nullable
+		private ProgramSource source;
 		@Nullable
-		private final Program program;
+		private Program program;
 		private final GlFramebuffer framebufferBeforeTranslucents;
 		private final GlFramebuffer framebufferAfterTranslucents;
 		@Nullable
@@ -734,8 +890,10 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		private final List<BufferBlendOverride> bufferBlendOverrides;
 		private final boolean shadowViewport;
 
-		private Pass(@Nullable Program program, GlFramebuffer framebufferBeforeTranslucents, GlFramebuffer framebufferAfterTranslucents,
+		private Pass(String name, @Nullable ProgramSource source, @Nullable Program program, GlFramebuffer framebufferBeforeTranslucents, GlFramebuffer framebufferAfterTranslucents,
 					 @Nullable AlphaTestOverride alphaTestOverride, @Nullable BlendModeOverride blendModeOverride, @Nullable List<BufferBlendOverride> bufferBlendOverrides, boolean shadowViewport) {
+			this.name = name;
+			this.source = source;
 			this.program = program;
 			this.framebufferBeforeTranslucents = framebufferBeforeTranslucents;
 			this.framebufferAfterTranslucents = framebufferAfterTranslucents;
@@ -756,7 +914,8 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 				RenderSystem.viewport(0, 0, shadowMapResolution, shadowMapResolution);
 			} else {
 				RenderTarget main = Minecraft.getInstance().getMainRenderTarget();
-				RenderSystem.viewport(0, 0, main.width, main.height);
+				RenderSystem.viewport(0, 0, CapturedRenderingState.INSTANCE.getScaledSize(main.width),
+					CapturedRenderingState.INSTANCE.getScaledSize(main.height));
 			}
 
 			if (program != null && !sodiumTerrainRendering) {
@@ -818,9 +977,16 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		deferredRenderer.destroy();
 		finalPassRenderer.destroy();
 		centerDepthSampler.destroy();
+		mipChainManager.destroy();
 
 		horizonRenderer.destroy();
 
+		if (shadowRenderer != null) {
+			shadowRenderer.destroy();
+		}
+
+		HandRenderer.INSTANCE.destroy();
+
 		// Make sure that any custom framebuffers are not bound before destroying render targets
 		GlStateManager._glBindFramebuffer(GL30C.GL_READ_FRAMEBUFFER, 0);
 		GlStateManager._glBindFramebuffer(GL30C.GL_DRAW_FRAMEBUFFER, 0);
@@ -842,6 +1008,36 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		// Destroy custom textures and the static samplers (normals, specular, and noise)
 		customTextureManager.destroy();
 		whitePixel.releaseId();
+
+		if (dynamicResolution != null) {
+			dynamicResolution.destroy();
+		}
+
+		CapturedRenderingState.INSTANCE.setRenderScale(1.0f);
+
+		PassProfiler.INSTANCE.reset();
+
+		ShadowRenderer.REPROJECTED_MODELVIEW = null;
+	}
+
+	/**
+	 * Checks whether every block ID of the pack fits into the compact terrain vertex format.
+	 */
+	private static boolean canUseCompactVertexFormat(IntSet blockIds) {
+		IntIterator iterator = blockIds.iterator();
+
+		while (iterator.hasNext()) {
+			int id = iterator.nextInt();
+
+			if (id > ExtendedDataHelper.MAX_COMPACT_BLOCK_ID) {
+				Iris.logger.warn("The shader pack uses block ID " + id + ", which doesn't fit into the compact terrain"
+					+ " vertex format (the largest supported ID is " + ExtendedDataHelper.MAX_COMPACT_BLOCK_ID
+					+ "). Falling back to the full vertex format.");
+				return false;
+			}
+		}
+
+		return true;
 	}
 
 	private static void destroyPasses(ProgramTable<Pass> table) {
@@ -865,7 +1061,7 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		// Make sure we're using texture unit 0 for this.
 		RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 
-		if (shadowRenderTargets != null) {
+		if (shadowRenderTargets != null && shouldRenderShadowsThisFrame) {
 			// Clear depth first, regardless of any color clearing.
 			shadowRenderTargets.getDepthSourceFb().bind();
 			RenderSystem.clear(GL21C.GL_DEPTH_BUFFER_BIT, Minecraft.ON_OSX);
@@ -902,6 +1098,7 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 			main.height, depthBufferFormat, packDirectives);
 
 		if (changed) {
+			mipChainManager.onRenderTargetsChanged();
 			prepareRenderer.recalculateSizes();
 			deferredRenderer.recalculateSizes();
 			compositeRenderer.recalculateSizes();
@@ -909,11 +1106,14 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 			this.clearPassesFull.forEach(clearPass -> renderTargets.destroyFramebuffer(clearPass.getFramebuffer()));
 			this.clearPasses.forEach(clearPass -> renderTargets.destroyFramebuffer(clearPass.getFramebuffer()));
+			this.invalidatePasses.forEach(invalidatePass -> renderTargets.destroyFramebuffer(invalidatePass.getFramebuffer()));
 
 			this.clearPassesFull = ClearPassCreator.createClearPasses(renderTargets, true,
-				packDirectives.getRenderTargetDirectives());
+				packDirectives.getRenderTargetDirectives(), clearPlan);
 			this.clearPasses = ClearPassCreator.createClearPasses(renderTargets, false,
-				packDirectives.getRenderTargetDirectives());
+				packDirectives.getRenderTargetDirectives(), clearPlan);
+			this.invalidatePasses = ClearPassCreator.createInvalidatePasses(renderTargets,
+				packDirectives.getRenderTargetDirectives(), clearPlan);
 		}
 
 		final ImmutableList<ClearPass> passes;
@@ -923,6 +1123,10 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 			passes = clearPassesFull;
 		} else {
 			passes = clearPasses;
+
+			for (InvalidatePass invalidatePass : invalidatePasses) {
+				invalidatePass.execute();
+			}
 		}
 
 		Vector3d fogColor3 = CapturedRenderingState.INSTANCE.getFogColor();
@@ -1039,11 +1243,15 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 			isRenderingFullScreenPass = false;
 		}
 
-		if (shadowRenderer != null) {
+		if (shadowRenderer != null && shouldRenderShadowsThisFrame) {
 			isRenderingShadow = true;
 
 			shadowRenderer.renderShadows(levelRenderer, playerCamera);
 
+			if (shadowUpdateScheduler != null) {
+				shadowUpdateScheduler.onShadowMapRendered(ShadowRenderer.MODELVIEW);
+			}
+
 			// needed to remove blend mode overrides and similar
 			beginPass(null);
 			isRenderingShadow = false;
@@ -1062,8 +1270,41 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 	public void addDebugText(List<String> messages) {
 		messages.add("");
 
+		if (Iris.getIrisConfig().shouldAliasRenderTargets()) {
+			messages.add("[" + Iris.MODNAME + "] Render Target Aliasing: " + renderTargets.getAliasedTargetCount()
+				+ " buffers shared, " + renderTargets.getAliasingSavedBytes() / (1024 * 1024) + " MiB saved");
+		}
+
+		if (Iris.getIrisConfig().shouldElideClears()) {
+			messages.add("[" + Iris.MODNAME + "] Clear Elision: " + clearPlan.getElidedCount() + " buffer textures not cleared");
+		}
+
+		if (Iris.getIrisConfig().shouldCacheBlockEntityGeometry()) {
+			messages.add("[" + Iris.MODNAME + "] Block Entity Cache: " + BlockEntityGeometryCache.INSTANCE.getDebugString());
+		}
+
+		if (ChunkMeshStatistics.INSTANCE.isEnabled()) {
+			messages.add("[" + Iris.MODNAME + "] Chunk Meshing: " + ChunkMeshStatistics.INSTANCE.getDebugString());
+		}
+
+		if (shouldBindPBR) {
+			messages.add("[" + Iris.MODNAME + "] PBR Texture Binds: " + pbrBindingCache.getDebugString());
+		}
+
+		if (dynamicResolution != null) {
+			messages.add("[" + Iris.MODNAME + "] Dynamic Resolution: " + dynamicResolution.getDebugString());
+		}
+
+		messages.add("[" + Iris.MODNAME + "] Mipmaps: " + mipChainManager.getDebugString());
+
+		PassProfiler.INSTANCE.addDebugText(messages);
+
 		if (shadowRenderer != null) {
 			shadowRenderer.addDebugText(messages);
+
+			if (shadowUpdateScheduler != null) {
+				messages.add("[" + Iris.MODNAME + "] Shadow Updates: " + shadowUpdateScheduler.getDebugString());
+			}
 		} else {
 			messages.add("[Iris] Shadow Maps: not used by shader pack");
 		}
@@ -1083,10 +1324,12 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		isRenderingFullScreenPass = false;
 		isRenderingWorld = true;
 		isBeforeTranslucent = true;
+		pbrBindingCache.beginFrame();
 		isMainBound = true;
 		isPostChain = false;
 		phase = WorldRenderingPhase.NONE;
 		overridePhase = null;
+		GbufferPrograms.runPhaseChangeNotifier();
 		HandRenderer.INSTANCE.getBufferSource().resetDrawCalls();
 
 		checkWorld();
@@ -1102,6 +1345,23 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 		updateNotifier.onNewFrame();
 
+		PassProfiler.INSTANCE.beginFrame();
+
+		if (shadowUpdateScheduler != null) {
+			// This needs to happen before any program is used, since the shadow model view matrix uniform depends on
+			// whether the shadow map from a previous frame is reused.
+			shouldRenderShadowsThisFrame = shadowUpdateScheduler.beginFrame(ShadowRenderer.getShadowAngle(),
+				CameraUniforms.getUnshiftedCameraPosition(), CapturedRenderingState.INSTANCE.getGbufferModelView(),
+				CapturedRenderingState.INSTANCE.getGbufferProjection(), shadowRenderer.hasVoxelization());
+
+			ShadowRenderer.REPROJECTED_MODELVIEW = shouldRenderShadowsThisFrame ? null : shadowUpdateScheduler.getReprojectedModelView();
+		}
+
+		if (dynamicResolution != null) {
+			dynamicResolution.beginFrame();
+			CapturedRenderingState.INSTANCE.setRenderScale(dynamicResolution.getRenderScale());
+		}
+
 		// Get ready for world rendering
 		prepareRenderTargets();
 
@@ -1141,14 +1401,22 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		isRenderingWorld = false;
 		phase = WorldRenderingPhase.NONE;
 		overridePhase = null;
+		GbufferPrograms.runPhaseChangeNotifier();
 
 		isRenderingFullScreenPass = true;
 
+		PassProfiler.INSTANCE.begin("center depth");
 		centerDepthSampler.sampleCenterDepth();
 
 		compositeRenderer.renderAll();
 		finalPassRenderer.renderFinalPass();
 
+		PassProfiler.INSTANCE.endFrame();
+
+		if (dynamicResolution != null) {
+			dynamicResolution.endFrame();
+		}
+
 		isRenderingFullScreenPass = false;
 	}
 
@@ -1223,28 +1491,21 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 	@Override
 	public int getCurrentNormalTexture() {
-		return currentNormalTexture;
+		return pbrBindingCache.getNormalTexture();
 	}
 
 	@Override
 	public int getCurrentSpecularTexture() {
-		return currentSpecularTexture;
+		return pbrBindingCache.getSpecularTexture();
 	}
 
 	@Override
-	public void onBindTexture(int id) {
-		if (shouldBindPBR && isRenderingWorld) {
-			PBRTextureHolder pbrHolder = PBRTextureManager.INSTANCE.getOrLoadHolder(id);
-			currentNormalTexture = pbrHolder.getNormalTexture().getId();
-			currentSpecularTexture = pbrHolder.getSpecularTexture().getId();
-
-			TextureFormat textureFormat = TextureFormatLoader.getFormat();
-			if (textureFormat != null) {
-				textureFormat.setupTextureParameters(PBRType.NORMAL, pbrHolder.getNormalTexture());
-				textureFormat.setupTextureParameters(PBRType.SPECULAR, pbrHolder.getSpecularTexture());
-			}
-
+	public boolean onBindTexture(int id) {
+		if (shouldBindPBR && isRenderingWorld && pbrBindingCache.onBindTexture(id)) {
 			PBRTextureManager.notifyPBRTexturesChanged();
+			return true;
 		}
+
+		return false;
 	}
 }
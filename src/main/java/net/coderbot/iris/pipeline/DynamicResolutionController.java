@@ -0,0 +1,162 @@
+package net.coderbot.iris.pipeline;
+
+import net.coderbot.iris.gl.IrisRenderSystem;
+
+/**
+ * Adjusts the internal render scale of the gbuffer and composite passes so that frame times stay close to a target.
+ *
+ * <p>Render targets are never reallocated when the scale changes. Instead, they stay allocated at the full size of the
+ * main framebuffer, and the scaled passes render to a sub-rectangle in the bottom-left corner of each buffer. The final
+ * pass then upscales that sub-rectangle to the full window.</p>
+ *
+ * <p>Frame times are measured on the GPU using timestamp queries when timer queries are supported. The query results
+ * are read back a few frames later, and only once they are available, so that measuring never stalls the pipeline.
+ * Without timer queries, the CPU time between frames is used instead.</p>
+ */
+public class DynamicResolutionController {
+	private static final int QUERY_RING_SIZE = 4;
+	private static final float SCALE_STEP = 0.05f;
+	private static final int FRAMES_BETWEEN_ADJUSTMENTS = 30;
+	private static final double SMOOTHING_FACTOR = 0.1;
+
+	// Lower the scale once frames take 5% longer than the target, and raise it again once frames are 15% faster than
+	// the target. The gap between the two prevents the scale from bouncing between two steps.
+	private static final double DECREASE_THRESHOLD = 1.05;
+	private static final double INCREASE_THRESHOLD = 0.85;
+
+	private final float minScale;
+	private final double targetFrameTimeNanos;
+	private final boolean useTimerQueries;
+
+	private final int[] startQueries;
+	private final int[] endQueries;
+	private final boolean[] pending;
+	private int currentSlot = -1;
+	private int nextSlot;
+
+	private long lastCpuFrameStart = -1;
+	private double averageFrameTimeNanos = -1;
+	private int framesSinceAdjustment;
+	private float renderScale = 1.0f;
+
+	public DynamicResolutionController(float minScale, int targetFramerate) {
+		this.minScale = minScale;
+		this.targetFrameTimeNanos = 1.0E9 / targetFramerate;
+		this.useTimerQueries = IrisRenderSystem.supportsTimerQueries();
+
+		this.startQueries = new int[QUERY_RING_SIZE];
+		this.endQueries = new int[QUERY_RING_SIZE];
+		this.pending = new boolean[QUERY_RING_SIZE];
+
+		if (useTimerQueries) {
+			for (int i = 0; i < QUERY_RING_SIZE; i++) {
+				startQueries[i] = IrisRenderSystem.genQuery();
+				endQueries[i] = IrisRenderSystem.genQuery();
+			}
+		}
+	}
+
+	public void beginFrame() {
+		if (useTimerQueries) {
+			collectAvailableResults();
+
+			// If the GPU is so far behind that every slot is still in flight, skip measuring this frame rather than
+			// waiting on an old result.
+			if (!pending[nextSlot]) {
+				currentSlot = nextSlot;
+				nextSlot = (nextSlot + 1) % QUERY_RING_SIZE;
+
+				IrisRenderSystem.queryCounter(startQueries[currentSlot]);
+			}
+		} else {
+			long now = System.nanoTime();
+
+			if (lastCpuFrameStart != -1) {
+				onFrameTime(now - lastCpuFrameStart);
+			}
+
+			lastCpuFrameStart = now;
+		}
+	}
+
+	public void endFrame() {
+		if (currentSlot != -1) {
+			IrisRenderSystem.queryCounter(endQueries[currentSlot]);
+			pending[currentSlot] = true;
+			currentSlot = -1;
+		}
+	}
+
+	private void collectAvailableResults() {
+		// Go through the slots in submission order, since queries complete in order.
+		for (int i = 0; i < QUERY_RING_SIZE; i++) {
+			int slot = (nextSlot + i) % QUERY_RING_SIZE;
+
+			if (!pending[slot]) {
+				continue;
+			}
+
+			if (!IrisRenderSystem.isQueryResultAvailable(endQueries[slot])) {
+				break;
+			}
+
+			long start = IrisRenderSystem.getQueryResult(startQueries[slot]);
+			long end = IrisRenderSystem.getQueryResult(endQueries[slot]);
+			pending[slot] = false;
+
+			onFrameTime(end - start);
+		}
+	}
+
+	private void onFrameTime(long frameTimeNanos) {
+		if (averageFrameTimeNanos < 0) {
+			averageFrameTimeNanos = frameTimeNanos;
+		} else {
+			averageFrameTimeNanos += (frameTimeNanos - averageFrameTimeNanos) * SMOOTHING_FACTOR;
+		}
+
+		framesSinceAdjustment++;
+
+		if (framesSinceAdjustment < FRAMES_BETWEEN_ADJUSTMENTS) {
+			return;
+		}
+
+		float newScale = renderScale;
+
+		if (averageFrameTimeNanos > targetFrameTimeNanos * DECREASE_THRESHOLD) {
+			newScale = Math.max(minScale, renderScale - SCALE_STEP);
+		} else if (averageFrameTimeNanos < targetFrameTimeNanos * INCREASE_THRESHOLD) {
+			newScale = Math.min(1.0f, renderScale + SCALE_STEP);
+		}
+
+		if (newScale != renderScale) {
+			renderScale = newScale;
+			framesSinceAdjustment = 0;
+		}
+	}
+
+	public float getRenderScale() {
+		return renderScale;
+	}
+
+	public String getDebugString() {
+		String source = useTimerQueries ? "GPU" : "CPU";
+
+		if (averageFrameTimeNanos < 0) {
+			return "scale " + Math.round(renderScale * 100) + "%, waiting for " + source + " timings";
+		}
+
+		return "scale " + Math.round(renderScale * 100) + "%, " + source + " frame "
+			+ Math.round(averageFrameTimeNanos / 1.0E4) / 100.0 + " ms, target "
+			+ Math.round(targetFrameTimeNanos / 1.0E4) / 100.0 + " ms";
+	}
+
+	public void destroy() {
+		if (useTimerQueries) {
+			for (int i = 0; i < QUERY_RING_SIZE; i++) {
+				IrisRenderSystem.deleteQuery(startQueries[i]);
+				IrisRenderSystem.deleteQuery(endQueries[i]);
+			}
+		}
+	}
+}
@@ -20,6 +20,7 @@ public class FixedFunctionWorldRenderingPipeline implements WorldRenderingPipeli
 		BlockRenderingSettings.INSTANCE.setUseSeparateAo(false);
 		BlockRenderingSettings.INSTANCE.setAmbientOcclusionLevel(1.0f);
 		BlockRenderingSettings.INSTANCE.setUseExtendedVertexFormat(false);
+		BlockRenderingSettings.INSTANCE.setUseCompactVertexFormat(false);
 		BlockRenderingSettings.INSTANCE.setBlockTypeIds(null);
 	}
 
@@ -101,8 +102,8 @@ public class FixedFunctionWorldRenderingPipeline implements WorldRenderingPipeli
 	}
 
 	@Override
-	public void onBindTexture(int id) {
-
+	public boolean onBindTexture(int id) {
+		return false;
 	}
 
 	@Override
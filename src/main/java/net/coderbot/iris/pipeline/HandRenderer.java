@@ -145,4 +145,12 @@ public class HandRenderer {
 	public FullyBufferedMultiBufferSource getBufferSource() {
 		return bufferSource;
 	}
+
+	/**
+	 * Frees the streaming buffer of the hand buffers along with the pipeline that used them. The buffers can still be
+	 * used by the next pipeline.
+	 */
+	public void destroy() {
+		bufferSource.destroy();
+	}
 }
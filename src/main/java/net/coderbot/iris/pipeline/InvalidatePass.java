@@ -0,0 +1,28 @@
+package net.coderbot.iris.pipeline;
+
+import net.coderbot.iris.gl.IrisRenderSystem;
+import net.coderbot.iris.gl.framebuffer.GlFramebuffer;
+import org.lwjgl.opengl.GL30C;
+
+public class InvalidatePass {
+	private final GlFramebuffer framebuffer;
+	private final int[] attachments;
+
+	public InvalidatePass(GlFramebuffer framebuffer, int colorAttachmentCount) {
+		this.framebuffer = framebuffer;
+		this.attachments = new int[colorAttachmentCount];
+
+		for (int i = 0; i < colorAttachmentCount; i++) {
+			attachments[i] = GL30C.GL_COLOR_ATTACHMENT0 + i;
+		}
+	}
+
+	public void execute() {
+		framebuffer.bind();
+		IrisRenderSystem.invalidateFramebuffer(GL30C.GL_FRAMEBUFFER, attachments);
+	}
+
+	public GlFramebuffer getFramebuffer() {
+		return framebuffer;
+	}
+}
@@ -0,0 +1,420 @@
+package net.coderbot.iris.pipeline;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.gl.IrisRenderSystem;
+import org.lwjgl.opengl.GL33C;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Measures the CPU and GPU time spent in each shader pack pass: every gbuffer and shadow program, the shadow pass
+ * setup, every prepare / deferred / composite pass and its compute dispatches, and the final pass.
+ *
+ * <p>Time is attributed to one section at a time. Calling {@link #begin(String)} ends the currently active section and
+ * starts attributing time to the new one, so sections never nest. This matches how GL_TIME_ELAPSED queries work, since
+ * they cannot be nested either, and it means that time spent in the shadow pass is not double-counted towards the
+ * gbuffer program that happened to be active when the shadow pass started.</p>
+ *
+ * <p>GPU times are measured using a ring of query sets, one per frame in flight. Results are only read back once the
+ * last query of a frame is available, so profiling never stalls the pipeline. When profiling is disabled, every entry
+ * point returns immediately.</p>
+ */
+public class PassProfiler {
+	public static final PassProfiler INSTANCE = new PassProfiler();
+
+	private static final int FRAMES_IN_FLIGHT = 4;
+	private static final int WINDOW_SIZE = 240;
+	private static final int MAX_DEBUG_LINES = 12;
+
+	private boolean enabled;
+	private boolean gpuTiming;
+
+	private final Object2IntMap<String> sectionIndices = new Object2IntOpenHashMap<>();
+	private final List<Section> sections = new ArrayList<>();
+
+	private final FrameQueries[] frames = new FrameQueries[FRAMES_IN_FLIGHT];
+	private FrameQueries currentFrame;
+	private int nextFrame;
+	private long frameCounter;
+
+	private int activeSection = -1;
+	private long activeCpuStart;
+	// Whether a GPU query was started for the active section, which isn't the case when the frame isn't measured.
+	private boolean activeQuery;
+
+	private PassProfiler() {
+		sectionIndices.defaultReturnValue(-1);
+	}
+
+	public void setEnabled(boolean enabled) {
+		if (this.enabled == enabled) {
+			// Pipelines for other dimensions share the profiler, so don't throw away the timings collected so far.
+			return;
+		}
+
+		reset();
+
+		this.enabled = enabled;
+		this.gpuTiming = enabled && IrisRenderSystem.supportsTimerQueries();
+
+		if (gpuTiming) {
+			for (int i = 0; i < FRAMES_IN_FLIGHT; i++) {
+				frames[i] = new FrameQueries();
+			}
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Frees all queries and forgets all collected timings. Must be called when the pipeline is destroyed, since section
+	 * names are only meaningful for a given shader pack.
+	 */
+	public void reset() {
+		for (int i = 0; i < FRAMES_IN_FLIGHT; i++) {
+			if (frames[i] != null) {
+				frames[i].destroy();
+				frames[i] = null;
+			}
+		}
+
+		sectionIndices.clear();
+		sections.clear();
+		currentFrame = null;
+		nextFrame = 0;
+		frameCounter = 0;
+		activeSection = -1;
+		activeQuery = false;
+		enabled = false;
+		gpuTiming = false;
+	}
+
+	public void beginFrame() {
+		if (!enabled) {
+			return;
+		}
+
+		// A section left open by the previous frame must not keep its query running into the query set of this frame.
+		end();
+
+		frameCounter++;
+
+		if (!gpuTiming) {
+			return;
+		}
+
+		collectAvailableResults();
+
+		FrameQueries frame = frames[nextFrame];
+
+		// If the GPU is so far behind that every set of queries is still in flight, don't measure the GPU time of this
+		// frame rather than waiting on an old result.
+		if (frame.pending) {
+			currentFrame = null;
+			return;
+		}
+
+		currentFrame = frame;
+		currentFrame.used = 0;
+		nextFrame = (nextFrame + 1) % FRAMES_IN_FLIGHT;
+	}
+
+	public void endFrame() {
+		if (!enabled) {
+			return;
+		}
+
+		end();
+
+		for (Section section : sections) {
+			if (section.usedThisFrame) {
+				section.cpu.add(section.cpuThisFrame);
+				section.cpuThisFrame = 0;
+				section.usedThisFrame = false;
+			}
+		}
+
+		if (currentFrame != null) {
+			currentFrame.pending = currentFrame.used > 0;
+			currentFrame = null;
+		}
+	}
+
+	/**
+	 * Ends the active section, if any, and starts attributing time to the given section.
+	 */
+	public void begin(String name) {
+		if (!enabled) {
+			return;
+		}
+
+		end();
+
+		int index = sectionIndices.getInt(name);
+
+		if (index == -1) {
+			index = sections.size();
+			sections.add(new Section(name));
+			sectionIndices.put(name, index);
+		}
+
+		activeSection = index;
+		sections.get(index).usedThisFrame = true;
+
+		if (currentFrame != null) {
+			IrisRenderSystem.beginQuery(GL33C.GL_TIME_ELAPSED, currentFrame.acquire(index));
+			activeQuery = true;
+		}
+
+		activeCpuStart = System.nanoTime();
+	}
+
+	/**
+	 * Ends the active section, if any.
+	 */
+	public void end() {
+		if (!enabled || activeSection == -1) {
+			return;
+		}
+
+		sections.get(activeSection).cpuThisFrame += System.nanoTime() - activeCpuStart;
+		activeSection = -1;
+
+		if (activeQuery) {
+			IrisRenderSystem.endQuery(GL33C.GL_TIME_ELAPSED);
+			activeQuery = false;
+		}
+	}
+
+	private void collectAvailableResults() {
+		// Go through the frames in submission order, since queries complete in order.
+		for (int i = 0; i < FRAMES_IN_FLIGHT; i++) {
+			FrameQueries frame = frames[(nextFrame + i) % FRAMES_IN_FLIGHT];
+
+			if (!frame.pending) {
+				continue;
+			}
+
+			if (!IrisRenderSystem.isQueryResultAvailable(frame.queries.getInt(frame.used - 1))) {
+				break;
+			}
+
+			long[] totals = new long[sections.size()];
+			boolean[] present = new boolean[sections.size()];
+
+			for (int query = 0; query < frame.used; query++) {
+				int section = frame.sections.getInt(query);
+
+				totals[section] += IrisRenderSystem.getQueryResult(frame.queries.getInt(query));
+				present[section] = true;
+			}
+
+			for (int section = 0; section < totals.length; section++) {
+				if (present[section]) {
+					sections.get(section).gpu.add(totals[section]);
+				}
+			}
+
+			frame.pending = false;
+		}
+	}
+
+	public void addDebugText(List<String> messages) {
+		if (!enabled) {
+			return;
+		}
+
+		List<Section> sorted = new ArrayList<>(sections);
+		sorted.sort(Comparator.comparingDouble(Section::getSortKey).reversed());
+
+		messages.add("[" + Iris.MODNAME + "] Pass Timings (p50 / p95 ms, " + (gpuTiming ? "GPU + CPU" : "CPU only") + "):");
+
+		for (int i = 0; i < Math.min(MAX_DEBUG_LINES, sorted.size()); i++) {
+			Section section = sorted.get(i);
+			StringBuilder line = new StringBuilder("[" + Iris.MODNAME + "]   " + section.name + ": ");
+
+			if (gpuTiming) {
+				line.append("GPU ").append(formatMillis(section.gpu.percentile(0.5)))
+					.append(" / ").append(formatMillis(section.gpu.percentile(0.95))).append(", ");
+			}
+
+			line.append("CPU ").append(formatMillis(section.cpu.percentile(0.5)))
+				.append(" / ").append(formatMillis(section.cpu.percentile(0.95)));
+
+			messages.add(line.toString());
+		}
+
+		if (sorted.size() > MAX_DEBUG_LINES) {
+			messages.add("[" + Iris.MODNAME + "]   (" + (sorted.size() - MAX_DEBUG_LINES) + " more)");
+		}
+	}
+
+	/**
+	 * Writes the collected timings to a CSV summary and a JSON trace containing all samples in the rolling window.
+	 *
+	 * @return the path of the CSV summary
+	 */
+	public Path dump(Path directory) throws IOException {
+		Files.createDirectories(directory);
+
+		String baseName = "pass-timings-" + System.currentTimeMillis();
+		Path csv = directory.resolve(baseName + ".csv");
+		Path json = directory.resolve(baseName + ".json");
+
+		try (Writer writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+			writer.write("pass,gpu_samples,gpu_p50_ms,gpu_p95_ms,gpu_p99_ms,cpu_samples,cpu_p50_ms,cpu_p95_ms,cpu_p99_ms\n");
+
+			for (Section section : sections) {
+				writer.write(section.name + ","
+					+ section.gpu.count + "," + formatMillis(section.gpu.percentile(0.5)) + ","
+					+ formatMillis(section.gpu.percentile(0.95)) + "," + formatMillis(section.gpu.percentile(0.99)) + ","
+					+ section.cpu.count + "," + formatMillis(section.cpu.percentile(0.5)) + ","
+					+ formatMillis(section.cpu.percentile(0.95)) + "," + formatMillis(section.cpu.percentile(0.99)) + "\n");
+			}
+		}
+
+		JsonObject root = new JsonObject();
+		root.addProperty("frames", frameCounter);
+		root.addProperty("gpuTiming", gpuTiming);
+
+		JsonArray passes = new JsonArray();
+
+		for (Section section : sections) {
+			JsonObject pass = new JsonObject();
+			pass.addProperty("name", section.name);
+			pass.add("gpuNanos", section.gpu.toJson());
+			pass.add("cpuNanos", section.cpu.toJson());
+			passes.add(pass);
+		}
+
+		root.add("passes", passes);
+
+		try (Writer writer = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+			new GsonBuilder().setPrettyPrinting().create().toJson(root, writer);
+		}
+
+		return csv;
+	}
+
+	private static String formatMillis(long nanos) {
+		if (nanos < 0) {
+			return "-";
+		}
+
+		return String.valueOf(Math.round(nanos / 1.0E4) / 100.0);
+	}
+
+	private static final class Section {
+		private final String name;
+		private final RollingSamples cpu = new RollingSamples();
+		private final RollingSamples gpu = new RollingSamples();
+		private long cpuThisFrame;
+		private boolean usedThisFrame;
+
+		private Section(String name) {
+			this.name = name;
+		}
+
+		private double getSortKey() {
+			return gpu.count > 0 ? gpu.average() : cpu.average();
+		}
+	}
+
+	private static final class RollingSamples {
+		private final long[] samples = new long[WINDOW_SIZE];
+		private int count;
+		private int next;
+
+		private void add(long nanos) {
+			samples[next] = nanos;
+			next = (next + 1) % WINDOW_SIZE;
+			count = Math.min(count + 1, WINDOW_SIZE);
+		}
+
+		private double average() {
+			if (count == 0) {
+				return 0;
+			}
+
+			long total = 0;
+
+			for (int i = 0; i < count; i++) {
+				total += samples[i];
+			}
+
+			return (double) total / count;
+		}
+
+		/**
+		 * @return the given percentile of the samples in the window, or -1 if there are no samples yet
+		 */
+		private long percentile(double percentile) {
+			if (count == 0) {
+				return -1;
+			}
+
+			long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+
+			return sorted[Math.min(count - 1, (int) (percentile * count))];
+		}
+
+		private JsonArray toJson() {
+			JsonArray array = new JsonArray();
+
+			// Oldest sample first
+			int start = count < WINDOW_SIZE ? 0 : next;
+
+			for (int i = 0; i < count; i++) {
+				array.add(samples[(start + i) % WINDOW_SIZE]);
+			}
+
+			return array;
+		}
+	}
+
+	private static final class FrameQueries {
+		// Query objects are pooled and reused between frames, and new ones are only created when a frame has more
+		// sections than any previous frame did.
+		private final IntArrayList queries = new IntArrayList();
+		private final IntArrayList sections = new IntArrayList();
+		private int used;
+		private boolean pending;
+
+		private int acquire(int section) {
+			if (used == queries.size()) {
+				queries.add(IrisRenderSystem.genQuery());
+				sections.add(section);
+			} else {
+				sections.set(used, section);
+			}
+
+			return queries.getInt(used++);
+		}
+
+		private void destroy() {
+			for (int i = 0; i < queries.size(); i++) {
+				IrisRenderSystem.deleteQuery(queries.getInt(i));
+			}
+
+			queries.clear();
+			sections.clear();
+		}
+	}
+}
@@ -14,9 +14,18 @@ import net.fabricmc.loader.api.FabricLoader;
 public class PatchedShaderPrinter {
 	private static boolean outputLocationCleared = false;
 	private static int programCounter = 0;
-	public static final boolean prettyPrintShaders = FabricLoader.getInstance().isDevelopmentEnvironment()
+	public static final boolean prettyPrintShaders = isDevelopmentEnvironment()
 			|| System.getProperty("iris.prettyPrintShaders", "false").equals("true");
 
+	private static boolean isDevelopmentEnvironment() {
+		try {
+			return FabricLoader.getInstance().isDevelopmentEnvironment();
+		} catch (RuntimeException e) {
+			// Fabric Loader isn't running when the patcher is used outside of the game, such as in the benchmarks.
+			return false;
+		}
+	}
+
 	public static void resetPrintState() {
 		outputLocationCleared = false;
 		programCounter = 0;
@@ -93,6 +93,32 @@ public class PipelineManager {
 		versionCounterForSodiumShaderReload++;
 	}
 
+	/**
+	 * Called after the programs of the current pipeline were hot reloaded in place.
+	 *
+	 * <p>The pipelines of all dimensions other than the current one still use the old programs, so they are destroyed
+	 * to be created again from the current shader pack once they are needed. Sodium's chunk programs are built from the
+	 * pipeline separately, so they are rebuilt as well.</p>
+	 */
+	public void onPipelineReloadedInPlace() {
+		destroyInactivePipelines();
+		versionCounterForSodiumShaderReload++;
+	}
+
+	private void destroyInactivePipelines() {
+		pipelinesPerDimension.entrySet().removeIf(entry -> {
+			if (entry.getValue() == pipeline) {
+				return false;
+			}
+
+			Iris.logger.info("Destroying pipeline {}", entry.getKey());
+			resetTextureState();
+			entry.getValue().destroy();
+
+			return true;
+		});
+	}
+
 	private void resetTextureState() {
 		// Unbind all textures
 		//
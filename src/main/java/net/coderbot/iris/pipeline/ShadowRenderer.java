@@ -21,10 +21,12 @@ import net.coderbot.iris.shaderpack.ProgramSource;
 import net.coderbot.iris.shadow.ShadowMatrices;
 import net.coderbot.iris.shadows.CullingDataCache;
 import net.coderbot.iris.shadows.Matrix4fAccess;
+import net.coderbot.iris.shadows.ShadowEntityCuller;
 import net.coderbot.iris.shadows.ShadowRenderTargets;
 import net.coderbot.iris.shadows.frustum.BoxCuller;
 import net.coderbot.iris.shadows.frustum.CullEverythingFrustum;
 import net.coderbot.iris.shadows.frustum.FrustumHolder;
+import net.coderbot.iris.shadows.frustum.advanced.AabbBatch;
 import net.coderbot.iris.shadows.frustum.advanced.AdvancedShadowCullingFrustum;
 import net.coderbot.iris.shadows.frustum.fallback.BoxCullingFrustum;
 import net.coderbot.iris.shadows.frustum.fallback.NonCullingFrustum;
@@ -42,6 +44,7 @@ import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderBuffers;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderDispatcher;
+import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
 import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
 import net.minecraft.core.BlockPos;
@@ -54,13 +57,16 @@ import org.lwjgl.opengl.GL30C;
 import org.lwjgl.opengl.GL43C;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
 public class ShadowRenderer {
 	public static Matrix4f MODELVIEW;
 	public static Matrix4f PROJECTION;
+	// Set while a shadow map rendered on a previous frame is being reused, see ShadowUpdateScheduler
+	public static Matrix4f REPROJECTED_MODELVIEW;
+	// World-space direction towards the shadow light while chunk faces pointing away from it may be culled, or null
+	public static net.coderbot.iris.vendored.joml.Vector3f FACE_CULLING_LIGHT_DIRECTION;
 	public static List<BlockEntity> visibleBlockEntities;
 	public static boolean ACTIVE = false;
 	private final float halfPlaneLength;
@@ -71,6 +77,7 @@ public class ShadowRenderer {
 	private final Float fov;
 	private final ShadowRenderTargets targets;
 	private final OptionalBoolean packCullingState;
+	private final OptionalBoolean packFaceCullingState;
 	private boolean packHasVoxelization;
 	private final boolean shouldRenderTerrain;
 	private final boolean shouldRenderTranslucent;
@@ -81,6 +88,8 @@ public class ShadowRenderer {
 	private final RenderBuffers buffers;
 	private final RenderBuffersExt renderBuffersExt;
 	private final List<MipmapPass> mipmapPasses = new ArrayList<>();
+	private final ShadowEntityCuller entityCuller = new ShadowEntityCuller();
+	private final AabbBatch blockEntityBatch = new AabbBatch();
 	private final String debugStringOverall;
 	private FrustumHolder terrainFrustumHolder;
 	private FrustumHolder entityFrustumHolder;
@@ -125,6 +134,7 @@ public class ShadowRenderer {
 			this.packCullingState = OptionalBoolean.DEFAULT;
 		}
 
+		this.packFaceCullingState = shadowDirectives.getFaceCullingState();
 		this.sunPathRotation = directives.getSunPathRotation();
 
 		this.buffers = new RenderBuffers();
@@ -142,6 +152,14 @@ public class ShadowRenderer {
 		this.packHasVoxelization = packHasVoxelization || usesImages;
 	}
 
+	public boolean hasVoxelization() {
+		return packHasVoxelization;
+	}
+
+	public float getHalfPlaneLength() {
+		return halfPlaneLength;
+	}
+
 	public static PoseStack createShadowModelView(float sunPathRotation, float intervalSize) {
 		// Determine the camera position
 		Vector3d cameraPos = CameraUniforms.getUnshiftedCameraPosition();
@@ -175,7 +193,7 @@ public class ShadowRenderer {
 		}
 	}
 
-	private static float getShadowAngle() {
+	static float getShadowAngle() {
 		float shadowAngle = getSunAngle();
 
 		if (!CelestialUniforms.isDay()) {
@@ -253,11 +271,18 @@ public class ShadowRenderer {
 		IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER, filteringMode);
 	}
 
+	/**
+	 * @return true if shadow casters are culled with Advanced Frustum Culling, which depends on the gbuffer view
+	 */
+	public boolean usesAdvancedCulling() {
+		return !((packCullingState == OptionalBoolean.FALSE || packHasVoxelization) && packCullingState != OptionalBoolean.TRUE);
+	}
+
 	private FrustumHolder createShadowFrustum(float renderMultiplier, FrustumHolder holder) {
 		// TODO: Cull entities / block entities with Advanced Frustum Culling even if voxelization is detected.
 		String distanceInfo;
 		String cullingInfo;
-		if ((packCullingState == OptionalBoolean.FALSE || packHasVoxelization) && packCullingState != OptionalBoolean.TRUE) {
+		if (!usesAdvancedCulling()) {
 			double distance = halfPlaneLength * renderMultiplier;
 
 			String reason;
@@ -322,6 +347,38 @@ public class ShadowRenderer {
 		return holder;
 	}
 
+	private boolean shouldCullFacesAwayFromLight() {
+		if (packFaceCullingState == OptionalBoolean.TRUE) {
+			return fov == null;
+		}
+
+		// Solid faces pointing away from the light are normally behind faces pointing towards it as far as the shadow
+		// map is concerned, but voxelization needs every block to show up, including the ones only exposed on their
+		// shaded side. Perspective shadow projections don't have a single light direction, so don't bother with them either.
+		return packFaceCullingState == OptionalBoolean.DEFAULT && !packHasVoxelization && fov == null;
+	}
+
+	private net.coderbot.iris.vendored.joml.Vector3f getShadowLightDirection() {
+		Vector4f shadowLightPosition = new CelestialUniforms(sunPathRotation).getShadowLightPositionInWorldSpace();
+
+		return new net.coderbot.iris.vendored.joml.Vector3f(shadowLightPosition.x(), shadowLightPosition.y(),
+			shadowLightPosition.z()).normalize();
+	}
+
+	private String getFaceCullingDebugString() {
+		if (!Iris.isSodiumInstalled()) {
+			return "unavailable (requires Sodium)";
+		} else if (fov != null) {
+			return "disabled (perspective shadow projection)";
+		} else if (packFaceCullingState == OptionalBoolean.FALSE) {
+			return "disabled (set by shader pack)";
+		} else if (packFaceCullingState == OptionalBoolean.DEFAULT && packHasVoxelization) {
+			return "disabled (voxelization detected)";
+		} else {
+			return "enabled";
+		}
+	}
+
 	private void setupGlState(float[] projMatrix) {
 		// Set up our projection matrix and load it into the legacy matrix stack
 		IrisRenderSystem.setupProjectionMatrix(projMatrix);
@@ -357,21 +414,9 @@ public class ShadowRenderer {
 
 		profiler.push("cull");
 
-		List<Entity> renderedEntities = new ArrayList<>(32);
-
-		// TODO: I'm sure that this can be improved / optimized.
-		for (Entity entity : getLevel().entitiesForRendering()) {
-			if (!dispatcher.shouldRender(entity, frustum, cameraX, cameraY, cameraZ) || entity.isSpectator()) {
-				continue;
-			}
-
-			renderedEntities.add(entity);
-		}
-
-		profiler.popPush("sort");
-
-		// Sort the entities by type first in order to allow vanilla's entity batching system to work better.
-		renderedEntities.sort(Comparator.comparingInt(entity -> entity.getType().hashCode()));
+		// The returned entities are grouped by type in order to allow vanilla's entity batching system to work better.
+		List<Entity> renderedEntities = entityCuller.cull(getLevel().entitiesForRendering(), dispatcher, frustum,
+			cameraX, cameraY, cameraZ);
 
 		profiler.popPush("build geometry");
 
@@ -421,7 +466,7 @@ public class ShadowRenderer {
 		profiler.pop();
 	}
 
-	private void renderBlockEntities(MultiBufferSource.BufferSource bufferSource, PoseStack modelView, double cameraX, double cameraY, double cameraZ, float tickDelta, boolean hasEntityFrustum) {
+	private void renderBlockEntities(MultiBufferSource.BufferSource bufferSource, PoseStack modelView, Frustum frustum, double cameraX, double cameraY, double cameraZ, float tickDelta, boolean hasEntityFrustum) {
 		profiler.push("build blockentities");
 
 		int shadowBlockEntities = 0;
@@ -431,13 +476,33 @@ public class ShadowRenderer {
 			culler.setPosition(cameraX, cameraY, cameraZ);
 		}
 
-		for (BlockEntity entity : visibleBlockEntities) {
+		// The chunks containing these block entities have already been tested against the terrain frustum, but the
+		// advanced frustum is usually much tighter than a whole chunk, so test each block entity against it as well.
+		AabbBatch batch = null;
+
+		if (frustum instanceof AdvancedShadowCullingFrustum) {
+			batch = blockEntityBatch;
+			batch.clear();
+
+			for (BlockEntity entity : visibleBlockEntities) {
+				BlockPos pos = entity.getBlockPos();
+				batch.add(pos.getX() - 1, pos.getY() - 1, pos.getZ() - 1, pos.getX() + 1, pos.getY() + 1, pos.getZ() + 1);
+			}
+
+			((AdvancedShadowCullingFrustum) frustum).cullBatch(batch);
+		}
+
+		for (int i = 0; i < visibleBlockEntities.size(); i++) {
+			BlockEntity entity = visibleBlockEntities.get(i);
 			BlockPos pos = entity.getBlockPos();
 			if (hasEntityFrustum) {
 				if (culler.isCulled(pos.getX() - 1, pos.getY() - 1, pos.getZ() - 1, pos.getX() + 1, pos.getY() + 1, pos.getZ() + 1)) {
 					continue;
 				}
 			}
+			if (batch != null && !batch.isVisible(i) && !shouldRenderOffScreen(entity)) {
+				continue;
+			}
 			modelView.pushPose();
 			modelView.translate(pos.getX() - cameraX, pos.getY() - cameraY, pos.getZ() - cameraZ);
 			BlockEntityRenderDispatcher.instance.render(entity, tickDelta, modelView, bufferSource);
@@ -451,6 +516,13 @@ public class ShadowRenderer {
 		profiler.pop();
 	}
 
+	private static boolean shouldRenderOffScreen(BlockEntity entity) {
+		// Beacon beams and the like extend far beyond the block entity itself.
+		BlockEntityRenderer<BlockEntity> renderer = BlockEntityRenderDispatcher.instance.getRenderer(entity);
+
+		return renderer != null && renderer.shouldRenderOffScreen(entity);
+	}
+
 	public void renderShadows(LevelRendererAccessor levelRenderer, Camera playerCamera) {
 		// We have to re-query this each frame since this changes based on whether the profiler is active
 		// If the profiler is inactive, it will return InactiveProfiler.INSTANCE
@@ -461,6 +533,9 @@ public class ShadowRenderer {
 		profiler.popPush("shadows");
 		ACTIVE = true;
 
+		// Shadow programs will start their own sections once they're used, this covers the setup & culling work
+		PassProfiler.INSTANCE.begin("shadow setup");
+
 		// NB: We store the previous player buffers in order to be able to allow mods rendering entities in the shadow pass (Flywheel) to use the shadow buffers instead.
 		RenderBuffers playerBuffers = levelRenderer.getRenderBuffers();
 		levelRenderer.setRenderBuffers(buffers);
@@ -501,6 +576,8 @@ public class ShadowRenderer {
 		// Center the frustum on the player camera position
 		terrainFrustumHolder.getFrustum().prepare(cameraX, cameraY, cameraZ);
 
+		FACE_CULLING_LIGHT_DIRECTION = shouldCullFacesAwayFromLight() ? getShadowLightDirection() : null;
+
 		profiler.pop();
 
 		// Disable chunk occlusion culling - it's a bit complex to get this properly working with shadow rendering
@@ -580,7 +657,7 @@ public class ShadowRenderer {
 		}
 
 		if (shouldRenderBlockEntities) {
-			renderBlockEntities(bufferSource, modelView, cameraX, cameraY, cameraZ, tickDelta, hasEntityFrustum);
+			renderBlockEntities(bufferSource, modelView, entityShadowFrustum, cameraX, cameraY, cameraZ, tickDelta, hasEntityFrustum);
 		}
 
 		profiler.popPush("draw entities");
@@ -612,6 +689,8 @@ public class ShadowRenderer {
 
 		profiler.popPush("generate mipmaps");
 
+		PassProfiler.INSTANCE.begin("shadow mipmaps");
+
 		generateMipmaps();
 
 		profiler.popPush("restore gl state");
@@ -624,6 +703,8 @@ public class ShadowRenderer {
 
 		levelRenderer.setRenderBuffers(playerBuffers);
 
+		PassProfiler.INSTANCE.end();
+
 		ACTIVE = false;
 		profiler.pop();
 		profiler.popPush("updatechunks");
@@ -633,6 +714,7 @@ public class ShadowRenderer {
 		messages.add("[" + Iris.MODNAME + "] Shadow Maps: " + debugStringOverall);
 		messages.add("[" + Iris.MODNAME + "] Shadow Distance Terrain: " + terrainFrustumHolder.getDistanceInfo() + " Entity: " + entityFrustumHolder.getDistanceInfo());
 		messages.add("[" + Iris.MODNAME + "] Shadow Culling Terrain: " + terrainFrustumHolder.getCullingInfo() + " Entity: " + entityFrustumHolder.getCullingInfo());
+		messages.add("[" + Iris.MODNAME + "] Shadow Face Culling: " + getFaceCullingDebugString());
 		messages.add("[" + Iris.MODNAME + "] Shadow Terrain: " + debugStringTerrain
 			+ (shouldRenderTerrain ? "" : " (no terrain) ") + (shouldRenderTranslucent ? "" : "(no translucent)"));
 		messages.add("[" + Iris.MODNAME + "] Shadow Entities: " + getEntitiesDebugString());
@@ -644,8 +726,21 @@ public class ShadowRenderer {
 		}
 	}
 
+	/**
+	 * Frees the memory of the entity buffers used by the shadow pass, which isn't freed by the garbage collector.
+	 */
+	public void destroy() {
+		if (renderBuffersExt != null) {
+			renderBuffersExt.destroyBatchedBuffers();
+		}
+	}
+
 	private String getEntitiesDebugString() {
-		return (shouldRenderEntities || shouldRenderPlayer) ? (renderedShadowEntities + "/" + Minecraft.getInstance().level.getEntityCount()) : "disabled by pack";
+		if (shouldRenderEntities) {
+			return renderedShadowEntities + "/" + Minecraft.getInstance().level.getEntityCount() + " (" + entityCuller.getDebugString() + ")";
+		}
+
+		return shouldRenderPlayer ? (renderedShadowEntities + "/" + Minecraft.getInstance().level.getEntityCount()) : "disabled by pack";
 	}
 
 	private String getBlockEntitiesDebugString() {
@@ -5,6 +5,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.function.IntFunction;
 
+import net.coderbot.iris.block_rendering.BlockRenderingSettings;
 import net.coderbot.iris.gl.program.ProgramImages;
 import net.coderbot.iris.gl.program.ProgramSamplers;
 import net.coderbot.iris.gl.program.ProgramUniforms;
@@ -29,6 +30,7 @@ public class SodiumTerrainPipeline {
 	ProgramSet programSet;
 
 	private final WorldRenderingPipeline parent;
+	private final boolean compactVertexFormat;
 
 	private final IntFunction<ProgramSamplers> createTerrainSamplers;
 	private final IntFunction<ProgramSamplers> createShadowSamplers;
@@ -48,12 +50,14 @@ public class SodiumTerrainPipeline {
 		Optional<ProgramSource> shadowSource = programSet.getShadow();
 
 		this.programSet = programSet;
+		this.compactVertexFormat = BlockRenderingSettings.INSTANCE.shouldUseCompactVertexFormat();
 
 		terrainSource.ifPresent(sources -> {
 			Map<PatchShaderType, String> result = TransformPatcher.patchSodiumTerrain(
 				sources.getVertexSource().orElse(null),
 				sources.getGeometrySource().orElse(null),
-				sources.getFragmentSource().orElse(null));
+				sources.getFragmentSource().orElse(null),
+				compactVertexFormat);
 			terrainVertex = Optional.ofNullable(result.get(PatchShaderType.VERTEX));
 			terrainGeometry = Optional.ofNullable(result.get(PatchShaderType.GEOMETRY));
 			terrainFragment = Optional.ofNullable(result.get(PatchShaderType.FRAGMENT));
@@ -66,7 +70,8 @@ public class SodiumTerrainPipeline {
 			Map<PatchShaderType, String> result = TransformPatcher.patchSodiumTerrain(
 				sources.getVertexSource().orElse(null),
 				sources.getGeometrySource().orElse(null),
-				sources.getFragmentSource().orElse(null));
+				sources.getFragmentSource().orElse(null),
+				compactVertexFormat);
 			translucentVertex = Optional.ofNullable(result.get(PatchShaderType.VERTEX));
 			translucentGeometry = Optional.ofNullable(result.get(PatchShaderType.GEOMETRY));
 			translucentFragment = Optional.ofNullable(result.get(PatchShaderType.FRAGMENT));
@@ -79,7 +84,8 @@ public class SodiumTerrainPipeline {
 			Map<PatchShaderType, String> result = TransformPatcher.patchSodiumTerrain(
 				sources.getVertexSource().orElse(null),
 				sources.getGeometrySource().orElse(null),
-				sources.getFragmentSource().orElse(null));
+				sources.getFragmentSource().orElse(null),
+				compactVertexFormat);
 			shadowVertex = Optional.ofNullable(result.get(PatchShaderType.VERTEX));
 			shadowGeometry = Optional.ofNullable(result.get(PatchShaderType.GEOMETRY));
 			shadowFragment = Optional.ofNullable(result.get(PatchShaderType.FRAGMENT));
@@ -94,6 +100,13 @@ public class SodiumTerrainPipeline {
 		this.createShadowImages = createShadowImages;
 	}
 
+	/**
+	 * Whether the shaders of this pipeline were patched to decode the compact terrain vertex format.
+	 */
+	public boolean usesCompactVertexFormat() {
+		return compactVertexFormat;
+	}
+
 	public Optional<String> getTerrainVertexShaderSource() {
 		return terrainVertex;
 	}
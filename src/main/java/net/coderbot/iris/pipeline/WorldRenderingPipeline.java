@@ -31,7 +31,12 @@ public interface WorldRenderingPipeline {
 	int getCurrentNormalTexture();
 	int getCurrentSpecularTexture();
 
-	void onBindTexture(int id);
+	/**
+	 * Called when a texture is bound to texture unit 0.
+	 *
+	 * @return true if the pipeline changed any texture bindings, and the binding of texture unit 0 needs to be restored
+	 */
+	boolean onBindTexture(int id);
 
 	void beginHand();
 
@@ -5,10 +5,15 @@ import java.util.List;
 
 import io.github.douira.glsl_transformer.ast.node.Identifier;
 import io.github.douira.glsl_transformer.ast.node.TranslationUnit;
+import io.github.douira.glsl_transformer.ast.node.declaration.DeclarationMember;
+import io.github.douira.glsl_transformer.ast.node.declaration.TypeAndInitDeclaration;
 import io.github.douira.glsl_transformer.ast.node.expression.Expression;
 import io.github.douira.glsl_transformer.ast.node.expression.binary.DivisionExpression;
 import io.github.douira.glsl_transformer.ast.node.expression.binary.MultiplicationExpression;
 import io.github.douira.glsl_transformer.ast.node.expression.unary.MemberAccessExpression;
+import io.github.douira.glsl_transformer.ast.node.external_declaration.DeclarationExternalDeclaration;
+import io.github.douira.glsl_transformer.ast.node.type.specifier.BuiltinNumericTypeSpecifier;
+import io.github.douira.glsl_transformer.ast.node.type.specifier.TypeSpecifier;
 import io.github.douira.glsl_transformer.ast.query.Root;
 import io.github.douira.glsl_transformer.ast.query.match.AutoHintedMatcher;
 import io.github.douira.glsl_transformer.ast.query.match.Matcher;
@@ -54,12 +59,18 @@ class SodiumTerrainTransformer {
 				"attribute vec4 iris_Color;",
 				"attribute vec2 iris_TexCoord;",
 				"attribute vec2 iris_LightCoord;",
-				"attribute vec3 iris_Normal;", // some are shared
 				"uniform vec3 u_ModelScale;",
 				"uniform vec2 u_TextureScale;",
 				"attribute vec4 iris_ModelOffset;",
 				"vec4 ftransform() { return gl_ModelViewProjectionMatrix * gl_Vertex; }");
 
+		if (parameters.patch == Patch.SODIUM_TERRAIN_COMPACT) {
+			decodeCompactAttributes(t, tree, root);
+		} else {
+			tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_DECLARATIONS,
+					"attribute vec3 iris_Normal;"); // some are shared
+		}
+
 		transformShared(t, tree, root, parameters);
 
 		root.replaceReferenceExpressions(t, "gl_Vertex",
@@ -73,6 +84,74 @@ class SodiumTerrainTransformer {
 		replaceLightmapForSodium(t, tree, root, parameters);
 	}
 
+	/**
+	 * Decodes the attributes of the compact vertex format into the attributes that shaders expect. The packed
+	 * attributes are documented in CompactXHFPModelVertexType.
+	 */
+	private static void decodeCompactAttributes(ASTParser t, TranslationUnit tree, Root root) {
+		tree.parseAndInjectNodes(t, ASTInjectionPoint.BEFORE_DECLARATIONS,
+				"attribute float iris_PackedEntity;",
+				"attribute vec2 iris_MidTexOffset;",
+				"attribute vec4 iris_PackedNormal;",
+				"vec3 iris_Normal;");
+		tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_FUNCTIONS,
+				"vec3 iris_decodeOctahedral(vec2 encoded) {" +
+						"vec3 v = vec3(encoded, 1.0 - abs(encoded.x) - abs(encoded.y));" +
+						"if (v.z < 0.0) {" +
+						"v.xy = (1.0 - abs(v.yx)) * vec2(v.x >= 0.0 ? 1.0 : -1.0, v.y >= 0.0 ? 1.0 : -1.0);" +
+						"}" +
+						"return normalize(v); }");
+
+		// These must match NormalHelper.packOctahedralNormalTangent
+		tree.prependMain(t, "iris_Normal = iris_decodeOctahedral(iris_PackedNormal.xy / 127.0 - 1.0);");
+
+		replaceAttributeWithDecoded(t, tree, root, "at_tangent",
+				"vec4(iris_decodeOctahedral(vec2(iris_PackedNormal.z / 127.0, mod(iris_PackedNormal.w, 128.0) / 63.0) - 1.0), " +
+						"iris_PackedNormal.w >= 128.0 ? -1.0 : 1.0)");
+		replaceAttributeWithDecoded(t, tree, root, "mc_midTexCoord",
+				"vec4((iris_TexCoord + iris_MidTexOffset) * u_TextureScale, 0.0, 1.0)");
+		replaceAttributeWithDecoded(t, tree, root, "mc_Entity",
+				"vec4(floor(iris_PackedEntity * 0.5) - 1.0, mod(iris_PackedEntity, 2.0) >= 1.0 ? 1.0 : -1.0, 0.0, 1.0)");
+	}
+
+	/**
+	 * Turns an attribute declared by the shader into a global variable of the same type, and initializes it with the
+	 * given vec4 expression at the start of the main function. Does nothing if the shader doesn't declare the attribute.
+	 */
+	private static void replaceAttributeWithDecoded(ASTParser t, TranslationUnit tree, Root root, String name,
+													String decodedVec4) {
+		for (Identifier id : new ArrayList<>(root.identifierIndex.get(name))) {
+			DeclarationMember member = id.getAncestor(DeclarationMember.class);
+			if (member == null || member.getName() != id) {
+				continue;
+			}
+
+			DeclarationExternalDeclaration externalDeclaration = member.getAncestor(DeclarationExternalDeclaration.class);
+			TypeAndInitDeclaration declaration = member.getAncestor(TypeAndInitDeclaration.class);
+			if (externalDeclaration == null || declaration == null) {
+				continue;
+			}
+
+			TypeSpecifier specifier = declaration.getType().getTypeSpecifier();
+			if (!(specifier instanceof BuiltinNumericTypeSpecifier)) {
+				continue;
+			}
+
+			// vector constructors drop the components that don't fit, which matches how OpenGL fills in attributes
+			String typeName = ((BuiltinNumericTypeSpecifier) specifier).type.getMostCompactName();
+
+			if (declaration.getMembers().size() > 1) {
+				member.detachAndDelete();
+			} else {
+				externalDeclaration.detachAndDelete();
+			}
+
+			tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_DECLARATIONS, typeName + " " + name + ";");
+			tree.prependMain(t, name + " = " + typeName + "(" + decodedVec4 + ");");
+			return;
+		}
+	}
+
 	/**
 	 * Transforms fragment shaders. The fragment shader does only the shared things
 	 * from the vertex shader.
@@ -160,6 +160,7 @@ public class TransformPatcher {
 							AttributeTransformer.transform(transformer, tree, root, (AttributeParameters) parameters);
 							break;
 						case SODIUM_TERRAIN:
+						case SODIUM_TERRAIN_COMPACT:
 							SodiumTerrainTransformer.transform(transformer, tree, root, parameters);
 							break;
 						case COMPOSITE:
@@ -214,8 +215,9 @@ public class TransformPatcher {
 		return transform(vertex, geometry, fragment, new AttributeParameters(Patch.ATTRIBUTES, geometry != null, inputs));
 	}
 
-	public static Map<PatchShaderType, String> patchSodiumTerrain(String vertex, String geometry, String fragment) {
-		return transform(vertex, geometry, fragment, new Parameters(Patch.SODIUM_TERRAIN));
+	public static Map<PatchShaderType, String> patchSodiumTerrain(String vertex, String geometry, String fragment, boolean compactVertexFormat) {
+		return transform(vertex, geometry, fragment,
+				new Parameters(compactVertexFormat ? Patch.SODIUM_TERRAIN_COMPACT : Patch.SODIUM_TERRAIN));
 	}
 
 	public static Map<PatchShaderType, String> patchComposite(String vertex, String geometry, String fragment) {
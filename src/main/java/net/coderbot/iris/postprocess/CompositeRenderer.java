@@ -6,6 +6,7 @@ import com.google.common.collect.ImmutableSet;
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import net.coderbot.iris.Iris;
 import net.coderbot.iris.gl.IrisRenderSystem;
 import net.coderbot.iris.gl.framebuffer.GlFramebuffer;
 import net.coderbot.iris.gl.program.ComputeProgram;
@@ -15,6 +16,7 @@ import net.coderbot.iris.gl.program.ProgramSamplers;
 import net.coderbot.iris.gl.program.ProgramUniforms;
 import net.coderbot.iris.gl.sampler.SamplerLimits;
 import net.coderbot.iris.rendertarget.RenderTarget;
+import net.coderbot.iris.pipeline.PassProfiler;
 import net.coderbot.iris.pipeline.PatchedShaderPrinter;
 import net.coderbot.iris.pipeline.transform.PatchShaderType;
 import net.coderbot.iris.pipeline.transform.TransformPatcher;
@@ -27,15 +29,16 @@ import net.coderbot.iris.shaderpack.PackRenderTargetDirectives;
 import net.coderbot.iris.shaderpack.ProgramDirectives;
 import net.coderbot.iris.shaderpack.ProgramSource;
 import net.coderbot.iris.shadows.ShadowRenderTargets;
+import net.coderbot.iris.uniforms.CapturedRenderingState;
 import net.coderbot.iris.uniforms.CommonUniforms;
 import net.coderbot.iris.uniforms.FrameUpdateNotifier;
 import net.coderbot.iris.vendored.joml.Vector3i;
 import net.minecraft.client.Minecraft;
 import org.lwjgl.opengl.GL15C;
-import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30C;
 import org.lwjgl.opengl.GL43C;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.IntSupplier;
@@ -48,19 +51,27 @@ public class CompositeRenderer {
 	private final IntSupplier noiseTexture;
 	private final FrameUpdateNotifier updateNotifier;
 	private final CenterDepthSampler centerDepthSampler;
+	private final MipChainManager mipChainManager;
 	private final Object2ObjectMap<String, IntSupplier> customTextureIds;
 	private final ImmutableSet<Integer> flippedAtLeastOnceFinal;
+	private final ProgramSource[] sources;
+	private final ComputeSource[][] computes;
+	private final Supplier<ShadowRenderTargets> shadowTargetsSupplier;
 
 	public CompositeRenderer(PackDirectives packDirectives, ProgramSource[] sources, ComputeSource[][] computes, RenderTargets renderTargets,
 							 IntSupplier noiseTexture, FrameUpdateNotifier updateNotifier,
-							 CenterDepthSampler centerDepthSampler, BufferFlipper bufferFlipper,
+							 CenterDepthSampler centerDepthSampler, MipChainManager mipChainManager, BufferFlipper bufferFlipper,
 							 Supplier<ShadowRenderTargets> shadowTargetsSupplier,
 							 Object2ObjectMap<String, IntSupplier> customTextureIds, ImmutableMap<Integer, Boolean> explicitPreFlips) {
 		this.noiseTexture = noiseTexture;
 		this.updateNotifier = updateNotifier;
 		this.centerDepthSampler = centerDepthSampler;
+		this.mipChainManager = mipChainManager;
 		this.renderTargets = renderTargets;
 		this.customTextureIds = customTextureIds;
+		this.sources = sources;
+		this.computes = computes;
+		this.shadowTargetsSupplier = shadowTargetsSupplier;
 
 		final PackRenderTargetDirectives renderTargetDirectives = packDirectives.getRenderTargetDirectives();
 		final Map<Integer, PackRenderTargetDirectives.RenderTargetSettings> renderTargetSettings =
@@ -85,6 +96,8 @@ public class CompositeRenderer {
 			if (source == null || !source.isValid()) {
 				if (computes[i] != null) {
 					ComputeOnlyPass pass = new ComputeOnlyPass();
+					pass.name = Arrays.stream(computes[i]).filter(Objects::nonNull).findFirst()
+						.map(ComputeSource::getName).orElse("compute");
 					pass.computes = createComputes(computes[i], flipped, flippedAtLeastOnceSnapshot, shadowTargetsSupplier);
 					passes.add(pass);
 				}
@@ -94,6 +107,9 @@ public class CompositeRenderer {
 			Pass pass = new Pass();
 			ProgramDirectives directives = source.getDirectives();
 
+			pass.name = source.getName();
+			pass.source = source;
+			pass.sourceIndex = i;
 			pass.program = createProgram(source, flipped, flippedAtLeastOnceSnapshot, shadowTargetsSupplier);
 			pass.computes = createComputes(computes[i], flipped, flippedAtLeastOnceSnapshot, shadowTargetsSupplier);
 			int[] drawBuffers = directives.getDrawBuffers();
@@ -151,6 +167,70 @@ public class CompositeRenderer {
 	}
 
 
+	/**
+	 * Checks whether the programs of this renderer can be replaced with the given ones in place, which is the case if
+	 * the same passes exist and only the code of non-compute programs changed.
+	 */
+	public boolean canReloadPrograms(ProgramSource[] sources, ComputeSource[][] computes) {
+		if (sources.length != this.sources.length) {
+			return false;
+		}
+
+		for (int i = 0; i < sources.length; i++) {
+			ProgramSource previous = this.sources[i];
+			ProgramSource source = sources[i];
+
+			boolean previousValid = previous != null && previous.isValid();
+			boolean valid = source != null && source.isValid();
+
+			if (previousValid != valid || (valid && !previous.hasSameDirectives(source))) {
+				return false;
+			}
+
+			if (!ComputeSource.haveSameSources(this.computes[i], computes[i])) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Rebuilds the programs whose code differs from the given sources. Must only be called if
+	 * {@link #canReloadPrograms} returned true for the same sources. If a program fails to compile, the error is
+	 * logged and the previous version of that program is kept.
+	 *
+	 * @return the number of programs that were rebuilt
+	 */
+	public int reloadPrograms(ProgramSource[] sources) {
+		int reloaded = 0;
+
+		for (Pass pass : passes) {
+			if (pass instanceof ComputeOnlyPass) {
+				continue;
+			}
+
+			ProgramSource source = sources[pass.sourceIndex];
+
+			if (pass.source.hasSameSource(source)) {
+				continue;
+			}
+
+			try {
+				Program program = createProgram(source, pass.stageReadsFromAlt, pass.flippedAtLeastOnce, shadowTargetsSupplier);
+
+				pass.program.destroy();
+				pass.program = program;
+				pass.source = source;
+				reloaded += 1;
+			} catch (RuntimeException e) {
+				Iris.logger.error("Failed to reload " + source.getName() + ", keeping the previous version", e);
+			}
+		}
+
+		return reloaded;
+	}
+
 	public void recalculateSizes() {
 		for (Pass pass : passes) {
 			if (pass instanceof ComputeOnlyPass) {
@@ -173,6 +253,9 @@ public class CompositeRenderer {
 	}
 
 	private class Pass {
+		String name;
+		ProgramSource source;
+		int sourceIndex;
 		int[] drawBuffers;
 		int viewWidth;
 		int viewHeight;
@@ -209,12 +292,21 @@ public class CompositeRenderer {
 		RenderSystem.disableBlend();
 		RenderSystem.disableAlphaTest();
 
-		FullScreenQuadRenderer.INSTANCE.begin();
+		final float renderScale = CapturedRenderingState.INSTANCE.getRenderScale();
+
+		FullScreenQuadRenderer.INSTANCE.begin(renderScale);
+
+		// Anything rendered since the last composite renderer ran could have written to any buffer
+		mipChainManager.invalidateAll();
 
 		for (Pass renderPass : passes) {
 			boolean ranCompute = false;
 			for (ComputeProgram computeProgram : renderPass.computes) {
 				if (computeProgram != null) {
+					if (!ranCompute) {
+						PassProfiler.INSTANCE.begin(renderPass.name + " (compute)");
+					}
+
 					ranCompute = true;
 					com.mojang.blaze3d.pipeline.RenderTarget main = Minecraft.getInstance().getMainRenderTarget();
 					computeProgram.dispatch(main.width, main.height);
@@ -223,6 +315,7 @@ public class CompositeRenderer {
 
 			if (ranCompute) {
 				IrisRenderSystem.memoryBarrier(40);
+				mipChainManager.invalidateAll();
 			}
 
 			Program.unbind();
@@ -231,24 +324,37 @@ public class CompositeRenderer {
 				continue;
 			}
 
+			PassProfiler.INSTANCE.begin(renderPass.name);
+
 			if (!renderPass.mipmappedBuffers.isEmpty()) {
 				RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 
 				for (int index : renderPass.mipmappedBuffers) {
-					setupMipmapping(CompositeRenderer.this.renderTargets.get(index), renderPass.stageReadsFromAlt.contains(index));
+					mipChainManager.setupMipmapping(CompositeRenderer.this.renderTargets.get(index), renderPass.stageReadsFromAlt.contains(index));
 				}
 			}
 
-			float scaledWidth = renderPass.viewWidth * renderPass.viewportScale;
-			float scaledHeight = renderPass.viewHeight * renderPass.viewportScale;
+			float scaledWidth = renderPass.viewWidth * renderPass.viewportScale * renderScale;
+			float scaledHeight = renderPass.viewHeight * renderPass.viewportScale * renderScale;
 			RenderSystem.viewport(0, 0, (int) scaledWidth, (int) scaledHeight);
 
 			renderPass.framebuffer.bind();
 			renderPass.program.use();
 
 			FullScreenQuadRenderer.INSTANCE.renderQuad();
+
+			if (renderPass.program.getActiveImages() > 0) {
+				// Image stores can write to any buffer
+				mipChainManager.invalidateAll();
+			} else {
+				for (int buffer : renderPass.drawBuffers) {
+					mipChainManager.onBufferWritten(renderTargets.get(buffer), renderPass.stageReadsFromAlt.contains(buffer));
+				}
+			}
 		}
 
+		PassProfiler.INSTANCE.end();
+
 		FullScreenQuadRenderer.end();
 
 		// Make sure to reset the viewport to how it was before... Otherwise weird issues could occur.
@@ -269,24 +375,6 @@ public class CompositeRenderer {
 		RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 	}
 
-	private static void setupMipmapping(net.coderbot.iris.rendertarget.RenderTarget target, boolean readFromAlt) {
-		int texture = readFromAlt ? target.getAltTexture() : target.getMainTexture();
-
-		// TODO: Only generate the mipmap if a valid mipmap hasn't been generated or if we've written to the buffer
-		// (since the last mipmap was generated)
-		//
-		// NB: We leave mipmapping enabled even if the buffer is written to again, this appears to match the
-		// behavior of ShadersMod/OptiFine, however I'm not sure if it's desired behavior. It's possible that a
-		// program could use mipmapped sampling with a stale mipmap, which probably isn't great. However, the
-		// sampling mode is always reset between frames, so this only persists after the first program to use
-		// mipmapping on this buffer.
-		//
-		// Also note that this only applies to one of the two buffers in a render target buffer pair - making it
-		// unlikely that this issue occurs in practice with most shader packs.
-		IrisRenderSystem.generateMipmaps(texture, GL20C.GL_TEXTURE_2D);
-		IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER, GL20C.GL_LINEAR_MIPMAP_LINEAR);
-	}
-
 	// TODO: Don't just copy this from DeferredWorldRenderingPipeline
 	private Program createProgram(ProgramSource source, ImmutableSet<Integer> flipped, ImmutableSet<Integer> flippedAtLeastOnceSnapshot,
 														   Supplier<ShadowRenderTargets> shadowTargetsSupplier) {
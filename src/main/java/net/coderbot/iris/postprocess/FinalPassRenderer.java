@@ -6,6 +6,7 @@ import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
 import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import net.coderbot.iris.Iris;
 import net.coderbot.iris.gl.IrisRenderSystem;
 import net.coderbot.iris.gl.framebuffer.GlFramebuffer;
 import net.coderbot.iris.gl.program.ComputeProgram;
@@ -14,6 +15,7 @@ import net.coderbot.iris.gl.program.ProgramBuilder;
 import net.coderbot.iris.gl.program.ProgramSamplers;
 import net.coderbot.iris.gl.program.ProgramUniforms;
 import net.coderbot.iris.gl.sampler.SamplerLimits;
+import net.coderbot.iris.pipeline.PassProfiler;
 import net.coderbot.iris.pipeline.PatchedShaderPrinter;
 import net.coderbot.iris.pipeline.transform.PatchShaderType;
 import net.coderbot.iris.pipeline.transform.TransformPatcher;
@@ -28,6 +30,7 @@ import net.coderbot.iris.shaderpack.ProgramDirectives;
 import net.coderbot.iris.shaderpack.ProgramSet;
 import net.coderbot.iris.shaderpack.ProgramSource;
 import net.coderbot.iris.shadows.ShadowRenderTargets;
+import net.coderbot.iris.uniforms.CapturedRenderingState;
 import net.coderbot.iris.uniforms.CommonUniforms;
 import net.coderbot.iris.uniforms.FrameUpdateNotifier;
 import net.coderbot.iris.vendored.joml.Vector3i;
@@ -57,18 +60,22 @@ public class FinalPassRenderer {
 	private final IntSupplier noiseTexture;
 	private final FrameUpdateNotifier updateNotifier;
 	private final CenterDepthSampler centerDepthSampler;
+	private final MipChainManager mipChainManager;
 	private final Object2ObjectMap<String, IntSupplier> customTextureIds;
+	private final Supplier<ShadowRenderTargets> shadowTargetsSupplier;
 
 	// TODO: The length of this argument list is getting a bit ridiculous
 	public FinalPassRenderer(ProgramSet pack, RenderTargets renderTargets, IntSupplier noiseTexture,
 							 FrameUpdateNotifier updateNotifier, ImmutableSet<Integer> flippedBuffers,
-							 CenterDepthSampler centerDepthSampler,
+							 CenterDepthSampler centerDepthSampler, MipChainManager mipChainManager,
 							 Supplier<ShadowRenderTargets> shadowTargetsSupplier,
 							 Object2ObjectMap<String, IntSupplier> customTextureIds,
 							 ImmutableSet<Integer> flippedAtLeastOnce) {
 		this.updateNotifier = updateNotifier;
 		this.centerDepthSampler = centerDepthSampler;
+		this.mipChainManager = mipChainManager;
 		this.customTextureIds = customTextureIds;
+		this.shadowTargetsSupplier = shadowTargetsSupplier;
 
 		final PackRenderTargetDirectives renderTargetDirectives = pack.getPackDirectives().getRenderTargetDirectives();
 		final Map<Integer, PackRenderTargetDirectives.RenderTargetSettings> renderTargetSettings =
@@ -80,9 +87,12 @@ public class FinalPassRenderer {
 			Pass pass = new Pass();
 			ProgramDirectives directives = source.getDirectives();
 
+			pass.source = source;
+			pass.computeSources = pack.getFinalCompute();
 			pass.program = createProgram(source, flippedBuffers, flippedAtLeastOnce, shadowTargetsSupplier);
 			pass.computes = createComputes(pack.getFinalCompute(), flippedBuffers, flippedAtLeastOnce, shadowTargetsSupplier);
 			pass.stageReadsFromAlt = flippedBuffers;
+			pass.flippedAtLeastOnce = flippedAtLeastOnce;
 			pass.mipmappedBuffers = directives.getMipmappedBuffers();
 
 			return pass;
@@ -131,9 +141,12 @@ public class FinalPassRenderer {
 	}
 
 	private static final class Pass {
+		ProgramSource source;
+		ComputeSource[] computeSources;
 		Program program;
 		ComputeProgram[] computes;
 		ImmutableSet<Integer> stageReadsFromAlt;
+		ImmutableSet<Integer> flippedAtLeastOnce;
 		ImmutableSet<Integer> mipmappedBuffers;
 
 		private void destroy() {
@@ -157,6 +170,7 @@ public class FinalPassRenderer {
 		final com.mojang.blaze3d.pipeline.RenderTarget main = Minecraft.getInstance().getMainRenderTarget();
 		final int baseWidth = main.width;
 		final int baseHeight = main.height;
+		final float renderScale = CapturedRenderingState.INSTANCE.getRenderScale();
 
 		// Note that since DeferredWorldRenderingPipeline uses the depth texture of the main Minecraft framebuffer,
 		// we'll be writing to that depth buffer directly automatically and won't need to futz around with copying
@@ -183,11 +197,21 @@ public class FinalPassRenderer {
 
 			colorHolder.bind();
 
-			FullScreenQuadRenderer.INSTANCE.begin();
+			// The composite passes might have left a scaled viewport behind. The final pass always covers the whole
+			// window, and samples from the scaled region of the render targets, upscaling it in the process.
+			RenderSystem.viewport(0, 0, baseWidth, baseHeight);
+
+			FullScreenQuadRenderer.INSTANCE.begin(renderScale);
+
+			// The final programs see the unscaled viewport size, since they cover the whole window.
+			CapturedRenderingState.INSTANCE.setRenderingFinalPass(true);
+
+			PassProfiler.INSTANCE.begin("final (compute)");
 
 			for (ComputeProgram computeProgram : finalPass.computes) {
 				if (computeProgram != null) {
 					computeProgram.dispatch(baseWidth, baseHeight);
+					mipChainManager.invalidateAll();
 				}
 			}
 
@@ -197,14 +221,18 @@ public class FinalPassRenderer {
 				RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 
 				for (int index : finalPass.mipmappedBuffers) {
-					setupMipmapping(renderTargets.get(index), finalPass.stageReadsFromAlt.contains(index));
+					mipChainManager.setupMipmapping(renderTargets.get(index), finalPass.stageReadsFromAlt.contains(index));
 				}
 			}
 
+			PassProfiler.INSTANCE.begin("final");
+
 			finalPass.program.use();
 			FullScreenQuadRenderer.INSTANCE.renderQuad();
 
 			FullScreenQuadRenderer.end();
+
+			CapturedRenderingState.INSTANCE.setRenderingFinalPass(false);
 		} else {
 			// If there are no passes, we somehow need to transfer the content of the Iris color render targets into
 			// the main Minecraft framebuffer.
@@ -216,17 +244,31 @@ public class FinalPassRenderer {
 			//
 			// We could have used a shader here, but it should be about the same performance either way:
 			// https://stackoverflow.com/a/23994979/18166885
-			this.baseline.bindAsReadBuffer();
+			PassProfiler.INSTANCE.begin("final (copy)");
 
-			IrisRenderSystem.copyTexSubImage2D(main.getColorTextureId(), GL11C.GL_TEXTURE_2D, 0, 0, 0, 0, 0, baseWidth, baseHeight);
+			if (renderScale == 1.0F) {
+				this.baseline.bindAsReadBuffer();
+
+				IrisRenderSystem.copyTexSubImage2D(main.getColorTextureId(), GL11C.GL_TEXTURE_2D, 0, 0, 0, 0, 0, baseWidth, baseHeight);
+			} else {
+				// With dynamic resolution, only the bottom-left part of colortex0 contains the image, so it needs to
+				// be stretched to cover the whole window.
+				int scaledWidth = Math.max(1, (int) (baseWidth * renderScale));
+				int scaledHeight = Math.max(1, (int) (baseHeight * renderScale));
+
+				IrisRenderSystem.blitFramebuffer(baseline.getId(), colorHolder.getId(), 0, 0, scaledWidth, scaledHeight,
+					0, 0, baseWidth, baseHeight, GL11C.GL_COLOR_BUFFER_BIT, GL11C.GL_LINEAR);
+			}
 		}
 
+		PassProfiler.INSTANCE.begin("buffer swaps");
+
 		RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 
-		for (int i = 0; i < renderTargets.getRenderTargetCount(); i++) {
-			// Reset mipmapping states at the end of the frame.
-			resetRenderTarget(renderTargets.get(i));
-		}
+		// Reset mipmapping states at the end of the frame, and then unbind the render targets to prevent accidental
+		// sampling of them elsewhere.
+		mipChainManager.resetFiltering();
+		RenderSystem.bindTexture(0);
 
 		for (SwapPass swapPass : swapPasses) {
 			// NB: We need to use bind(), not bindAsReadBuffer()... Previously we used bindAsReadBuffer() here which
@@ -243,6 +285,8 @@ public class FinalPassRenderer {
 			GlStateManager._glCopyTexSubImage2D(GL20C.GL_TEXTURE_2D, 0, 0, 0, 0, 0, swapPass.width, swapPass.height);
 		}
 
+		PassProfiler.INSTANCE.end();
+
 		// Make sure to reset the viewport to how it was before... Otherwise weird issues could occur.
 		// Also bind the "main" framebuffer if it isn't already bound.
 		main.bindWrite(true);
@@ -260,6 +304,50 @@ public class FinalPassRenderer {
 		RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 	}
 
+	/**
+	 * Checks whether the final pass program can be replaced with the one from the given program set in place, which is
+	 * the case if only its code changed.
+	 */
+	public boolean canReloadPrograms(ProgramSet programs) {
+		ProgramSource source = programs.getCompositeFinal().orElse(null);
+
+		if (finalPass == null || source == null) {
+			return finalPass == null && source == null;
+		}
+
+		return finalPass.source.hasSameDirectives(source)
+			&& ComputeSource.haveSameSources(finalPass.computeSources, programs.getFinalCompute());
+	}
+
+	/**
+	 * Rebuilds the final pass program if its code differs from the one in the given program set. Must only be called
+	 * if {@link #canReloadPrograms} returned true for the same program set. If the program fails to compile, the error
+	 * is logged and the previous version is kept.
+	 *
+	 * @return the number of programs that were rebuilt
+	 */
+	public int reloadPrograms(ProgramSet programs) {
+		ProgramSource source = programs.getCompositeFinal().orElse(null);
+
+		if (finalPass == null || source == null || finalPass.source.hasSameSource(source)) {
+			return 0;
+		}
+
+		try {
+			Program program = createProgram(source, finalPass.stageReadsFromAlt, finalPass.flippedAtLeastOnce, shadowTargetsSupplier);
+
+			finalPass.program.destroy();
+			finalPass.program = program;
+			finalPass.source = source;
+
+			return 1;
+		} catch (RuntimeException e) {
+			Iris.logger.error("Failed to reload " + source.getName() + ", keeping the previous version", e);
+
+			return 0;
+		}
+	}
+
 	public void recalculateSwapPassSize() {
 		for (SwapPass swapPass : swapPasses) {
 			RenderTarget target = renderTargets.get(swapPass.target);
@@ -271,34 +359,6 @@ public class FinalPassRenderer {
 		}
 	}
 
-	private static void setupMipmapping(RenderTarget target, boolean readFromAlt) {
-		int texture = readFromAlt ? target.getAltTexture() : target.getMainTexture();
-
-		// TODO: Only generate the mipmap if a valid mipmap hasn't been generated or if we've written to the buffer
-		// (since the last mipmap was generated)
-		//
-		// NB: We leave mipmapping enabled even if the buffer is written to again, this appears to match the
-		// behavior of ShadersMod/OptiFine, however I'm not sure if it's desired behavior. It's possible that a
-		// program could use mipmapped sampling with a stale mipmap, which probably isn't great. However, the
-		// sampling mode is always reset between frames, so this only persists after the first program to use
-		// mipmapping on this buffer.
-		//
-		// Also note that this only applies to one of the two buffers in a render target buffer pair - making it
-		// unlikely that this issue occurs in practice with most shader packs.
-		IrisRenderSystem.generateMipmaps(texture, GL20C.GL_TEXTURE_2D);
-		IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER, GL20C.GL_LINEAR_MIPMAP_LINEAR);
-	}
-
-	private static void resetRenderTarget(RenderTarget target) {
-		// Resets the sampling mode of the given render target and then unbinds it to prevent accidental sampling of it
-		// elsewhere.
-		IrisRenderSystem.texParameteri(target.getMainTexture(), GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER, GL20C.GL_LINEAR);
-
-		IrisRenderSystem.texParameteri(target.getAltTexture(), GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER, GL20C.GL_LINEAR);
-
-		RenderSystem.bindTexture(0);
-	}
-
 	// TODO: Don't just copy this from DeferredWorldRenderingPipeline
 	private Program createProgram(ProgramSource source, ImmutableSet<Integer> flipped, ImmutableSet<Integer> flippedAtLeastOnceSnapshot,
 								  Supplier<ShadowRenderTargets> shadowTargetsSupplier) {
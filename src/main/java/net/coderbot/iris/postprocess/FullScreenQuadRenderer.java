@@ -12,6 +12,8 @@ import org.lwjgl.opengl.GL20C;
  */
 public class FullScreenQuadRenderer {
 	private final int quadBuffer;
+	private int scaledQuadBuffer;
+	private float scaledQuadTextureScale = Float.NaN;
 
 	public static final FullScreenQuadRenderer INSTANCE = new FullScreenQuadRenderer();
 
@@ -27,8 +29,16 @@ public class FullScreenQuadRenderer {
 		end();
 	}
 
-	@SuppressWarnings("deprecation")
 	public void begin() {
+		begin(1.0F);
+	}
+
+	/**
+	 * Begins rendering full-screen quads whose texture coordinates range from 0 to the given scale instead of 0 to 1.
+	 * This is used to sample from the part of the render targets that was rendered to with dynamic resolution.
+	 */
+	@SuppressWarnings("deprecation")
+	public void begin(float textureScale) {
 		RenderSystem.disableDepthTest();
 
 		RenderSystem.matrixMode(GL11.GL_PROJECTION);
@@ -44,10 +54,30 @@ public class FullScreenQuadRenderer {
 
 		RenderSystem.color4f(1.0F, 1.0F, 1.0F, 1.0F);
 
-		GlStateManager._glBindBuffer(GL20C.GL_ARRAY_BUFFER, quadBuffer);
+		GlStateManager._glBindBuffer(GL20C.GL_ARRAY_BUFFER, getQuadBuffer(textureScale));
 		DefaultVertexFormat.POSITION_TEX.setupBufferState(0L);
 	}
 
+	private int getQuadBuffer(float textureScale) {
+		if (textureScale == 1.0F) {
+			return quadBuffer;
+		}
+
+		if (scaledQuadBuffer == 0) {
+			scaledQuadBuffer = GlStateManager._glGenBuffers();
+		}
+
+		GlStateManager._glBindBuffer(GL20C.GL_ARRAY_BUFFER, scaledQuadBuffer);
+
+		if (textureScale != scaledQuadTextureScale) {
+			// The scale only changes every so often, so just re-specify the whole buffer.
+			IrisRenderSystem.bufferData(GL20C.GL_ARRAY_BUFFER, createQuadVertices(textureScale), GL20C.GL_DYNAMIC_DRAW);
+			scaledQuadTextureScale = textureScale;
+		}
+
+		return scaledQuadBuffer;
+	}
+
 	public void renderQuad() {
 		GlStateManager._drawArrays(GL20C.GL_TRIANGLE_STRIP, 0, 4);
 	}
@@ -69,21 +99,23 @@ public class FullScreenQuadRenderer {
 	 * Creates and uploads a vertex buffer containing a single full-screen quad
 	 */
 	private static int createQuad() {
-		float[] vertices = new float[] {
+		return IrisRenderSystem.bufferStorage(GL20C.GL_ARRAY_BUFFER, createQuadVertices(1.0F), GL20C.GL_STATIC_DRAW);
+	}
+
+	private static float[] createQuadVertices(float textureScale) {
+		return new float[] {
 			// Vertex 0: Top right corner
 			1.0F, 1.0F, 0.0F,
-			1.0F, 1.0F,
+			textureScale, textureScale,
 			// Vertex 1: Top left corner
 			0.0F, 1.0F, 0.0F,
-			0.0F, 1.0F,
+			0.0F, textureScale,
 			// Vertex 2: Bottom right corner
 			1.0F, 0.0F, 0.0F,
-			1.0F, 0.0F,
+			textureScale, 0.0F,
 			// Vertex 3: Bottom left corner
 			0.0F, 0.0F, 0.0F,
 			0.0F, 0.0F
 		};
-
-		return IrisRenderSystem.bufferStorage(GL20C.GL_ARRAY_BUFFER, vertices, GL20C.GL_STATIC_DRAW);
 	}
 }
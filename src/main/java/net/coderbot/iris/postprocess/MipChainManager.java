@@ -0,0 +1,206 @@
+package net.coderbot.iris.postprocess;
+
+import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.gl.IrisRenderSystem;
+import net.coderbot.iris.gl.program.ComputeProgram;
+import net.coderbot.iris.gl.program.ProgramBuilder;
+import net.coderbot.iris.gl.state.ValueUpdateNotifier;
+import net.coderbot.iris.gl.texture.InternalTextureFormat;
+import net.coderbot.iris.rendertarget.RenderTarget;
+import org.apache.commons.io.IOUtils;
+import org.lwjgl.opengl.GL20C;
+import org.lwjgl.opengl.GL42C;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Objects;
+
+/**
+ * Keeps the mip chains of render target textures up to date for passes that sample them with mipmaps.
+ *
+ * <p>Each side (main / alt) of each render target is tracked separately, by texture. A mip chain is only rebuilt if
+ * the texture has been written to since the chain was last built, so a buffer that several passes in a row read with
+ * mipmaps (which is common for bloom) only has its chain built once. The composite renderers report which textures
+ * each pass writes to, and anything that could write to arbitrary textures (such as compute shaders and image stores)
+ * invalidates every chain.</p>
+ *
+ * <p>Chains are built with glGenerateMipmap by default. If enabled, and if compute shaders are supported, they can
+ * instead be built with a small compute shader that downsamples one level at a time. The first build of a chain
+ * always uses glGenerateMipmap, since that is what allocates the mip levels.</p>
+ */
+public class MipChainManager {
+	// Formats that can be bound as images, and thus written by the compute downsampler.
+	private static final EnumSet<InternalTextureFormat> IMAGE_COMPATIBLE_FORMATS = EnumSet.of(
+		InternalTextureFormat.R8, InternalTextureFormat.RG8, InternalTextureFormat.RGBA8,
+		InternalTextureFormat.R16, InternalTextureFormat.RG16, InternalTextureFormat.RGBA16,
+		InternalTextureFormat.R8_SNORM, InternalTextureFormat.RG8_SNORM, InternalTextureFormat.RGBA8_SNORM,
+		InternalTextureFormat.R16_SNORM, InternalTextureFormat.RG16_SNORM, InternalTextureFormat.RGBA16_SNORM,
+		InternalTextureFormat.R16F, InternalTextureFormat.RG16F, InternalTextureFormat.RGBA16F,
+		InternalTextureFormat.R32F, InternalTextureFormat.RG32F, InternalTextureFormat.RGBA32F,
+		InternalTextureFormat.RGB10_A2, InternalTextureFormat.R11F_G11F_B10F
+	);
+
+	private static final int DOWNSAMPLE_IMAGE_UNIT = 0;
+
+	private final boolean useComputeDownsampling;
+
+	// Textures whose mip chain matches the contents of their base level
+	private final IntSet validChains = new IntOpenHashSet();
+	// Textures with mip levels allocated, mapped to the size of their base level when the levels were allocated
+	private final Int2LongMap allocatedSizes = new Int2LongOpenHashMap();
+	// Textures whose minification filter has been switched to a mipmapped filter this frame
+	private final IntSet mipmapFiltered = new IntOpenHashSet();
+
+	private ComputeProgram downsampleProgram;
+	private boolean downsampleProgramFailed;
+	private int sourceTexture;
+	private int sourceLevel;
+	private final ValueUpdateNotifier sourceLevelNotifier = new ValueUpdateNotifier();
+
+	private int generated;
+	private int skipped;
+	private int lastFrameGenerated;
+	private int lastFrameSkipped;
+
+	public MipChainManager() {
+		this.useComputeDownsampling = Iris.getIrisConfig().shouldUseComputeMipmaps() && IrisRenderSystem.supportsCompute();
+	}
+
+	/**
+	 * Makes sure that the given side of the render target has an up to date mip chain, and that it is sampled with
+	 * mipmaps.
+	 */
+	public void setupMipmapping(RenderTarget target, boolean readFromAlt) {
+		int texture = readFromAlt ? target.getAltTexture() : target.getMainTexture();
+
+		// NB: We leave mipmapping enabled even if the buffer is written to again, this appears to match the
+		// behavior of ShadersMod/OptiFine. The filter is reset at the end of the frame by resetFiltering().
+		if (mipmapFiltered.add(texture)) {
+			IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER, GL20C.GL_LINEAR_MIPMAP_LINEAR);
+		}
+
+		if (!validChains.add(texture)) {
+			skipped += 1;
+			return;
+		}
+
+		generated += 1;
+
+		long size = ((long) target.getWidth() << 32) | target.getHeight();
+
+		if (useComputeDownsampling && IMAGE_COMPATIBLE_FORMATS.contains(target.getInternalFormat())
+			&& allocatedSizes.get(texture) == size && getDownsampleProgram() != null) {
+			downsample(texture, target.getInternalFormat(), target.getWidth(), target.getHeight());
+		} else {
+			IrisRenderSystem.generateMipmaps(texture, GL20C.GL_TEXTURE_2D);
+			allocatedSizes.put(texture, size);
+		}
+	}
+
+	/**
+	 * Called after a pass has rendered to the given render target. Passes write to the side opposite of the one that
+	 * they read from.
+	 */
+	public void onBufferWritten(RenderTarget target, boolean readFromAlt) {
+		validChains.remove(readFromAlt ? target.getMainTexture() : target.getAltTexture());
+	}
+
+	/**
+	 * Invalidates every mip chain, for when anything might have written to any render target, such as geometry
+	 * passes, compute shaders, and image stores.
+	 */
+	public void invalidateAll() {
+		validChains.clear();
+	}
+
+	/**
+	 * Forgets all mip chains, for when render targets have been resized or recreated. The next build of each chain
+	 * allocates its levels again.
+	 */
+	public void onRenderTargetsChanged() {
+		validChains.clear();
+		allocatedSizes.clear();
+	}
+
+	/**
+	 * Switches every texture that was sampled with mipmaps this frame back to linear filtering.
+	 */
+	public void resetFiltering() {
+		for (int texture : mipmapFiltered) {
+			IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER, GL20C.GL_LINEAR);
+		}
+
+		mipmapFiltered.clear();
+
+		lastFrameGenerated = generated;
+		lastFrameSkipped = skipped;
+		generated = 0;
+		skipped = 0;
+	}
+
+	public String getDebugString() {
+		return lastFrameGenerated + " chains built, " + lastFrameSkipped + " reused"
+			+ (useComputeDownsampling ? " (compute)" : "");
+	}
+
+	private void downsample(int texture, InternalTextureFormat format, int width, int height) {
+		int levels = 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+
+		sourceTexture = texture;
+
+		for (int level = 1; level < levels; level++) {
+			int levelWidth = Math.max(1, width >> level);
+			int levelHeight = Math.max(1, height >> level);
+
+			sourceLevel = level - 1;
+			sourceLevelNotifier.onValueChanged();
+
+			IrisRenderSystem.bindImageTexture(DOWNSAMPLE_IMAGE_UNIT, texture, level, false, 0, GL42C.GL_WRITE_ONLY, format.getGlFormat());
+			downsampleProgram.dispatch(levelWidth, levelHeight);
+
+			// The next level reads this level with texelFetch
+			IrisRenderSystem.memoryBarrier(GL42C.GL_TEXTURE_FETCH_BARRIER_BIT);
+		}
+
+		IrisRenderSystem.bindImageTexture(DOWNSAMPLE_IMAGE_UNIT, 0, 0, false, 0, GL42C.GL_WRITE_ONLY, format.getGlFormat());
+		ComputeProgram.unbind();
+	}
+
+	private ComputeProgram getDownsampleProgram() {
+		if (downsampleProgram != null || downsampleProgramFailed) {
+			return downsampleProgram;
+		}
+
+		try {
+			String source = new String(IOUtils.toByteArray(Objects.requireNonNull(getClass().getResourceAsStream("/mipDownsample.csh"))), StandardCharsets.UTF_8);
+			ProgramBuilder builder = ProgramBuilder.beginCompute("mipDownsample", source, ImmutableSet.of());
+
+			builder.addDynamicSampler(() -> sourceTexture, "source");
+			builder.uniform1i("sourceLevel", () -> sourceLevel, sourceLevelNotifier);
+
+			downsampleProgram = builder.buildCompute();
+		} catch (IOException | RuntimeException e) {
+			Iris.logger.error("Failed to create the mipmap downsampling program, falling back to glGenerateMipmap", e);
+			downsampleProgramFailed = true;
+		}
+
+		return downsampleProgram;
+	}
+
+	public void destroy() {
+		if (downsampleProgram != null) {
+			downsampleProgram.destroy();
+			downsampleProgram = null;
+		}
+
+		validChains.clear();
+		allocatedSizes.clear();
+		mipmapFiltered.clear();
+	}
+}
@@ -7,14 +7,18 @@ import net.coderbot.iris.shaderpack.texture.CustomTextureData;
 import net.minecraft.client.renderer.texture.DynamicTexture;
 import org.lwjgl.opengl.GL11C;
 import org.lwjgl.opengl.GL13C;
+import org.lwjgl.system.MemoryUtil;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 
 public class NativeImageBackedCustomTexture extends DynamicTexture {
 	public NativeImageBackedCustomTexture(CustomTextureData.PngData textureData) throws IOException {
-		super(create(textureData.getContent()));
+		super(create(textureData));
 
 		// By default, images are unblurred and not clamped.
 
@@ -27,21 +31,79 @@ public class NativeImageBackedCustomTexture extends DynamicTexture {
 			IrisRenderSystem.texParameteri(getId(), GL11C.GL_TEXTURE_2D, GL11C.GL_TEXTURE_WRAP_S, GL13C.GL_CLAMP_TO_EDGE);
 			IrisRenderSystem.texParameteri(getId(), GL11C.GL_TEXTURE_2D, GL11C.GL_TEXTURE_WRAP_T, GL13C.GL_CLAMP_TO_EDGE);
 		}
+
+		// The image has already been uploaded by the DynamicTexture constructor, and nothing ever reads it back, so
+		// there's no reason to keep the decoded pixels around.
+		setPixels(null);
 	}
 
-	private static NativeImage create(byte[] content) throws IOException {
-		ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
-		buffer.put(content);
-		buffer.flip();
+	private static NativeImage create(CustomTextureData.PngData textureData) throws IOException {
+		Path path = textureData.getPath();
+		ByteBuffer buffer;
+
+		if (path != null) {
+			buffer = read(path);
+		} else {
+			byte[] content = Objects.requireNonNull(textureData.getContent());
+
+			buffer = MemoryUtil.memAlloc(content.length);
+			buffer.put(content);
+			buffer.flip();
+		}
+
+		try {
+			return NativeImage.read(buffer);
+		} finally {
+			MemoryUtil.memFree(buffer);
+		}
+	}
+
+	/**
+	 * Reads a file straight into native memory, without an intermediate copy on the heap. This works for files
+	 * within zipped shader packs as well. The returned buffer must be freed with {@link MemoryUtil#memFree}.
+	 */
+	private static ByteBuffer read(Path path) throws IOException {
+		try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+			long size = channel.size();
+
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Texture file " + path + " is too large (" + size + " bytes)");
+			}
 
-		return NativeImage.read(buffer);
+			ByteBuffer buffer = MemoryUtil.memAlloc((int) size);
+
+			try {
+				while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+					// Keep reading until the buffer is full.
+				}
+			} catch (IOException e) {
+				MemoryUtil.memFree(buffer);
+				throw e;
+			}
+
+			buffer.flip();
+
+			return buffer;
+		}
 	}
 
 	@Override
 	public void upload() {
-		NativeImage image = Objects.requireNonNull(getPixels());
+		NativeImage image = getPixels();
+
+		if (image == null) {
+			// The pixels are released once the texture has been uploaded.
+			return;
+		}
 
 		bind();
 		image.upload(0, 0, 0, 0, 0, image.getWidth(), image.getHeight(), false, false, false, false);
 	}
+
+	@Override
+	public void close() {
+		// DynamicTexture only releases the texture ID if it still has pixels.
+		super.close();
+		releaseId();
+	}
 }
@@ -20,6 +20,7 @@ public class RenderTarget {
 	private int height;
 
 	private boolean isValid;
+	private final boolean ownsTextures;
 	private final int mainTexture;
 	private final int altTexture;
 
@@ -27,6 +28,7 @@ public class RenderTarget {
 
 	public RenderTarget(Builder builder) {
 		this.isValid = true;
+		this.ownsTextures = true;
 
 		this.internalFormat = builder.internalFormat;
 		this.format = builder.format;
@@ -49,6 +51,31 @@ public class RenderTarget {
 		GlStateManager._bindTexture(0);
 	}
 
+	private RenderTarget(RenderTarget owner) {
+		this.isValid = true;
+		this.ownsTextures = false;
+
+		this.internalFormat = owner.internalFormat;
+		this.format = owner.format;
+		this.type = owner.type;
+
+		this.width = owner.width;
+		this.height = owner.height;
+
+		this.mainTexture = owner.mainTexture;
+		this.altTexture = owner.altTexture;
+	}
+
+	/**
+	 * Creates a render target that shares the textures of this render target. The returned target never reallocates
+	 * or deletes the shared textures, that remains the responsibility of this render target.
+	 */
+	RenderTarget createAlias() {
+		requireValid();
+
+		return new RenderTarget(this);
+	}
+
 	private void setupTexture(int texture, int width, int height) {
 		resizeTexture(texture, width, height);
 
@@ -73,6 +100,11 @@ public class RenderTarget {
 		this.width = width;
 		this.height = height;
 
+		if (!ownsTextures) {
+			// The owning render target takes care of reallocating the shared textures.
+			return;
+		}
+
 		resizeTexture(mainTexture, width, height);
 
 		resizeTexture(altTexture, width, height);
@@ -94,6 +126,10 @@ public class RenderTarget {
 		return altTexture;
 	}
 
+	public boolean isAlias() {
+		return !ownsTextures;
+	}
+
 	public int getWidth() {
 		return width;
 	}
@@ -106,7 +142,9 @@ public class RenderTarget {
 		requireValid();
 		isValid = false;
 
-		GlStateManager._deleteTextures(new int[]{mainTexture, altTexture});
+		if (ownsTextures) {
+			GlStateManager._deleteTextures(new int[]{mainTexture, altTexture});
+		}
 	}
 
 	private void requireValid() {
@@ -0,0 +1,258 @@
+package net.coderbot.iris.rendertarget;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.coderbot.iris.gl.texture.InternalTextureFormat;
+import net.coderbot.iris.shaderpack.PackDirectives;
+import net.coderbot.iris.shaderpack.PackRenderTargetDirectives;
+import net.coderbot.iris.shaderpack.ProgramSet;
+import net.coderbot.iris.vendored.joml.Vector2i;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Works out which color buffers can share the same pair of textures by computing the live range of every buffer
+ * over the prepare, deferred, composite and final passes.
+ *
+ * <p>A buffer is only a candidate for aliasing if its content is never needed outside of the range of fullscreen
+ * passes that touch it: it must be cleared every frame, must not be touched by any shadow or gbuffer program, must not
+ * be mipmapped or explicitly flipped, and its first use within the frame must be a fullscreen write that doesn't also
+ * read the buffer and can't discard fragments. Under those conditions the previous content of the texture is never observable, so two candidates
+ * with the same format and size whose live ranges don't overlap can safely use the same textures.</p>
+ *
+ * <p>The passes are walked by {@link RenderTargetPassWalker}, which also decides what counts as a read and what counts
+ * as a full overwrite.</p>
+ */
+public class RenderTargetAliasing {
+	private final int[] owners;
+
+	private RenderTargetAliasing(int[] owners) {
+		this.owners = owners;
+	}
+
+	/**
+	 * Creates an aliasing plan where every buffer owns its own textures.
+	 */
+	public static RenderTargetAliasing none(int renderTargetCount) {
+		int[] owners = new int[renderTargetCount];
+
+		for (int i = 0; i < owners.length; i++) {
+			owners[i] = i;
+		}
+
+		return new RenderTargetAliasing(owners);
+	}
+
+	public static RenderTargetAliasing analyze(ProgramSet programs, int width, int height) {
+		PackDirectives packDirectives = programs.getPackDirectives();
+		Map<Integer, PackRenderTargetDirectives.RenderTargetSettings> settings =
+			packDirectives.getRenderTargetDirectives().getRenderTargetSettings();
+		int count = settings.size();
+
+		LiveRangeWalker walker = new LiveRangeWalker(count);
+		walker.walk(programs);
+
+		int[] firstUse = walker.firstUse;
+		int[] lastUse = walker.lastUse;
+		boolean[] overwrittenFirst = walker.overwrittenFirst;
+
+		List<Candidate> candidates = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			boolean unused = lastUse[i] == -1;
+
+			if (walker.isPinned(i) || (!unused && !overwrittenFirst[i])) {
+				continue;
+			}
+
+			InternalTextureFormat format = settings.get(i).getInternalFormat();
+
+			// Compare the scaled sizes at two different base sizes, so that a buffer with a fixed size and a buffer with
+			// a relative size that happen to match right now don't end up sharing textures after a resize.
+			Vector2i size = packDirectives.getTextureScaleOverride(i, width, height);
+			Vector2i probe = packDirectives.getTextureScaleOverride(i, width * 2 + 1, height * 2 + 1);
+
+			candidates.add(new Candidate(i, new CompatibilityKey(format, size, probe), unused ? -1 : firstUse[i], lastUse[i]));
+		}
+
+		// Unused buffers have an empty live range, so they go last and can join any compatible group.
+		candidates.sort(Comparator.comparingInt((Candidate candidate) -> candidate.first == -1 ? Integer.MAX_VALUE : candidate.first));
+
+		int[] owners = none(count).owners;
+		List<Slot> slots = new ArrayList<>();
+
+		for (Candidate candidate : candidates) {
+			Slot match = null;
+
+			for (Slot slot : slots) {
+				if (slot.key.equals(candidate.key) && (candidate.first == -1 || slot.last < candidate.first)) {
+					match = slot;
+					break;
+				}
+			}
+
+			if (match == null) {
+				slots.add(new Slot(candidate.index, candidate.key, candidate.last));
+			} else {
+				owners[candidate.index] = match.owner;
+				match.last = Math.max(match.last, candidate.last);
+			}
+		}
+
+		return new RenderTargetAliasing(owners);
+	}
+
+	/**
+	 * Returns the index of the buffer whose textures are used by the given buffer. Buffers that own their textures
+	 * return their own index.
+	 */
+	public int getOwner(int index) {
+		return owners[index];
+	}
+
+	public boolean isAliased(int index) {
+		return owners[index] != index;
+	}
+
+	public IntList getAliasedBuffers() {
+		IntList aliased = new IntArrayList();
+
+		for (int i = 0; i < owners.length; i++) {
+			if (isAliased(i)) {
+				aliased.add(i);
+			}
+		}
+
+		return aliased;
+	}
+
+	/**
+	 * Roughly estimates the size of a single texel of the given format, ignoring any driver-specific padding.
+	 */
+	static int estimateBytesPerPixel(InternalTextureFormat format) {
+		switch (format) {
+			case RGBA:
+			case RGB10_A2:
+			case R11F_G11F_B10F:
+			case RGB9_E5:
+				return 4;
+			case R3_G3_B2:
+				return 1;
+			case RGB5_A1:
+				return 2;
+			default:
+				break;
+		}
+
+		String name = format.name();
+		int bitsPerComponent = name.contains("32") ? 4 : name.contains("16") ? 2 : 1;
+		int components = name.startsWith("RGBA") ? 4 : name.startsWith("RGB") ? 3 : name.startsWith("RG") ? 2 : 1;
+
+		return bitsPerComponent * components;
+	}
+
+	/**
+	 * Computes the range of steps over which each buffer is used. Both textures of a buffer are aliased together, so
+	 * which texture is touched doesn't matter here.
+	 */
+	private static class LiveRangeWalker extends RenderTargetPassWalker {
+		private final int[] firstUse;
+		private final int[] lastUse;
+		private final boolean[] overwrittenFirst;
+
+		private LiveRangeWalker(int count) {
+			super(count);
+
+			this.firstUse = new int[count];
+			this.lastUse = new int[count];
+			this.overwrittenFirst = new boolean[count];
+
+			Arrays.fill(firstUse, Integer.MAX_VALUE);
+			Arrays.fill(lastUse, -1);
+		}
+
+		@Override
+		protected void onRead(int buffer, boolean alt, int step) {
+			touch(buffer, step, false);
+		}
+
+		@Override
+		protected void onWrite(int buffer, boolean alt, int step, boolean fullOverwrite) {
+			touch(buffer, step, fullOverwrite);
+		}
+
+		@Override
+		protected void onMipmap(int buffer, boolean alt, int step) {
+			// Mipmap generation would need to be redone for the aliased buffer.
+			pin(buffer);
+		}
+
+		private void touch(int buffer, int step, boolean overwrite) {
+			if (firstUse[buffer] == Integer.MAX_VALUE) {
+				firstUse[buffer] = step;
+				overwrittenFirst[buffer] = overwrite;
+			} else if (firstUse[buffer] == step) {
+				// Reads are reported before writes, so a pass that reads the buffer it writes doesn't overwrite it.
+				overwrittenFirst[buffer] &= overwrite;
+			}
+
+			lastUse[buffer] = step;
+		}
+	}
+
+	private static class Candidate {
+		private final int index;
+		private final CompatibilityKey key;
+		private final int first;
+		private final int last;
+
+		private Candidate(int index, CompatibilityKey key, int first, int last) {
+			this.index = index;
+			this.key = key;
+			this.first = first;
+			this.last = last;
+		}
+	}
+
+	private static class Slot {
+		private final int owner;
+		private final CompatibilityKey key;
+		private int last;
+
+		private Slot(int owner, CompatibilityKey key, int last) {
+			this.owner = owner;
+			this.key = key;
+			this.last = last;
+		}
+	}
+
+	private static class CompatibilityKey {
+		private final InternalTextureFormat format;
+		private final Vector2i size;
+		private final Vector2i probeSize;
+
+		private CompatibilityKey(InternalTextureFormat format, Vector2i size, Vector2i probeSize) {
+			this.format = format;
+			this.size = size;
+			this.probeSize = probeSize;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			CompatibilityKey that = (CompatibilityKey) o;
+			return format == that.format && size.equals(that.size) && probeSize.equals(that.probeSize);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(format, size, probeSize);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package net.coderbot.iris.rendertarget;
+
+import net.coderbot.iris.shaderpack.ProgramSet;
+
+/**
+ * Works out which of the two textures of each color buffer actually need to be cleared at the start of a frame.
+ *
+ * <p>Clearing a texture is only observable if something reads from it before it is fully overwritten. The passes are
+ * walked in order by {@link RenderTargetPassWalker}, which tracks which texture of each buffer is currently being read
+ * from, just like the buffer flipping done when the passes are created. A texture doesn't need to be cleared if
+ * it's never read from at all, or if the first thing to touch it is a pass that writes to it over the whole viewport.
+ * Composite passes never blend, so such a write replaces the previous content entirely.</p>
+ *
+ * <p>The analysis is conservative: buffers that are used by any shadow or gbuffer program, that aren't cleared every
+ * frame, or that are explicitly flipped are always cleared. Compute shaders count as reading both textures, since they
+ * can access either through images, and a pass that might discard fragments doesn't count as a full overwrite.</p>
+ */
+public class RenderTargetClearPlan {
+	private static final int MAIN = 0;
+	private static final int ALT = 1;
+
+	private final boolean[][] needsClear;
+
+	private RenderTargetClearPlan(boolean[][] needsClear) {
+		this.needsClear = needsClear;
+	}
+
+	/**
+	 * Creates a plan where both textures of every buffer are cleared.
+	 */
+	public static RenderTargetClearPlan clearAll(int renderTargetCount) {
+		boolean[][] needsClear = new boolean[renderTargetCount][2];
+
+		for (boolean[] sides : needsClear) {
+			sides[MAIN] = true;
+			sides[ALT] = true;
+		}
+
+		return new RenderTargetClearPlan(needsClear);
+	}
+
+	public static RenderTargetClearPlan analyze(ProgramSet programs) {
+		int count = programs.getPackDirectives().getRenderTargetDirectives().getRenderTargetSettings().size();
+
+		Walker walker = new Walker(count);
+		walker.walk(programs);
+
+		return new RenderTargetClearPlan(walker.finish());
+	}
+
+	public boolean needsClear(int buffer, boolean alt) {
+		return needsClear[buffer][alt ? ALT : MAIN];
+	}
+
+	/**
+	 * @return the number of textures that don't need to be cleared
+	 */
+	public int getElidedCount() {
+		int elided = 0;
+
+		for (boolean[] sides : needsClear) {
+			if (!sides[MAIN]) elided++;
+			if (!sides[ALT]) elided++;
+		}
+
+		return elided;
+	}
+
+	private static class Walker extends RenderTargetPassWalker {
+		private final boolean[][] resolved;
+		private final boolean[][] needsClear;
+
+		private Walker(int count) {
+			super(count);
+
+			this.resolved = new boolean[count][2];
+			this.needsClear = new boolean[count][2];
+		}
+
+		@Override
+		protected void onRead(int buffer, boolean alt, int step) {
+			touch(buffer, alt ? ALT : MAIN, true);
+		}
+
+		@Override
+		protected void onWrite(int buffer, boolean alt, int step, boolean fullOverwrite) {
+			touch(buffer, alt ? ALT : MAIN, !fullOverwrite);
+		}
+
+		private void touch(int buffer, int side, boolean observesPreviousContent) {
+			if (!resolved[buffer][side]) {
+				resolved[buffer][side] = true;
+				needsClear[buffer][side] = observesPreviousContent;
+			}
+		}
+
+		private boolean[][] finish() {
+			for (int buffer = 0; buffer < count; buffer++) {
+				if (isPinned(buffer)) {
+					needsClear[buffer][MAIN] = true;
+					needsClear[buffer][ALT] = true;
+				}
+			}
+
+			return needsClear;
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package net.coderbot.iris.rendertarget;
+
+import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import net.coderbot.iris.shaderpack.ComputeSource;
+import net.coderbot.iris.shaderpack.PackDirectives;
+import net.coderbot.iris.shaderpack.PackRenderTargetDirectives;
+import net.coderbot.iris.shaderpack.ProgramDirectives;
+import net.coderbot.iris.shaderpack.ProgramSet;
+import net.coderbot.iris.shaderpack.ProgramSource;
+import net.coderbot.iris.shaderpack.loading.ProgramGroup;
+import net.coderbot.iris.shaderpack.loading.ProgramId;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Walks the prepare, deferred, composite and final passes of a shader pack in the order that they run, reporting
+ * every access to a color buffer along with the texture of the buffer that it touches. This is the shared basis of the
+ * analyses that reason about the live ranges of color buffers, so that they agree on what counts as a read and what
+ * counts as a full overwrite.
+ *
+ * <p>Buffers whose content might be observed outside of these passes are pinned instead: buffers used by shadow or
+ * gbuffer programs, buffers that aren't cleared every frame, explicitly flipped buffers, and colortex0. Accesses are
+ * still reported for pinned buffers.</p>
+ *
+ * <p>Every compute dispatch and every pass is a separate step. Within a pass, its reads are reported before its
+ * writes. A write only counts as a full overwrite if the viewport isn't scaled and the fragment source doesn't
+ * contain {@code discard}, since composite passes never blend. Buffer references are found by looking for sampler and
+ * image names in the program source, which is conservative: a declared but unused sampler still counts as a read.</p>
+ */
+abstract class RenderTargetPassWalker {
+	private static final Pattern BUFFER_REFERENCE =
+		Pattern.compile("\\b(?:colortex|colorimg)(\\d+)\\b|\\b(gcolor|gdepth|gnormal|composite|gaux[1-4])\\b");
+	private static final Pattern DISCARD = Pattern.compile("\\bdiscard\\b");
+
+	protected final int count;
+	private final boolean[] pinned;
+	private final boolean[] readsFromAlt;
+	private int step;
+
+	protected RenderTargetPassWalker(int count) {
+		this.count = count;
+		this.pinned = new boolean[count];
+		this.readsFromAlt = new boolean[count];
+	}
+
+	/**
+	 * Called when a pass or a compute shader reads from a texture of a buffer. Compute shaders can access either
+	 * texture through images, so they read from both.
+	 */
+	protected abstract void onRead(int buffer, boolean alt, int step);
+
+	/**
+	 * Called when a pass writes to a texture of a buffer. The buffer is flipped afterwards.
+	 */
+	protected abstract void onWrite(int buffer, boolean alt, int step, boolean fullOverwrite);
+
+	/**
+	 * Called when a pass generates mipmaps for the texture of a buffer that it's about to read from. By default, this
+	 * counts as a read.
+	 */
+	protected void onMipmap(int buffer, boolean alt, int step) {
+		onRead(buffer, alt, step);
+	}
+
+	protected void pin(int buffer) {
+		if (buffer >= 0 && buffer < count) {
+			pinned[buffer] = true;
+		}
+	}
+
+	protected boolean isPinned(int buffer) {
+		return pinned[buffer];
+	}
+
+	protected void walk(ProgramSet programs) {
+		PackDirectives packDirectives = programs.getPackDirectives();
+		Map<Integer, PackRenderTargetDirectives.RenderTargetSettings> settings =
+			packDirectives.getRenderTargetDirectives().getRenderTargetSettings();
+
+		// colortex0 is copied to the Minecraft framebuffer when there is no final pass, and is used as a placeholder
+		// attachment for framebuffers without color outputs.
+		pin(0);
+
+		settings.forEach((index, bufferSettings) -> {
+			if (!bufferSettings.shouldClear()) {
+				// The pack relies on the content of this buffer persisting between frames.
+				pin(index);
+			}
+		});
+
+		// Shadow and gbuffer programs can run at any point in the frame as far as we're concerned.
+		for (ProgramId id : ProgramId.values()) {
+			if (id.getGroup() != ProgramGroup.Final) {
+				programs.get(id).ifPresent(this::pinAll);
+			}
+		}
+
+		for (ProgramSource source : programs.getShadowComposite()) {
+			if (source != null && source.isValid()) {
+				pinAll(source);
+			}
+		}
+
+		pinAll(programs.getShadowCompute());
+
+		for (ComputeSource[] computes : programs.getShadowCompCompute()) {
+			pinAll(computes);
+		}
+
+		pinExplicitFlips(packDirectives.getExplicitFlips("prepare_pre"));
+		pinExplicitFlips(packDirectives.getExplicitFlips("deferred_pre"));
+		pinExplicitFlips(packDirectives.getExplicitFlips("composite_pre"));
+
+		walkPasses(programs.getPrepare(), programs.getPrepareCompute());
+		walkPasses(programs.getDeferred(), programs.getDeferredCompute());
+		walkPasses(programs.getComposite(), programs.getCompositeCompute());
+		readAll(programs.getFinalCompute());
+
+		programs.getCompositeFinal().ifPresent(source -> {
+			readAll(source);
+			step++;
+		});
+	}
+
+	private void walkPasses(ProgramSource[] sources, ComputeSource[][] computes) {
+		for (int i = 0; i < sources.length; i++) {
+			readAll(computes[i]);
+
+			ProgramSource source = sources[i];
+
+			if (source == null || !source.isValid()) {
+				continue;
+			}
+
+			ProgramDirectives directives = source.getDirectives();
+
+			pinExplicitFlips(directives.getExplicitFlips());
+
+			// Mipmaps are generated for the textures that are about to be read from.
+			for (int buffer : directives.getMipmappedBuffers()) {
+				if (buffer < count) {
+					onMipmap(buffer, readsFromAlt[buffer], step);
+				}
+			}
+
+			readAll(source);
+
+			// Fragments that are discarded keep the previous content of the texture.
+			boolean fullOverwrite = directives.getViewportScale() == 1.0f
+				&& !source.getFragmentSource().map(fragment -> DISCARD.matcher(fragment).find()).orElse(true);
+
+			for (int buffer : directives.getDrawBuffers()) {
+				if (buffer < count) {
+					// Passes write to the texture that isn't being read from, and then flip the buffer.
+					onWrite(buffer, !readsFromAlt[buffer], step, fullOverwrite);
+					readsFromAlt[buffer] = !readsFromAlt[buffer];
+				}
+			}
+
+			step++;
+		}
+	}
+
+	private void readAll(ComputeSource[] computes) {
+		if (computes == null) {
+			return;
+		}
+
+		for (ComputeSource compute : computes) {
+			if (compute != null && compute.isValid()) {
+				for (int buffer : findReferencedBuffers(compute.getSource().orElse(""), count)) {
+					onRead(buffer, false, step);
+					onRead(buffer, true, step);
+				}
+
+				step++;
+			}
+		}
+	}
+
+	private void readAll(ProgramSource source) {
+		for (int buffer : findReferencedBuffers(source, count)) {
+			onRead(buffer, readsFromAlt[buffer], step);
+		}
+	}
+
+	private void pinAll(ProgramSource source) {
+		for (int buffer : findReferencedBuffers(source, count)) {
+			pin(buffer);
+		}
+
+		for (int buffer : source.getDirectives().getDrawBuffers()) {
+			pin(buffer);
+		}
+	}
+
+	private void pinAll(ComputeSource[] computes) {
+		if (computes == null) {
+			return;
+		}
+
+		for (ComputeSource compute : computes) {
+			if (compute != null && compute.isValid()) {
+				for (int buffer : findReferencedBuffers(compute.getSource().orElse(""), count)) {
+					pin(buffer);
+				}
+			}
+		}
+	}
+
+	private void pinExplicitFlips(ImmutableMap<Integer, Boolean> explicitFlips) {
+		for (Integer buffer : explicitFlips.keySet()) {
+			pin(buffer);
+		}
+	}
+
+	static IntSet findReferencedBuffers(ProgramSource source, int count) {
+		IntSet buffers = new IntOpenHashSet();
+
+		source.getVertexSource().ifPresent(vertex -> buffers.addAll(findReferencedBuffers(vertex, count)));
+		source.getGeometrySource().ifPresent(geometry -> buffers.addAll(findReferencedBuffers(geometry, count)));
+		source.getFragmentSource().ifPresent(fragment -> buffers.addAll(findReferencedBuffers(fragment, count)));
+
+		return buffers;
+	}
+
+	static IntSet findReferencedBuffers(String source, int count) {
+		IntSet buffers = new IntOpenHashSet();
+		Matcher matcher = BUFFER_REFERENCE.matcher(source);
+
+		while (matcher.find()) {
+			int buffer;
+
+			if (matcher.group(1) != null) {
+				buffer = Integer.parseInt(matcher.group(1));
+			} else {
+				buffer = PackRenderTargetDirectives.LEGACY_RENDER_TARGETS.indexOf(matcher.group(2));
+			}
+
+			if (buffer >= 0 && buffer < count) {
+				buffers.add(buffer);
+			}
+		}
+
+		return buffers;
+	}
+}
@@ -38,9 +38,18 @@ public class RenderTargets {
 	private int cachedDepthBufferVersion;
 
 	public RenderTargets(int width, int height, int depthTexture, int depthBufferVersion, DepthBufferFormat depthFormat, Map<Integer, PackRenderTargetDirectives.RenderTargetSettings> renderTargets, PackDirectives packDirectives) {
+		this(width, height, depthTexture, depthBufferVersion, depthFormat, renderTargets, packDirectives,
+			RenderTargetAliasing.none(renderTargets.size()));
+	}
+
+	public RenderTargets(int width, int height, int depthTexture, int depthBufferVersion, DepthBufferFormat depthFormat, Map<Integer, PackRenderTargetDirectives.RenderTargetSettings> renderTargets, PackDirectives packDirectives, RenderTargetAliasing aliasing) {
 		targets = new RenderTarget[renderTargets.size()];
 
 		renderTargets.forEach((index, settings) -> {
+			if (aliasing.isAliased(index)) {
+				return;
+			}
+
 			// TODO: Handle mipmapping?
 			Vector2i dimensions = packDirectives.getTextureScaleOverride(index, width, height);
 			targets[index] = RenderTarget.builder().setDimensions(dimensions.x, dimensions.y)
@@ -48,6 +57,11 @@ public class RenderTargets {
 					.setPixelFormat(settings.getInternalFormat().getPixelFormat()).build();
 		});
 
+		// Aliased buffers are created once all of the owning buffers exist.
+		for (int index : aliasing.getAliasedBuffers()) {
+			targets[index] = targets[aliasing.getOwner(index)].createAlias();
+		}
+
 		this.currentDepthTexture = depthTexture;
 		this.currentDepthFormat = depthFormat;
 		this.copyStrategy = DepthCopyStrategy.fastest(currentDepthFormat.isCombinedStencil());
@@ -98,6 +112,40 @@ public class RenderTargets {
 		return targets[index];
 	}
 
+	public boolean isAliased(int index) {
+		return targets[index].isAlias();
+	}
+
+	public int getAliasedTargetCount() {
+		int count = 0;
+
+		for (RenderTarget target : targets) {
+			if (target.isAlias()) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Estimates the amount of texture memory that would have been used by aliased render targets if they had their
+	 * own textures.
+	 */
+	public long getAliasingSavedBytes() {
+		long saved = 0;
+
+		for (RenderTarget target : targets) {
+			if (target.isAlias()) {
+				// Each render target has both a main and an alt texture.
+				saved += 2L * target.getWidth() * target.getHeight()
+					* RenderTargetAliasing.estimateBytesPerPixel(target.getInternalFormat());
+			}
+		}
+
+		return saved;
+	}
+
 	public int getDepthTexture() {
 		return currentDepthTexture;
 	}
@@ -3,7 +3,9 @@ package net.coderbot.iris.shaderpack;
 import net.coderbot.iris.gl.blending.BlendModeOverride;
 import net.coderbot.iris.vendored.joml.Vector2f;
 import net.coderbot.iris.vendored.joml.Vector3i;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Objects;
 import java.util.Optional;
 
 public class ComputeSource {
@@ -58,4 +60,32 @@ public class ComputeSource {
 			return Optional.empty();
 		}
 	}
+
+	/**
+	 * Checks whether two arrays of compute programs have the same source code, treating missing programs and missing
+	 * arrays as equal to each other.
+	 */
+	public static boolean haveSameSources(@Nullable ComputeSource[] first, @Nullable ComputeSource[] second) {
+		int length = Math.max(first == null ? 0 : first.length, second == null ? 0 : second.length);
+
+		for (int i = 0; i < length; i++) {
+			String firstSource = getSourceOrNull(first, i);
+			String secondSource = getSourceOrNull(second, i);
+
+			if (!Objects.equals(firstSource, secondSource)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Nullable
+	private static String getSourceOrNull(@Nullable ComputeSource[] sources, int index) {
+		if (sources == null || index >= sources.length || sources[index] == null) {
+			return null;
+		}
+
+		return sources[index].source;
+	}
 }
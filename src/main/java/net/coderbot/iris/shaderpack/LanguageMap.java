@@ -3,6 +3,7 @@ package net.coderbot.iris.shaderpack;
 import com.google.common.collect.ImmutableMap;
 import net.coderbot.iris.Iris;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
@@ -47,7 +48,7 @@ public class LanguageMap {
 			try {
 				// Use InputStreamReader to avoid the default charset of ISO-8859-1.
 				// This is needed since shader language files are specified to be in UTF-8.
-				properties.load(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+				properties.load(new InputStreamReader(new ByteArrayInputStream(ZipShaderPackCache.INSTANCE.readAllBytes(path)), StandardCharsets.UTF_8));
 			} catch (IOException e) {
 				Iris.logger.error("Failed to parse shader pack language file " + path, e);
 			}
@@ -28,6 +28,7 @@ public class PackShadowDirectives {
 	private final boolean shouldRenderPlayer;
 	private final boolean shouldRenderBlockEntities;
 	private final OptionalBoolean cullingState;
+	private final OptionalBoolean faceCullingState;
 
 	private final ImmutableList<DepthSamplingSettings> depthSamplingSettings;
 	private final ImmutableList<SamplingSettings> colorSamplingSettings;
@@ -77,6 +78,7 @@ public class PackShadowDirectives {
 		this.shouldRenderPlayer = properties.getShadowPlayer().orElse(false);
 		this.shouldRenderBlockEntities = properties.getShadowBlockEntities().orElse(true);
 		this.cullingState = properties.getShadowCulling();
+		this.faceCullingState = properties.getShadowFaceCulling();
 
 		this.depthSamplingSettings = ImmutableList.of(new DepthSamplingSettings(), new DepthSamplingSettings());
 
@@ -103,6 +105,7 @@ public class PackShadowDirectives {
 		this.shouldRenderPlayer = shadowDirectives.shouldRenderPlayer;
 		this.shouldRenderBlockEntities = shadowDirectives.shouldRenderBlockEntities;
 		this.cullingState = shadowDirectives.cullingState;
+		this.faceCullingState = shadowDirectives.faceCullingState;
 		this.depthSamplingSettings = shadowDirectives.depthSamplingSettings;
 		this.colorSamplingSettings = shadowDirectives.colorSamplingSettings;
 	}
@@ -159,6 +162,14 @@ public class PackShadowDirectives {
 		return cullingState;
 	}
 
+	/**
+	 * Whether chunk faces pointing away from the shadow light may be skipped in the shadow pass. Packs that need back
+	 * faces in the shadow map, for example to voxelize the terrain, can opt out with {@code shadow.faceCulling=false}.
+	 */
+	public OptionalBoolean getFaceCullingState() {
+		return faceCullingState;
+	}
+
 	public ImmutableList<DepthSamplingSettings> getDepthSamplingSettings() {
 		return depthSamplingSettings;
 	}
@@ -1,7 +1,11 @@
 package net.coderbot.iris.shaderpack;
 
 import net.coderbot.iris.gl.blending.BlendModeOverride;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 public class ProgramSource {
@@ -72,4 +76,49 @@ public class ProgramSource {
 			return Optional.empty();
 		}
 	}
+
+	/**
+	 * Checks whether the given program has exactly the same source code as this one.
+	 */
+	public boolean hasSameSource(ProgramSource other) {
+		return Objects.equals(vertexSource, other.vertexSource)
+			&& Objects.equals(geometrySource, other.geometrySource)
+			&& Objects.equals(fragmentSource, other.fragmentSource);
+	}
+
+	/**
+	 * Checks whether the given program is the same program as this one, differing at most in code that doesn't affect
+	 * anything outside the program itself. This is used when hot reloading, where a program can be swapped out in
+	 * place if only its code changed, but anything that could change the render targets, the buffer flips, or the
+	 * samplers needed by the program requires the whole pipeline to be recreated.
+	 *
+	 * <p>This is conservative: the lines of each stage that could hold a directive (const declarations, comment
+	 * directives, and uniform declarations) must be identical.</p>
+	 */
+	public boolean hasSameDirectives(ProgramSource other) {
+		return name.equals(other.name)
+			&& Objects.equals(getDirectiveLines(vertexSource), getDirectiveLines(other.vertexSource))
+			&& Objects.equals(getDirectiveLines(geometrySource), getDirectiveLines(other.geometrySource))
+			&& Objects.equals(getDirectiveLines(fragmentSource), getDirectiveLines(other.fragmentSource));
+	}
+
+	@Nullable
+	private static List<String> getDirectiveLines(@Nullable String source) {
+		if (source == null) {
+			return null;
+		}
+
+		List<String> lines = new ArrayList<>();
+
+		for (String line : source.split("\\R")) {
+			String trimmed = line.trim();
+
+			if (trimmed.startsWith("const ") || trimmed.contains("uniform")
+				|| trimmed.contains("DRAWBUFFERS") || trimmed.contains("RENDERTARGETS")) {
+				lines.add(trimmed);
+			}
+		}
+
+		return lines;
+	}
 }
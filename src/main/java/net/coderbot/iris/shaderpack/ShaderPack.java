@@ -9,8 +9,6 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.coderbot.iris.Iris;
 import net.coderbot.iris.features.FeatureFlags;
-import net.coderbot.iris.gui.FeatureMissingErrorScreen;
-import net.coderbot.iris.gui.screen.ShaderPackScreen;
 import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
 import net.coderbot.iris.shaderpack.include.IncludeGraph;
 import net.coderbot.iris.shaderpack.include.IncludeProcessor;
@@ -21,13 +19,11 @@ import net.coderbot.iris.shaderpack.option.menu.OptionMenuContainer;
 import net.coderbot.iris.shaderpack.option.values.MutableOptionValues;
 import net.coderbot.iris.shaderpack.option.values.OptionValues;
 import net.coderbot.iris.shaderpack.preprocessor.JcppProcessor;
+import net.coderbot.iris.shaderpack.profiling.ShaderPackLoadProfiler;
 import net.coderbot.iris.shaderpack.texture.CustomTextureData;
 import net.coderbot.iris.shaderpack.texture.TextureFilteringData;
 import net.coderbot.iris.shaderpack.texture.TextureStage;
-import net.irisshaders.iris.api.v0.IrisApi;
-import net.minecraft.client.Minecraft;
 import net.minecraft.network.chat.TextComponent;
-import net.minecraft.network.chat.TranslatableComponent;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedReader;
@@ -45,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -58,15 +55,20 @@ public class ShaderPack {
 	private final ProgramSet nether;
 	private final ProgramSet end;
 
+	private final IncludeGraph includeGraph;
+	// The preprocessed source of each program file, used to avoid preprocessing unchanged files again when hot reloading
+	private final Map<AbsolutePackPath, String> preprocessedSources = new HashMap<>();
 	private final IdMap idMap;
 	private final LanguageMap languageMap;
 	private final EnumMap<TextureStage, Object2ObjectMap<String, CustomTextureData>> customTextureDataMap = new EnumMap<>(TextureStage.class);
 	private final CustomTextureData customNoiseTexture;
+	private final Map<String, CustomTextureData> customTextureCache = new HashMap<>();
 	private final ShaderPackOptions shaderPackOptions;
 	private final OptionMenuContainer menuContainer;
 
 	private final ProfileSet.ProfileResult profile;
 	private final String profileInfo;
+	private final List<FeatureFlags> invalidFeatureFlags;
 
 	public ShaderPack(Path root, Iterable<StringPair> environmentDefines) throws IOException, IllegalStateException {
 		this(root, Collections.emptyMap(), environmentDefines);
@@ -81,6 +83,33 @@ public class ShaderPack {
 	 * @throws IOException if there are any IO errors during shader pack loading.
 	 */
 	public ShaderPack(Path root, Map<String, String> changedConfigs, Iterable<StringPair> environmentDefines) throws IOException, IllegalStateException {
+		this(root, changedConfigs, environmentDefines, ShaderPackLoadProfiler.DISABLED);
+	}
+
+	/**
+	 * Reads a shader pack from the disk, recording how long each phase of loading takes.
+	 *
+	 * <p>This doesn't need a running game or an OpenGL context, as long as the environment defines don't need one
+	 * either. See {@link net.coderbot.iris.shaderpack.profiling.HeadlessShaderPackLoader}.</p>
+	 */
+	public ShaderPack(Path root, Map<String, String> changedConfigs, Iterable<StringPair> environmentDefines,
+					  ShaderPackLoadProfiler profiler) throws IOException, IllegalStateException {
+		this(root, changedConfigs, environmentDefines, profiler, null, Collections.emptySet());
+	}
+
+	/**
+	 * Reads a shader pack from the disk again after some of its source files changed. Program files that don't depend
+	 * on any of the changed files aren't preprocessed again, their preprocessed source is taken from the previous pack
+	 * instead. The option values and environment defines must be the same as those the previous pack was loaded with.
+	 */
+	public ShaderPack(Path root, Map<String, String> changedConfigs, Iterable<StringPair> environmentDefines,
+					  ShaderPack previous, Set<AbsolutePackPath> changedFiles) throws IOException, IllegalStateException {
+		this(root, changedConfigs, environmentDefines, ShaderPackLoadProfiler.DISABLED, Objects.requireNonNull(previous), changedFiles);
+	}
+
+	private ShaderPack(Path root, Map<String, String> changedConfigs, Iterable<StringPair> environmentDefines,
+					   ShaderPackLoadProfiler profiler, @Nullable ShaderPack previous,
+					   Set<AbsolutePackPath> changedFiles) throws IOException, IllegalStateException {
 		// A null path is not allowed.
 		Objects.requireNonNull(root);
 
@@ -101,7 +130,7 @@ public class ShaderPack {
 				AbsolutePackPath.fromAbsolutePath("/world1"), potentialFileNames);
 
 		// Read all files and included files recursively
-		IncludeGraph graph = new IncludeGraph(root, starts.build());
+		IncludeGraph graph = profiler.time("include_graph", () -> new IncludeGraph(root, starts.build()));
 
 		if (!graph.getFailures().isEmpty()) {
 			graph.getFailures().forEach((path, error) -> {
@@ -111,27 +140,21 @@ public class ShaderPack {
 			throw new IOException("Failed to resolve some #include directives, see previous messages for details");
 		}
 
+		this.includeGraph = graph;
 		this.languageMap = new LanguageMap(root.resolve("lang"));
 
 		// Discover, merge, and apply shader pack options
-		this.shaderPackOptions = new ShaderPackOptions(graph, changedConfigs);
+		IncludeGraph unappliedGraph = graph;
+		this.shaderPackOptions = profiler.time("options", () -> new ShaderPackOptions(unappliedGraph, changedConfigs));
 		graph = this.shaderPackOptions.getIncludes();
 
 		Iterable<StringPair> finalEnvironmentDefines = environmentDefines;
-		ShaderProperties shaderProperties = loadProperties(root, "shaders.properties")
+		ShaderProperties shaderProperties = profiler.time("properties", () -> loadProperties(root, "shaders.properties")
 				.map(source -> new ShaderProperties(source, shaderPackOptions, finalEnvironmentDefines))
-				.orElseGet(ShaderProperties::empty);
+				.orElseGet(ShaderProperties::empty));
 
-		List<FeatureFlags> invalidFlagList = shaderProperties.getRequiredFeatureFlags().stream().filter(FeatureFlags::isInvalid).map(FeatureFlags::getValue).collect(Collectors.toList());
-		List<String> invalidFeatureFlags = invalidFlagList.stream().map(FeatureFlags::getHumanReadableName).collect(Collectors.toList());
-
-		if (!invalidFeatureFlags.isEmpty()) {
-			if (Minecraft.getInstance().screen instanceof ShaderPackScreen) {
-				Minecraft.getInstance().setScreen(new FeatureMissingErrorScreen(Minecraft.getInstance().screen, new TranslatableComponent("iris.unsupported.pack"), new TranslatableComponent("iris.unsupported.pack.description", FeatureFlags.getInvalidStatus(invalidFlagList), invalidFeatureFlags.stream()
-					.collect(Collectors.joining(", ", ": ", ".")))));
-			}
-			IrisApi.getInstance().getConfig().setShadersEnabledAndApply(false);
-		}
+		// Telling the player about these is up to whoever loads the pack, since that needs the game to be running.
+		this.invalidFeatureFlags = shaderProperties.getRequiredFeatureFlags().stream().filter(FeatureFlags::isInvalid).map(FeatureFlags::getValue).collect(Collectors.toList());
 
 		List<String> optionalFeatureFlags = shaderProperties.getOptionalFeatureFlags().stream().filter(flag -> !FeatureFlags.isInvalid(flag)).collect(Collectors.toList());
 
@@ -174,6 +197,8 @@ public class ShaderPack {
 		// Prepare our include processor
 		IncludeProcessor includeProcessor = new IncludeProcessor(graph);
 
+		Set<AbsolutePackPath> affectedFiles = previous != null ? this.includeGraph.computeDependents(changedFiles) : Collections.emptySet();
+
 		// Set up our source provider for creating ProgramSets
 		Iterable<StringPair> finalEnvironmentDefines1 = environmentDefines;
 		Function<AbsolutePackPath, String> sourceProvider = (path) -> {
@@ -187,66 +212,81 @@ public class ShaderPack {
 				return null;
 			}
 
-			ImmutableList<String> lines = includeProcessor.getIncludedFile(path);
+			String source = previous != null && !affectedFiles.contains(path) ? previous.preprocessedSources.get(path) : null;
 
-			if (lines == null) {
-				return null;
+			if (source != null) {
+				preprocessedSources.put(path, source);
+				return source;
 			}
 
-			StringBuilder builder = new StringBuilder();
+			profiler.push(pathString);
 
-			for (String line : lines) {
-				builder.append(line);
-				builder.append('\n');
+			try {
+				source = readProgramFile(includeProcessor, path, finalEnvironmentDefines1, profiler);
+			} finally {
+				profiler.pop();
 			}
 
-			// Apply GLSL preprocessor to source, while making environment defines available.
-			//
-			// This uses similar techniques to the *.properties preprocessor to avoid actually putting
-			// #define statements in the actual source - instead, we tell the preprocessor about them
-			// directly. This removes one obstacle to accurate reporting of line numbers for errors,
-			// though there exist many more (such as relocating all #extension directives and similar things)
-			String source = builder.toString();
-			source = JcppProcessor.glslPreprocessSource(source, finalEnvironmentDefines1);
+			if (source != null) {
+				preprocessedSources.put(path, source);
+			}
 
 			return source;
 		};
 
-		this.base = new ProgramSet(AbsolutePackPath.fromAbsolutePath("/"), sourceProvider, shaderProperties, this);
+		profiler.push("programs");
 
-		this.overworld = loadOverrides(hasWorld0, AbsolutePackPath.fromAbsolutePath("/world0"), sourceProvider,
-				shaderProperties, this);
-		this.nether = loadOverrides(hasNether, AbsolutePackPath.fromAbsolutePath("/world-1"), sourceProvider,
-				shaderProperties, this);
-		this.end = loadOverrides(hasEnd, AbsolutePackPath.fromAbsolutePath("/world1"), sourceProvider,
-				shaderProperties, this);
-
-		this.idMap = new IdMap(root, shaderPackOptions, environmentDefines);
-
-		customNoiseTexture = shaderProperties.getNoiseTexturePath().map(path -> {
-			try {
-				return readTexture(root, path);
-			} catch (IOException e) {
-				Iris.logger.error("Unable to read the custom noise texture at " + path, e);
+		try {
+			this.base = new ProgramSet(AbsolutePackPath.fromAbsolutePath("/"), sourceProvider, shaderProperties, this);
+
+			this.overworld = loadOverrides(hasWorld0, AbsolutePackPath.fromAbsolutePath("/world0"), sourceProvider,
+					shaderProperties, this);
+			this.nether = loadOverrides(hasNether, AbsolutePackPath.fromAbsolutePath("/world-1"), sourceProvider,
+					shaderProperties, this);
+			this.end = loadOverrides(hasEnd, AbsolutePackPath.fromAbsolutePath("/world1"), sourceProvider,
+					shaderProperties, this);
+		} finally {
+			profiler.pop();
+		}
 
-				return null;
-			}
-		}).orElse(null);
+		this.idMap = profiler.time("id_map", () -> new IdMap(root, shaderPackOptions, finalEnvironmentDefines1));
 
-		shaderProperties.getCustomTextures().forEach((textureStage, customTexturePropertiesMap) -> {
-			Object2ObjectMap<String, CustomTextureData> innerCustomTextureDataMap = new Object2ObjectOpenHashMap<>();
-			customTexturePropertiesMap.forEach((samplerName, path) -> {
+		this.customNoiseTexture = profiler.time("textures", () -> {
+			CustomTextureData noiseTexture = shaderProperties.getNoiseTexturePath().map(path -> {
 				try {
-					innerCustomTextureDataMap.put(samplerName, readTexture(root, path));
+					return readTexture(root, path);
 				} catch (IOException e) {
-					Iris.logger.error("Unable to read the custom texture at " + path, e);
+					Iris.logger.error("Unable to read the custom noise texture at " + path, e);
+
+					return null;
 				}
+			}).orElse(null);
+
+			shaderProperties.getCustomTextures().forEach((textureStage, customTexturePropertiesMap) -> {
+				Object2ObjectMap<String, CustomTextureData> innerCustomTextureDataMap = new Object2ObjectOpenHashMap<>();
+				customTexturePropertiesMap.forEach((samplerName, path) -> {
+					try {
+						innerCustomTextureDataMap.put(samplerName, readTexture(root, path));
+					} catch (IOException e) {
+						Iris.logger.error("Unable to read the custom texture at " + path, e);
+					}
+				});
+
+				customTextureDataMap.put(textureStage, innerCustomTextureDataMap);
 			});
 
-			customTextureDataMap.put(textureStage, innerCustomTextureDataMap);
+			return noiseTexture;
 		});
 	}
 
+	/**
+	 * @return the graph of source files read by this pack before options were applied, used to find out which
+	 *         programs are affected when a source file changes.
+	 */
+	public IncludeGraph getIncludeGraph() {
+		return includeGraph;
+	}
+
 	private String getCurrentProfileName() {
 		return profile.current.map(p -> p.name).orElse("Custom");
 	}
@@ -255,6 +295,40 @@ public class ShaderPack {
 		return profileInfo;
 	}
 
+	/**
+	 * @return the features that this pack requires but that aren't supported by this version of Iris or by the
+	 *         current hardware. If this isn't empty, the pack shouldn't be used.
+	 */
+	public List<FeatureFlags> getInvalidFeatureFlags() {
+		return invalidFeatureFlags;
+	}
+
+	private static String readProgramFile(IncludeProcessor includeProcessor, AbsolutePackPath path,
+										  Iterable<StringPair> environmentDefines, ShaderPackLoadProfiler profiler) {
+		ImmutableList<String> lines = profiler.time("includes", () -> includeProcessor.getIncludedFile(path));
+
+		if (lines == null) {
+			return null;
+		}
+
+		StringBuilder builder = new StringBuilder();
+
+		for (String line : lines) {
+			builder.append(line);
+			builder.append('\n');
+		}
+
+		// Apply GLSL preprocessor to source, while making environment defines available.
+		//
+		// This uses similar techniques to the *.properties preprocessor to avoid actually putting
+		// #define statements in the actual source - instead, we tell the preprocessor about them
+		// directly. This removes one obstacle to accurate reporting of line numbers for errors,
+		// though there exist many more (such as relocating all #extension directives and similar things)
+		String source = builder.toString();
+
+		return profiler.time("jcpp", () -> JcppProcessor.glslPreprocessSource(source, environmentDefines));
+	}
+
 	@Nullable
 	private static ProgramSet loadOverrides(boolean has, AbsolutePackPath path, Function<AbsolutePackPath, String> sourceProvider,
 											ShaderProperties shaderProperties, ShaderPack pack) {
@@ -277,6 +351,20 @@ public class ShaderPack {
 
 	// TODO: Implement raw texture data types
 	public CustomTextureData readTexture(Path root, String path) throws IOException {
+		// The same texture is often bound to several samplers or stages, only create one texture for it.
+		CustomTextureData cached = customTextureCache.get(path);
+
+		if (cached != null) {
+			return cached;
+		}
+
+		CustomTextureData customTextureData = readTextureUncached(root, path);
+		customTextureCache.put(path, customTextureData);
+
+		return customTextureData;
+	}
+
+	private CustomTextureData readTextureUncached(Path root, String path) throws IOException {
 		CustomTextureData customTextureData;
 		if (path.contains(":")) {
 			String[] parts = path.split(":");
@@ -320,9 +408,14 @@ public class ShaderPack {
 				}
 			}
 
-			byte[] content = Files.readAllBytes(root.resolve(path));
+			Path texturePath = root.resolve(path);
+
+			// The file is only read once the texture is created, but report missing files while loading the pack.
+			if (!Files.exists(texturePath)) {
+				throw new NoSuchFileException(texturePath.toString());
+			}
 
-			customTextureData = new CustomTextureData.PngData(new TextureFilteringData(blur, clamp), content);
+			customTextureData = new CustomTextureData.PngData(new TextureFilteringData(blur, clamp), texturePath);
 		}
 		return customTextureData;
 	}
@@ -338,7 +431,7 @@ public class ShaderPack {
 	private static String readProperties(Path shaderPath, String name) {
 		try {
 			// Property files should be encoded in ISO_8859_1.
-			return new String(Files.readAllBytes(shaderPath.resolve(name)), StandardCharsets.ISO_8859_1);
+			return new String(ZipShaderPackCache.INSTANCE.readAllBytes(shaderPath.resolve(name)), StandardCharsets.ISO_8859_1);
 		} catch (NoSuchFileException e) {
 			Iris.logger.debug("An " + name + " file was not found in the current shaderpack");
 
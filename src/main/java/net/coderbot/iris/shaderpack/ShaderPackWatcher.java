@@ -0,0 +1,134 @@
+package net.coderbot.iris.shaderpack;
+
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches the files of a directory shader pack for changes, so that the pack can be hot reloaded while it's being
+ * worked on.
+ *
+ * <p>Editors often save a file in several steps, so changes are only reported once no further changes have been seen
+ * for a short while. Changes are polled from the render thread, no background thread is involved.</p>
+ */
+public class ShaderPackWatcher implements Closeable {
+	/**
+	 * Reported in place of the changed files if some changes were lost, for example because too many happened at once.
+	 */
+	public static final AbsolutePackPath ALL_FILES = AbsolutePackPath.fromAbsolutePath("/");
+
+	private static final long SETTLE_TIME_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+	private final Path root;
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+	private final Set<AbsolutePackPath> changed = new HashSet<>();
+	private long lastChangeTime;
+
+	/**
+	 * @param root the "shaders" directory of the shader pack
+	 */
+	public ShaderPackWatcher(Path root) throws IOException {
+		this.root = root;
+		this.watchService = root.getFileSystem().newWatchService();
+
+		try {
+			registerAll(root);
+		} catch (IOException e) {
+			watchService.close();
+			throw e;
+		}
+	}
+
+	public Path getRoot() {
+		return root;
+	}
+
+	/**
+	 * Collects the changes that were reported since the last call.
+	 *
+	 * @return the paths of the files that changed, relative to the shaders directory, once no further changes have
+	 *         been seen for a short while. Otherwise, an empty set is returned, and the changes are kept for a later
+	 *         call.
+	 */
+	public Set<AbsolutePackPath> pollChanges() {
+		WatchKey key;
+
+		while ((key = watchService.poll()) != null) {
+			Path directory = directories.get(key);
+
+			for (WatchEvent<?> event : key.pollEvents()) {
+				lastChangeTime = System.nanoTime();
+
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+					changed.add(ALL_FILES);
+					continue;
+				}
+
+				Path path = directory.resolve((Path) event.context());
+
+				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+					try {
+						registerAll(path);
+					} catch (IOException e) {
+						Iris.logger.warn("Failed to watch the new shader pack directory " + path, e);
+					}
+				}
+
+				changed.add(toPackPath(path));
+			}
+
+			if (!key.reset()) {
+				// The directory was deleted
+				directories.remove(key);
+			}
+		}
+
+		if (changed.isEmpty() || System.nanoTime() - lastChangeTime < SETTLE_TIME_NANOS) {
+			return Collections.emptySet();
+		}
+
+		Set<AbsolutePackPath> result = new HashSet<>(changed);
+		changed.clear();
+
+		return result;
+	}
+
+	private void registerAll(Path start) throws IOException {
+		try (Stream<Path> paths = Files.walk(start)) {
+			for (Path directory : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+				WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+				directories.put(key, directory);
+			}
+		}
+	}
+
+	private AbsolutePackPath toPackPath(Path path) {
+		String relative = root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+
+		return AbsolutePackPath.fromAbsolutePath("/" + relative);
+	}
+
+	@Override
+	public void close() throws IOException {
+		directories.clear();
+		watchService.close();
+	}
+}
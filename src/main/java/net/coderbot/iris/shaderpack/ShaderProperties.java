@@ -8,7 +8,7 @@ import it.unimi.dsi.fastutil.objects.Object2FloatOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import net.coderbot.iris.Iris;
-import net.coderbot.iris.gl.IrisRenderSystem;
+import net.coderbot.iris.features.FeatureFlags;
 import net.coderbot.iris.gl.blending.AlphaTest;
 import net.coderbot.iris.gl.blending.AlphaTestFunction;
 import net.coderbot.iris.gl.blending.AlphaTestOverride;
@@ -64,6 +64,7 @@ public class ShaderProperties {
 	private OptionalBoolean separateAo = OptionalBoolean.DEFAULT;
 	private OptionalBoolean frustumCulling = OptionalBoolean.DEFAULT;
 	private OptionalBoolean shadowCulling = OptionalBoolean.DEFAULT;
+	private OptionalBoolean shadowFaceCulling = OptionalBoolean.DEFAULT;
 	private OptionalBoolean particlesBeforeDeferred = OptionalBoolean.DEFAULT;
 	private OptionalBoolean prepareBeforeShadow = OptionalBoolean.DEFAULT;
 	private List<String> sliderOptions = new ArrayList<>();
@@ -146,6 +147,7 @@ public class ShaderProperties {
 			handleBooleanDirective(key, value, "separateAo", bool -> separateAo = bool);
 			handleBooleanDirective(key, value, "frustum.culling", bool -> frustumCulling = bool);
 			handleBooleanDirective(key, value, "shadow.culling", bool -> shadowCulling = bool);
+			handleBooleanDirective(key, value, "shadow.faceCulling", bool -> shadowFaceCulling = bool);
 			handleBooleanDirective(key, value, "particles.before.deferred", bool -> particlesBeforeDeferred = bool);
 			handleBooleanDirective(key, value, "prepareBeforeShadow", bool -> prepareBeforeShadow = bool);
 
@@ -213,7 +215,7 @@ public class ShaderProperties {
 			handlePassDirective("blend.", key, value, pass -> {
 				if (pass.contains(".")) {
 
-					if (!IrisRenderSystem.supportsBufferBlending()) {
+					if (!FeatureFlags.PER_BUFFER_BLENDING.isUsable()) {
 						throw new RuntimeException("Buffer blending is not supported on this platform, however it was attempted to be used!");
 					}
 
@@ -536,6 +538,10 @@ public class ShaderProperties {
 		return shadowCulling;
 	}
 
+	public OptionalBoolean getShadowFaceCulling() {
+		return shadowFaceCulling;
+	}
+
 	public OptionalBoolean getParticlesBeforeDeferred() {
 		return particlesBeforeDeferred;
 	}
@@ -0,0 +1,160 @@
+package net.coderbot.iris.shaderpack;
+
+import net.coderbot.iris.Iris;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the zip file system of the current zip shader pack open across reloads, as long as the zip file itself hasn't
+ * changed (judged by its size and modification time).
+ *
+ * <p>Reloading a pack, such as after changing an option, used to close the zip and open it again, which meant
+ * reading the central directory again, searching for the shaders directory again, and inflating every file that the
+ * pack reads again. The file system and the location of the shaders directory are now kept, and the contents of
+ * files read through {@link #readAllBytes(Path)} are cached, so that a reload only needs to preprocess and compile
+ * the pack again. Large files such as textures are read through the file system as usual.</p>
+ */
+public final class ZipShaderPackCache {
+	public static final ZipShaderPackCache INSTANCE = new ZipShaderPackCache();
+
+	// Bigger files are not cached, to avoid keeping large amounts of memory alive
+	private static final long MAX_CACHED_FILE_SIZE = 1024 * 1024;
+
+	private volatile OpenZip current;
+
+	private ZipShaderPackCache() {
+	}
+
+	/**
+	 * Opens the given zip shader pack, reusing the file system of the previously opened zip if it's the same file and
+	 * it hasn't changed. Any other previously opened zip is closed.
+	 *
+	 * @return the shaders directory of the pack, if it has one
+	 */
+	public synchronized Optional<Path> open(Path zipPath) throws IOException {
+		Path normalized = zipPath.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(normalized, BasicFileAttributes.class);
+
+		if (current != null && current.matches(normalized, attributes)) {
+			return current.shadersDirectory;
+		}
+
+		close();
+
+		FileSystem fileSystem = FileSystems.newFileSystem(normalized, Iris.class.getClassLoader());
+
+		try {
+			current = new OpenZip(normalized, attributes.size(), attributes.lastModifiedTime(), fileSystem,
+				findShadersDirectory(fileSystem));
+		} catch (IOException | RuntimeException e) {
+			fileSystem.close();
+			throw e;
+		}
+
+		return current.shadersDirectory;
+	}
+
+	/**
+	 * Reads the contents of a file. If the file is within the currently open zip, the contents are cached until that
+	 * zip is closed, so that reloading the pack doesn't need to inflate the file again.
+	 */
+	public byte[] readAllBytes(Path path) throws IOException {
+		OpenZip zip = current;
+
+		if (zip == null || path.getFileSystem() != zip.fileSystem) {
+			return Files.readAllBytes(path);
+		}
+
+		String key = path.toAbsolutePath().normalize().toString();
+		byte[] cached = zip.contents.get(key);
+
+		if (cached != null) {
+			return cached;
+		}
+
+		byte[] contents = Files.readAllBytes(path);
+
+		if (contents.length <= MAX_CACHED_FILE_SIZE) {
+			zip.contents.put(key, contents);
+		}
+
+		return contents;
+	}
+
+	/**
+	 * Closes the currently open zip, if there is one. Called when the current pack is no longer a zip pack.
+	 */
+	public synchronized void close() {
+		if (current == null) {
+			return;
+		}
+
+		try {
+			current.fileSystem.close();
+		} catch (NoSuchFileException e) {
+			Iris.logger.warn("Failed to close the shaderpack zip because it was deleted, proceeding anyways.");
+		} catch (IOException e) {
+			Iris.logger.error("Failed to close zip file system?", e);
+		}
+
+		current = null;
+	}
+
+	private static Optional<Path> findShadersDirectory(FileSystem zipSystem) throws IOException {
+		// Should only be one root directory for a zip shaderpack
+		Path root = zipSystem.getRootDirectories().iterator().next();
+
+		Path potentialShaderDir = zipSystem.getPath("shaders");
+
+		// If the shaders dir was immediately found return it
+		// Otherwise, manually search through each directory path until it ends with "shaders"
+		if (Files.exists(potentialShaderDir)) {
+			return Optional.of(potentialShaderDir);
+		}
+
+		// Sometimes shaderpacks have their shaders directory within another folder in the shaderpack
+		// For example Sildurs-Vibrant-Shaders.zip/shaders
+		// While other packs have Trippy-Shaderpack-master.zip/Trippy-Shaderpack-master/shaders
+		// This makes it hard to determine what is the actual shaders dir
+		try (Stream<Path> paths = Files.walk(root)) {
+			return paths
+				.filter(Files::isDirectory)
+				.filter(path -> path.endsWith("shaders"))
+				.findFirst();
+		}
+	}
+
+	private static final class OpenZip {
+		private final Path zipPath;
+		private final long size;
+		private final FileTime lastModified;
+		private final FileSystem fileSystem;
+		private final Optional<Path> shadersDirectory;
+		private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+
+		private OpenZip(Path zipPath, long size, FileTime lastModified, FileSystem fileSystem, Optional<Path> shadersDirectory) {
+			this.zipPath = zipPath;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.fileSystem = fileSystem;
+			this.shadersDirectory = shadersDirectory;
+		}
+
+		private boolean matches(Path zipPath, BasicFileAttributes attributes) {
+			return this.zipPath.equals(zipPath) && fileSystem.isOpen() && size == attributes.size()
+				&& Objects.equals(lastModified, attributes.lastModifiedTime());
+		}
+	}
+}
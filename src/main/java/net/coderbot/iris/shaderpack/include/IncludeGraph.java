@@ -2,23 +2,31 @@ package net.coderbot.iris.shaderpack.include;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.coderbot.iris.Iris;
+import net.coderbot.iris.shaderpack.ZipShaderPackCache;
 import net.coderbot.iris.shaderpack.error.RusticError;
 import net.coderbot.iris.shaderpack.transform.line.LineTransform;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 
 /**
  * A directed graph data structure that holds the loaded source of all shader programs
@@ -54,15 +62,32 @@ import java.util.function.Function;
  *         infinite recursion that a naive implementation might be subject to.
  *         </li>
  * </ul>
+ *
+ * <p>Each node is also given an integer ID, and the edges are stored as arrays of IDs in both directions, so that
+ * later stages can work with plain arrays indexed by ID instead of walking maps keyed by path. IDs are assigned in
+ * topological order: every file has a larger ID than all the files it includes, so visiting the IDs in increasing
+ * order visits every file after everything it depends on. Ties are broken by path, so the IDs of a given set of files
+ * don't depend on the order in which they were loaded.</p>
  */
 public class IncludeGraph {
 	private final ImmutableMap<AbsolutePackPath, FileNode> nodes;
 	private final ImmutableMap<AbsolutePackPath, RusticError> failures;
+	private final ImmutableList<FileNode> nodesById;
+	private final NodeIndex index;
+	private List<IncludeGraph> components;
+
+	private IncludeGraph(ImmutableList<FileNode> nodesById, ImmutableMap<AbsolutePackPath, RusticError> failures,
+						 NodeIndex index) {
+		ImmutableMap.Builder<AbsolutePackPath, FileNode> nodes = ImmutableMap.builder();
+
+		for (FileNode node : nodesById) {
+			nodes.put(node.getPath(), node);
+		}
 
-	private IncludeGraph(ImmutableMap<AbsolutePackPath, FileNode> nodes,
-						 ImmutableMap<AbsolutePackPath, RusticError> failures) {
-		this.nodes = nodes;
+		this.nodes = nodes.build();
 		this.failures = failures;
+		this.nodesById = nodesById;
+		this.index = index;
 	}
 
 	public IncludeGraph(Path root, ImmutableList<AbsolutePackPath> startingPaths) {
@@ -138,18 +163,84 @@ public class IncludeGraph {
 			}
 		}
 
-		this.nodes = ImmutableMap.copyOf(nodes);
+		List<AbsolutePackPath> order = sortTopologically(nodes);
+
+		if (order == null) {
+			// Finding the actual cycle to report it is much more expensive than finding out that there is one.
+			detectCycle(nodes);
+
+			throw new IllegalStateException("Cycle detected in #include graph");
+		}
+
+		ImmutableList.Builder<FileNode> nodesById = ImmutableList.builder();
+		ImmutableMap.Builder<AbsolutePackPath, FileNode> orderedNodes = ImmutableMap.builder();
+
+		for (AbsolutePackPath path : order) {
+			FileNode node = nodes.get(path);
+
+			nodesById.add(node);
+			orderedNodes.put(path, node);
+		}
+
+		this.nodes = orderedNodes.build();
 		this.failures = ImmutableMap.copyOf(failures);
+		this.nodesById = nodesById.build();
+		this.index = new NodeIndex(this.nodesById);
+	}
+
+	/**
+	 * Sorts the given files so that every file comes after all the files that it includes, using Kahn's algorithm.
+	 * Files that are ready at the same time are ordered by path.
+	 *
+	 * @return the sorted files, or null if the includes contain a cycle
+	 */
+	private static List<AbsolutePackPath> sortTopologically(Map<AbsolutePackPath, FileNode> nodes) {
+		Map<AbsolutePackPath, List<AbsolutePackPath>> includedBy = new HashMap<>();
+		Object2IntMap<AbsolutePackPath> remainingIncludes = new Object2IntOpenHashMap<>();
+		PriorityQueue<AbsolutePackPath> ready = new PriorityQueue<>(Comparator.comparing(AbsolutePackPath::getPathString));
+
+		nodes.forEach((path, node) -> {
+			Set<AbsolutePackPath> included = new HashSet<>(node.getIncludes().values());
+
+			// Files that failed to load don't take part in the ordering, their errors are reported separately
+			included.retainAll(nodes.keySet());
+
+			for (AbsolutePackPath dependency : included) {
+				includedBy.computeIfAbsent(dependency, key -> new ArrayList<>()).add(path);
+			}
+
+			if (included.isEmpty()) {
+				ready.add(path);
+			} else {
+				remainingIncludes.put(path, included.size());
+			}
+		});
+
+		List<AbsolutePackPath> order = new ArrayList<>(nodes.size());
+
+		while (!ready.isEmpty()) {
+			AbsolutePackPath next = ready.poll();
+			order.add(next);
+
+			for (AbsolutePackPath includer : includedBy.getOrDefault(next, Collections.emptyList())) {
+				int remaining = remainingIncludes.getInt(includer) - 1;
+				remainingIncludes.put(includer, remaining);
+
+				if (remaining == 0) {
+					ready.add(includer);
+				}
+			}
+		}
 
-		detectCycle();
+		return order.size() == nodes.size() ? order : null;
 	}
 
-	private void detectCycle() {
+	private static void detectCycle(Map<AbsolutePackPath, FileNode> nodes) {
 		List<AbsolutePackPath> cycle = new ArrayList<>();
 		Set<AbsolutePackPath> visited = new HashSet<>();
 
 		for (AbsolutePackPath start : nodes.keySet()) {
-			if (exploreForCycles(start, cycle, visited)) {
+			if (exploreForCycles(nodes, start, cycle, visited)) {
 				AbsolutePackPath lastFilePath = null;
 
 				StringBuilder error = new StringBuilder();
@@ -197,7 +288,8 @@ public class IncludeGraph {
 		}
 	}
 
-	private boolean exploreForCycles(AbsolutePackPath frontier, List<AbsolutePackPath> path, Set<AbsolutePackPath> visited) {
+	private static boolean exploreForCycles(Map<AbsolutePackPath, FileNode> nodes, AbsolutePackPath frontier,
+											List<AbsolutePackPath> path, Set<AbsolutePackPath> visited) {
 		if (visited.contains(frontier)) {
 			path.add(frontier);
 			return true;
@@ -212,7 +304,7 @@ public class IncludeGraph {
 				continue;
 			}
 
-			if (exploreForCycles(included, path, visited)) {
+			if (exploreForCycles(nodes, included, path, visited)) {
 				return true;
 			}
 		}
@@ -223,31 +315,171 @@ public class IncludeGraph {
 		return false;
 	}
 
+	/**
+	 * @return the nodes of this graph, iterating in order of their IDs
+	 */
 	public ImmutableMap<AbsolutePackPath, FileNode> getNodes() {
 		return nodes;
 	}
 
+	public int size() {
+		return nodesById.size();
+	}
+
+	/**
+	 * @return the ID of the node for the given file, or -1 if the file isn't part of this graph
+	 */
+	public int getId(AbsolutePackPath path) {
+		return index.ids.getInt(path);
+	}
+
+	public FileNode getNode(int id) {
+		return nodesById.get(id);
+	}
+
+	/**
+	 * Gets the IDs of the files directly included by a file, in increasing order. Files that failed to load aren't
+	 * included. The returned array must not be modified.
+	 */
+	public int[] getIncludedIds(int id) {
+		return index.includes[id];
+	}
+
+	/**
+	 * Gets the IDs of the files that directly include a file, in increasing order. The returned array must not be
+	 * modified.
+	 */
+	public int[] getIncludedByIds(int id) {
+		return index.includedBy[id];
+	}
+
+	/**
+	 * Finds every file whose fully included source depends on any of the given files, by following #include
+	 * directives backwards. The given files that are part of this graph are included in the result.
+	 */
+	public Set<AbsolutePackPath> computeDependents(Collection<AbsolutePackPath> files) {
+		boolean[] dependent = new boolean[size()];
+		IntArrayList queue = new IntArrayList();
+
+		for (AbsolutePackPath file : files) {
+			int id = getId(file);
+
+			if (id != -1 && !dependent[id]) {
+				dependent[id] = true;
+				queue.add(id);
+			}
+		}
+
+		Set<AbsolutePackPath> dependents = new HashSet<>();
+
+		while (!queue.isEmpty()) {
+			int next = queue.removeInt(queue.size() - 1);
+			dependents.add(nodesById.get(next).getPath());
+
+			for (int includer : index.includedBy[next]) {
+				if (!dependent[includer]) {
+					dependent[includer] = true;
+					queue.add(includer);
+				}
+			}
+		}
+
+		return dependents;
+	}
+
+	/**
+	 * Splits this graph into its weakly connected components, the groups of files that are connected by #include
+	 * directives in either direction. Files in different components never end up in the same program source, so they
+	 * can be processed independently of each other.
+	 *
+	 * <p>The components are ordered by their smallest node ID, and the nodes of each component keep their relative
+	 * order, so they remain topologically sorted. The result is computed once and then kept. The components don't
+	 * carry the failures of this graph.</p>
+	 */
 	public List<IncludeGraph> computeWeaklyConnectedComponents() {
-		//List<IncludeGraph> components = new ArrayList<>();
+		if (components == null) {
+			components = findComponents();
+		}
+
+		return components;
+	}
+
+	private List<IncludeGraph> findComponents() {
+		int count = size();
+		int[] componentOf = new int[count];
+		Arrays.fill(componentOf, -1);
+
+		int componentCount = 0;
+		IntArrayList stack = new IntArrayList();
+
+		for (int start = 0; start < count; start++) {
+			if (componentOf[start] != -1) {
+				continue;
+			}
+
+			componentOf[start] = componentCount;
+			stack.add(start);
+
+			while (!stack.isEmpty()) {
+				int next = stack.removeInt(stack.size() - 1);
+
+				for (int neighbor : index.includes[next]) {
+					if (componentOf[neighbor] == -1) {
+						componentOf[neighbor] = componentCount;
+						stack.add(neighbor);
+					}
+				}
+
+				for (int neighbor : index.includedBy[next]) {
+					if (componentOf[neighbor] == -1) {
+						componentOf[neighbor] = componentCount;
+						stack.add(neighbor);
+					}
+				}
+			}
+
+			componentCount += 1;
+		}
+
+		if (componentCount <= 1) {
+			return Collections.singletonList(this);
+		}
+
+		List<ImmutableList.Builder<FileNode>> componentNodes = new ArrayList<>(componentCount);
 
-		// TODO: WCC
-		//throw new UnsupportedOperationException();
+		for (int i = 0; i < componentCount; i++) {
+			componentNodes.add(ImmutableList.builder());
+		}
+
+		for (int id = 0; id < count; id++) {
+			componentNodes.get(componentOf[id]).add(nodesById.get(id));
+		}
 
-		//return components;
+		List<IncludeGraph> components = new ArrayList<>(componentCount);
 
-		// TODO: This digraph might not be weakly connected
-		//       A digraph is weakly connected if its corresponding undirected
-		//       graph is connected
-		//       Make an adjacency list and then go from there
-		return Collections.singletonList(this);
+		for (ImmutableList.Builder<FileNode> builder : componentNodes) {
+			ImmutableList<FileNode> nodes = builder.build();
+			components.add(new IncludeGraph(nodes, ImmutableMap.of(), new NodeIndex(nodes)));
+		}
+
+		return Collections.unmodifiableList(components);
 	}
 
 	public IncludeGraph map(Function<AbsolutePackPath, LineTransform> transformProvider) {
-		ImmutableMap.Builder<AbsolutePackPath, FileNode> mappedNodes = ImmutableMap.builder();
+		return mapById(id -> transformProvider.apply(nodesById.get(id).getPath()));
+	}
 
-		nodes.forEach((path, node) -> mappedNodes.put(path, node.map(transformProvider.apply(path))));
+	/**
+	 * Like {@link #map(Function)}, but the transform of each file is looked up by its ID.
+	 */
+	public IncludeGraph mapById(IntFunction<LineTransform> transformProvider) {
+		ImmutableList.Builder<FileNode> mappedNodes = ImmutableList.builder();
 
-		return new IncludeGraph(mappedNodes.build(), failures);
+		for (int id = 0; id < nodesById.size(); id++) {
+			mappedNodes.add(nodesById.get(id).map(transformProvider.apply(id)));
+		}
+
+		return new IncludeGraph(mappedNodes.build(), failures, index);
 	}
 
 	public ImmutableMap<AbsolutePackPath, RusticError> getFailures() {
@@ -255,6 +487,60 @@ public class IncludeGraph {
 	}
 
 	private static String readFile(Path path) throws IOException {
-		return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+		return new String(ZipShaderPackCache.INSTANCE.readAllBytes(path), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The IDs of the nodes of a graph and the edges between them. Mapping a graph doesn't change its structure, so the
+	 * mapped graph shares the index of the original graph.
+	 */
+	private static final class NodeIndex {
+		private final Object2IntMap<AbsolutePackPath> ids;
+		private final int[][] includes;
+		private final int[][] includedBy;
+
+		/**
+		 * @param nodesById the nodes of the graph in topological order
+		 */
+		private NodeIndex(List<FileNode> nodesById) {
+			int count = nodesById.size();
+
+			this.ids = new Object2IntOpenHashMap<>(count);
+			this.ids.defaultReturnValue(-1);
+
+			for (int id = 0; id < count; id++) {
+				ids.put(nodesById.get(id).getPath(), id);
+			}
+
+			this.includes = new int[count][];
+			int[] includedByCounts = new int[count];
+
+			for (int id = 0; id < count; id++) {
+				includes[id] = nodesById.get(id).getIncludes().values().stream()
+					.filter(ids::containsKey)
+					.mapToInt(ids::getInt)
+					.distinct()
+					.sorted()
+					.toArray();
+
+				for (int included : includes[id]) {
+					includedByCounts[included] += 1;
+				}
+			}
+
+			this.includedBy = new int[count][];
+
+			for (int id = 0; id < count; id++) {
+				includedBy[id] = new int[includedByCounts[id]];
+				includedByCounts[id] = 0;
+			}
+
+			// Visiting the includers in increasing order keeps each array sorted
+			for (int id = 0; id < count; id++) {
+				for (int included : includes[id]) {
+					includedBy[included][includedByCounts[included]++] = id;
+				}
+			}
+		}
 	}
 }
@@ -3,40 +3,45 @@ package net.coderbot.iris.shaderpack.include;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 // TODO: Write tests for this code
 public class IncludeProcessor {
 	private final IncludeGraph graph;
-	private final Map<AbsolutePackPath, ImmutableList<String>> cache;
+	private final ImmutableList<String>[] cache;
 
+	@SuppressWarnings("unchecked")
 	public IncludeProcessor(IncludeGraph graph) {
 		this.graph = graph;
-		this.cache = new HashMap<>();
+		this.cache = new ImmutableList[graph.size()];
 	}
 
 	// TODO: Actual error handling
 
 	public ImmutableList<String> getIncludedFile(AbsolutePackPath path) {
-		ImmutableList<String> lines = cache.get(path);
+		int id = graph.getId(path);
 
-		if (lines == null) {
-			lines = process(path);
-			cache.put(path, lines);
+		if (id == -1) {
+			return null;
 		}
 
-		return lines;
+		return getIncludedFile(id);
 	}
 
-	private ImmutableList<String> process(AbsolutePackPath path) {
-		FileNode fileNode = graph.getNodes().get(path);
+	private ImmutableList<String> getIncludedFile(int id) {
+		ImmutableList<String> lines = cache[id];
 
-		if (fileNode == null) {
-			return null;
+		if (lines == null) {
+			lines = process(id);
+			cache[id] = lines;
 		}
 
+		return lines;
+	}
+
+	private ImmutableList<String> process(int id) {
+		FileNode fileNode = graph.getNode(id);
+
 		ImmutableList.Builder<String> builder = ImmutableList.builder();
 
 		ImmutableList<String> lines = fileNode.getLines();
@@ -46,7 +51,8 @@ public class IncludeProcessor {
 			AbsolutePackPath include = includes.get(i);
 
 			if (include != null) {
-				// TODO: Don't recurse like this, and check for cycles
+				// The graph has no cycles, and an included file always has a smaller ID than the file including it,
+				// so this recursion is bounded by the include depth.
 				// TODO: Better diagnostics
 				builder.addAll(Objects.requireNonNull(getIncludedFile(include)));
 			} else {
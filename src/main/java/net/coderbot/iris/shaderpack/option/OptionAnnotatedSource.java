@@ -154,10 +154,7 @@ public final class OptionAnnotatedSource {
 
 	private static void parseLine(AnnotationsBuilder builder, int index, String lineText) {
 		// Check to see if this line contains anything of interest before we try to parse it.
-		if (!lineText.contains("#define")
-				&& !lineText.contains("const")
-				&& !lineText.contains("#ifdef")
-				&& !lineText.contains("#ifndef")) {
+		if (!mayContainOption(lineText)) {
 			// Nothing of interest.
 			return;
 		}
@@ -179,6 +176,27 @@ public final class OptionAnnotatedSource {
 		}
 	}
 
+	/**
+	 * Checks whether a line contains {@code #define}, {@code #ifdef}, {@code #ifndef}, or {@code const} anywhere, the
+	 * only lines that {@link #parseLine} is interested in. Most lines are plain code, so this looks for all four in a
+	 * single scan over the line instead of searching the line once for each of them.
+	 */
+	private static boolean mayContainOption(String line) {
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+
+			if (c == '#') {
+				if (line.startsWith("#define", i) || line.startsWith("#ifdef", i) || line.startsWith("#ifndef", i)) {
+					return true;
+				}
+			} else if (c == 'c' && line.startsWith("const", i)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	private static void parseIfdef(AnnotationsBuilder builder, int index, ParsedString line) {
 		if (!line.takeSomeWhitespace()) {
 			return;
@@ -1,5 +1,6 @@
 package net.coderbot.iris.shaderpack.option;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
 import net.coderbot.iris.shaderpack.include.IncludeGraph;
@@ -7,49 +8,84 @@ import net.coderbot.iris.shaderpack.option.values.MutableOptionValues;
 import net.coderbot.iris.shaderpack.option.values.OptionValues;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * A helper class that dispatches all the heavy lifting needed to discover, merge, and apply shader pack options to
  * an existing {@link IncludeGraph}.
  */
 public class ShaderPackOptions {
+	// Small packs are parsed faster on the loading thread than by handing the files out to worker threads.
+	private static final int PARALLEL_THRESHOLD = 16;
+
 	private final OptionSet optionSet;
 	private final OptionValues optionValues;
 	private final IncludeGraph includes;
 
+	// The diagnostics of each file by node ID. Nothing needs them while loading a pack, so they're only keyed by path
+	// on request.
+	private final IncludeGraph unappliedGraph;
+	private final ImmutableList<ImmutableMap<Integer, String>> fileDiagnostics;
+	private ImmutableMap<AbsolutePackPath, ImmutableMap<Integer, String>> diagnostics;
+
 	public ShaderPackOptions(IncludeGraph graph, Map<String, String> changedConfigs) {
-		Map<AbsolutePackPath, OptionAnnotatedSource> allAnnotations = new HashMap<>();
+		OptionAnnotatedSource[] allAnnotations = annotate(graph);
 		OptionSet.Builder setBuilder = OptionSet.builder();
 
-		graph.computeWeaklyConnectedComponents().forEach(subgraph -> {
-			ImmutableMap.Builder<AbsolutePackPath, OptionAnnotatedSource> annotationBuilder = ImmutableMap.builder();
+		// Merging is order-sensitive and may log warnings about ambiguous options, so it happens on this thread in
+		// order of the node IDs, giving the same results as annotating every file one after another.
+		for (IncludeGraph subgraph : graph.computeWeaklyConnectedComponents()) {
+			int[] ids = new int[subgraph.size()];
 			Set<String> referencedBooleanDefines = new HashSet<>();
 
-			subgraph.getNodes().forEach((path, node) -> {
-				OptionAnnotatedSource annotatedSource = new OptionAnnotatedSource(node.getLines());
-				annotationBuilder.put(path, annotatedSource);
-				referencedBooleanDefines.addAll(annotatedSource.getBooleanDefineReferences().keySet());
-			});
+			for (int id = 0; id < ids.length; id++) {
+				ids[id] = graph.getId(subgraph.getNode(id).getPath());
+				referencedBooleanDefines.addAll(allAnnotations[ids[id]].getBooleanDefineReferences().keySet());
+			}
 
-			ImmutableMap<AbsolutePackPath, OptionAnnotatedSource> annotations = annotationBuilder.build();
 			Set<String> referencedBooleanDefinesU = Collections.unmodifiableSet(referencedBooleanDefines);
 
-			annotations.forEach((path, annotatedSource) -> {
-				OptionSet set = annotatedSource.getOptionSet(path, referencedBooleanDefinesU);
+			for (int id : ids) {
+				OptionSet set = allAnnotations[id].getOptionSet(graph.getNode(id).getPath(), referencedBooleanDefinesU);
 				setBuilder.addAll(set);
-			});
-
-			allAnnotations.putAll(annotations);
-		});
+			}
+		}
 
 		this.optionSet = setBuilder.build();
 		this.optionValues = new MutableOptionValues(optionSet, changedConfigs);
 
-		this.includes = graph.map(path -> allAnnotations.get(path).asTransform(optionValues));
+		this.includes = graph.mapById(id -> allAnnotations[id].asTransform(optionValues));
+
+		ImmutableList.Builder<ImmutableMap<Integer, String>> fileDiagnostics = ImmutableList.builder();
+
+		for (OptionAnnotatedSource annotations : allAnnotations) {
+			fileDiagnostics.add(annotations.getDiagnostics());
+		}
+
+		this.unappliedGraph = graph;
+		this.fileDiagnostics = fileDiagnostics.build();
+	}
+
+	/**
+	 * Parses every file of the graph for options. Each file is parsed independently of the others and the results are
+	 * immutable, so files are parsed in parallel on the common fork-join pool when there are enough of them.
+	 *
+	 * @return the annotated source of each file, indexed by node ID
+	 */
+	private static OptionAnnotatedSource[] annotate(IncludeGraph graph) {
+		OptionAnnotatedSource[] annotations = new OptionAnnotatedSource[graph.size()];
+		IntStream ids = IntStream.range(0, annotations.length);
+
+		if (annotations.length >= PARALLEL_THRESHOLD) {
+			ids = ids.parallel();
+		}
+
+		ids.forEach(id -> annotations[id] = new OptionAnnotatedSource(graph.getNode(id).getLines()));
+
+		return annotations;
 	}
 
 	public OptionSet getOptionSet() {
@@ -63,4 +99,26 @@ public class ShaderPackOptions {
 	public IncludeGraph getIncludes() {
 		return includes;
 	}
+
+	/**
+	 * Gets the reasons why lines that look like options weren't parsed as options, keyed by line index, for each file
+	 * that has any such lines. The files iterate in order of their node IDs.
+	 *
+	 * @see OptionAnnotatedSource#getDiagnostics()
+	 */
+	public ImmutableMap<AbsolutePackPath, ImmutableMap<Integer, String>> getDiagnostics() {
+		if (diagnostics == null) {
+			ImmutableMap.Builder<AbsolutePackPath, ImmutableMap<Integer, String>> builder = ImmutableMap.builder();
+
+			for (int id = 0; id < fileDiagnostics.size(); id++) {
+				if (!fileDiagnostics.get(id).isEmpty()) {
+					builder.put(unappliedGraph.getNode(id).getPath(), fileDiagnostics.get(id));
+				}
+			}
+
+			diagnostics = builder.build();
+		}
+
+		return diagnostics;
+	}
 }
@@ -0,0 +1,265 @@
+package net.coderbot.iris.shaderpack.profiling;
+
+import net.coderbot.iris.features.FeatureFlags;
+import net.coderbot.iris.gbuffer_overrides.matching.InputAvailability;
+import net.coderbot.iris.gl.shader.StandardMacros;
+import net.coderbot.iris.pipeline.transform.TransformPatcher;
+import net.coderbot.iris.shaderpack.DimensionId;
+import net.coderbot.iris.shaderpack.ProgramSet;
+import net.coderbot.iris.shaderpack.ProgramSource;
+import net.coderbot.iris.shaderpack.ShaderPack;
+import net.coderbot.iris.shaderpack.loading.ProgramGroup;
+import net.coderbot.iris.shaderpack.loading.ProgramId;
+import net.minecraft.server.Bootstrap;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Loads a shader pack outside of the game and reports how long each phase of loading took, without needing an OpenGL
+ * context. The pack goes through the same steps as when it's loaded in game: building the include graph, discovering
+ * and applying options, parsing shaders.properties, preprocessing every program, and finally patching every program
+ * the way the pipelines would.
+ *
+ * <p>The report is written in the folded stack format, which can be turned into a flame graph with tools such as
+ * flamegraph.pl or speedscope. The process exits with a non-zero status if the pack fails to load, so that this can be
+ * used to validate packs.</p>
+ *
+ * <p>Usage: {@code HeadlessShaderPackLoader <pack directory or zip> [report file]}</p>
+ */
+public class HeadlessShaderPackLoader {
+	private static final InputAvailability ALL_INPUTS = new InputAvailability(true, true, true);
+	private static final int SLOWEST_PROGRAMS_SHOWN = 10;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: HeadlessShaderPackLoader <pack directory or zip> [report file]");
+			System.exit(2);
+			return;
+		}
+
+		Path packPath = Paths.get(args[0]);
+		String packName = packPath.getFileName().toString();
+		Path reportPath = Paths.get(args.length > 1 ? args[1] : packName + ".folded");
+
+		// Needed for the block ID map, which looks up blocks in the registry
+		Bootstrap.bootStrap();
+		FeatureFlags.setAssumeHardwareSupport(true);
+
+		ShaderPackLoadProfiler profiler = ShaderPackLoadProfiler.create();
+
+		try {
+			profile(packPath, packName, profiler);
+		} catch (Exception e) {
+			System.err.println("Failed to load the shader pack " + packName + ":");
+			e.printStackTrace();
+			System.exit(1);
+			return;
+		}
+
+		try (Writer writer = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+			profiler.writeFolded(writer);
+		}
+
+		printSummary(packName, profiler);
+		System.out.println("Wrote the load profile to " + reportPath.toAbsolutePath());
+	}
+
+	private static void profile(Path packPath, String packName, ShaderPackLoadProfiler profiler) throws IOException {
+		profiler.push(packName);
+
+		try {
+			if (Files.isDirectory(packPath)) {
+				load(packPath.resolve("shaders"), profiler);
+			} else {
+				try (FileSystem zipSystem = FileSystems.newFileSystem(packPath, (ClassLoader) null)) {
+					Path shaders = findZipShadersDirectory(zipSystem)
+						.orElseThrow(() -> new IOException("The zip file doesn't contain a shaders directory"));
+
+					load(shaders, profiler);
+				}
+			}
+		} finally {
+			profiler.pop();
+		}
+	}
+
+	// Same search as Iris#loadExternalZipShaderpack
+	private static Optional<Path> findZipShadersDirectory(FileSystem zipSystem) throws IOException {
+		Path potentialShaderDir = zipSystem.getPath("shaders");
+
+		if (Files.exists(potentialShaderDir)) {
+			return Optional.of(potentialShaderDir);
+		}
+
+		Path root = zipSystem.getRootDirectories().iterator().next();
+
+		try (Stream<Path> paths = Files.walk(root)) {
+			return paths.filter(Files::isDirectory).filter(path -> path.endsWith("shaders")).findFirst();
+		}
+	}
+
+	private static void load(Path shaders, ShaderPackLoadProfiler profiler) throws IOException {
+		if (!Files.exists(shaders)) {
+			throw new IOException("The pack doesn't contain a shaders directory");
+		}
+
+		profiler.push("load");
+
+		ShaderPack pack;
+
+		try {
+			pack = new ShaderPack(shaders, Collections.emptyMap(), StandardMacros.createHeadlessEnvironmentDefines(), profiler);
+		} finally {
+			profiler.pop();
+		}
+
+		if (!pack.getInvalidFeatureFlags().isEmpty()) {
+			throw new IllegalStateException("The pack requires unsupported features: " + pack.getInvalidFeatureFlags());
+		}
+
+		profiler.push("patch");
+
+		try {
+			Set<ProgramSet> patchedSets = Collections.newSetFromMap(new IdentityHashMap<>());
+
+			for (DimensionId dimension : DimensionId.values()) {
+				ProgramSet programSet = pack.getProgramSet(dimension);
+
+				// Dimensions without overrides share the base program set
+				if (patchedSets.add(programSet)) {
+					profiler.push(dimension.name().toLowerCase());
+
+					try {
+						patchProgramSet(programSet, profiler);
+					} finally {
+						profiler.pop();
+					}
+				}
+			}
+		} finally {
+			profiler.pop();
+		}
+	}
+
+	/**
+	 * Patches every program in the set the same way that the pipelines do. Gbuffers and shadow programs get the
+	 * attribute patches (with every input available) and terrain programs additionally get the Sodium terrain patches.
+	 * Composite-style programs get the composite patches.
+	 */
+	private static void patchProgramSet(ProgramSet programSet, ShaderPackLoadProfiler profiler) {
+		Set<ProgramSource> patched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		for (ProgramId programId : ProgramId.values()) {
+			programSet.get(programId).filter(patched::add).ifPresent(source -> {
+				if (programId.getGroup() == ProgramGroup.Final) {
+					patch(source, "composite", profiler);
+				} else {
+					patch(source, "attributes", profiler);
+
+					if (programId == ProgramId.Terrain || programId == ProgramId.Water || programId == ProgramId.Shadow) {
+						patch(source, "sodium_terrain", profiler);
+					}
+				}
+			});
+		}
+
+		List<ProgramSource[]> compositeArrays = new ArrayList<>();
+		compositeArrays.add(programSet.getShadowComposite());
+		compositeArrays.add(programSet.getPrepare());
+		compositeArrays.add(programSet.getDeferred());
+		compositeArrays.add(programSet.getComposite());
+
+		for (ProgramSource[] sources : compositeArrays) {
+			for (ProgramSource source : sources) {
+				if (source != null && source.isValid() && patched.add(source)) {
+					patch(source, "composite", profiler);
+				}
+			}
+		}
+	}
+
+	private static void patch(ProgramSource source, String patch, ShaderPackLoadProfiler profiler) {
+		String vertex = source.getVertexSource().orElse(null);
+		String geometry = source.getGeometrySource().orElse(null);
+		String fragment = source.getFragmentSource().orElse(null);
+
+		profiler.push(source.getName());
+		profiler.push(patch);
+
+		try {
+			switch (patch) {
+				case "attributes":
+					TransformPatcher.patchAttributes(vertex, geometry, fragment, ALL_INPUTS);
+					break;
+				case "sodium_terrain":
+					TransformPatcher.patchSodiumTerrain(vertex, geometry, fragment, false);
+					break;
+				case "composite":
+					TransformPatcher.patchComposite(vertex, geometry, fragment);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown patch " + patch);
+			}
+		} catch (RuntimeException e) {
+			throw new IllegalStateException("Failed to patch " + source.getName() + " (" + patch + ")", e);
+		} finally {
+			profiler.pop();
+			profiler.pop();
+		}
+	}
+
+	private static void printSummary(String packName, ShaderPackLoadProfiler profiler) {
+		String packFrame = ShaderPackLoadProfiler.toFrameName(packName);
+		String loadPrefix = packFrame + ";load";
+
+		System.out.println("Loaded " + packName + " in " + millis(profiler.getTotalNanos(packFrame)));
+
+		for (String phase : new String[] {"include_graph", "options", "properties", "programs", "id_map", "textures"}) {
+			System.out.println("  " + phase + ": " + millis(profiler.getTotalNanos(loadPrefix + ";" + phase)));
+		}
+
+		System.out.println("  patch: " + millis(profiler.getTotalNanos(packFrame + ";patch")));
+
+		// Sum up the preprocessing and patching time of every program, across all of its files and patches.
+		Map<String, Long> programNanos = new HashMap<>();
+
+		for (Map.Entry<String, Long> entry : profiler.getSelfNanos().entrySet()) {
+			String[] frames = entry.getKey().split(";");
+
+			if (frames.length >= 4 && frames[1].equals("load") && frames[2].equals("programs")) {
+				String file = frames[3];
+				String program = file.substring(file.lastIndexOf('/') + 1, file.lastIndexOf('.') == -1 ? file.length() : file.lastIndexOf('.'));
+				programNanos.merge(program, entry.getValue(), Long::sum);
+			} else if (frames.length >= 4 && frames[1].equals("patch")) {
+				programNanos.merge(frames[3], entry.getValue(), Long::sum);
+			}
+		}
+
+		System.out.println("Slowest programs:");
+
+		programNanos.entrySet().stream()
+			.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+			.limit(SLOWEST_PROGRAMS_SHOWN)
+			.forEach(entry -> System.out.println("  " + entry.getKey() + ": " + millis(entry.getValue())));
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.2f ms", nanos / 1_000_000.0);
+	}
+}
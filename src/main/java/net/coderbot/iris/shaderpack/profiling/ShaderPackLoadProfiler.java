@@ -0,0 +1,153 @@
+package net.coderbot.iris.shaderpack.profiling;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Times the phases of loading a shader pack, such as building the include graph, discovering options, and
+ * preprocessing the source of each program.
+ *
+ * <p>Phases are nested by calling {@link #push(String)} and {@link #pop()}, and the time spent in each distinct stack
+ * of phases is accumulated. Only the time not spent in nested phases is attributed to a stack, which is what the
+ * folded stack format expected by flame graph tools such as flamegraph.pl and speedscope needs.</p>
+ *
+ * <p>Shader packs are loaded on a single thread, so this isn't thread safe.</p>
+ */
+public class ShaderPackLoadProfiler {
+	/**
+	 * A profiler that doesn't record anything, used when loading shader packs in game.
+	 */
+	public static final ShaderPackLoadProfiler DISABLED = new ShaderPackLoadProfiler(false);
+
+	private final boolean enabled;
+	private final Deque<Frame> stack = new ArrayDeque<>();
+	private final Map<String, Long> selfNanos = new LinkedHashMap<>();
+
+	private ShaderPackLoadProfiler(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public static ShaderPackLoadProfiler create() {
+		return new ShaderPackLoadProfiler(true);
+	}
+
+	public void push(String name) {
+		if (!enabled) {
+			return;
+		}
+
+		stack.push(new Frame(toFrameName(name), System.nanoTime()));
+	}
+
+	/**
+	 * Returns the name that a phase with the given name is recorded as. Semicolons separate phases in the folded
+	 * format, and a space separates the stack from the time, so both are replaced.
+	 */
+	public static String toFrameName(String name) {
+		return name.replace(';', '_').replace(' ', '_');
+	}
+
+	public void pop() {
+		if (!enabled) {
+			return;
+		}
+
+		if (stack.isEmpty()) {
+			throw new IllegalStateException("Tried to pop a shader pack load phase, but no phase was pushed");
+		}
+
+		String path = getStackPath();
+		Frame frame = stack.pop();
+		long elapsed = System.nanoTime() - frame.start;
+
+		selfNanos.merge(path, elapsed - frame.childNanos, Long::sum);
+
+		Frame parent = stack.peek();
+
+		if (parent != null) {
+			parent.childNanos += elapsed;
+		}
+	}
+
+	/**
+	 * Runs the given action as a nested phase with the given name.
+	 */
+	public <T> T time(String name, Supplier<T> action) {
+		push(name);
+
+		try {
+			return action.get();
+		} finally {
+			pop();
+		}
+	}
+
+	private String getStackPath() {
+		StringBuilder path = new StringBuilder();
+		Iterator<Frame> frames = stack.descendingIterator();
+
+		while (frames.hasNext()) {
+			if (path.length() > 0) {
+				path.append(';');
+			}
+
+			path.append(frames.next().name);
+		}
+
+		return path.toString();
+	}
+
+	/**
+	 * @return the time spent in each stack of phases, excluding nested phases, in the order that they were first seen
+	 */
+	public Map<String, Long> getSelfNanos() {
+		return selfNanos;
+	}
+
+	/**
+	 * @return the total time spent in all phases whose stack starts with the given prefix, including nested phases
+	 */
+	public long getTotalNanos(String prefix) {
+		long total = 0;
+
+		for (Map.Entry<String, Long> entry : selfNanos.entrySet()) {
+			String path = entry.getKey();
+
+			if (path.equals(prefix) || path.startsWith(prefix + ";")) {
+				total += entry.getValue();
+			}
+		}
+
+		return total;
+	}
+
+	/**
+	 * Writes the recorded phases in the folded stack format, with one line per stack and times in microseconds.
+	 */
+	public void writeFolded(Writer writer) throws IOException {
+		if (!stack.isEmpty()) {
+			throw new IllegalStateException("Tried to write a shader pack load profile while phases are still running");
+		}
+
+		for (Map.Entry<String, Long> entry : selfNanos.entrySet()) {
+			writer.write(entry.getKey() + " " + Math.max(entry.getValue() / 1000, 0) + "\n");
+		}
+	}
+
+	private static final class Frame {
+		private final String name;
+		private final long start;
+		private long childNanos;
+
+		private Frame(String name, long start) {
+			this.name = name;
+			this.start = start;
+		}
+	}
+}
@@ -3,6 +3,9 @@ package net.coderbot.iris.shaderpack.texture;
 import net.coderbot.iris.gl.texture.InternalTextureFormat;
 import net.coderbot.iris.gl.texture.PixelFormat;
 import net.coderbot.iris.gl.texture.PixelType;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
 
 public abstract class CustomTextureData {
 	private CustomTextureData() {
@@ -12,19 +15,43 @@ public abstract class CustomTextureData {
 	public static final class PngData extends CustomTextureData {
 		private final TextureFilteringData filteringData;
 		private final byte[] content;
+		private final Path path;
 
 		public PngData(TextureFilteringData filteringData, byte[] content) {
 			this.filteringData = filteringData;
 			this.content = content;
+			this.path = null;
+		}
+
+		/**
+		 * Creates PNG texture data that is only read from the given file once the texture is actually created, so that
+		 * the file content isn't kept in memory for as long as the shader pack is loaded.
+		 */
+		public PngData(TextureFilteringData filteringData, Path path) {
+			this.filteringData = filteringData;
+			this.content = null;
+			this.path = path;
 		}
 
 		public TextureFilteringData getFilteringData() {
 			return filteringData;
 		}
 
+		/**
+		 * @return The content of the PNG file, or null if the content should be read from {@link #getPath()}.
+		 */
+		@Nullable
 		public byte[] getContent() {
 			return content;
 		}
+
+		/**
+		 * @return The path of the PNG file, or null if the content is already in memory.
+		 */
+		@Nullable
+		public Path getPath() {
+			return path;
+		}
 	}
 
 	public static final class LightmapMarker extends CustomTextureData {
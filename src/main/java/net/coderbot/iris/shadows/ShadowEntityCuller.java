@@ -0,0 +1,282 @@
+package net.coderbot.iris.shadows;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import net.coderbot.iris.shadows.frustum.advanced.AabbBatch;
+import net.coderbot.iris.shadows.frustum.advanced.AdvancedShadowCullingFrustum;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
+import net.minecraft.core.Registry;
+import net.minecraft.core.SectionPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.boss.enderdragon.EndCrystal;
+import net.minecraft.world.entity.monster.Guardian;
+import net.minecraft.world.phys.AABB;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Culls entities against the shadow frustum, producing a list of visible entities grouped by type so that vanilla's
+ * entity batching works well.
+ *
+ * <p>Most entities are first bucketed by the 16x16x16 section that they're in. Each section keeps track of the union of
+ * the culling boxes of the entities in it, so a whole section can be rejected with a single frustum test without ever
+ * rejecting an entity that {@link EntityRenderDispatcher#shouldRender} would have accepted. The culling boxes of the
+ * entities in the remaining sections are then tested against the frustum, in parallel if there are many of them, or in
+ * batches when the frustum is an {@link AdvancedShadowCullingFrustum}. Only entities whose culling box is visible ever
+ * reach {@link EntityRenderDispatcher#shouldRender}, which is always called on the render thread.</p>
+ *
+ * <p>The culling boxes are captured on the render thread while building the section index, so the worker threads only
+ * ever read those snapshots and the frustum, and never touch an entity or its renderer.</p>
+ *
+ * <p>Entities whose renderer may consider them visible beyond their culling box (leashes, guardian and end crystal
+ * beams, {@link Entity#noCulling}), as well as all modded entities (whose renderers may do the same), skip the
+ * section index and are only tested by their renderer.</p>
+ */
+public class ShadowEntityCuller {
+	private static final int PARALLEL_THRESHOLD = 256;
+	private static final int PARALLEL_BATCH_SIZE = 64;
+
+	private final Long2ObjectOpenHashMap<SectionBucket> sections = new Long2ObjectOpenHashMap<>();
+	private final List<SectionBucket> bucketPool = new ArrayList<>();
+	private final List<Entity> candidates = new ArrayList<>();
+	private final List<Entity> batchCandidates = new ArrayList<>();
+	private final List<AABB> candidateBoxes = new ArrayList<>();
+	private final List<SectionBucket> visibleSections = new ArrayList<>();
+	private final AabbBatch batch = new AabbBatch();
+	private final List<Entity> individuallyTested = new ArrayList<>();
+	private final Reference2BooleanOpenHashMap<EntityType<?>> indexableTypes = new Reference2BooleanOpenHashMap<>();
+	private final Reference2ObjectLinkedOpenHashMap<EntityType<?>, List<Entity>> visibleByType = new Reference2ObjectLinkedOpenHashMap<>();
+
+	private int testedSections;
+	private int rejectedSections;
+
+	public List<Entity> cull(Iterable<Entity> entities, EntityRenderDispatcher dispatcher, Frustum frustum,
+							 double cameraX, double cameraY, double cameraZ) {
+		buildIndex(entities);
+
+		candidates.clear();
+		testedSections = sections.size();
+		rejectedSections = 0;
+
+		if (frustum instanceof AdvancedShadowCullingFrustum) {
+			collectCandidatesBatched((AdvancedShadowCullingFrustum) frustum);
+		} else {
+			collectCandidates(frustum);
+		}
+
+		// The candidates have passed the frustum test with a snapshot of their culling box, but the renderer still
+		// decides whether they're rendered, for example based on their distance. Entities and their renderers are
+		// owned by the render thread, so this happens here and not on the worker threads.
+		for (Entity entity : candidates) {
+			if (dispatcher.shouldRender(entity, frustum, cameraX, cameraY, cameraZ)) {
+				addVisible(entity);
+			}
+		}
+
+		for (Entity entity : individuallyTested) {
+			if (dispatcher.shouldRender(entity, frustum, cameraX, cameraY, cameraZ)) {
+				addVisible(entity);
+			}
+		}
+
+		List<Entity> result = new ArrayList<>(candidates.size() + individuallyTested.size());
+
+		for (List<Entity> group : visibleByType.values()) {
+			result.addAll(group);
+			group.clear();
+		}
+
+		// Don't keep entities alive until the next frame
+		candidates.clear();
+		individuallyTested.clear();
+
+		for (SectionBucket bucket : sections.values()) {
+			bucket.reset();
+			bucketPool.add(bucket);
+		}
+
+		sections.clear();
+
+		return result;
+	}
+
+	private void collectCandidates(Frustum frustum) {
+		for (SectionBucket bucket : sections.values()) {
+			if (frustum.isVisible(bucket.getBounds())) {
+				batchCandidates.addAll(bucket.entities);
+				candidateBoxes.addAll(bucket.boxes);
+			} else {
+				rejectedSections++;
+			}
+		}
+
+		boolean[] visible = new boolean[batchCandidates.size()];
+
+		if (visible.length >= PARALLEL_THRESHOLD) {
+			// Only the culling boxes that were captured on the render thread are touched here, never the entities.
+			int batches = (visible.length + PARALLEL_BATCH_SIZE - 1) / PARALLEL_BATCH_SIZE;
+
+			IntStream.range(0, batches).parallel().forEach(batch -> {
+				int end = Math.min(visible.length, (batch + 1) * PARALLEL_BATCH_SIZE);
+
+				for (int i = batch * PARALLEL_BATCH_SIZE; i < end; i++) {
+					visible[i] = frustum.isVisible(candidateBoxes.get(i));
+				}
+			});
+		} else {
+			for (int i = 0; i < visible.length; i++) {
+				visible[i] = frustum.isVisible(candidateBoxes.get(i));
+			}
+		}
+
+		for (int i = 0; i < visible.length; i++) {
+			if (visible[i]) {
+				candidates.add(batchCandidates.get(i));
+			}
+		}
+
+		batchCandidates.clear();
+		candidateBoxes.clear();
+	}
+
+	private void collectCandidatesBatched(AdvancedShadowCullingFrustum frustum) {
+		batch.clear();
+
+		for (SectionBucket bucket : sections.values()) {
+			batch.add(bucket.minX, bucket.minY, bucket.minZ, bucket.maxX, bucket.maxY, bucket.maxZ);
+		}
+
+		frustum.cullBatch(batch);
+
+		// The iteration order of the map is stable as long as it isn't modified.
+		int sectionIndex = 0;
+
+		for (SectionBucket bucket : sections.values()) {
+			if (batch.isVisible(sectionIndex++)) {
+				visibleSections.add(bucket);
+			} else {
+				rejectedSections++;
+			}
+		}
+
+		batch.clear();
+
+		for (SectionBucket bucket : visibleSections) {
+			batchCandidates.addAll(bucket.entities);
+
+			for (AABB box : bucket.boxes) {
+				batch.add(box);
+			}
+		}
+
+		visibleSections.clear();
+		frustum.cullBatch(batch);
+
+		for (int i = 0; i < batchCandidates.size(); i++) {
+			if (batch.isVisible(i)) {
+				candidates.add(batchCandidates.get(i));
+			}
+		}
+
+		batchCandidates.clear();
+	}
+
+	private void buildIndex(Iterable<Entity> entities) {
+		for (Entity entity : entities) {
+			if (entity.isSpectator()) {
+				continue;
+			}
+
+			if (!canUseSectionIndex(entity)) {
+				individuallyTested.add(entity);
+				continue;
+			}
+
+			AABB box = entity.getBoundingBoxForCulling();
+
+			if (box.hasNaN() || box.getSize() == 0.0) {
+				// The renderer falls back to a box around the entity position in this case, just test it directly.
+				individuallyTested.add(entity);
+				continue;
+			}
+
+			long section = SectionPos.asLong(SectionPos.blockToSectionCoord(Mth.floor(entity.getX())),
+				SectionPos.blockToSectionCoord(Mth.floor(entity.getY())), SectionPos.blockToSectionCoord(Mth.floor(entity.getZ())));
+
+			SectionBucket bucket = sections.get(section);
+
+			if (bucket == null) {
+				bucket = bucketPool.isEmpty() ? new SectionBucket() : bucketPool.remove(bucketPool.size() - 1);
+				sections.put(section, bucket);
+			}
+
+			// EntityRenderer#shouldRender inflates the culling box by 0.5 blocks
+			bucket.add(entity, box.inflate(0.5));
+		}
+	}
+
+	private boolean canUseSectionIndex(Entity entity) {
+		if (entity.noCulling || entity instanceof Guardian || entity instanceof EndCrystal) {
+			return false;
+		}
+
+		if (entity instanceof Mob && ((Mob) entity).isLeashed()) {
+			return false;
+		}
+
+		EntityType<?> type = entity.getType();
+
+		if (!indexableTypes.containsKey(type)) {
+			indexableTypes.put(type, "minecraft".equals(Registry.ENTITY_TYPE.getKey(type).getNamespace()));
+		}
+
+		return indexableTypes.getBoolean(type);
+	}
+
+	private void addVisible(Entity entity) {
+		visibleByType.computeIfAbsent(entity.getType(), type -> new ArrayList<>()).add(entity);
+	}
+
+	public String getDebugString() {
+		return rejectedSections + "/" + testedSections + " sections rejected";
+	}
+
+	private static final class SectionBucket {
+		private final List<Entity> entities = new ArrayList<>();
+		private final List<AABB> boxes = new ArrayList<>();
+		private double minX, minY, minZ, maxX, maxY, maxZ;
+
+		private SectionBucket() {
+			reset();
+		}
+
+		private void reset() {
+			entities.clear();
+			boxes.clear();
+			minX = minY = minZ = Double.POSITIVE_INFINITY;
+			maxX = maxY = maxZ = Double.NEGATIVE_INFINITY;
+		}
+
+		private void add(Entity entity, AABB box) {
+			entities.add(entity);
+			boxes.add(box);
+			minX = Math.min(minX, box.minX);
+			minY = Math.min(minY, box.minY);
+			minZ = Math.min(minZ, box.minZ);
+			maxX = Math.max(maxX, box.maxX);
+			maxY = Math.max(maxY, box.maxY);
+			maxZ = Math.max(maxZ, box.maxZ);
+		}
+
+		private AABB getBounds() {
+			return new AABB(minX, minY, minZ, maxX, maxY, maxZ);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package net.coderbot.iris.shadows;
 
 import com.mojang.math.Matrix4f;
 import net.coderbot.iris.pipeline.ShadowRenderer;
+import net.coderbot.iris.vendored.joml.Vector3f;
 
 public class ShadowRenderingState {
 	public static boolean areShadowsCurrentlyBeingRendered() {
@@ -11,4 +12,12 @@ public class ShadowRenderingState {
 	public static Matrix4f getShadowOrthoMatrix() {
 		return ShadowRenderer.ACTIVE ? ShadowRenderer.PROJECTION.copy() : null;
 	}
+
+	/**
+	 * @return the world-space direction towards the shadow light if chunk faces pointing away from it can be skipped
+	 *         in the current shadow pass, or null if all faces must be rendered
+	 */
+	public static Vector3f getFaceCullingLightDirection() {
+		return ShadowRenderer.ACTIVE ? ShadowRenderer.FACE_CULLING_LIGHT_DIRECTION : null;
+	}
 }
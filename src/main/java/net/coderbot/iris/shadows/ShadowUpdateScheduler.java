@@ -0,0 +1,154 @@
+package net.coderbot.iris.shadows;
+
+import com.mojang.math.Matrix4f;
+import net.coderbot.iris.vendored.joml.Vector3d;
+
+/**
+ * Decides on which frames the shadow map actually needs to be rendered, allowing a previously rendered shadow map to be
+ * reused for a few frames while the sun and the camera are mostly stationary.
+ *
+ * <p>A reused shadow map stays coherent because the shadow model view matrix given to the pack is reprojected: the
+ * shadow pass renders geometry relative to the camera position, so offsetting the cached model view matrix by the
+ * distance that the camera has moved since the shadow map was rendered maps every world position to exactly the same
+ * place in the cached shadow map as before. This holds for both orthographic and perspective shadow projections.</p>
+ *
+ * <p>What can't be reprojected is anything that changed in the world since the last update, such as moving entities or
+ * placed blocks, which is why the number of frames that a shadow map can be reused for is capped.</p>
+ *
+ * <p>When shadow casters are culled against a frustum built from the gbuffer view, the shadow map also only contains
+ * the casters that were relevant to the view at the time, so it can't be reused once the view rotates or the gbuffer
+ * projection changes.</p>
+ */
+public class ShadowUpdateScheduler {
+	// The sun moves by about 0.3 degrees every second, so this forces an update every few frames at most even if
+	// the camera stays still.
+	private static final float ANGLE_THRESHOLD = 0.1F / 360.0F;
+
+	// Moving the camera uncovers parts of the world at the edge of the shadow map that weren't rendered previously.
+	private static final double CAMERA_THRESHOLD_FRACTION = 1.0 / 32.0;
+
+	private static final int STATISTICS_WINDOW = 120;
+
+	private final int maxInterval;
+	private final double cameraThresholdSquared;
+	private final boolean viewDependentCulling;
+
+	private Matrix4f cachedModelView;
+	private float cachedShadowAngle;
+	private Vector3d cachedCameraPosition;
+	private Matrix4f cachedGbufferModelView;
+	private Matrix4f cachedGbufferProjection;
+	private float frameShadowAngle;
+	private Vector3d frameCameraPosition;
+	private Matrix4f frameGbufferModelView;
+	private Matrix4f frameGbufferProjection;
+	private int framesSinceUpdate;
+	private boolean reusingThisFrame;
+
+	private int windowFrames;
+	private int windowUpdates;
+	private int lastWindowUpdates = -1;
+
+	/**
+	 * @param viewDependentCulling whether the shadow pass culls shadow casters against the gbuffer view
+	 */
+	public ShadowUpdateScheduler(int maxInterval, float halfPlaneLength, boolean viewDependentCulling) {
+		this.maxInterval = maxInterval;
+		this.viewDependentCulling = viewDependentCulling;
+
+		double cameraThreshold = halfPlaneLength * CAMERA_THRESHOLD_FRACTION;
+		this.cameraThresholdSquared = cameraThreshold * cameraThreshold;
+	}
+
+	/**
+	 * Called at the start of every frame, before any program that might use the shadow model view matrix is used.
+	 *
+	 * @param forceUpdate whether the shadow pass has per-frame side effects beyond the shadow map itself, such as
+	 *                    voxelization, and therefore must not be skipped.
+	 * @return true if the shadow map must be rendered this frame, false if the cached shadow map can be reused
+	 */
+	public boolean beginFrame(float shadowAngle, Vector3d cameraPosition, Matrix4f gbufferModelView,
+							  Matrix4f gbufferProjection, boolean forceUpdate) {
+		frameShadowAngle = shadowAngle;
+		frameCameraPosition = cameraPosition;
+		frameGbufferModelView = gbufferModelView;
+		frameGbufferProjection = gbufferProjection;
+
+		reusingThisFrame = !forceUpdate && canReuse(shadowAngle, cameraPosition);
+
+		if (reusingThisFrame) {
+			framesSinceUpdate++;
+		} else {
+			windowUpdates++;
+		}
+
+		if (++windowFrames == STATISTICS_WINDOW) {
+			lastWindowUpdates = windowUpdates;
+			windowFrames = 0;
+			windowUpdates = 0;
+		}
+
+		return !reusingThisFrame;
+	}
+
+	private boolean canReuse(float shadowAngle, Vector3d cameraPosition) {
+		if (cachedModelView == null || framesSinceUpdate + 1 >= maxInterval) {
+			return false;
+		}
+
+		// The shadow angle wraps around, and jumps by half a rotation when switching between the sun and the moon.
+		float angleDelta = Math.abs(shadowAngle - cachedShadowAngle) % 1.0F;
+		angleDelta = Math.min(angleDelta, 1.0F - angleDelta);
+
+		if (angleDelta > ANGLE_THRESHOLD) {
+			return false;
+		}
+
+		// Shadow casters that weren't in view when the shadow map was rendered would be missing from it.
+		if (viewDependentCulling && !(frameGbufferModelView.equals(cachedGbufferModelView)
+			&& frameGbufferProjection.equals(cachedGbufferProjection))) {
+			return false;
+		}
+
+		return cameraPosition.distanceSquared(cachedCameraPosition) <= cameraThresholdSquared;
+	}
+
+	/**
+	 * Called once the shadow map has been rendered this frame.
+	 */
+	public void onShadowMapRendered(Matrix4f modelView) {
+		cachedModelView = modelView.copy();
+		cachedShadowAngle = frameShadowAngle;
+		cachedCameraPosition = frameCameraPosition;
+		cachedGbufferModelView = frameGbufferModelView.copy();
+		cachedGbufferProjection = frameGbufferProjection.copy();
+		framesSinceUpdate = 0;
+	}
+
+	public boolean isReusingThisFrame() {
+		return reusingThisFrame;
+	}
+
+	/**
+	 * @return the model view matrix of the cached shadow map, adjusted for the camera movement since it was rendered
+	 */
+	public Matrix4f getReprojectedModelView() {
+		Matrix4f reprojected = cachedModelView.copy();
+
+		reprojected.multiply(Matrix4f.createTranslateMatrix(
+			(float) (frameCameraPosition.x - cachedCameraPosition.x),
+			(float) (frameCameraPosition.y - cachedCameraPosition.y),
+			(float) (frameCameraPosition.z - cachedCameraPosition.z)));
+
+		return reprojected;
+	}
+
+	public String getDebugString() {
+		if (lastWindowUpdates == -1) {
+			return "up to every " + maxInterval + " frames";
+		}
+
+		return "up to every " + maxInterval + " frames, " + lastWindowUpdates + " of the last " + STATISTICS_WINDOW
+			+ " frames rendered";
+	}
+}
@@ -0,0 +1,117 @@
+package net.coderbot.iris.shadows.frustum.advanced;
+
+import net.minecraft.world.phys.AABB;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A reusable list of axis-aligned bounding boxes, stored as a structure of arrays so that they can all be tested against
+ * a frustum at once using {@link AdvancedShadowCullingFrustum#cullBatch(AabbBatch)}.
+ */
+public class AabbBatch {
+	private static final int INITIAL_CAPACITY = 64;
+
+	double[] minX = new double[INITIAL_CAPACITY];
+	double[] minY = new double[INITIAL_CAPACITY];
+	double[] minZ = new double[INITIAL_CAPACITY];
+	double[] maxX = new double[INITIAL_CAPACITY];
+	double[] maxY = new double[INITIAL_CAPACITY];
+	double[] maxZ = new double[INITIAL_CAPACITY];
+
+	// Scratch space for the frustum, relative to the camera position.
+	float[] relativeMinX = new float[INITIAL_CAPACITY];
+	float[] relativeMinY = new float[INITIAL_CAPACITY];
+	float[] relativeMinZ = new float[INITIAL_CAPACITY];
+	float[] relativeMaxX = new float[INITIAL_CAPACITY];
+	float[] relativeMaxY = new float[INITIAL_CAPACITY];
+	float[] relativeMaxZ = new float[INITIAL_CAPACITY];
+	boolean[] culled = new boolean[INITIAL_CAPACITY];
+
+	private final BitSet visible = new BitSet();
+	private int size;
+
+	public void clear() {
+		size = 0;
+		visible.clear();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void add(AABB box) {
+		add(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+	}
+
+	public void add(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		if (size == this.minX.length) {
+			grow();
+		}
+
+		this.minX[size] = minX;
+		this.minY[size] = minY;
+		this.minZ[size] = minZ;
+		this.maxX[size] = maxX;
+		this.maxY[size] = maxY;
+		this.maxZ[size] = maxZ;
+
+		size++;
+	}
+
+	/**
+	 * @return whether the box at the given index was visible the last time that this batch was culled
+	 */
+	public boolean isVisible(int index) {
+		return visible.get(index);
+	}
+
+	/**
+	 * @return the visibility of every box in this batch, as of the last time that it was culled
+	 */
+	public BitSet getVisible() {
+		return visible;
+	}
+
+	void prepare(double cameraX, double cameraY, double cameraZ) {
+		for (int i = 0; i < size; i++) {
+			relativeMinX[i] = (float) (minX[i] - cameraX);
+			relativeMinY[i] = (float) (minY[i] - cameraY);
+			relativeMinZ[i] = (float) (minZ[i] - cameraZ);
+			relativeMaxX[i] = (float) (maxX[i] - cameraX);
+			relativeMaxY[i] = (float) (maxY[i] - cameraY);
+			relativeMaxZ[i] = (float) (maxZ[i] - cameraZ);
+		}
+
+		Arrays.fill(culled, 0, size, false);
+	}
+
+	void finish() {
+		visible.clear();
+
+		for (int i = 0; i < size; i++) {
+			if (!culled[i]) {
+				visible.set(i);
+			}
+		}
+	}
+
+	private void grow() {
+		int capacity = minX.length * 2;
+
+		minX = Arrays.copyOf(minX, capacity);
+		minY = Arrays.copyOf(minY, capacity);
+		minZ = Arrays.copyOf(minZ, capacity);
+		maxX = Arrays.copyOf(maxX, capacity);
+		maxY = Arrays.copyOf(maxY, capacity);
+		maxZ = Arrays.copyOf(maxZ, capacity);
+
+		relativeMinX = new float[capacity];
+		relativeMinY = new float[capacity];
+		relativeMinZ = new float[capacity];
+		relativeMaxX = new float[capacity];
+		relativeMaxY = new float[capacity];
+		relativeMaxZ = new float[capacity];
+		culled = new boolean[capacity];
+	}
+}
@@ -1,6 +1,5 @@
 package net.coderbot.iris.shadows.frustum.advanced;
 
-import net.coderbot.iris.vendored.joml.Math;
 import net.coderbot.iris.shadows.frustum.BoxCuller;
 import net.coderbot.iris.vendored.joml.Matrix4f;
 import net.coderbot.iris.vendored.joml.Vector3f;
@@ -62,6 +61,22 @@ public class AdvancedShadowCullingFrustum extends Frustum {
 	private final Vector4f[] planes = new Vector4f[MAX_CLIPPING_PLANES];
 	private int planeCount = 0;
 
+	/**
+	 * The plane equations again, stored as a structure of arrays once all planes have been added. The x, y, and z
+	 * components are split into their positive and negative parts so that the corner of a box that lies furthest along
+	 * the normal of a plane can be found without branching on the signs of the components: for a component a, either
+	 * the positive part is a and the negative part is zero, or the other way around.
+	 *
+	 * <p>The w component is stored negated, since it's only ever compared against.</p>
+	 */
+	private final float[] positiveX = new float[MAX_CLIPPING_PLANES];
+	private final float[] negativeX = new float[MAX_CLIPPING_PLANES];
+	private final float[] positiveY = new float[MAX_CLIPPING_PLANES];
+	private final float[] negativeY = new float[MAX_CLIPPING_PLANES];
+	private final float[] positiveZ = new float[MAX_CLIPPING_PLANES];
+	private final float[] negativeZ = new float[MAX_CLIPPING_PLANES];
+	private final float[] negatedW = new float[MAX_CLIPPING_PLANES];
+
 	// The center coordinates of this frustum.
 	private double x;
 	private double y;
@@ -80,6 +95,7 @@ public class AdvancedShadowCullingFrustum extends Frustum {
 
 		boolean[] isBack = addBackPlanes(baseClippingPlanes);
 		addEdgePlanes(baseClippingPlanes, isBack);
+		bakePlanes();
 
 		this.boxCuller = boxCuller;
 	}
@@ -89,6 +105,20 @@ public class AdvancedShadowCullingFrustum extends Frustum {
 		planeCount += 1;
 	}
 
+	private void bakePlanes() {
+		for (int i = 0; i < planeCount; i++) {
+			Vector4f plane = planes[i];
+
+			positiveX[i] = Math.max(plane.x(), 0.0F);
+			negativeX[i] = Math.min(plane.x(), 0.0F);
+			positiveY[i] = Math.max(plane.y(), 0.0F);
+			negativeY[i] = Math.min(plane.y(), 0.0F);
+			positiveZ[i] = Math.max(plane.z(), 0.0F);
+			negativeZ[i] = Math.min(plane.z(), 0.0F);
+			negatedW[i] = -plane.w();
+		}
+	}
+
 	/**
 	 * Adds the back planes of the player's view frustum from the perspective of the shadow light.
 	 * This can eliminate many chunks, especially if the player is staring at the shadow light
@@ -314,6 +344,51 @@ public class AdvancedShadowCullingFrustum extends Frustum {
 	}
 
 
+	/**
+	 * Tests every box in the batch against this frustum at once, updating the visibility of each box in the batch.
+	 *
+	 * <p>This goes through the planes one at a time and tests every box against each plane, rather than the other way
+	 * around. The inner loop is branch-free and only reads from flat float arrays, which lets the JIT unroll and
+	 * vectorize it.</p>
+	 */
+	public void cullBatch(AabbBatch batch) {
+		int count = batch.size();
+		batch.prepare(this.x, this.y, this.z);
+
+		boolean[] culled = batch.culled;
+
+		if (boxCuller != null) {
+			for (int i = 0; i < count; i++) {
+				culled[i] = boxCuller.isCulled((float) batch.minX[i], (float) batch.minY[i], (float) batch.minZ[i],
+					(float) batch.maxX[i], (float) batch.maxY[i], (float) batch.maxZ[i]);
+			}
+		}
+
+		float[] minX = batch.relativeMinX;
+		float[] minY = batch.relativeMinY;
+		float[] minZ = batch.relativeMinZ;
+		float[] maxX = batch.relativeMaxX;
+		float[] maxY = batch.relativeMaxY;
+		float[] maxZ = batch.relativeMaxZ;
+
+		for (int plane = 0; plane < planeCount; plane++) {
+			float px = positiveX[plane];
+			float nx = negativeX[plane];
+			float py = positiveY[plane];
+			float ny = negativeY[plane];
+			float pz = positiveZ[plane];
+			float nz = negativeZ[plane];
+			float w = negatedW[plane];
+
+			for (int i = 0; i < count; i++) {
+				float outside = px * maxX[i] + nx * minX[i] + py * maxY[i] + ny * minY[i] + pz * maxZ[i] + nz * minZ[i];
+				culled[i] |= outside < w;
+			}
+		}
+
+		batch.finish();
+	}
+
 	/**
 	 * Checks corner visibility.
 	 * @param minX Minimum X value of the AABB.
@@ -326,47 +401,24 @@ public class AdvancedShadowCullingFrustum extends Frustum {
 	 */
 	private int checkCornerVisibility(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
 		boolean inside = true;
-		float outsideBoundX;
-		float outsideBoundY;
-		float outsideBoundZ;
-		float insideBoundX;
-		float insideBoundY;
-		float insideBoundZ;
 
 		for (int i = 0; i < planeCount; ++i) {
-			Vector4f plane = this.planes[i];
-
 			// Check if plane is inside or intersecting.
-			// This is ported from JOML's FrustumIntersection.
-
-			if (plane.x() < 0) {
-				outsideBoundX = minX;
-				insideBoundX = maxX;
-			} else {
-				outsideBoundX = maxX;
-				insideBoundX = minX;
-			}
+			// This is ported from JOML's FrustumIntersection, see the comment on positiveX for how the corners are
+			// picked.
+			float outside = positiveX[i] * maxX + negativeX[i] * minX
+				+ positiveY[i] * maxY + negativeY[i] * minY
+				+ positiveZ[i] * maxZ + negativeZ[i] * minZ;
 
-			if (plane.y() < 0) {
-				outsideBoundY = minY;
-				insideBoundY = maxY;
-			} else {
-				outsideBoundY = maxY;
-				insideBoundY = minY;
+			if (outside < negatedW[i]) {
+				return 0;
 			}
 
-			if (plane.z() < 0) {
-				outsideBoundZ = minZ;
-				insideBoundZ = maxZ;
-			} else {
-				outsideBoundZ = maxZ;
-				insideBoundZ = minZ;
-			}
+			float insideCorner = positiveX[i] * minX + negativeX[i] * maxX
+				+ positiveY[i] * minY + negativeY[i] * maxY
+				+ positiveZ[i] * minZ + negativeZ[i] * maxZ;
 
-			if (Math.fma(plane.x(), outsideBoundX, Math.fma(plane.y(), outsideBoundY, plane.z() * outsideBoundZ)) < -plane.w()) {
-				return 0;
-			}
-			inside &= Math.fma(plane.x(), insideBoundX, Math.fma(plane.y(), insideBoundY, plane.z() * insideBoundZ)) >= -plane.w();
+			inside &= insideCorner >= negatedW[i];
 		}
 
 		return inside ? 1 : 2;
@@ -15,12 +15,6 @@ import org.lwjgl.opengl.GL20C;
 public class TextureTracker {
 	public static final TextureTracker INSTANCE = new TextureTracker();
 
-	private static Runnable bindTextureListener;
-
-	static {
-		StateUpdateNotifiers.bindTextureNotifier = listener -> bindTextureListener = listener;
-	}
-
 	private final Int2ObjectMap<AbstractTexture> textures = new Int2ObjectOpenHashMap<>();
 
 	private boolean lockBindCallback;
@@ -43,15 +37,12 @@ public class TextureTracker {
 		}
 		if (GlStateManagerAccessor.getActiveTexture() == 0) {
 			lockBindCallback = true;
-			if (bindTextureListener != null) {
-				bindTextureListener.run();
-			}
+			StateUpdateNotifiers.bindTextureNotifier.onValueChanged();
 			WorldRenderingPipeline pipeline = Iris.getPipelineManager().getPipelineNullable();
-			if (pipeline != null) {
-				pipeline.onBindTexture(id);
+			if (pipeline != null && pipeline.onBindTexture(id)) {
+				// Reset texture state
+				IrisRenderSystem.bindTextureToUnit(0, id);
 			}
-			// Reset texture state
-			IrisRenderSystem.bindTextureToUnit(0, id);
 			lockBindCallback = false;
 		}
 	}
@@ -0,0 +1,83 @@
+package net.coderbot.iris.texture.pbr;
+
+/**
+ * Tracks the normal and specular textures that belong to the texture currently bound to texture unit 0.
+ *
+ * <p>Entities and block entities bind their textures over and over again while rendering, often thousands of times
+ * per frame, and most of those binds are either a repeat of the previous texture or of a texture without any PBR
+ * textures of its own. This remembers the last base texture that was bound along with its PBR textures, so that the
+ * holder lookup is skipped if the same texture is bound again, and the PBR samplers are only updated if the PBR
+ * textures actually changed.</p>
+ */
+public class PBRBindingCache {
+	private int lastTextureId = -1;
+	private int lastGeneration;
+
+	private int normalTexture;
+	private int specularTexture;
+
+	private int binds;
+	private int repeatedBinds;
+	private int unchangedBinds;
+
+	private int lastFrameBinds;
+	private int lastFrameRepeatedBinds;
+	private int lastFrameUnchangedBinds;
+
+	/**
+	 * Looks up the PBR textures of the texture with the given ID, which was just bound to texture unit 0.
+	 *
+	 * @return true if the normal or specular texture changed, and the PBR samplers need to be updated
+	 */
+	public boolean onBindTexture(int id) {
+		binds++;
+
+		int generation = PBRTextureManager.INSTANCE.getGeneration();
+
+		if (id == lastTextureId && generation == lastGeneration) {
+			repeatedBinds++;
+			return false;
+		}
+
+		PBRTextureHolder holder = PBRTextureManager.INSTANCE.getOrLoadHolder(id);
+		int newNormalTexture = holder.getNormalTexture().getId();
+		int newSpecularTexture = holder.getSpecularTexture().getId();
+
+		lastTextureId = id;
+		// Loading a holder can close textures and change the generation, so query it again.
+		lastGeneration = PBRTextureManager.INSTANCE.getGeneration();
+
+		if (newNormalTexture == normalTexture && newSpecularTexture == specularTexture) {
+			unchangedBinds++;
+			return false;
+		}
+
+		normalTexture = newNormalTexture;
+		specularTexture = newSpecularTexture;
+
+		return true;
+	}
+
+	public int getNormalTexture() {
+		return normalTexture;
+	}
+
+	public int getSpecularTexture() {
+		return specularTexture;
+	}
+
+	public void beginFrame() {
+		lastFrameBinds = binds;
+		lastFrameRepeatedBinds = repeatedBinds;
+		lastFrameUnchangedBinds = unchangedBinds;
+
+		binds = 0;
+		repeatedBinds = 0;
+		unchangedBinds = 0;
+	}
+
+	public String getDebugString() {
+		return lastFrameBinds + " binds, " + lastFrameRepeatedBinds + " repeated, "
+			+ lastFrameUnchangedBinds + " unchanged";
+	}
+}
@@ -7,6 +7,8 @@ import net.coderbot.iris.Iris;
 import net.coderbot.iris.gl.state.StateUpdateNotifiers;
 import net.coderbot.iris.rendertarget.NativeImageBackedSingleColorTexture;
 import net.coderbot.iris.texture.TextureTracker;
+import net.coderbot.iris.texture.format.TextureFormat;
+import net.coderbot.iris.texture.format.TextureFormatLoader;
 import net.coderbot.iris.texture.pbr.loader.PBRTextureLoader;
 import net.coderbot.iris.texture.pbr.loader.PBRTextureLoader.PBRTextureConsumer;
 import net.coderbot.iris.texture.pbr.loader.PBRTextureLoaderRegistry;
@@ -19,17 +21,10 @@ public class PBRTextureManager {
 
 	public static final boolean DEBUG = System.getProperty("iris.pbr.debug") != null;
 
-	// TODO: Figure out how to merge these two.
-	private static Runnable normalTextureChangeListener;
-	private static Runnable specularTextureChangeListener;
-
-	static {
-		StateUpdateNotifiers.normalTextureChangeNotifier = listener -> normalTextureChangeListener = listener;
-		StateUpdateNotifiers.specularTextureChangeNotifier = listener -> specularTextureChangeListener = listener;
-	}
-
 	private final Int2ObjectMap<PBRTextureHolder> holders = new Int2ObjectOpenHashMap<>();
 	private final PBRTextureConsumerImpl consumer = new PBRTextureConsumerImpl();
+	// Incremented whenever a holder is removed, so that anything remembering holders by texture ID knows to look them up again
+	private int generation;
 
 	private NativeImageBackedSingleColorTexture defaultNormalTexture;
 	private NativeImageBackedSingleColorTexture defaultSpecularTexture;
@@ -67,10 +62,34 @@ public class PBRTextureManager {
 		if (holder == null) {
 			holder = loadHolder(id);
 			holders.put(id, holder);
+			setupTextureParameters(holder);
 		}
 		return holder;
 	}
 
+	/**
+	 * Applies the texture parameters required by the current texture format to the PBR textures of a newly loaded
+	 * holder. The texture format can only change on a resource reload, which also clears all holders, so this only
+	 * needs to happen once per holder instead of every time that its base texture is bound.
+	 */
+	private static void setupTextureParameters(PBRTextureHolder holder) {
+		TextureFormat textureFormat = TextureFormatLoader.getFormat();
+		if (textureFormat != null) {
+			int previousTextureBinding = GlStateManager.getActiveTextureName();
+			textureFormat.setupTextureParameters(PBRType.NORMAL, holder.getNormalTexture());
+			textureFormat.setupTextureParameters(PBRType.SPECULAR, holder.getSpecularTexture());
+			GlStateManager._bindTexture(previousTextureBinding);
+		}
+	}
+
+	/**
+	 * @return a counter that changes whenever a holder is removed, meaning that holders previously returned by
+	 * {@link #getOrLoadHolder(int)} might no longer be valid for their texture ID
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private PBRTextureHolder loadHolder(int id) {
 		AbstractTexture texture = TextureTracker.INSTANCE.getTexture(id);
@@ -94,6 +113,7 @@ public class PBRTextureManager {
 	}
 
 	public void onDeleteTexture(int id) {
+		generation++;
 		PBRTextureHolder holder = holders.remove(id);
 		if (holder != null) {
 			closeHolder(holder);
@@ -107,6 +127,7 @@ public class PBRTextureManager {
 			}
 		}
 		holders.clear();
+		generation++;
 	}
 
 	public void close() {
@@ -136,13 +157,9 @@ public class PBRTextureManager {
 	}
 
 	public static void notifyPBRTexturesChanged() {
-		if (normalTextureChangeListener != null) {
-			normalTextureChangeListener.run();
-		}
-
-		if (specularTextureChangeListener != null) {
-			specularTextureChangeListener.run();
-		}
+		// TODO: Figure out how to merge these two.
+		StateUpdateNotifiers.normalTextureChangeNotifier.onValueChanged();
+		StateUpdateNotifiers.specularTextureChangeNotifier.onValueChanged();
 	}
 
 	private class PBRTextureConsumerImpl implements PBRTextureConsumer {
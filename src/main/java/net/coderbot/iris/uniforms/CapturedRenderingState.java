@@ -1,6 +1,7 @@
 package net.coderbot.iris.uniforms;
 
 import com.mojang.math.Matrix4f;
+import net.coderbot.iris.gl.state.StateUpdateNotifiers;
 import net.coderbot.iris.gl.state.ValueUpdateNotifier;
 import net.coderbot.iris.vendored.joml.Vector3d;
 import net.minecraft.client.Minecraft;
@@ -14,11 +15,10 @@ public class CapturedRenderingState {
 	private Matrix4f gbufferProjection;
 	private Vector3d fogColor;
 	private float tickDelta;
+	private float renderScale = 1.0f;
+	private boolean renderingFinalPass;
 	private int currentRenderedBlockEntity;
-	private Runnable blockEntityIdListener = null;
-
 	private int currentRenderedEntity = -1;
-	private Runnable entityIdListener = null;
 
 	private CapturedRenderingState() {
 	}
@@ -59,12 +59,44 @@ public class CapturedRenderingState {
 		return tickDelta;
 	}
 
+	/**
+	 * Returns the fraction of the main framebuffer size that the gbuffer and composite passes currently render to.
+	 */
+	public float getRenderScale() {
+		return renderScale;
+	}
+
+	public void setRenderScale(float renderScale) {
+		this.renderScale = renderScale;
+	}
+
+	/**
+	 * Scales a dimension of the main framebuffer by the current render scale.
+	 */
+	public int getScaledSize(int size) {
+		return Math.max(1, (int) (size * renderScale));
+	}
+
+	/**
+	 * Marks whether the final pass is running. The final pass always covers the whole window, even when the other
+	 * passes render at a reduced scale.
+	 */
+	public void setRenderingFinalPass(boolean renderingFinalPass) {
+		this.renderingFinalPass = renderingFinalPass;
+	}
+
+	/**
+	 * Returns a dimension of the viewport that the current pass renders to, given the same dimension of the main
+	 * framebuffer.
+	 */
+	public int getViewportSize(int size) {
+		return renderingFinalPass ? size : getScaledSize(size);
+	}
+
 	public void setCurrentBlockEntity(int entity) {
 		this.currentRenderedBlockEntity = entity;
 
-		if (this.blockEntityIdListener != null) {
-			this.blockEntityIdListener.run();
-		}
+		StateUpdateNotifiers.blockEntityIdNotifier.onValueChanged();
 	}
 
 	public int getCurrentRenderedBlockEntity() {
@@ -74,17 +106,15 @@ public class CapturedRenderingState {
 	public void setCurrentEntity(int entity) {
 		this.currentRenderedEntity = entity;
 
-		if (this.entityIdListener != null) {
-			this.entityIdListener.run();
-		}
+		StateUpdateNotifiers.entityIdNotifier.onValueChanged();
 	}
 
 	public ValueUpdateNotifier getEntityIdNotifier() {
-		return listener -> this.entityIdListener = listener;
+		return StateUpdateNotifiers.entityIdNotifier;
 	}
 
 	public ValueUpdateNotifier getBlockEntityIdNotifier() {
-		return listener -> this.blockEntityIdListener = listener;
+		return StateUpdateNotifiers.blockEntityIdNotifier;
 	}
 
 	public int getCurrentRenderedEntity() {
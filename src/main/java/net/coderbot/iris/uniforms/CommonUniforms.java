@@ -255,8 +255,4 @@ public final class CommonUniforms {
 			return 0;
 		}
 	}
-
-	static {
-		GbufferPrograms.init();
-	}
 }
@@ -20,24 +20,12 @@ public class FogUniforms {
 			}
 
 			return GlStateManagerAccessor.getFOG().mode;
-		}, listener -> {
-			StateUpdateNotifiers.fogToggleNotifier.setListener(listener);
-			StateUpdateNotifiers.fogModeNotifier.setListener(listener);
-		});
-
-		uniforms.uniform1f("fogDensity", () -> GlStateManagerAccessor.getFOG().density, listener -> {
-			StateUpdateNotifiers.fogToggleNotifier.setListener(listener);
-			StateUpdateNotifiers.fogDensityNotifier.setListener(listener);
-		});
-
-		uniforms.uniform1f("fogStart", () -> GlStateManagerAccessor.getFOG().start, listener -> {
-			StateUpdateNotifiers.fogToggleNotifier.setListener(listener);
-			StateUpdateNotifiers.fogStartNotifier.setListener(listener);
-		});
-
-		uniforms.uniform1f("fogEnd", () -> GlStateManagerAccessor.getFOG().end, listener -> {
-			StateUpdateNotifiers.fogToggleNotifier.setListener(listener);
-			StateUpdateNotifiers.fogEndNotifier.setListener(listener);
-		});
+		}, StateUpdateNotifiers.fogModeNotifier);
+
+		uniforms.uniform1f("fogDensity", () -> GlStateManagerAccessor.getFOG().density, StateUpdateNotifiers.fogDensityNotifier);
+
+		uniforms.uniform1f("fogStart", () -> GlStateManagerAccessor.getFOG().start, StateUpdateNotifiers.fogStartNotifier);
+
+		uniforms.uniform1f("fogEnd", () -> GlStateManagerAccessor.getFOG().end, StateUpdateNotifiers.fogEndNotifier);
 	}
 }
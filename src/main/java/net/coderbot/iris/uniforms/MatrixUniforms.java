@@ -20,8 +20,15 @@ public final class MatrixUniforms {
 		// TODO: In some cases, gbufferProjectionInverse takes on a value much different than OptiFine...
 		// We need to audit Mojang's linear algebra.
 		addMatrix(uniforms, "Projection", CapturedRenderingState.INSTANCE::getGbufferProjection);
-		addShadowMatrix(uniforms, "ModelView", () ->
-				ShadowRenderer.createShadowModelView(directives.getSunPathRotation(), directives.getShadowDirectives().getIntervalSize()).last().pose().copy());
+		addShadowMatrix(uniforms, "ModelView", () -> {
+			// If the shadow map from a previous frame is being reused, the pack needs the matrix that it was rendered
+			// with in order to sample it correctly.
+			if (ShadowRenderer.REPROJECTED_MODELVIEW != null) {
+				return ShadowRenderer.REPROJECTED_MODELVIEW.copy();
+			}
+
+			return ShadowRenderer.createShadowModelView(directives.getSunPathRotation(), directives.getShadowDirectives().getIntervalSize()).last().pose().copy();
+		});
 		addShadowArrayMatrix(uniforms, "Projection", () -> ShadowMatrices.createOrthoMatrix(directives.getShadowDirectives().getDistance()));
 	}
 
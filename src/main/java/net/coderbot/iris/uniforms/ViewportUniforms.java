@@ -23,9 +23,11 @@ public final class ViewportUniforms {
 	public static void addViewportUniforms(UniformHolder uniforms) {
 		// TODO: What about the custom scale.composite3 property?
 		// NB: It is not safe to cache the render target due to mods like Resolution Control modifying the render target field.
+		// NB: With dynamic resolution, the world is only rendered to a part of the render targets, so report that size.
+		//     The final pass is the exception, since it draws to the whole window.
 		uniforms
-			.uniform1f(PER_FRAME, "viewHeight", () -> Minecraft.getInstance().getMainRenderTarget().height)
-			.uniform1f(PER_FRAME, "viewWidth", () -> Minecraft.getInstance().getMainRenderTarget().width)
+			.uniform1f(PER_FRAME, "viewHeight", () -> CapturedRenderingState.INSTANCE.getViewportSize(Minecraft.getInstance().getMainRenderTarget().height))
+			.uniform1f(PER_FRAME, "viewWidth", () -> CapturedRenderingState.INSTANCE.getViewportSize(Minecraft.getInstance().getMainRenderTarget().width))
 			.uniform1f(PER_FRAME, "aspectRatio", ViewportUniforms::getAspectRatio);
 	}
 
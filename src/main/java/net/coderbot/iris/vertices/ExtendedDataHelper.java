@@ -6,6 +6,26 @@ public final class ExtendedDataHelper {
 	/** All fluids have a ShadersMod render type of 1, to match behavior of Minecraft 1.7 and earlier. */
 	public static final short FLUID_RENDER_TYPE = 1;
 
+	/**
+	 * The largest block ID that {@link #packBlockIdAndRenderType} can store. Packs that use larger IDs can't use the
+	 * compact terrain vertex format.
+	 */
+	public static final int MAX_COMPACT_BLOCK_ID = 32766;
+
+	/**
+	 * Packs a block ID and a render type into a single unsigned short. The block ID is stored in the upper 15 bits,
+	 * offset by one so that unmapped blocks (-1) fit. The lowest bit is set for fluids.
+	 *
+	 * <p>IDs above {@link #MAX_COMPACT_BLOCK_ID} don't fit and are clamped to it.</p>
+	 */
+	public static short packBlockIdAndRenderType(short blockId, short renderType) {
+		if (blockId > MAX_COMPACT_BLOCK_ID) {
+			blockId = MAX_COMPACT_BLOCK_ID;
+		}
+
+		return (short) (((blockId + 1) << 1) | (renderType == FLUID_RENDER_TYPE ? 1 : 0));
+	}
+
 	public static int packMidBlock(float x, float y, float z) {
 		return ((int) (x * 64) & 0xFF) | (((int) (y * 64) & 0xFF) << 8) | (((int) (z * 64) & 0xFF) << 16);
 	}
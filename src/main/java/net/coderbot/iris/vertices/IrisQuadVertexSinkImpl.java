@@ -0,0 +1,194 @@
+package net.coderbot.iris.vertices;
+
+import com.mojang.blaze3d.vertex.VertexFormat;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.irisshaders.iris.api.v0.IrisQuadVertexSink;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * Writes batches of quads in the terrain vertex format. The base attributes of a batch are copied into the buffer
+ * first, then the extended attributes of every quad in the batch are computed from what was written, so that the
+ * extended data is filled in with one tight loop instead of in between every vertex.
+ */
+public class IrisQuadVertexSinkImpl implements IrisQuadVertexSink {
+	private static final VertexFormat FORMAT = IrisVertexFormats.TERRAIN;
+	private static final int STRIDE = FORMAT.getVertexSize();
+	private static final int QUAD_STRIDE = STRIDE * 4;
+
+	// Offsets of the extended attributes within a vertex, the base attributes come first and match SOURCE_VERTEX_SIZE
+	private static final int NORMAL_OFFSET = 28;
+	private static final int ENTITY_OFFSET = 32;
+	private static final int MID_TEXTURE_OFFSET = 36;
+	private static final int TANGENT_OFFSET = 44;
+	private static final int MID_BLOCK_OFFSET = 48;
+
+	private final ByteBuffer buffer;
+	private final BulkQuadView quad = new BulkQuadView();
+	private final Vector3f normal = new Vector3f();
+	private short entityId = -1;
+
+	public IrisQuadVertexSinkImpl(int maxQuadCount, IntFunction<ByteBuffer> buffer) {
+		this.buffer = buffer.apply(QUAD_STRIDE * maxQuadCount);
+	}
+
+	@Override
+	public VertexFormat getUnderlyingVertexFormat() {
+		return FORMAT;
+	}
+
+	@Override
+	public ByteBuffer getUnderlyingByteBuffer() {
+		return buffer;
+	}
+
+	@Override
+	public void setEntityId(short entityId) {
+		this.entityId = entityId;
+	}
+
+	@Override
+	public void quads(float[] positions, float[] uvs, int[] colors, int[] light, int firstQuad, int quadCount) {
+		if (firstQuad < 0 || quadCount < 0) {
+			throw new IllegalArgumentException("Invalid quad range: " + quadCount + " quads starting at " + firstQuad);
+		}
+
+		int firstVertex = firstQuad * 4;
+		int endVertex = firstVertex + quadCount * 4;
+
+		// Check everything up front, the arrays are read with plain indexing after the buffer has already been advanced
+		checkLength("positions", positions.length, endVertex * 3);
+		checkLength("uvs", uvs.length, endVertex * 2);
+		checkLength("colors", colors.length, endVertex);
+		checkLength("light", light.length, endVertex);
+
+		long start = reserve(quadCount);
+		long address = start;
+
+		for (int vertex = firstVertex; vertex < endVertex; vertex++) {
+			MemoryUtil.memPutFloat(address, positions[vertex * 3]);
+			MemoryUtil.memPutFloat(address + 4, positions[vertex * 3 + 1]);
+			MemoryUtil.memPutFloat(address + 8, positions[vertex * 3 + 2]);
+			MemoryUtil.memPutInt(address + 12, colors[vertex]);
+			MemoryUtil.memPutFloat(address + 16, uvs[vertex * 2]);
+			MemoryUtil.memPutFloat(address + 20, uvs[vertex * 2 + 1]);
+			MemoryUtil.memPutInt(address + 24, light[vertex]);
+
+			address += STRIDE;
+		}
+
+		fillExtendedData(start, quadCount);
+	}
+
+	@Override
+	public void quads(int quadCount, ByteBuffer vertices) {
+		if (!vertices.isDirect()) {
+			throw new IllegalArgumentException("The vertex buffer must be a direct buffer");
+		}
+
+		int bytes = quadCount * 4 * SOURCE_VERTEX_SIZE;
+
+		if (vertices.remaining() < bytes) {
+			throw new BufferUnderflowException();
+		}
+
+		long start = reserve(quadCount);
+		long source = MemoryUtil.memAddress(vertices);
+		long address = start;
+
+		for (int vertex = 0; vertex < quadCount * 4; vertex++) {
+			// The source layout is the same as the start of the terrain format
+			MemoryUtil.memCopy(source, address, SOURCE_VERTEX_SIZE);
+
+			source += SOURCE_VERTEX_SIZE;
+			address += STRIDE;
+		}
+
+		vertices.position(vertices.position() + bytes);
+
+		fillExtendedData(start, quadCount);
+	}
+
+	private static void checkLength(String name, int length, int required) {
+		if (length < required) {
+			throw new IllegalArgumentException("The " + name + " array has a length of " + length
+				+ ", but the given quads need a length of at least " + required);
+		}
+	}
+
+	/**
+	 * Makes room for the given amount of quads in the buffer.
+	 *
+	 * @return the address that the first quad should be written to
+	 */
+	private long reserve(int quadCount) {
+		int bytes = quadCount * QUAD_STRIDE;
+
+		if (buffer.remaining() < bytes) {
+			throw new BufferOverflowException();
+		}
+
+		long address = MemoryUtil.memAddress(buffer);
+		buffer.position(buffer.position() + bytes);
+
+		return address;
+	}
+
+	private void fillExtendedData(long start, int quadCount) {
+		for (int i = 0; i < quadCount; i++) {
+			long quadAddress = start + (long) i * QUAD_STRIDE;
+			quad.setup(quadAddress);
+
+			NormalHelper.computeFaceNormal(normal, quad);
+			int packedNormal = NormalHelper.packNormal(normal, 0.0F);
+			int tangent = NormalHelper.computeTangent(normal.x, normal.y, normal.z, quad);
+
+			float midU = (quad.u(0) + quad.u(1) + quad.u(2) + quad.u(3)) * 0.25F;
+			float midV = (quad.v(0) + quad.v(1) + quad.v(2) + quad.v(3)) * 0.25F;
+
+			for (int vertex = 0; vertex < 4; vertex++) {
+				long address = quadAddress + (long) vertex * STRIDE;
+
+				MemoryUtil.memPutInt(address + NORMAL_OFFSET, packedNormal);
+				MemoryUtil.memPutShort(address + ENTITY_OFFSET, entityId);
+				MemoryUtil.memPutShort(address + ENTITY_OFFSET + 2, ExtendedDataHelper.BLOCK_RENDER_TYPE);
+				MemoryUtil.memPutFloat(address + MID_TEXTURE_OFFSET, midU);
+				MemoryUtil.memPutFloat(address + MID_TEXTURE_OFFSET + 4, midV);
+				MemoryUtil.memPutInt(address + TANGENT_OFFSET, tangent);
+				MemoryUtil.memPutInt(address + MID_BLOCK_OFFSET, 0);
+			}
+		}
+	}
+
+	private static class BulkQuadView implements QuadView {
+		private long address;
+
+		void setup(long address) {
+			this.address = address;
+		}
+
+		public float x(int index) {
+			return MemoryUtil.memGetFloat(address + (long) STRIDE * index);
+		}
+
+		public float y(int index) {
+			return MemoryUtil.memGetFloat(address + 4 + (long) STRIDE * index);
+		}
+
+		public float z(int index) {
+			return MemoryUtil.memGetFloat(address + 8 + (long) STRIDE * index);
+		}
+
+		public float u(int index) {
+			return MemoryUtil.memGetFloat(address + 16 + (long) STRIDE * index);
+		}
+
+		public float v(int index) {
+			return MemoryUtil.memGetFloat(address + 20 + (long) STRIDE * index);
+		}
+	}
+}
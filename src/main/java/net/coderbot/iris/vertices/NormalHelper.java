@@ -53,6 +53,92 @@ public abstract class NormalHelper {
 		return ((byte) (packedNormal >> (8 * component))) / 127f;
 	}
 
+	/**
+	 * Stores a normal and a tangent (as packed by {@link #computeTangent}) as a quartet of unsigned bytes, using an
+	 * octahedral encoding for both vectors.
+	 *
+	 * <p>The first two bytes are the normal, with 8 bits per component. The last two bytes are the tangent, with 8 bits
+	 * for the first component and 7 bits for the second component. The remaining top bit is set if the w component of
+	 * the tangent is negative.</p>
+	 *
+	 * <p>Each component is stored as {@code round((v + 1) * scale)}, where the scale is 127 for 8 bits and 63 for 7
+	 * bits, and is decoded as {@code encoded / scale - 1}. The largest encoded value goes unused, but in exchange -1, 0,
+	 * and 1 are all stored exactly, so that axis-aligned vectors decode exactly.</p>
+	 */
+	public static int packOctahedralNormalTangent(Vector3f normal, int packedTangent) {
+		int encodedNormal = encodeOctahedral(normal.x, normal.y, normal.z, 127, 127);
+		int encodedTangent = encodeOctahedral(getPackedNormalComponent(packedTangent, 0),
+			getPackedNormalComponent(packedTangent, 1), getPackedNormalComponent(packedTangent, 2), 127, 63);
+		int handedness = getPackedNormalComponent(packedTangent, 3) < 0 ? 0x80000000 : 0;
+
+		return encodedNormal | (encodedTangent << 16) | handedness;
+	}
+
+	/**
+	 * Retrieves the normal packed by {@link #packOctahedralNormalTangent}. This does the same as the shader code that
+	 * decodes the compact terrain vertex format in SodiumTerrainTransformer, and the two must be kept in sync.
+	 */
+	public static void unpackOctahedralNormal(int packed, @NotNull Vector3f saveTo) {
+		decodeOctahedral((packed & 0xFF) / 127.0f - 1.0f, ((packed >>> 8) & 0xFF) / 127.0f - 1.0f, saveTo);
+	}
+
+	/**
+	 * Retrieves the tangent packed by {@link #packOctahedralNormalTangent}, like {@link #unpackOctahedralNormal}.
+	 *
+	 * @return the w component of the tangent, either 1 or -1
+	 */
+	public static float unpackOctahedralTangent(int packed, @NotNull Vector3f saveTo) {
+		decodeOctahedral(((packed >>> 16) & 0xFF) / 127.0f - 1.0f, ((packed >>> 24) & 0x7F) / 63.0f - 1.0f, saveTo);
+
+		return packed < 0 ? -1.0f : 1.0f;
+	}
+
+	/**
+	 * Projects the given vector onto an octahedron, and unfolds it into a square. The two coordinates in the square
+	 * are stored in the low and high byte of the result, as described in {@link #packOctahedralNormalTangent}.
+	 *
+	 * <p>The shader that decodes these values must treat a coordinate of exactly zero as positive.</p>
+	 */
+	private static int encodeOctahedral(float x, float y, float z, int scaleX, int scaleY) {
+		float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+
+		float octX = 0.0f;
+		float octY = 0.0f;
+
+		if (l1 != 0.0f) {
+			octX = x / l1;
+			octY = y / l1;
+
+			if (z < 0.0f) {
+				// Fold the lower half of the octahedron over the upper half
+				float foldedX = (1.0f - Math.abs(octY)) * (octX >= 0.0f ? 1.0f : -1.0f);
+				float foldedY = (1.0f - Math.abs(octX)) * (octY >= 0.0f ? 1.0f : -1.0f);
+
+				octX = foldedX;
+				octY = foldedY;
+			}
+		}
+
+		int encodedX = Math.round((octX + 1.0f) * scaleX);
+		int encodedY = Math.round((octY + 1.0f) * scaleY);
+
+		return (encodedX & 0xFF) | ((encodedY & 0xFF) << 8);
+	}
+
+	private static void decodeOctahedral(float octX, float octY, Vector3f saveTo) {
+		float z = 1.0f - Math.abs(octX) - Math.abs(octY);
+		float x = octX;
+		float y = octY;
+
+		if (z < 0.0f) {
+			// Unfold the lower half of the octahedron
+			x = (1.0f - Math.abs(octY)) * (octX >= 0.0f ? 1.0f : -1.0f);
+			y = (1.0f - Math.abs(octX)) * (octY >= 0.0f ? 1.0f : -1.0f);
+		}
+
+		saveTo.set(x, y, z).normalize();
+	}
+
 	/**
 	 * Computes the face normal of the given quad and saves it in the provided non-null vector.
 	 *
@@ -25,7 +25,7 @@ public interface IrisApi {
 	 * if they wish to check whether given API calls are available on
 	 * the currently installed Iris version.
 	 *
-	 * @return The current minor revision. Currently, revision 1.
+	 * @return The current minor revision. Currently, revision 2.
 	 */
 	int getMinorApiRevision();
 
@@ -105,4 +105,13 @@ public interface IrisApi {
 	 * @since API 0.1
 	 */
 	IrisTextVertexSink createTextVertexSink(int maxQuadCount, IntFunction<ByteBuffer> bufferProvider);
+
+	/**
+	 * Gets a vertex sink that accepts quads in bulk, for mods that render large amounts of geometry. Unlike
+	 * {@link #createTextVertexSink}, this may be called from any thread.
+	 * @param maxQuadCount Maximum amount of quads that will be rendered with this sink
+	 * @param bufferProvider An IntFunction that can provide a {@code ByteBuffer} with at minimum the bytes provided by the input parameter
+	 * @since API 0.2
+	 */
+	IrisQuadVertexSink createQuadVertexSink(int maxQuadCount, IntFunction<ByteBuffer> bufferProvider);
 }
@@ -0,0 +1,79 @@
+package net.irisshaders.iris.api.v0;
+
+import com.mojang.blaze3d.vertex.VertexFormat;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A vertex sink that accepts many quads at once, and fills in the extended vertex attributes used by shader packs
+ * (normal, tangent, mid-texture coordinate, and entity ID) for all of them in a single pass.
+ *
+ * <p>A sink only writes into its own {@code ByteBuffer} and doesn't touch any OpenGL or Minecraft state, so quads may
+ * be written from any thread, as long as a single sink isn't used from multiple threads at the same time. Drawing the
+ * buffer still needs to happen on the render thread.</p>
+ *
+ * @since API v0.2
+ */
+public interface IrisQuadVertexSink {
+	/**
+	 * The size in bytes of a single vertex in the buffer accepted by {@link #quads(int, ByteBuffer)}.
+	 */
+	int SOURCE_VERTEX_SIZE = 28;
+
+	/**
+	 * Gets the underlying vertex format used for rendering quads.
+	 * @return a valid {@code VertexFormat} instance
+	 */
+	VertexFormat getUnderlyingVertexFormat();
+
+	/**
+	 * Gets the underlying buffer that quads are written to.
+	 * @return a valid {@code ByteBuffer}
+	 */
+	ByteBuffer getUnderlyingByteBuffer();
+
+	/**
+	 * Sets the entity ID ({@code mc_Entity.x}) written for all following quads. Defaults to -1, which is what shader
+	 * packs expect for geometry without an ID.
+	 * @param entityId the entity ID
+	 */
+	void setEntityId(short entityId);
+
+	/**
+	 * Writes quads whose vertex attributes are given as separate arrays. Vertex {@code j} (from 0 to 3) of quad
+	 * {@code i} is read from index {@code i * 4 + j} of each array, scaled by the number of components of that
+	 * attribute.
+	 *
+	 * @param positions three floats per vertex: x, y, and z
+	 * @param uvs two floats per vertex: u and v
+	 * @param colors one integer-packed ABGR color per vertex, packed as described in {@link IrisTextVertexSink#quad}
+	 * @param light one integer packed light coordinate per vertex
+	 * @param firstQuad the index of the first quad to read from the arrays
+	 * @param quadCount the number of quads to write
+	 * @throws IllegalArgumentException if {@code firstQuad} or {@code quadCount} is negative, or if any of the arrays
+	 * is too short to hold {@code firstQuad + quadCount} quads, in which case nothing is written
+	 * @throws java.nio.BufferOverflowException if the quads don't fit in the underlying buffer
+	 */
+	void quads(float[] positions, float[] uvs, int[] colors, int[] light, int firstQuad, int quadCount);
+
+	/**
+	 * Writes quads whose vertices are packed into a direct buffer, starting at its current position. Each vertex is
+	 * {@link #SOURCE_VERTEX_SIZE} bytes in native byte order, laid out as follows:
+	 *
+	 * <ul>
+	 *     <li>bytes 0-11: the x, y, and z position as floats</li>
+	 *     <li>bytes 12-15: the integer-packed ABGR color</li>
+	 *     <li>bytes 16-23: the u and v texture coordinates as floats</li>
+	 *     <li>bytes 24-27: the integer packed light coordinate</li>
+	 * </ul>
+	 *
+	 * <p>The position of the source buffer is advanced past the quads that were read.</p>
+	 *
+	 * @param quadCount the number of quads to write
+	 * @param vertices a direct buffer containing four vertices per quad
+	 * @throws IllegalArgumentException if the buffer isn't direct
+	 * @throws java.nio.BufferUnderflowException if the buffer has fewer than {@code quadCount} quads remaining
+	 * @throws java.nio.BufferOverflowException if the quads don't fit in the underlying buffer
+	 */
+	void quads(int quadCount, ByteBuffer vertices);
+}
@@ -130,17 +130,27 @@ public class IrisChunkProgramOverrides {
 				builder.attachShader(geomShader);
 			}
 
-			return builder.attachShader(vertShader)
+			builder.attachShader(vertShader)
 					.attachShader(fragShader)
 					.bindAttribute("iris_Pos", ChunkShaderBindingPoints.POSITION)
 					.bindAttribute("iris_Color", ChunkShaderBindingPoints.COLOR)
 					.bindAttribute("iris_TexCoord", ChunkShaderBindingPoints.TEX_COORD)
-					.bindAttribute("iris_LightCoord", ChunkShaderBindingPoints.LIGHT_COORD)
-					.bindAttribute("iris_Normal", IrisChunkShaderBindingPoints.NORMAL)
-					.bindAttribute("at_tangent", IrisChunkShaderBindingPoints.TANGENT)
-					.bindAttribute("mc_midTexCoord", IrisChunkShaderBindingPoints.MID_TEX_COORD)
-					.bindAttribute("mc_Entity", IrisChunkShaderBindingPoints.BLOCK_ID)
-					.bindAttribute("at_midBlock", IrisChunkShaderBindingPoints.MID_BLOCK)
+					.bindAttribute("iris_LightCoord", ChunkShaderBindingPoints.LIGHT_COORD);
+
+			if (pipeline.usesCompactVertexFormat()) {
+				// The patched shaders decode these into iris_Normal, at_tangent, mc_midTexCoord, and mc_Entity.
+				// The tangent shares its data with the normal, so it doesn't need its own attribute.
+				builder.bindAttribute("iris_PackedNormal", IrisChunkShaderBindingPoints.NORMAL)
+						.bindAttribute("iris_MidTexOffset", IrisChunkShaderBindingPoints.MID_TEX_COORD)
+						.bindAttribute("iris_PackedEntity", IrisChunkShaderBindingPoints.BLOCK_ID);
+			} else {
+				builder.bindAttribute("iris_Normal", IrisChunkShaderBindingPoints.NORMAL)
+						.bindAttribute("at_tangent", IrisChunkShaderBindingPoints.TANGENT)
+						.bindAttribute("mc_midTexCoord", IrisChunkShaderBindingPoints.MID_TEX_COORD)
+						.bindAttribute("mc_Entity", IrisChunkShaderBindingPoints.BLOCK_ID);
+			}
+
+			return builder.bindAttribute("at_midBlock", IrisChunkShaderBindingPoints.MID_BLOCK)
 					.bindAttribute("iris_ModelOffset", ChunkShaderBindingPoints.MODEL_OFFSET)
 					.build((program, name) -> {
 						ProgramUniforms uniforms = pipeline.initUniforms(name);
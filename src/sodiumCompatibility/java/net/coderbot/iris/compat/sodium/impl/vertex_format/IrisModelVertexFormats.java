@@ -1,7 +1,9 @@
 package net.coderbot.iris.compat.sodium.impl.vertex_format;
 
+import net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp.CompactXHFPModelVertexType;
 import net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp.XHFPModelVertexType;
 
 public class IrisModelVertexFormats {
 	public static final XHFPModelVertexType MODEL_VERTEX_XHFP = new XHFPModelVertexType();
+	public static final CompactXHFPModelVertexType MODEL_VERTEX_XHFP_COMPACT = new CompactXHFPModelVertexType();
 }
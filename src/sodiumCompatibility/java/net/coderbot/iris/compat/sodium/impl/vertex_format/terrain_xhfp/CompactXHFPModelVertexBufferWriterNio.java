@@ -0,0 +1,117 @@
+package net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferWriterNio;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexUtil;
+import net.coderbot.iris.block_rendering.ChunkMeshStatistics;
+import net.coderbot.iris.compat.sodium.impl.block_context.BlockContextHolder;
+import net.coderbot.iris.compat.sodium.impl.block_context.ContextAwareVertexWriter;
+import net.coderbot.iris.compat.sodium.impl.vertex_format.IrisModelVertexFormats;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vertices.ExtendedDataHelper;
+import net.coderbot.iris.vertices.NormalHelper;
+
+import java.nio.ByteBuffer;
+
+import static net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp.CompactXHFPModelVertexType.STRIDE;
+
+public class CompactXHFPModelVertexBufferWriterNio extends VertexBufferWriterNio implements ModelVertexSink, ContextAwareVertexWriter {
+	private final QuadViewTerrain.QuadViewTerrainNio quad = new QuadViewTerrain.QuadViewTerrainNio();
+	private final Vector3f normal = new Vector3f();
+
+	private BlockContextHolder contextHolder;
+
+	private int vertexCount;
+	private int uSum;
+	private int vSum;
+
+	public CompactXHFPModelVertexBufferWriterNio(VertexBufferView backingBuffer) {
+		super(backingBuffer, IrisModelVertexFormats.MODEL_VERTEX_XHFP_COMPACT);
+	}
+
+	@Override
+	public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+		short encodedU = ModelVertexUtil.denormalizeVertexTextureFloatAsShort(u);
+		short encodedV = ModelVertexUtil.denormalizeVertexTextureFloatAsShort(v);
+
+		uSum += encodedU & 0xFFFF;
+		vSum += encodedV & 0xFFFF;
+
+		this.writeQuadInternal(
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(x),
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(y),
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(z),
+				color,
+				encodedU,
+				encodedV,
+				ModelVertexUtil.encodeLightMapTexCoord(light),
+				ExtendedDataHelper.packBlockIdAndRenderType(contextHolder.blockId, contextHolder.renderType),
+				ExtendedDataHelper.computeMidBlock(x, y, z, contextHolder.localPosX, contextHolder.localPosY, contextHolder.localPosZ)
+		);
+	}
+
+	private void writeQuadInternal(short x, short y, short z, int color, short u, short v, int light, short packedBlockId,
+								   int packedMidBlock) {
+		int i = this.writeOffset;
+
+		vertexCount++;
+		// NB: uSum and vSum must already be incremented outside of this function.
+
+		ByteBuffer buffer = this.byteBuffer;
+		buffer.putShort(i, x);
+		buffer.putShort(i + 2, y);
+		buffer.putShort(i + 4, z);
+		buffer.putShort(i + 6, packedBlockId);
+		buffer.putInt(i + 8, color);
+		buffer.putShort(i + 12, u);
+		buffer.putShort(i + 14, v);
+		buffer.putInt(i + 16, light);
+		// NB: We don't set the midTexCoord offset or the normal and tangent here, they will be filled in later.
+		buffer.putInt(i + 28, packedMidBlock);
+
+		if (vertexCount == 4) {
+			vertexCount = 0;
+
+			long start = ChunkMeshStatistics.INSTANCE.start();
+
+			// The mid texture coordinate is stored relative to the texture coordinate of each vertex, in the same
+			// units. This keeps it exact up to half a unit, and avoids the normalization issues of the full format.
+			int midU = Math.round(uSum * 0.25f);
+			int midV = Math.round(vSum * 0.25f);
+
+			for (int vertex = 0; vertex < 4; vertex++) {
+				int base = i - STRIDE * (3 - vertex);
+
+				buffer.putShort(base + 20, (short) (midU - (buffer.getShort(base + 12) & 0xFFFF)));
+				buffer.putShort(base + 22, (short) (midV - (buffer.getShort(base + 14) & 0xFFFF)));
+			}
+
+			uSum = 0;
+			vSum = 0;
+
+			// normal computation
+			// Implementation based on the algorithm found here:
+			// https://github.com/IrisShaders/ShaderDoc/blob/master/vertex-format-extensions.md#surface-normal-vector
+
+			quad.setup(buffer, i, STRIDE);
+			NormalHelper.computeFaceNormal(normal, quad);
+			int tangent = NormalHelper.computeTangent(normal.x, normal.y, normal.z, quad);
+			int packedNormalTangent = NormalHelper.packOctahedralNormalTangent(normal, tangent);
+
+			buffer.putInt(i + 24, packedNormalTangent);
+			buffer.putInt(i + 24 - STRIDE, packedNormalTangent);
+			buffer.putInt(i + 24 - STRIDE * 2, packedNormalTangent);
+			buffer.putInt(i + 24 - STRIDE * 3, packedNormalTangent);
+
+			ChunkMeshStatistics.INSTANCE.recordQuad(start);
+		}
+
+		this.advance();
+	}
+
+	@Override
+	public void iris$setContextHolder(BlockContextHolder holder) {
+		this.contextHolder = holder;
+	}
+}
@@ -0,0 +1,115 @@
+package net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferWriterUnsafe;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexUtil;
+import net.coderbot.iris.block_rendering.ChunkMeshStatistics;
+import net.coderbot.iris.compat.sodium.impl.block_context.BlockContextHolder;
+import net.coderbot.iris.compat.sodium.impl.block_context.ContextAwareVertexWriter;
+import net.coderbot.iris.compat.sodium.impl.vertex_format.IrisModelVertexFormats;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vertices.ExtendedDataHelper;
+import net.coderbot.iris.vertices.NormalHelper;
+import org.lwjgl.system.MemoryUtil;
+
+import static net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp.CompactXHFPModelVertexType.STRIDE;
+
+public class CompactXHFPModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe implements ModelVertexSink, ContextAwareVertexWriter {
+	private final QuadViewTerrain.QuadViewTerrainUnsafe quad = new QuadViewTerrain.QuadViewTerrainUnsafe();
+	private final Vector3f normal = new Vector3f();
+
+	private BlockContextHolder contextHolder;
+
+	private int vertexCount;
+	private int uSum;
+	private int vSum;
+
+	public CompactXHFPModelVertexBufferWriterUnsafe(VertexBufferView backingBuffer) {
+		super(backingBuffer, IrisModelVertexFormats.MODEL_VERTEX_XHFP_COMPACT);
+	}
+
+	@Override
+	public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+		short encodedU = ModelVertexUtil.denormalizeVertexTextureFloatAsShort(u);
+		short encodedV = ModelVertexUtil.denormalizeVertexTextureFloatAsShort(v);
+
+		uSum += encodedU & 0xFFFF;
+		vSum += encodedV & 0xFFFF;
+
+		this.writeQuadInternal(
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(x),
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(y),
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(z),
+				color,
+				encodedU,
+				encodedV,
+				ModelVertexUtil.encodeLightMapTexCoord(light),
+				ExtendedDataHelper.packBlockIdAndRenderType(contextHolder.blockId, contextHolder.renderType),
+				ExtendedDataHelper.computeMidBlock(x, y, z, contextHolder.localPosX, contextHolder.localPosY, contextHolder.localPosZ)
+		);
+	}
+
+	private void writeQuadInternal(short x, short y, short z, int color, short u, short v, int light, short packedBlockId,
+								   int packedMidBlock) {
+		long i = this.writePointer;
+
+		vertexCount++;
+		// NB: uSum and vSum must already be incremented outside of this function.
+
+		MemoryUtil.memPutShort(i, x);
+		MemoryUtil.memPutShort(i + 2, y);
+		MemoryUtil.memPutShort(i + 4, z);
+		MemoryUtil.memPutShort(i + 6, packedBlockId);
+		MemoryUtil.memPutInt(i + 8, color);
+		MemoryUtil.memPutShort(i + 12, u);
+		MemoryUtil.memPutShort(i + 14, v);
+		MemoryUtil.memPutInt(i + 16, light);
+		// NB: We don't set the midTexCoord offset or the normal and tangent here, they will be filled in later.
+		MemoryUtil.memPutInt(i + 28, packedMidBlock);
+
+		if (vertexCount == 4) {
+			vertexCount = 0;
+
+			long start = ChunkMeshStatistics.INSTANCE.start();
+
+			// The mid texture coordinate is stored relative to the texture coordinate of each vertex, in the same
+			// units. This keeps it exact up to half a unit, and avoids the normalization issues of the full format.
+			int midU = Math.round(uSum * 0.25f);
+			int midV = Math.round(vSum * 0.25f);
+
+			for (int vertex = 0; vertex < 4; vertex++) {
+				long base = i - STRIDE * (3L - vertex);
+
+				MemoryUtil.memPutShort(base + 20, (short) (midU - (MemoryUtil.memGetShort(base + 12) & 0xFFFF)));
+				MemoryUtil.memPutShort(base + 22, (short) (midV - (MemoryUtil.memGetShort(base + 14) & 0xFFFF)));
+			}
+
+			uSum = 0;
+			vSum = 0;
+
+			// normal computation
+			// Implementation based on the algorithm found here:
+			// https://github.com/IrisShaders/ShaderDoc/blob/master/vertex-format-extensions.md#surface-normal-vector
+
+			quad.setup(i, STRIDE);
+			NormalHelper.computeFaceNormal(normal, quad);
+			int tangent = NormalHelper.computeTangent(normal.x, normal.y, normal.z, quad);
+			int packedNormalTangent = NormalHelper.packOctahedralNormalTangent(normal, tangent);
+
+			MemoryUtil.memPutInt(i + 24, packedNormalTangent);
+			MemoryUtil.memPutInt(i + 24 - STRIDE, packedNormalTangent);
+			MemoryUtil.memPutInt(i + 24 - STRIDE * 2, packedNormalTangent);
+			MemoryUtil.memPutInt(i + 24 - STRIDE * 3, packedNormalTangent);
+
+			ChunkMeshStatistics.INSTANCE.recordQuad(start);
+		}
+
+		this.advance();
+	}
+
+	@Override
+	public void iris$setContextHolder(BlockContextHolder holder) {
+		this.contextHolder = holder;
+	}
+}
@@ -0,0 +1,70 @@
+package net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeFormat;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.type.BlittableVertexType;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkMeshAttribute;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.coderbot.iris.compat.sodium.impl.vertex_format.IrisChunkMeshAttributes;
+import net.coderbot.iris.compat.sodium.impl.vertex_format.IrisGlVertexAttributeFormat;
+
+/**
+ * A smaller version of {@link XHFPModelVertexType}, at 32 bytes per vertex instead of 44.
+ *
+ * <ul>
+ *     <li>The block ID and the render type share a single short, stored in the padding after the position.</li>
+ *     <li>The mid texture coordinate is stored as an offset from the texture coordinate of the vertex, in the same
+ *     units as the texture coordinate.</li>
+ *     <li>The normal and the tangent are octahedrally encoded into four bytes.</li>
+ * </ul>
+ *
+ * <p>The shaders have to decode these values, which is done by the Sodium terrain transformer. Since the normal and
+ * the tangent share their bytes, both attributes point to the same data.</p>
+ */
+public class CompactXHFPModelVertexType implements ChunkVertexType {
+	public static final int STRIDE = 32;
+	public static final GlVertexFormat<ChunkMeshAttribute> VERTEX_FORMAT = GlVertexFormat.builder(ChunkMeshAttribute.class, STRIDE)
+			.addElement(ChunkMeshAttribute.POSITION, 0, GlVertexAttributeFormat.UNSIGNED_SHORT, 3, false)
+			.addElement(IrisChunkMeshAttributes.BLOCK_ID, 6, GlVertexAttributeFormat.UNSIGNED_SHORT, 1, false)
+			.addElement(ChunkMeshAttribute.COLOR, 8, GlVertexAttributeFormat.UNSIGNED_BYTE, 4, true)
+			.addElement(ChunkMeshAttribute.TEXTURE, 12, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, false)
+			.addElement(ChunkMeshAttribute.LIGHT, 16, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, true)
+			.addElement(IrisChunkMeshAttributes.MID_TEX_COORD, 20, IrisGlVertexAttributeFormat.SHORT, 2, false)
+			.addElement(IrisChunkMeshAttributes.NORMAL, 24, GlVertexAttributeFormat.UNSIGNED_BYTE, 4, false)
+			.addElement(IrisChunkMeshAttributes.TANGENT, 24, GlVertexAttributeFormat.UNSIGNED_BYTE, 4, false)
+			.addElement(IrisChunkMeshAttributes.MID_BLOCK, 28, IrisGlVertexAttributeFormat.BYTE, 3, false)
+			.build();
+
+	@Override
+	public ModelVertexSink createFallbackWriter(VertexConsumer consumer) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public ModelVertexSink createBufferWriter(VertexBufferView buffer, boolean direct) {
+		return direct ? new CompactXHFPModelVertexBufferWriterUnsafe(buffer) : new CompactXHFPModelVertexBufferWriterNio(buffer);
+	}
+
+	@Override
+	public BlittableVertexType<ModelVertexSink> asBlittable() {
+		return this;
+	}
+
+	@Override
+	public GlVertexFormat<ChunkMeshAttribute> getCustomVertexFormat() {
+		return VERTEX_FORMAT;
+	}
+
+	@Override
+	public float getModelScale() {
+		return XHFPModelVertexType.MODEL_SCALE;
+	}
+
+	@Override
+	public float getTextureScale() {
+		return XHFPModelVertexType.TEXTURE_SCALE;
+	}
+}
@@ -4,6 +4,7 @@ import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
 import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferWriterUnsafe;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
 import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexUtil;
+import net.coderbot.iris.block_rendering.ChunkMeshStatistics;
 import net.coderbot.iris.compat.sodium.impl.block_context.BlockContextHolder;
 import net.coderbot.iris.compat.sodium.impl.block_context.ContextAwareVertexWriter;
 import net.coderbot.iris.compat.sodium.impl.vertex_format.IrisModelVertexFormats;
@@ -72,6 +73,8 @@ public class XHFPModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe
 		if (vertexCount == 4) {
 			vertexCount = 0;
 
+			long start = ChunkMeshStatistics.INSTANCE.start();
+
 			// FIXME
 			// The following logic is incorrect because OpenGL denormalizes shorts by dividing by 65535. The atlas is
 			// based on power-of-two values and so a normalization factor that is not a power of two causes the values
@@ -134,6 +137,8 @@ public class XHFPModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe
 			MemoryUtil.memPutInt(i + 28 - STRIDE, tangent);
 			MemoryUtil.memPutInt(i + 28 - STRIDE * 2, tangent);
 			MemoryUtil.memPutInt(i + 28 - STRIDE * 3, tangent);
+
+			ChunkMeshStatistics.INSTANCE.recordQuad(start);
 		}
 
 		this.advance();
@@ -8,6 +8,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.tasks.ChunkRenderRebuildTas
 import me.jellysquid.mods.sodium.client.render.pipeline.context.ChunkRenderCacheLocal;
 import me.jellysquid.mods.sodium.client.util.task.CancellationSource;
 import me.jellysquid.mods.sodium.client.world.WorldSlice;
+import net.coderbot.iris.block_rendering.ChunkMeshStatistics;
 import net.coderbot.iris.compat.sodium.impl.block_context.ChunkBuildBuffersExt;
 import net.coderbot.iris.vertices.ExtendedDataHelper;
 import net.minecraft.client.renderer.ItemBlockRenderTypes;
@@ -28,6 +29,12 @@ import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
  */
 @Mixin(ChunkRenderRebuildTask.class)
 public class MixinChunkRenderRebuildTask {
+	@Inject(method = "performBuild", at = @At("HEAD"))
+	private void iris$countSection(ChunkRenderCacheLocal cache, ChunkBuildBuffers buffers,
+								   CancellationSource cancellationSource, CallbackInfoReturnable<ChunkBuildResult<?>> cir) {
+		ChunkMeshStatistics.INSTANCE.recordSection();
+	}
+
 	@Inject(method = "performBuild", at = @At(value = "INVOKE",
 			target = "net/minecraft/world/level/block/state/BlockState.getRenderShape()" +
 					"Lnet/minecraft/world/level/block/RenderShape;"),
@@ -50,7 +57,11 @@ public class MixinChunkRenderRebuildTask {
 	private RenderType iris$wrapGetBlockLayer(BlockState blockState, ChunkRenderCacheLocal cache,
 											  ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
 		if (buffers instanceof ChunkBuildBuffersExt) {
+			long start = ChunkMeshStatistics.INSTANCE.start();
+
 			((ChunkBuildBuffersExt) buffers).iris$setMaterialId(blockState, ExtendedDataHelper.BLOCK_RENDER_TYPE);
+
+			ChunkMeshStatistics.INSTANCE.recordIdLookup(start);
 		}
 
 		return ItemBlockRenderTypes.getChunkRenderType(blockState);
@@ -63,7 +74,11 @@ public class MixinChunkRenderRebuildTask {
 	private RenderType iris$wrapGetFluidLayer(FluidState fluidState, ChunkRenderCacheLocal cache,
 											  ChunkBuildBuffers buffers, CancellationSource cancellationSource) {
 		if (buffers instanceof ChunkBuildBuffersExt) {
+			long start = ChunkMeshStatistics.INSTANCE.start();
+
 			((ChunkBuildBuffersExt) buffers).iris$setMaterialId(fluidState.createLegacyBlock(), ExtendedDataHelper.FLUID_RENDER_TYPE);
+
+			ChunkMeshStatistics.INSTANCE.recordIdLookup(start);
 		}
 
 		return ItemBlockRenderTypes.getRenderLayer(fluidState);
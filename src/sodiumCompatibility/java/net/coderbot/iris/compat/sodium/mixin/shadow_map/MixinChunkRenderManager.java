@@ -13,6 +13,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
 import net.coderbot.iris.compat.sodium.impl.shadow_map.SwappableChunkRenderManager;
 import net.coderbot.iris.shadows.ShadowRenderingState;
+import net.coderbot.iris.vendored.joml.Vector3f;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import org.spongepowered.asm.mixin.Final;
@@ -28,7 +29,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 /**
  * Modifies {@link ChunkRenderManager} to support maintaining a separate visibility list for the shadow camera, as well
- * as disabling chunk rebuilds when computing visibility for the shadow camera.
+ * as disabling chunk rebuilds and culling solid chunk faces based on the light direction when computing visibility
+ * for the shadow camera.
  */
 @Mixin(ChunkRenderManager.class)
 public class MixinChunkRenderManager implements SwappableChunkRenderManager {
@@ -79,6 +81,9 @@ public class MixinChunkRenderManager implements SwappableChunkRenderManager {
 	@Unique
 	private static final ObjectArrayFIFOQueue<?> EMPTY_QUEUE = new ObjectArrayFIFOQueue<>();
 
+	@Unique
+	private static final float FACE_CULLING_EPSILON = 0.01F;
+
 	@Inject(method = "<init>", at = @At("RETURN"))
 	private void iris$onInit(SodiumWorldRenderer renderer, ChunkRenderBackend<?> backend,
 							 BlockRenderPassManager renderPassManager, ClientLevel level, int renderDistance,
@@ -130,14 +135,73 @@ public class MixinChunkRenderManager implements SwappableChunkRenderManager {
 	}
 
 	@Inject(method = "computeVisibleFaces", at = @At("HEAD"), cancellable = true, remap = false)
-	private void iris$disableBlockFaceCullingInShadowPass(ChunkRenderContainer<?> render,
-														  CallbackInfoReturnable<Integer> cir) {
-		// TODO: Enable chunk face culling during the shadow pass
+	private void iris$disableFaceCullingInShadowPass(ChunkRenderContainer<?> render,
+													 CallbackInfoReturnable<Integer> cir) {
+		// The regular face culling is based on the position of the player camera, which is meaningless for the shadow
+		// camera.
 		if (ShadowRenderingState.areShadowsCurrentlyBeingRendered()) {
 			cir.setReturnValue(ChunkFaceFlags.ALL);
 		}
 	}
 
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	@Redirect(method = "addChunkToRenderLists", remap = false,
+			at = @At(value = "INVOKE",
+					target = "me/jellysquid/mods/sodium/client/render/chunk/lists/ChunkRenderList.add (Ljava/lang/Object;I)V",
+					remap = false))
+	private void iris$useLightDirectionFaceCullingInShadowPass(ChunkRenderList list, Object state, int visibleFaces) {
+		// Only solid geometry is culled: cutout and translucent geometry such as leaves and glass is often two-sided,
+		// and its faces pointing away from the light still cast shadows.
+		if (ShadowRenderingState.areShadowsCurrentlyBeingRendered()
+			&& list == chunkRenderLists[BlockRenderPass.SOLID.ordinal()]) {
+			visibleFaces &= iris$getFacesTowardsLight();
+		}
+
+		list.add(state, visibleFaces);
+	}
+
+	/**
+	 * Computes the faces that point towards the shadow light. The shadow projection is orthographic, so this is the
+	 * same for every chunk.
+	 */
+	@Unique
+	private static int iris$getFacesTowardsLight() {
+		Vector3f lightDirection = ShadowRenderingState.getFaceCullingLightDirection();
+
+		if (lightDirection == null) {
+			return ChunkFaceFlags.ALL;
+		}
+
+		int visibleFaces = ChunkFaceFlags.UNASSIGNED;
+
+		// Keep faces that are nearly parallel to the light direction, so that slight imprecision never drops them.
+		if (lightDirection.y > -FACE_CULLING_EPSILON) {
+			visibleFaces |= ChunkFaceFlags.UP;
+		}
+
+		if (lightDirection.y < FACE_CULLING_EPSILON) {
+			visibleFaces |= ChunkFaceFlags.DOWN;
+		}
+
+		if (lightDirection.x > -FACE_CULLING_EPSILON) {
+			visibleFaces |= ChunkFaceFlags.EAST;
+		}
+
+		if (lightDirection.x < FACE_CULLING_EPSILON) {
+			visibleFaces |= ChunkFaceFlags.WEST;
+		}
+
+		if (lightDirection.z > -FACE_CULLING_EPSILON) {
+			visibleFaces |= ChunkFaceFlags.SOUTH;
+		}
+
+		if (lightDirection.z < FACE_CULLING_EPSILON) {
+			visibleFaces |= ChunkFaceFlags.NORTH;
+		}
+
+		return visibleFaces;
+	}
+
 	@Redirect(method = "reset()V", remap = false,
 			at = @At(value = "FIELD",
 					target = "me/jellysquid/mods/sodium/client/render/chunk/ChunkRenderManager.rebuildQueue :" +
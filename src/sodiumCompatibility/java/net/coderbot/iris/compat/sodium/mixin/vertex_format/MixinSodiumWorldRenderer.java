@@ -21,7 +21,11 @@ public class MixinSodiumWorldRenderer {
 								"Lme/jellysquid/mods/sodium/client/model/vertex/type/ChunkVertexType;" +
 							")Lme/jellysquid/mods/sodium/client/render/chunk/ChunkRenderBackend;"))
 	private ChunkVertexType iris$overrideVertexType(ChunkVertexType vertexType) {
-		return BlockRenderingSettings.INSTANCE.shouldUseExtendedVertexFormat()
-			? IrisModelVertexFormats.MODEL_VERTEX_XHFP : vertexType;
+		if (!BlockRenderingSettings.INSTANCE.shouldUseExtendedVertexFormat()) {
+			return vertexType;
+		}
+
+		return BlockRenderingSettings.INSTANCE.shouldUseCompactVertexFormat()
+			? IrisModelVertexFormats.MODEL_VERTEX_XHFP_COMPACT : IrisModelVertexFormats.MODEL_VERTEX_XHFP;
 	}
 }
@@ -3,6 +3,8 @@ package net.coderbot.iris.test;
 import com.google.common.collect.ImmutableList;
 import net.coderbot.iris.shaderpack.ShaderPack;
 import net.coderbot.iris.shaderpack.StringPair;
+import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
+import net.coderbot.iris.shaderpack.include.IncludeGraph;
 import org.junit.jupiter.api.Assertions;
 
 import java.net.URISyntaxException;
@@ -19,6 +21,20 @@ public class IrisTests {
 		}
 	}
 
+	public static IncludeGraph loadIncludeGraph(String name, String... startingPaths) {
+		return loadIncludeGraph(getTestShaderPackPath(name), startingPaths);
+	}
+
+	public static IncludeGraph loadIncludeGraph(Path root, String... startingPaths) {
+		ImmutableList.Builder<AbsolutePackPath> starts = ImmutableList.builder();
+
+		for (String path : startingPaths) {
+			starts.add(AbsolutePackPath.fromAbsolutePath(path));
+		}
+
+		return new IncludeGraph(root, starts.build());
+	}
+
 	public static Path getTestShaderPackPath(String name) {
 		try {
 			return Paths.get(IrisTests.class.getResource("/shaderpacks/" + name + "/shaders/").toURI());
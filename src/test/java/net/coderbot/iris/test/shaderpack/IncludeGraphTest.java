@@ -0,0 +1,80 @@
+package net.coderbot.iris.test.shaderpack;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
+import net.coderbot.iris.shaderpack.include.IncludeGraph;
+import net.coderbot.iris.test.IrisTests;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IncludeGraphTest {
+	private static final AbsolutePackPath VERTEX = AbsolutePackPath.fromAbsolutePath("/gbuffers_basic.vsh");
+	private static final AbsolutePackPath VERTEX_SETTINGS = AbsolutePackPath.fromAbsolutePath("/lib/vertex_settings.glsl");
+	private static final AbsolutePackPath FRAGMENT = AbsolutePackPath.fromAbsolutePath("/gbuffers_basic.fsh");
+	private static final AbsolutePackPath FRAGMENT_SETTINGS = AbsolutePackPath.fromAbsolutePath("/lib/fragment_settings.glsl");
+
+	private static IncludeGraph loadGraph() {
+		return IrisTests.loadIncludeGraph("option_components", "/gbuffers_basic.vsh", "/gbuffers_basic.fsh");
+	}
+
+	private static List<AbsolutePackPath> getPathsById(IncludeGraph graph) {
+		List<AbsolutePackPath> paths = new ArrayList<>();
+
+		for (int id = 0; id < graph.size(); id++) {
+			paths.add(graph.getNode(id).getPath());
+		}
+
+		return paths;
+	}
+
+	@Test
+	void testTopologicalIds() {
+		IncludeGraph graph = loadGraph();
+
+		// Included files come first, and files that are ready at the same time are ordered by path
+		Assertions.assertEquals(ImmutableList.of(FRAGMENT_SETTINGS, FRAGMENT, VERTEX_SETTINGS, VERTEX),
+			getPathsById(graph));
+		Assertions.assertEquals(getPathsById(graph), ImmutableList.copyOf(graph.getNodes().keySet()));
+
+		for (int id = 0; id < graph.size(); id++) {
+			Assertions.assertEquals(id, graph.getId(graph.getNode(id).getPath()));
+
+			for (int included : graph.getIncludedIds(id)) {
+				Assertions.assertTrue(included < id, "An included file has a larger ID than its includer");
+			}
+		}
+
+		Assertions.assertArrayEquals(new int[] { 0 }, graph.getIncludedIds(graph.getId(FRAGMENT)));
+		Assertions.assertArrayEquals(new int[] { 1 }, graph.getIncludedByIds(graph.getId(FRAGMENT_SETTINGS)));
+		Assertions.assertEquals(-1, graph.getId(AbsolutePackPath.fromAbsolutePath("/composite.fsh")));
+	}
+
+	@Test
+	void testComputeDependents() {
+		IncludeGraph graph = loadGraph();
+
+		Assertions.assertEquals(ImmutableSet.of(VERTEX_SETTINGS, VERTEX),
+			graph.computeDependents(ImmutableList.of(VERTEX_SETTINGS)));
+		Assertions.assertEquals(ImmutableSet.of(FRAGMENT),
+			graph.computeDependents(ImmutableList.of(FRAGMENT)));
+		Assertions.assertEquals(ImmutableSet.of(),
+			graph.computeDependents(ImmutableList.of(AbsolutePackPath.fromAbsolutePath("/composite.fsh"))));
+	}
+
+	@Test
+	void testWeaklyConnectedComponents() {
+		List<IncludeGraph> components = loadGraph().computeWeaklyConnectedComponents();
+
+		Assertions.assertEquals(2, components.size());
+		Assertions.assertEquals(ImmutableList.of(FRAGMENT_SETTINGS, FRAGMENT), getPathsById(components.get(0)));
+		Assertions.assertEquals(ImmutableList.of(VERTEX_SETTINGS, VERTEX), getPathsById(components.get(1)));
+
+		IncludeGraph vertex = components.get(1);
+
+		Assertions.assertArrayEquals(new int[] { 0 }, vertex.getIncludedIds(vertex.getId(VERTEX)));
+	}
+}
@@ -1,12 +1,31 @@
 package net.coderbot.iris.test.shaderpack;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import net.coderbot.iris.shaderpack.include.AbsolutePackPath;
+import net.coderbot.iris.shaderpack.include.IncludeGraph;
+import net.coderbot.iris.shaderpack.option.MergedBooleanOption;
+import net.coderbot.iris.shaderpack.option.MergedStringOption;
 import net.coderbot.iris.shaderpack.option.OptionAnnotatedSource;
+import net.coderbot.iris.shaderpack.option.OptionLocation;
 import net.coderbot.iris.shaderpack.option.OptionSet;
+import net.coderbot.iris.shaderpack.option.ShaderPackOptions;
 import net.coderbot.iris.shaderpack.option.StringOption;
+import net.coderbot.iris.test.IrisTests;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class OptionDiscoverTest {
 	@Test
@@ -43,6 +62,141 @@ public class OptionDiscoverTest {
 		testNoDiscovery("const int noiseTextureResolution = 512; // Default noise texture size [");
 	}
 
+	@Test
+	void testDefineReferencedInOtherComponent() {
+		// The vertex and fragment shaders don't share any files, so a boolean define is only an option if it's
+		// referenced by a file that ends up in the same program source.
+		IncludeGraph graph = IrisTests.loadIncludeGraph("option_components",
+			"/gbuffers_basic.vsh", "/gbuffers_basic.fsh");
+		OptionSet options = new ShaderPackOptions(graph, Collections.emptyMap()).getOptionSet();
+
+		Assertions.assertEquals(ImmutableSet.of("WAVING_PLANTS", "BLOOM"), options.getBooleanOptions().keySet());
+	}
+
+	@Test
+	void testParallelDiscovery(@TempDir Path root) throws IOException {
+		// Enough files that ShaderPackOptions parses them in parallel
+		String[] programs = writeParallelTestPack(root, 20);
+		IncludeGraph graph = IrisTests.loadIncludeGraph(root, programs);
+		ShaderPackOptions options = new ShaderPackOptions(graph, Collections.emptyMap());
+
+		Assertions.assertEquals(22, graph.size());
+
+		// Parse and merge every file one after another, in order of the node IDs
+		OptionAnnotatedSource[] sources = new OptionAnnotatedSource[graph.size()];
+		Set<String> referencedBooleanDefines = new HashSet<>();
+		ImmutableMap.Builder<AbsolutePackPath, ImmutableMap<Integer, String>> diagnostics = ImmutableMap.builder();
+
+		for (int id = 0; id < sources.length; id++) {
+			sources[id] = new OptionAnnotatedSource(graph.getNode(id).getLines());
+			referencedBooleanDefines.addAll(sources[id].getBooleanDefineReferences().keySet());
+
+			if (!sources[id].getDiagnostics().isEmpty()) {
+				diagnostics.put(graph.getNode(id).getPath(), sources[id].getDiagnostics());
+			}
+		}
+
+		OptionSet.Builder expected = OptionSet.builder();
+
+		for (int id = 0; id < sources.length; id++) {
+			expected.addAll(sources[id].getOptionSet(graph.getNode(id).getPath(), referencedBooleanDefines));
+		}
+
+		Assertions.assertEquals(describe(expected.build()), describe(options.getOptionSet()));
+		Assertions.assertEquals(diagnostics.build(), options.getDiagnostics());
+		Assertions.assertFalse(options.getDiagnostics().isEmpty(), "The test pack should have lines with diagnostics");
+	}
+
+	/**
+	 * Writes a pack of programs that all include the same settings file, and that differ in which options they declare
+	 * and how, so that the result of merging them depends on the order of the files.
+	 *
+	 * @return the paths of the programs
+	 */
+	private static String[] writeParallelTestPack(Path root, int programCount) throws IOException {
+		Files.createDirectories(root.resolve("lib"));
+
+		Files.write(root.resolve("lib/settings.glsl"), Arrays.asList(
+			"#include \"common.glsl\"",
+			"",
+			"#define SHADOWS // Whether shadows are enabled",
+			"#define SHADOW_QUALITY 2 // [1 2 3] Resolution of the shadow map",
+			"//#define VOLUMETRIC_FOG",
+			"",
+			"const int shadowMapResolution = 2048; // [1024 2048 4096]",
+			"const int noiseTextureResolution = 256;"
+		));
+
+		Files.write(root.resolve("lib/common.glsl"), Arrays.asList(
+			"#define PI 3.14159265 // Not an option, since it has no allowed values",
+			"#define BROKEN-NAME 1 // [1 2]",
+			"",
+			"#ifdef SHADOWS",
+			"#endif",
+			"",
+			"#ifdef VOLUMETRIC_FOG",
+			"#endif"
+		));
+
+		String[] programs = new String[programCount];
+
+		for (int i = 0; i < programCount; i++) {
+			programs[i] = "/composite" + (i == 0 ? "" : Integer.toString(i)) + ".fsh";
+
+			List<String> lines = new ArrayList<>();
+			lines.add("#version 120");
+			lines.add("#include \"/lib/settings.glsl\"");
+			lines.add("#define TONEMAP " + (i % 7 == 3 ? 3 : 1) + " // [1 2 3]");
+			lines.add(i % 5 == 2 ? "#define BLOOM // Whether bright areas glow" : "#define BLOOM");
+
+			if (i % 4 == 1) {
+				// Not an option, since it isn't a supported type
+				lines.add("const vec3 sunColor = vec3(1.0); // [1.0]");
+			}
+
+			lines.add("#ifdef BLOOM");
+			lines.add("#endif");
+			lines.add("void main() {}");
+
+			Files.write(root.resolve(programs[i].substring(1)), lines);
+		}
+
+		return programs;
+	}
+
+	/**
+	 * Describes every option of a set, including the order of its locations and which of its declarations it took
+	 * its comment from, since both depend on the order in which the files were merged.
+	 */
+	private static List<String> describe(OptionSet options) {
+		List<String> descriptions = new ArrayList<>();
+
+		for (MergedBooleanOption merged : options.getBooleanOptions().values()) {
+			descriptions.add("boolean " + merged.getOption().getName() + " = " + merged.getOption().getDefaultValue()
+				+ " " + merged.getOption().getComment() + " at " + describe(merged.getLocations()));
+		}
+
+		for (MergedStringOption merged : options.getStringOptions().values()) {
+			descriptions.add("string " + merged.getOption().getName() + " = " + merged.getOption().getDefaultValue()
+				+ " " + merged.getOption().getAllowedValues() + " " + merged.getOption().getComment()
+				+ " at " + describe(merged.getLocations()));
+		}
+
+		Collections.sort(descriptions);
+
+		return descriptions;
+	}
+
+	private static List<String> describe(ImmutableSet<OptionLocation> locations) {
+		List<String> descriptions = new ArrayList<>();
+
+		for (OptionLocation location : locations) {
+			descriptions.add(location.getFilePath().getPathString() + ":" + location.getLineIndex());
+		}
+
+		return descriptions;
+	}
+
 	private void testTrivialString(String base, String expectedOptionName, String expectedDefault,
 							 ImmutableList<String> expectedAllowed) {
 		OptionAnnotatedSource source = new OptionAnnotatedSource(base);
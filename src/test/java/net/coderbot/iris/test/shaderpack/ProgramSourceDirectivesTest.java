@@ -0,0 +1,60 @@
+package net.coderbot.iris.test.shaderpack;
+
+import net.coderbot.iris.shaderpack.ProgramSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ProgramSourceDirectivesTest {
+	private static final String VERTEX = String.join("\n",
+		"#version 120",
+		"varying vec2 texcoord;",
+		"void main() {",
+		"	gl_Position = ftransform();",
+		"	texcoord = gl_MultiTexCoord0.xy;",
+		"}");
+
+	private static final String FRAGMENT = String.join("\n",
+		"#version 120",
+		"uniform sampler2D colortex0;",
+		"const bool colortex0MipmapEnabled = false;",
+		"varying vec2 texcoord;",
+		"void main() {",
+		"	/* RENDERTARGETS: 0 */",
+		"	gl_FragData[0] = texture2D(colortex0, texcoord);",
+		"}");
+
+	private static ProgramSource createSource(String fragment) {
+		return new ProgramSource("composite", VERTEX, null, fragment, null, null, null);
+	}
+
+	@Test
+	void testCodeChangeKeepsDirectives() {
+		ProgramSource edited = createSource(FRAGMENT.replace("texture2D(colortex0, texcoord)",
+			"texture2D(colortex0, texcoord) * 0.5"));
+
+		Assertions.assertTrue(createSource(FRAGMENT).hasSameDirectives(edited));
+	}
+
+	@Test
+	void testNewSamplerUniform() {
+		ProgramSource edited = createSource(FRAGMENT.replace("uniform sampler2D colortex0;",
+			"uniform sampler2D colortex0;\nuniform sampler2D colortex1;"));
+
+		Assertions.assertFalse(createSource(FRAGMENT).hasSameDirectives(edited));
+	}
+
+	@Test
+	void testChangedConstDirective() {
+		ProgramSource edited = createSource(FRAGMENT.replace("colortex0MipmapEnabled = false",
+			"colortex0MipmapEnabled = true"));
+
+		Assertions.assertFalse(createSource(FRAGMENT).hasSameDirectives(edited));
+	}
+
+	@Test
+	void testChangedRenderTargets() {
+		ProgramSource edited = createSource(FRAGMENT.replace("/* RENDERTARGETS: 0 */", "/* RENDERTARGETS: 0,1 */"));
+
+		Assertions.assertFalse(createSource(FRAGMENT).hasSameDirectives(edited));
+	}
+}
@@ -0,0 +1,121 @@
+package net.coderbot.iris.test.vertices;
+
+import net.coderbot.iris.vertices.ExtendedDataHelper;
+import net.coderbot.iris.vertices.IrisQuadVertexSinkImpl;
+import net.coderbot.iris.vertices.NormalHelper;
+import net.irisshaders.iris.api.v0.IrisQuadVertexSink;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class IrisQuadVertexSinkTest {
+	private static final int STRIDE = 52;
+	private static final short ENTITY_ID = 42;
+
+	// Two quads in the XY plane facing +Z, only the second one is written in the tests below
+	private static final float[] POSITIONS = {
+		9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9,
+		0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0
+	};
+
+	private static final float[] UVS = {
+		9, 9, 9, 9, 9, 9, 9, 9,
+		0.25f, 0.5f, 0.75f, 0.5f, 0.75f, 1.0f, 0.25f, 1.0f
+	};
+
+	private static final int[] COLORS = {
+		0, 0, 0, 0,
+		0xFF0000FF, 0xFF00FF00, 0xFFFF0000, 0xFFFFFFFF
+	};
+
+	private static final int[] LIGHT = {
+		0, 0, 0, 0,
+		0x00F000F0, 0x00F00000, 0x000000F0, 0
+	};
+
+	private static IrisQuadVertexSink createSink() {
+		IrisQuadVertexSink sink = new IrisQuadVertexSinkImpl(4,
+			size -> ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder()));
+		sink.setEntityId(ENTITY_ID);
+
+		return sink;
+	}
+
+	@Test
+	void testArrayLayout() {
+		IrisQuadVertexSink sink = createSink();
+		sink.quads(POSITIONS, UVS, COLORS, LIGHT, 1, 1);
+
+		assertQuad(sink.getUnderlyingByteBuffer());
+	}
+
+	@Test
+	void testBufferLayout() {
+		ByteBuffer source = ByteBuffer.allocateDirect(4 * IrisQuadVertexSink.SOURCE_VERTEX_SIZE)
+			.order(ByteOrder.nativeOrder());
+
+		for (int vertex = 4; vertex < 8; vertex++) {
+			source.putFloat(POSITIONS[vertex * 3]);
+			source.putFloat(POSITIONS[vertex * 3 + 1]);
+			source.putFloat(POSITIONS[vertex * 3 + 2]);
+			source.putInt(COLORS[vertex]);
+			source.putFloat(UVS[vertex * 2]);
+			source.putFloat(UVS[vertex * 2 + 1]);
+			source.putInt(LIGHT[vertex]);
+		}
+
+		source.flip();
+
+		IrisQuadVertexSink sink = createSink();
+		sink.quads(1, source);
+
+		Assertions.assertFalse(source.hasRemaining(), "The source buffer wasn't advanced past the quad");
+		assertQuad(sink.getUnderlyingByteBuffer());
+	}
+
+	@Test
+	void testShortArrays() {
+		IrisQuadVertexSink sink = createSink();
+
+		Assertions.assertThrows(IllegalArgumentException.class,
+			() -> sink.quads(POSITIONS, UVS, COLORS, new int[7], 1, 1));
+		Assertions.assertThrows(IllegalArgumentException.class,
+			() -> sink.quads(POSITIONS, UVS, COLORS, LIGHT, 1, 2));
+		Assertions.assertThrows(IllegalArgumentException.class,
+			() -> sink.quads(POSITIONS, UVS, COLORS, LIGHT, -1, 1));
+
+		Assertions.assertEquals(0, sink.getUnderlyingByteBuffer().position(),
+			"The buffer was advanced even though nothing was written");
+	}
+
+	private static void assertQuad(ByteBuffer written) {
+		Assertions.assertEquals(4 * STRIDE, written.position());
+
+		int expectedNormal = NormalHelper.packNormal(0, 0, 1, 0);
+		// The U axis runs along +X and V along +Y, which makes the bitangent point the opposite way of tangent x normal
+		int expectedTangent = NormalHelper.packNormal(1, 0, 0, -1);
+
+		for (int vertex = 0; vertex < 4; vertex++) {
+			int base = vertex * STRIDE;
+			int source = vertex + 4;
+
+			Assertions.assertEquals(POSITIONS[source * 3], written.getFloat(base));
+			Assertions.assertEquals(POSITIONS[source * 3 + 1], written.getFloat(base + 4));
+			Assertions.assertEquals(POSITIONS[source * 3 + 2], written.getFloat(base + 8));
+			Assertions.assertEquals(COLORS[source], written.getInt(base + 12));
+			Assertions.assertEquals(UVS[source * 2], written.getFloat(base + 16));
+			Assertions.assertEquals(UVS[source * 2 + 1], written.getFloat(base + 20));
+			Assertions.assertEquals(LIGHT[source], written.getInt(base + 24));
+
+			Assertions.assertEquals(expectedNormal, written.getInt(base + 28), "Wrong normal for vertex " + vertex);
+			Assertions.assertEquals(ENTITY_ID, written.getShort(base + 32));
+			Assertions.assertEquals(ExtendedDataHelper.BLOCK_RENDER_TYPE, written.getShort(base + 34));
+			Assertions.assertEquals(0.5f, written.getFloat(base + 36), "Wrong mid-texture U for vertex " + vertex);
+			Assertions.assertEquals(0.75f, written.getFloat(base + 40), "Wrong mid-texture V for vertex " + vertex);
+			Assertions.assertEquals(expectedTangent, written.getInt(base + 44), "Wrong tangent for vertex " + vertex);
+			Assertions.assertEquals(0, written.getInt(base + 48));
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package net.coderbot.iris.test.vertices;
+
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vertices.NormalHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class NormalHelperTest {
+	// The worst case of 8 bits per component for the normal, and 7 bits for the second component of the tangent
+	private static final float MAX_NORMAL_ERROR_DEGREES = 1.0f;
+	private static final float MAX_TANGENT_ERROR_DEGREES = 2.0f;
+
+	private static final Vector3f[] AXES = {
+		new Vector3f(1, 0, 0), new Vector3f(-1, 0, 0),
+		new Vector3f(0, 1, 0), new Vector3f(0, -1, 0),
+		new Vector3f(0, 0, 1), new Vector3f(0, 0, -1)
+	};
+
+	@Test
+	void testAxisAlignedVectors() {
+		for (Vector3f normal : AXES) {
+			for (Vector3f tangent : AXES) {
+				if (normal.dot(tangent) != 0.0f) {
+					continue;
+				}
+
+				int packed = NormalHelper.packOctahedralNormalTangent(normal, NormalHelper.packNormal(tangent, 1.0f));
+				Vector3f decoded = new Vector3f();
+
+				NormalHelper.unpackOctahedralNormal(packed, decoded);
+				Assertions.assertEquals(normal, decoded, "Axis-aligned normal wasn't decoded exactly");
+
+				NormalHelper.unpackOctahedralTangent(packed, decoded);
+				Assertions.assertEquals(tangent, decoded, "Axis-aligned tangent wasn't decoded exactly");
+			}
+		}
+	}
+
+	@Test
+	void testDiagonalVectors() {
+		for (int x = -1; x <= 1; x++) {
+			for (int y = -1; y <= 1; y++) {
+				for (int z = -1; z <= 1; z++) {
+					if (x != 0 || y != 0 || z != 0) {
+						testRoundTrip(new Vector3f(x, y, z).normalize(), 1.0f);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void testArbitraryVectors() {
+		Random random = new Random(0);
+
+		for (int i = 0; i < 10000; i++) {
+			Vector3f vector = new Vector3f((float) random.nextGaussian(), (float) random.nextGaussian(),
+				(float) random.nextGaussian());
+
+			testRoundTrip(vector.normalize(), 1.0f);
+		}
+	}
+
+	@Test
+	void testTangentHandedness() {
+		for (Vector3f axis : AXES) {
+			testRoundTrip(axis, 1.0f);
+			testRoundTrip(axis, -1.0f);
+		}
+
+		// The largest values of the 7 bit component are right next to the handedness bit
+		testRoundTrip(new Vector3f(0.1f, 0.99f, -0.1f).normalize(), -1.0f);
+		testRoundTrip(new Vector3f(-0.1f, 0.99f, -0.1f).normalize(), 1.0f);
+	}
+
+	/**
+	 * Packs the vector as both the normal and the tangent, and checks that both decode to roughly the same vectors.
+	 * The tangent is quantized by {@link NormalHelper#packNormal} before it's packed again, so it's compared to that.
+	 */
+	private static void testRoundTrip(Vector3f vector, float handedness) {
+		int packedTangent = NormalHelper.packNormal(vector, handedness);
+		int packed = NormalHelper.packOctahedralNormalTangent(vector, packedTangent);
+
+		Vector3f decoded = new Vector3f();
+		NormalHelper.unpackOctahedralNormal(packed, decoded);
+
+		Assertions.assertTrue(Math.toDegrees(decoded.angle(vector)) <= MAX_NORMAL_ERROR_DEGREES,
+			"Normal " + vector + " was decoded as " + decoded);
+
+		Vector3f tangent = new Vector3f(NormalHelper.getPackedNormalComponent(packedTangent, 0),
+			NormalHelper.getPackedNormalComponent(packedTangent, 1),
+			NormalHelper.getPackedNormalComponent(packedTangent, 2)).normalize();
+		float decodedHandedness = NormalHelper.unpackOctahedralTangent(packed, decoded);
+
+		Assertions.assertTrue(Math.toDegrees(decoded.angle(tangent)) <= MAX_TANGENT_ERROR_DEGREES,
+			"Tangent " + tangent + " was decoded as " + decoded);
+		Assertions.assertEquals(handedness, decodedHandedness);
+	}
+}
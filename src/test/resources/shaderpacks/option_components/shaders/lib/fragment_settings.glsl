@@ -0,0 +1 @@
+#define BLOOM // Whether bright areas glow
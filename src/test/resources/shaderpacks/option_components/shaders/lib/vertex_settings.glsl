@@ -0,0 +1,4 @@
+#define WAVING_PLANTS // Whether plants sway in the wind
+
+// only referenced by the fragment shader, which never includes this file, so this isn't an option
+#define FOG